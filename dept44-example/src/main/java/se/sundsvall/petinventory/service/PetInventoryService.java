@@ -1,17 +1,27 @@
 package se.sundsvall.petinventory.service;
 
+import generated.swagger.io.petstore.Pet;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import se.sundsvall.dept44.concurrent.BatchLoader;
+import se.sundsvall.dept44.concurrent.Fanout;
 import se.sundsvall.dept44.problem.Problem;
 import se.sundsvall.petinventory.api.model.PetInventoryItem;
 import se.sundsvall.petinventory.integration.db.PetImageRepository;
 import se.sundsvall.petinventory.integration.db.PetNameRepository;
 import se.sundsvall.petinventory.integration.db.model.PetImageEntity;
+import se.sundsvall.petinventory.integration.db.model.PetNameEntity;
 import se.sundsvall.petinventory.integration.petstore.PetStoreClient;
 import se.sundsvall.petinventory.service.mapper.PetInventoryMapper;
 
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 import static org.springframework.http.HttpStatus.NOT_FOUND;
@@ -23,36 +33,42 @@ public class PetInventoryService {
 	private static final String ERROR_MESSAGE_PET_NOT_FOUND = "No pet found for provided id!";
 	private static final String ERROR_MESSAGE_IMAGE_NOT_FOUND = "No pet image found for provided petImageId!";
 
+	private final Fanout fanout = Fanout.create("pet-inventory")
+		.withDeadline(Duration.ofSeconds(10))
+		.withMaxConcurrency(4);
+
 	private final PetStoreClient petStoreClient;
 	private final PetNameRepository petNameRepository;
 	private final PetImageRepository petImageRepository;
+	private final BatchLoader<Long, PetNameEntity> petNames;
 
-	public PetInventoryService(final PetStoreClient petStoreClient, final PetNameRepository petNameRepository, final PetImageRepository petImageRepository) {
+	public PetInventoryService(final PetStoreClient petStoreClient, final PetNameRepository petNameRepository, final PetImageRepository petImageRepository,
+		final MeterRegistry meterRegistry) {
 		this.petStoreClient = petStoreClient;
 		this.petNameRepository = petNameRepository;
 		this.petImageRepository = petImageRepository;
+		this.petNames = BatchLoader.create("pet-names", meterRegistry, this::findPetNames);
 	}
 
 	public PetInventoryItem getPetInventoryItem(final long id) {
 		return petStoreClient.findPetById(id)
 			.map(PetInventoryMapper::toPetInventoryItem)
-			.map(this::populateWithName)
+			.map(petInventoryItem -> withName(petInventoryItem, petNames.load(petInventoryItem.getId())))
 			.map(this::populateWithImages)
-			.orElseThrow(() -> Problem.valueOf(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
+			.orElseThrow(() -> Problem.cached(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
 	}
 
 	public List<PetInventoryItem> getPetInventoryList() {
-		return petStoreClient.findAllPets().stream()
-			.map(PetInventoryMapper::toPetInventoryItem)
-			.map(this::populateWithName)
-			.map(this::populateWithImages)
-			.toList();
+		final var pets = petStoreClient.findAllPets();
+		// One query for the names of all pets, instead of one per pet
+		final var names = petNames.loadAll(pets.stream().map(Pet::getId).toList());
+		return fanout.map(pets, pet -> populateWithImages(withName(PetInventoryMapper.toPetInventoryItem(pet), names.get(pet.getId()))));
 	}
 
 	public long savePetImage(final long petInventoryId, final MultipartFile file) {
 
 		final var petNameEntity = petNameRepository.findById(petInventoryId)
-			.orElseThrow(() -> Problem.valueOf(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
+			.orElseThrow(() -> Problem.cached(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
 
 		try {
 			final var petImageEntity = petImageRepository.save(PetImageEntity.create()
@@ -70,16 +86,23 @@ public class PetInventoryService {
 	public PetImageEntity getPetImage(final long id, final long petImageId) {
 
 		final var petNameEntity = petNameRepository.findById(id)
-			.orElseThrow(() -> Problem.valueOf(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
+			.orElseThrow(() -> Problem.cached(NOT_FOUND, ERROR_MESSAGE_PET_NOT_FOUND));
 
 		return petNameEntity.getImages().stream()
 			.filter(petImage -> Objects.equals(petImageId, petImage.getId()))
 			.findFirst()
-			.orElseThrow(() -> Problem.valueOf(NOT_FOUND, ERROR_MESSAGE_IMAGE_NOT_FOUND));
+			.orElseThrow(() -> Problem.cached(NOT_FOUND, ERROR_MESSAGE_IMAGE_NOT_FOUND));
 	}
 
-	private PetInventoryItem populateWithName(final PetInventoryItem petInventoryItem) {
-		petNameRepository.findById(petInventoryItem.getId()).ifPresent(petNameEntity -> petInventoryItem.setName(petNameEntity.getName()));
+	private Map<Long, PetNameEntity> findPetNames(final Set<Long> ids) {
+		return petNameRepository.findAllById(ids).stream()
+			.collect(toMap(PetNameEntity::getId, identity()));
+	}
+
+	private static PetInventoryItem withName(final PetInventoryItem petInventoryItem, final PetNameEntity petNameEntity) {
+		if (petNameEntity != null) {
+			petInventoryItem.setName(petNameEntity.getName());
+		}
 		return petInventoryItem;
 	}
 
@@ -2,12 +2,15 @@ package se.sundsvall.petinventory.service;
 
 import generated.swagger.io.petstore.Pet;
 import generated.swagger.io.petstore.TypeEnum;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 import se.sundsvall.petinventory.api.model.PetInventoryItem;
@@ -20,6 +23,7 @@ import static java.util.Optional.empty;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -37,6 +41,9 @@ class PetInventoryServiceTest {
 	@Mock
 	private PetStoreClient petStoreClientMock;
 
+	@Spy
+	private SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
 	@InjectMocks
 	private PetInventoryService service;
 
@@ -49,14 +56,14 @@ class PetInventoryServiceTest {
 		final var price = 50.75f;
 		final var type = "DOG";
 
-		when(petNameRepositoryMock.findById(id)).thenReturn(Optional.of(PetNameEntity.create().withName(name)));
+		when(petNameRepositoryMock.findAllById(Set.of(id))).thenReturn(List.of(PetNameEntity.create().withId(id).withName(name)));
 		when(petStoreClientMock.findPetById(id)).thenReturn(Optional.of(new Pet().id(id).price(price).type(TypeEnum.fromValue(type))));
 
 		// Call
 		final var result = service.getPetInventoryItem(id);
 
 		// Verifications
-		verify(petNameRepositoryMock).findById(id);
+		verify(petNameRepositoryMock).findAllById(Set.of(id));
 		verify(petStoreClientMock).findPetById(id);
 
 		// Assertions
@@ -80,7 +87,7 @@ class PetInventoryServiceTest {
 
 		// Verifications
 		verify(petStoreClientMock).findPetById(id);
-		verify(petNameRepositoryMock, never()).findById(id);
+		verify(petNameRepositoryMock, never()).findAllById(any());
 
 		// Assertions
 		assertThat(result).isNotNull();
@@ -105,9 +112,10 @@ class PetInventoryServiceTest {
 		final var type2 = "CAT";
 		final var type3 = "BIRD";
 
-		when(petNameRepositoryMock.findById(id1)).thenReturn(Optional.of(PetNameEntity.create().withName(name1)));
-		when(petNameRepositoryMock.findById(id2)).thenReturn(Optional.of(PetNameEntity.create().withName(name2)));
-		when(petNameRepositoryMock.findById(id3)).thenReturn(Optional.of(PetNameEntity.create().withName(name3)));
+		when(petNameRepositoryMock.findAllById(Set.of(id1, id2, id3))).thenReturn(List.of(
+			PetNameEntity.create().withId(id1).withName(name1),
+			PetNameEntity.create().withId(id2).withName(name2),
+			PetNameEntity.create().withId(id3).withName(name3)));
 		when(petStoreClientMock.findAllPets()).thenReturn(List.of(
 			new Pet().id(id1).price(price1).type(TypeEnum.fromValue(type1)),
 			new Pet().id(id2).price(price2).type(TypeEnum.fromValue(type2)),
@@ -117,9 +125,7 @@ class PetInventoryServiceTest {
 		final var result = service.getPetInventoryList();
 
 		// Verifications
-		verify(petNameRepositoryMock).findById(id1);
-		verify(petNameRepositoryMock).findById(id2);
-		verify(petNameRepositoryMock).findById(id3);
+		verify(petNameRepositoryMock).findAllById(Set.of(id1, id2, id3));
 		verify(petStoreClientMock).findAllPets();
 
 		// Assertions
@@ -27,6 +27,7 @@ import se.sundsvall.dept44.authorization.model.User;
 import se.sundsvall.dept44.authorization.model.UsernameAuthenticationToken;
 import se.sundsvall.dept44.authorization.util.JwtTokenUtil;
 import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.problem.ProblemMetrics;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -138,6 +139,7 @@ public class JwtAuthorizationExtractionFilter extends OncePerRequestFilter {
 
 	private void handleException(final HttpServletResponse response, final Exception exception, final String title) throws IOException {
 		LOGGER.error("Exception occurred when processing the jwt token", exception);
+		ProblemMetrics.getShared().recordProblem(ProblemMetrics.SOURCE_JWT, UNAUTHORIZED, title, null, exception.getClass());
 
 		response.setContentType(APPLICATION_PROBLEM_JSON_VALUE);
 		response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
@@ -6,6 +6,8 @@ import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.SignatureException;
 import io.jsonwebtoken.security.WeakKeyException;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
@@ -34,6 +36,7 @@ import se.sundsvall.dept44.ServiceApplication;
 import se.sundsvall.dept44.authorization.configuration.JwtAuthorizationProperties;
 import se.sundsvall.dept44.authorization.model.GenericGrantedAuthority;
 import se.sundsvall.dept44.authorization.util.JwtTokenUtil;
+import se.sundsvall.dept44.problem.ProblemMetrics;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -205,6 +208,32 @@ class JwtAuthorizationExtractionFilterTest {
 		}
 	}
 
+	@Test
+	void doFilterInternalRecordsMetricsOnException() throws Exception {
+		final var jwt = "jwttoken";
+		final var meterRegistry = new SimpleMeterRegistry();
+		ProblemMetrics.setShared(new ProblemMetrics(meterRegistry, true));
+
+		when(propertiesMock.getHeaderName()).thenReturn(DEFAULT_JWT_HEADER_NAME);
+		when(requestMock.getHeader(DEFAULT_JWT_HEADER_NAME)).thenReturn(jwt);
+		when(jwtTokenUtilMock.getUsernameFromToken(jwt)).thenThrow(new ExpiredJwtException(null, null, "Expired"));
+		when(responseMock.getWriter()).thenReturn(printWriterMock);
+		when(jsonMapperMock.writeValueAsString(any())).thenReturn("problemString");
+
+		try (final MockedStatic<SecurityContextHolder> _ = mockStatic(SecurityContextHolder.class)) {
+			filter.doFilterInternal(requestMock, responseMock, filterChainMock);
+
+			assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS)
+				.tag("source", ProblemMetrics.SOURCE_JWT)
+				.tag("status", "401")
+				.tag("title", "Credentials has expired")
+				.tag("exception", "ExpiredJwtException")
+				.counter().count()).isEqualTo(1);
+		} finally {
+			ProblemMetrics.setShared(new ProblemMetrics(Metrics.globalRegistry, true));
+		}
+	}
+
 	// Dummy classes to test annotation verification in shouldNotFilter method
 	private static class PlainBean {
 	}
@@ -10,8 +10,8 @@ import feign.form.spring.SpringFormEncoder;
 import feign.okhttp.OkHttpClient;
 import feign.optionals.OptionalDecoder;
 import java.util.List;
-import javax.net.ssl.X509TrustManager;
 import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.cloud.openfeign.support.AbstractFormWriter;
 import org.springframework.cloud.openfeign.support.FeignEncoderProperties;
@@ -27,6 +27,7 @@ import org.springframework.http.MediaType;
 import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
 import se.sundsvall.dept44.configuration.feign.decoder.BinaryAwareDecoder;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientFactory;
 import se.sundsvall.dept44.security.Truststore;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -111,15 +112,15 @@ public class FeignConfiguration {
 					new SpringDecoder(messageConverters))));
 	}
 
+	/**
+	 * OkHttp client from the {@link FeignHttpClientFactory} bean of the application context, so all Feign clients share a
+	 * connection pool, dispatcher and the {@link Truststore} SSL context, unless their integration is given its own pool in
+	 * {@code dept44.feign.http-client.clients.<client name>}.
+	 */
 	@Bean
 	@ConditionalOnBean(Truststore.class)
-	Client okHttpClient(final Truststore trustStore) {
-
-		final var trustManagerFactory = trustStore.getTrustManagerFactory();
-		final var trustManager = (X509TrustManager) trustManagerFactory.getTrustManagers()[0];
-
-		return new OkHttpClient(new okhttp3.OkHttpClient.Builder()
-			.sslSocketFactory(trustStore.getSSLContext().getSocketFactory(), trustManager)
-			.build());
+	Client okHttpClient(final FeignHttpClientFactory httpClientFactory,
+		@Value("${spring.cloud.openfeign.client.name:}") final String clientName) {
+		return new OkHttpClient(httpClientFactory.getClient(clientName));
 	}
 }
@@ -1,35 +1,81 @@
 package se.sundsvall.dept44.configuration.feign;
 
+import feign.Capability;
+import feign.Feign;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
 import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.function.Supplier;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
 import org.springframework.cloud.openfeign.FeignBuilderCustomizer;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.util.function.SingletonSupplier;
+import se.sundsvall.dept44.compression.CompressionSettings;
+import se.sundsvall.dept44.configuration.feign.async.AsyncCapability;
+import se.sundsvall.dept44.configuration.feign.async.AsyncSettings;
+import se.sundsvall.dept44.configuration.feign.cache.CacheCapability;
+import se.sundsvall.dept44.configuration.feign.cache.CacheSettings;
+import se.sundsvall.dept44.configuration.feign.compression.CompressionCapability;
+import se.sundsvall.dept44.configuration.feign.decoder.StreamingCapability;
+import se.sundsvall.dept44.configuration.feign.hedging.HedgingCapability;
+import se.sundsvall.dept44.configuration.feign.hedging.HedgingSettings;
 import se.sundsvall.dept44.configuration.feign.interceptor.OAuth2RequestInterceptor;
+import se.sundsvall.dept44.configuration.feign.resilience.ResilienceCapability;
+import se.sundsvall.dept44.configuration.feign.resilience.ResilienceRegistries;
+import se.sundsvall.dept44.configuration.feign.resilience.ResilienceSettings;
 import se.sundsvall.dept44.configuration.feign.retryer.ActionRetryer;
+import se.sundsvall.dept44.configuration.feign.retryer.RetryCapability;
+import se.sundsvall.dept44.configuration.feign.retryer.RetrySettings;
+import se.sundsvall.dept44.oauth2.TokenStore;
 import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.support.Identifier;
 
+import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.SECONDS;
 
 /**
  * Chains multiple {@link FeignBuilderCustomizer} into one.
+ * <p>
+ * Capabilities are created when the first client is built and shared by every client of the composed customizer. They
+ * publish metrics in the registry of their settings if it has one, otherwise in the registry of
+ * {@link #withMeterRegistry(MeterRegistry)}, the {@link MeterRegistry} bean of the application or, outside an
+ * application context, the global registry. Capabilities running calls on threads of their own are closed when the
+ * composed customizer bean is destroyed.
+ * <p>
+ * The capabilities wrapping the client are applied in the same order whatever the order of the {@code with}-methods:
+ * the cache outermost, so that only misses and revalidations are hedged, then hedging, then compression, so that each
+ * attempt negotiates compression and the cache keeps decompressed responses. Retries and resilience wrap all of them.
  */
 public class FeignMultiCustomizer {
 
 	private final List<FeignBuilderCustomizer> customizers;
+	private final List<ClientCapability> clientCapabilities;
+	private final Map<String, Supplier<RetryCapability>> retryCapabilities;
+	private final List<AutoCloseable> closeables;
+
+	private BeanFactory beanFactory;
+	private MeterRegistry meterRegistry;
 
 	private FeignMultiCustomizer() {
 		customizers = new ArrayList<>();
+		clientCapabilities = new ArrayList<>();
+		retryCapabilities = new HashMap<>();
+		closeables = new CopyOnWriteArrayList<>();
 	}
 
 	public static FeignMultiCustomizer create() {
@@ -57,16 +103,48 @@ public class FeignMultiCustomizer {
 		return withCustomizer(builder -> builder.errorDecoder(errorDecoder));
 	}
 
+	/**
+	 * Sets the registry that capabilities without a registry in their settings publish metrics in, instead of the
+	 * {@link MeterRegistry} bean of the application.
+	 *
+	 * @param  meterRegistry the registry to publish metrics in
+	 * @return               FeignMultiCustomizer publishing metrics in the registry
+	 */
+	public FeignMultiCustomizer withMeterRegistry(final MeterRegistry meterRegistry) {
+		this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry may not be null");
+		return this;
+	}
+
+	/**
+	 * Enables streaming of response bodies. Methods returning {@link java.io.InputStream},
+	 * {@link org.springframework.core.io.InputStreamResource} or {@link StreamingBody} get the live response stream
+	 * instead of a copy of the body in memory, and the connection is released when the caller closes it. All other
+	 * return types are decoded as before.
+	 * <p>
+	 * {@code ResponseEntity<InputStream>} is still read into memory, use {@link StreamingBody} to get the status and
+	 * headers along with the stream. Note that logging the Feign client at level FULL reads the body into memory as well.
+	 *
+	 * @return FeignMultiCustomizer with streaming of response bodies enabled
+	 */
+	public FeignMultiCustomizer withStreaming() {
+		return withCustomizer(builder -> {
+			// Feign closes the response after decoding unless told not to, which would cut the stream off
+			builder.doNotCloseAfterDecode();
+			builder.addCapability(new StreamingCapability());
+		});
+	}
+
 	/**
 	 * Method for creating a RetryableOAuth2InterceptorForClientRegistration with default scope-set, which includes the
 	 * device-scope needed to ensure correct handling of multiple instances in WSO2. The device-scope will be merged with
-	 * the scopes defined in the clientRegistration.
+	 * the scopes defined in the clientRegistration. The device-scope is unique per JVM, so all clients of this instance
+	 * using the same clientRegistration share one token through the {@link TokenStore}.
 	 *
 	 * @param  clientRegistration containing authorization information for the client
 	 * @return                    FeignMultiCustomizer with a configured RetryableOAuth2InterceptorForClientRegistration
 	 */
 	public FeignMultiCustomizer withRetryableOAuth2InterceptorForClientRegistration(final ClientRegistration clientRegistration) {
-		return withRetryableOAuth2InterceptorForClientRegistration(clientRegistration, Set.of("device_" + UUID.randomUUID()));
+		return withRetryableOAuth2InterceptorForClientRegistration(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE));
 	}
 
 	/**
@@ -80,7 +158,7 @@ public class FeignMultiCustomizer {
 	 * @return                     FeignMultiCustomizer with a configured RetryableOAuth2InterceptorForClientRegistration
 	 */
 	public FeignMultiCustomizer withRetryableOAuth2InterceptorForClientRegistration(final ClientRegistration clientRegistration, final Duration tokenConnectTimeout, final Duration tokenReadTimeout) {
-		return withRetryableOAuth2InterceptorForClientRegistration(clientRegistration, Set.of("device_" + UUID.randomUUID()), tokenConnectTimeout, tokenReadTimeout);
+		return withRetryableOAuth2InterceptorForClientRegistration(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE), tokenConnectTimeout, tokenReadTimeout);
 	}
 
 	/**
@@ -120,6 +198,167 @@ public class FeignMultiCustomizer {
 		});
 	}
 
+	/**
+	 * Retries transient failures with exponential backoff and full jitter, within a retry budget for the integration, using
+	 * the default {@link RetrySettings}. See {@link #withRetry(String, RetrySettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @return                 FeignMultiCustomizer with retries enabled
+	 */
+	public FeignMultiCustomizer withRetry(final String integrationName) {
+		return withRetry(integrationName, RetrySettings.create());
+	}
+
+	/**
+	 * Retries transient failures (I/O errors and 502, 503 and 504 responses by default) of idempotent requests with
+	 * exponential backoff and full jitter, honouring {@code Retry-After}. Retries are limited by a retry budget, so they
+	 * can't multiply the load on the integration during an outage. Retries of invalid tokens by
+	 * {@link #withRetryableOAuth2InterceptorForClientRegistration(ClientRegistration)} work as before.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @param  settings        the retry settings
+	 * @return                 FeignMultiCustomizer with retries enabled
+	 */
+	public FeignMultiCustomizer withRetry(final String integrationName, final RetrySettings settings) {
+		final var retryCapability = lazily(() -> new RetryCapability(integrationName,
+			settings.getMeterRegistry() != null ? settings : settings.withMeterRegistry(meterRegistry())));
+		retryCapabilities.put(integrationName, retryCapability);
+		return withCustomizer(builder -> builder.addCapability(retryCapability.get()));
+	}
+
+	/**
+	 * Hedges slow idempotent requests using the default {@link HedgingSettings}. See
+	 * {@link #withHedging(String, HedgingSettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @return                 FeignMultiCustomizer with hedging enabled
+	 */
+	public FeignMultiCustomizer withHedging(final String integrationName) {
+		return withHedging(integrationName, HedgingSettings.create());
+	}
+
+	/**
+	 * Sends a second attempt of an idempotent request that hasn't been answered within a delay, static or derived from the
+	 * observed latency, and uses the first response. The response of the slower attempt is closed. Hedges are limited to a
+	 * share of the requests, to protect the integration, and also withdraw from the retry budget when retries are enabled
+	 * for the same integration with {@link #withRetry(String, RetrySettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @param  settings        the hedging settings
+	 * @return                 FeignMultiCustomizer with hedging enabled
+	 */
+	public FeignMultiCustomizer withHedging(final String integrationName, final HedgingSettings settings) {
+		// Looked up when the client is built, so that retries may be added after hedging
+		return withClientCapability(ClientLayer.HEDGING, lazily(() -> new HedgingCapability(integrationName,
+			settings.getMeterRegistry() != null ? settings : settings.withMeterRegistry(meterRegistry()),
+			() -> retryCapabilities.containsKey(integrationName) ? retryCapabilities.get(integrationName).get().getBudget() : null)));
+	}
+
+	/**
+	 * Lets methods of the client return {@code CompletableFuture<T>}, using the default {@link AsyncSettings}. See
+	 * {@link #withAsync(String, AsyncSettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in thread names and metrics
+	 * @return                 FeignMultiCustomizer with asynchronous calls enabled
+	 */
+	public FeignMultiCustomizer withAsync(final String integrationName) {
+		return withAsync(integrationName, AsyncSettings.create());
+	}
+
+	/**
+	 * Lets methods of the client return {@code CompletableFuture<T>}. The calls run on virtual threads with the request
+	 * id, identifier and MDC of the caller, through the same interceptors, error decoder and circuit breaker as synchronous
+	 * calls. At most {@link AsyncSettings#getMaxConcurrency()} calls of the client run at the same time, so that a fan-out
+	 * can't overwhelm the integration.
+	 *
+	 * @param  integrationName name of the integration, used in thread names and metrics
+	 * @param  settings        the async settings
+	 * @return                 FeignMultiCustomizer with asynchronous calls enabled
+	 */
+	public FeignMultiCustomizer withAsync(final String integrationName, final AsyncSettings settings) {
+		final var asyncCapability = lazily(() -> new AsyncCapability(integrationName,
+			settings.getMeterRegistry() != null ? settings : settings.withMeterRegistry(meterRegistry())));
+		return withCustomizer(builder -> builder.addCapability(asyncCapability.get()));
+	}
+
+	/**
+	 * Caches responses to GET requests as allowed by their caching headers, using the default {@link CacheSettings}. See
+	 * {@link #withCache(String, CacheSettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @return                 FeignMultiCustomizer with caching enabled
+	 */
+	public FeignMultiCustomizer withCache(final String integrationName) {
+		return withCache(integrationName, CacheSettings.create());
+	}
+
+	/**
+	 * Caches responses to GET requests in memory as allowed by their {@code Cache-Control} or {@code Expires} headers.
+	 * Stale responses with an {@code ETag} or {@code Last-Modified} are revalidated with conditional requests, so an
+	 * unchanged response costs a 304 without body. The cache is bounded by the total size of the responses, and may keep
+	 * the decoded objects as well.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @param  settings        the cache settings
+	 * @return                 FeignMultiCustomizer with caching enabled
+	 */
+	public FeignMultiCustomizer withCache(final String integrationName, final CacheSettings settings) {
+		return withClientCapability(ClientLayer.CACHE, lazily(() -> new CacheCapability(integrationName,
+			settings.getMeterRegistry() != null ? settings : settings.withMeterRegistry(meterRegistry()))));
+	}
+
+	/**
+	 * Accepts gzip-compressed responses, using the default {@link CompressionSettings}. See
+	 * {@link #withCompression(String, CompressionSettings)}.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @return                 FeignMultiCustomizer with compression enabled
+	 */
+	public FeignMultiCustomizer withCompression(final String integrationName) {
+		return withCompression(integrationName, CompressionSettings.create());
+	}
+
+	/**
+	 * Negotiates compressed responses with an {@code Accept-Encoding} header and decompresses them as they are read, and
+	 * compresses request bodies above the threshold of the settings. The compression ratio and time are published as
+	 * metrics.
+	 *
+	 * @param  integrationName name of the integration, used in the metrics
+	 * @param  settings        the compression settings
+	 * @return                 FeignMultiCustomizer with compression enabled
+	 */
+	public FeignMultiCustomizer withCompression(final String integrationName, final CompressionSettings settings) {
+		return withClientCapability(ClientLayer.COMPRESSION, lazily(() -> new CompressionCapability(integrationName,
+			settings.getMeterRegistry() != null ? settings : settings.withMeterRegistry(meterRegistry()))));
+	}
+
+	/**
+	 * Sends the calls of the client through a bulkhead, a circuit breaker and a timeout, using the default
+	 * {@link ResilienceSettings}. See {@link #withResilience(String, ResilienceSettings)}.
+	 *
+	 * @param  integrationName name of the integration, used as name of the components and in the metrics
+	 * @return                 FeignMultiCustomizer with resilience enabled
+	 */
+	public FeignMultiCustomizer withResilience(final String integrationName) {
+		return withResilience(integrationName, ResilienceSettings.create());
+	}
+
+	/**
+	 * Sends the calls of the client through a semaphore bulkhead, so that a slow integration can't hold every request
+	 * thread, a circuit breaker that also opens on a high rate of slow calls, and a per-call timeout. Rejected and timed
+	 * out calls are thrown as {@link se.sundsvall.dept44.exception.ServerProblem}s with status 503 or 504. The components
+	 * are named after the integration and taken from the Resilience4j registries of the application, so
+	 * {@code resilience4j.*} properties apply to them, and they show up in the actuator and metrics like other instances.
+	 *
+	 * @param  integrationName name of the integration, used as name of the components and in the metrics
+	 * @param  settings        the resilience settings
+	 * @return                 FeignMultiCustomizer with resilience enabled
+	 */
+	public FeignMultiCustomizer withResilience(final String integrationName, final ResilienceSettings settings) {
+		final var resilienceCapability = lazily(() -> new ResilienceCapability(integrationName, settings, () -> ResilienceRegistries.from(beanFactory)));
+		return withCustomizer(builder -> builder.addCapability(resilienceCapability.get()));
+	}
+
 	public FeignMultiCustomizer withRequestOptions(final Request.Options options) {
 		return withCustomizer(builder -> builder.options(options));
 	}
@@ -132,7 +371,78 @@ public class FeignMultiCustomizer {
 		return withCustomizer(builder -> builder.requestInterceptor(requestInterceptor));
 	}
 
+	/**
+	 * Composes the customizers into one. When the returned customizer is declared as a bean, capabilities that use beans
+	 * of the application, such as the meter registry and the Resilience4j registries, find them through the bean factory
+	 * it is given, and the capabilities are closed when it is destroyed.
+	 *
+	 * @return the composed customizer
+	 */
 	public FeignBuilderCustomizer composeCustomizersToOne() {
-		return builder -> customizers.forEach(customizer -> customizer.customize(builder));
+		return new ComposedCustomizer();
+	}
+
+	private FeignMultiCustomizer withClientCapability(final ClientLayer layer, final Supplier<? extends Capability> capability) {
+		clientCapabilities.add(new ClientCapability(layer, capability));
+		return this;
+	}
+
+	/**
+	 * Creates the capability when the first client is built, as the bean factory is given to the composed customizer when
+	 * it becomes a bean, and only once, so that the clients share it.
+	 */
+	private <C extends Capability> Supplier<C> lazily(final Supplier<C> factory) {
+		return SingletonSupplier.of(() -> {
+			final var capability = factory.get();
+			if (capability instanceof final AutoCloseable closeable) {
+				closeables.add(closeable);
+			}
+			return capability;
+		});
+	}
+
+	private MeterRegistry meterRegistry() {
+		if (meterRegistry != null) {
+			return meterRegistry;
+		}
+		if (beanFactory == null) {
+			return Metrics.globalRegistry;
+		}
+		return beanFactory.getBeanProvider(MeterRegistry.class).getIfAvailable(() -> Metrics.globalRegistry);
+	}
+
+	/**
+	 * The capabilities wrapping the client, innermost first.
+	 */
+	private enum ClientLayer {
+		COMPRESSION,
+		HEDGING,
+		CACHE
+	}
+
+	private record ClientCapability(ClientLayer layer, Supplier<? extends Capability> capability) {}
+
+	private final class ComposedCustomizer implements FeignBuilderCustomizer, BeanFactoryAware, DisposableBean {
+
+		@Override
+		public void setBeanFactory(final BeanFactory beanFactory) {
+			FeignMultiCustomizer.this.beanFactory = beanFactory;
+		}
+
+		@Override
+		public void customize(final Feign.Builder builder) {
+			customizers.forEach(customizer -> customizer.customize(builder));
+			// Feign wraps the client with the capabilities in the order they are added, the first one innermost
+			clientCapabilities.stream()
+				.sorted(Comparator.comparing(ClientCapability::layer))
+				.forEach(clientCapability -> builder.addCapability(clientCapability.capability().get()));
+		}
+
+		@Override
+		public void destroy() throws Exception {
+			for (final var closeable : closeables) {
+				closeable.close();
+			}
+		}
 	}
 }
@@ -0,0 +1,148 @@
+package se.sundsvall.dept44.configuration.feign;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * Feign return type for large response bodies. In streaming mode (see {@link FeignMultiCustomizer#withStreaming()}),
+ * the body is the live response stream; the connection is released when the body is closed or fully transferred.
+ * <p>
+ * Use {@link #toResponseEntity()} or {@link #toStreamingResponseBody()} to proxy the body to a servlet response without
+ * holding it in memory:
+ *
+ * <pre>
+ * &#64;GetMapping("/documents/{id}")
+ * ResponseEntity&lt;StreamingResponseBody&gt; getDocument(&#64;PathVariable String id) {
+ * 	return archiveClient.getDocument(id).toResponseEntity();
+ * }
+ * </pre>
+ */
+public class StreamingBody implements Closeable {
+
+	/**
+	 * Size of the buffer used when transferring a body, independent of the size of the body.
+	 */
+	public static final int TRANSFER_BUFFER_SIZE = 64 * 1024;
+
+	private final int status;
+	private final Map<String, Collection<String>> headers;
+	private final long contentLength;
+	private final InputStream inputStream;
+
+	/**
+	 * @param status        the response status
+	 * @param headers       the response headers
+	 * @param contentLength the length of the body, or -1 if unknown
+	 * @param inputStream   the body
+	 */
+	public StreamingBody(final int status, final Map<String, Collection<String>> headers, final long contentLength, final InputStream inputStream) {
+		this.status = status;
+		this.headers = headers;
+		this.contentLength = contentLength;
+		this.inputStream = inputStream;
+	}
+
+	public int getStatus() {
+		return status;
+	}
+
+	public Map<String, Collection<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * @return the value of the {@code Content-Type} header, or null if not present
+	 */
+	public String getContentType() {
+		return headers.entrySet().stream()
+			.filter(entry -> HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(entry.getKey()))
+			.flatMap(entry -> entry.getValue().stream())
+			.findFirst()
+			.orElse(null);
+	}
+
+	/**
+	 * @return the length of the body, or -1 if unknown
+	 */
+	public long getContentLength() {
+		return contentLength;
+	}
+
+	/**
+	 * @return the body. The caller must close it.
+	 */
+	public InputStream getInputStream() {
+		return inputStream;
+	}
+
+	/**
+	 * Copies the body to the output stream with a buffer of {@value #TRANSFER_BUFFER_SIZE} bytes and closes the body.
+	 *
+	 * @param  outputStream the stream to copy the body to (not closed)
+	 * @return              the number of bytes copied
+	 * @throws IOException  if reading or writing fails
+	 */
+	public long transferTo(final OutputStream outputStream) throws IOException {
+		return transfer(inputStream, outputStream);
+	}
+
+	/**
+	 * @return a servlet response body that copies this body to the response
+	 */
+	public StreamingResponseBody toStreamingResponseBody() {
+		return this::transferTo;
+	}
+
+	/**
+	 * @return a response entity with the status, content type and content length of this body, that copies the body to
+	 *         the response
+	 */
+	public ResponseEntity<StreamingResponseBody> toResponseEntity() {
+		final var builder = ResponseEntity.status(status);
+		final var contentType = getContentType();
+		if (contentType != null) {
+			builder.header(HttpHeaders.CONTENT_TYPE, contentType);
+		}
+		if (contentLength >= 0) {
+			builder.contentLength(contentLength);
+		}
+		return builder.body(toStreamingResponseBody());
+	}
+
+	@Override
+	public void close() throws IOException {
+		inputStream.close();
+	}
+
+	/**
+	 * Creates a servlet response body that copies the input stream (e.g. an {@code InputStream} returned by a Feign client
+	 * in streaming mode) to the response with a buffer of {@value #TRANSFER_BUFFER_SIZE} bytes, and closes it.
+	 *
+	 * @param  inputStream the stream to copy
+	 * @return             the servlet response body
+	 */
+	public static StreamingResponseBody toStreamingResponseBody(final InputStream inputStream) {
+		return outputStream -> transfer(inputStream, outputStream);
+	}
+
+	private static long transfer(final InputStream inputStream, final OutputStream outputStream) throws IOException {
+		try (inputStream) {
+			final var buffer = new byte[TRANSFER_BUFFER_SIZE];
+			long transferred = 0;
+			int read;
+			while ((read = inputStream.read(buffer)) != -1) {
+				outputStream.write(buffer, 0, read);
+				transferred += read;
+			}
+			outputStream.flush();
+			return transferred;
+		}
+	}
+}
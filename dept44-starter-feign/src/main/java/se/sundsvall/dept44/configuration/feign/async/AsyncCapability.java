@@ -0,0 +1,58 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import feign.Capability;
+import feign.Contract;
+import feign.InvocationHandlerFactory;
+import io.micrometer.core.instrument.Gauge;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feign capability that lets methods of a Feign client return {@code CompletableFuture<T>}. The call is run on a virtual
+ * thread through the same handler, interceptors, error decoder and circuit breaker as a synchronous call, with the
+ * request id, identifier and MDC of the caller.
+ * <p>
+ * Each capability limits the asynchronous calls of its client to {@link AsyncSettings#getMaxConcurrency()} at a time,
+ * so one capability should be created per client. Calls waiting for a permit are published in the {@value #QUEUED}
+ * metric, tagged with the integration name.
+ * <p>
+ * The calls run on an executor of the capability, which is shut down by {@link #close()}. Calls already started are
+ * completed, later calls are rejected.
+ */
+public class AsyncCapability implements Capability, AutoCloseable {
+
+	public static final String QUEUED = "dept44.feign.async.queued";
+
+	private final ExecutorService executor;
+	private final Semaphore permits;
+
+	public AsyncCapability(final String integrationName, final AsyncSettings settings) {
+		requireNonNull(integrationName);
+		requireNonNull(settings);
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feign-async-" + integrationName + "-", 0).factory());
+		this.permits = new Semaphore(settings.getMaxConcurrency());
+
+		Gauge.builder(QUEUED, permits, Semaphore::getQueueLength)
+			.description("Asynchronous calls waiting for a permit of the client")
+			.tag("integration", integrationName)
+			.register(requireNonNull(settings.getMeterRegistry(), "meterRegistry of settings may not be null"));
+	}
+
+	@Override
+	public Contract enrich(final Contract contract) {
+		return new AsyncContract(contract);
+	}
+
+	@Override
+	public InvocationHandlerFactory enrich(final InvocationHandlerFactory invocationHandlerFactory) {
+		return (target, dispatch) -> new AsyncInvocationHandler(invocationHandlerFactory.create(target, dispatch), executor, permits);
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+}
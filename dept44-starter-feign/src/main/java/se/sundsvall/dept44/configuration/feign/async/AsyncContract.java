@@ -0,0 +1,42 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import feign.Contract;
+import feign.MethodMetadata;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Contract that makes Feign decode the result type {@code T} of methods returning {@code CompletableFuture<T>}, which
+ * are then run asynchronously by {@link AsyncInvocationHandler}.
+ */
+class AsyncContract implements Contract {
+
+	private final Contract delegate;
+
+	AsyncContract(final Contract delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public List<MethodMetadata> parseAndValidateMetadata(final Class<?> targetType) {
+		final var metadata = delegate.parseAndValidateMetadata(targetType);
+		metadata.stream()
+			.filter(methodMetadata -> isAsync(methodMetadata.method().getReturnType()))
+			.forEach(methodMetadata -> methodMetadata.returnType(resultType(methodMetadata.returnType())));
+		return metadata;
+	}
+
+	static boolean isAsync(final Class<?> returnType) {
+		return returnType == CompletableFuture.class;
+	}
+
+	private static Type resultType(final Type returnType) {
+		if (returnType instanceof final ParameterizedType parameterizedType) {
+			return parameterizedType.getActualTypeArguments()[0];
+		}
+		// A raw CompletableFuture
+		return Object.class;
+	}
+}
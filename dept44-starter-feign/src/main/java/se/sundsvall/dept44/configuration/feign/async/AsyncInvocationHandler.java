@@ -0,0 +1,59 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import se.sundsvall.dept44.async.ContextSnapshot;
+
+/**
+ * Invocation handler that runs methods returning {@code CompletableFuture} on a virtual thread, through the handler
+ * Feign would have used for a synchronous call. The request id, identifier and MDC of the caller are propagated to the
+ * virtual thread, so the request interceptors, error decoder and circuit breaker behave as for a synchronous call.
+ * <p>
+ * Calls wait for one of the permits of the client before being sent. Cancelling the returned future interrupts the
+ * call.
+ */
+class AsyncInvocationHandler implements InvocationHandler {
+
+	private final InvocationHandler delegate;
+	private final ExecutorService executor;
+	private final Semaphore permits;
+
+	AsyncInvocationHandler(final InvocationHandler delegate, final ExecutorService executor, final Semaphore permits) {
+		this.delegate = delegate;
+		this.executor = executor;
+		this.permits = permits;
+	}
+
+	@Override
+	public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+		if (!AsyncContract.isAsync(method.getReturnType())) {
+			return delegate.invoke(proxy, method, args);
+		}
+
+		final var result = new CompletableFuture<>();
+		final var task = executor.submit(ContextSnapshot.capture().wrap(() -> {
+			try {
+				permits.acquire();
+			} catch (final InterruptedException e) {
+				result.completeExceptionally(e);
+				return;
+			}
+			try {
+				result.complete(delegate.invoke(proxy, method, args));
+			} catch (final Throwable t) {
+				result.completeExceptionally(t);
+			} finally {
+				permits.release();
+			}
+		}));
+		result.whenComplete((_, _) -> {
+			if (result.isCancelled()) {
+				task.cancel(true);
+			}
+		});
+		return result;
+	}
+}
@@ -0,0 +1,53 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.Assert;
+
+/**
+ * Settings for {@link AsyncCapability}, created with {@link #create()} and adjusted with the {@code with}-methods.
+ * <p>
+ * The defaults let 10 asynchronous calls of the client run at the same time. Further calls wait for a running call to
+ * complete.
+ */
+public class AsyncSettings {
+
+	private int maxConcurrency = 10;
+	private MeterRegistry meterRegistry;
+
+	private AsyncSettings() {}
+
+	public static AsyncSettings create() {
+		return new AsyncSettings();
+	}
+
+	/**
+	 * @param  maxConcurrency the maximum number of asynchronous calls of the client running at the same time
+	 * @return                this settings instance
+	 */
+	public AsyncSettings withMaxConcurrency(final int maxConcurrency) {
+		Assert.isTrue(maxConcurrency > 0, "maxConcurrency must be greater than 0");
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * @param  meterRegistry the registry to publish metrics in, defaults to the registry of the application
+	 * @return               this settings instance
+	 */
+	public AsyncSettings withMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		return this;
+	}
+
+	public int getMaxConcurrency() {
+		return maxConcurrency;
+	}
+
+	/**
+	 * @return the registry to publish metrics in, or null if the registry of the application is used
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+}
@@ -0,0 +1,55 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import feign.Capability;
+import feign.Client;
+import feign.codec.Decoder;
+import java.time.Clock;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feign capability that wraps the client in a {@link CachingClient} when the Feign client is built, and the decoder in
+ * a decoder that keeps decoded objects in the cache if {@link CacheSettings#isStoreDecoded()}.
+ * <p>
+ * Each capability has its own cache, bounded by the total size of the cached responses, so one capability should be
+ * created per integration. Entries are evicted by Caffeine's size-based eviction, which keeps frequently used entries
+ * rather than strictly the most recently used ones.
+ * <p>
+ * Decoded objects are only kept when the response reaches the decoder as it left the cache, which is not the case when
+ * Feign logging is enabled, as the logger buffers the response again. Cached responses are still served without
+ * requests then, but decoded on every hit.
+ */
+public class CacheCapability implements Capability {
+
+	private final String integrationName;
+	private final CacheSettings settings;
+	private final Clock clock;
+	private final Cache<String, CacheEntry> cache;
+
+	public CacheCapability(final String integrationName, final CacheSettings settings) {
+		this(integrationName, settings, Clock.systemUTC());
+	}
+
+	CacheCapability(final String integrationName, final CacheSettings settings, final Clock clock) {
+		this.integrationName = requireNonNull(integrationName);
+		this.settings = requireNonNull(settings);
+		requireNonNull(settings.getMeterRegistry(), "meterRegistry of settings may not be null");
+		this.clock = requireNonNull(clock);
+		this.cache = Caffeine.newBuilder()
+			.maximumWeight(settings.getMaximumSize().toBytes())
+			.weigher((final String key, final CacheEntry entry) -> key.length() + entry.weight())
+			.build();
+	}
+
+	@Override
+	public Client enrich(final Client client) {
+		return new CachingClient(integrationName, client, cache, settings, clock);
+	}
+
+	@Override
+	public Decoder enrich(final Decoder decoder) {
+		return settings.isStoreDecoded() ? new CachingDecoder(decoder) : decoder;
+	}
+}
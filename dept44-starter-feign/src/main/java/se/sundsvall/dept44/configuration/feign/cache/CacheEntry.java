@@ -0,0 +1,282 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.springframework.http.HttpHeaders.AGE;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+import static org.springframework.http.HttpHeaders.DATE;
+import static org.springframework.http.HttpHeaders.ETAG;
+import static org.springframework.http.HttpHeaders.EXPIRES;
+import static org.springframework.http.HttpHeaders.IF_MODIFIED_SINCE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.LAST_MODIFIED;
+import static org.springframework.http.HttpHeaders.TRANSFER_ENCODING;
+import static org.springframework.http.HttpHeaders.VARY;
+
+/**
+ * A cached 200 response, with its freshness as given by {@code Cache-Control} (or {@code Expires}) and {@code Age}, and
+ * the values of the request headers it varies on.
+ * <p>
+ * Responses without an explicit freshness lifetime are stale at once, and are only cached when they can be revalidated
+ * with {@code ETag} or {@code Last-Modified}. No heuristic freshness is used.
+ * <p>
+ * The cache is shared by every caller of the integration, so {@code private} responses are never stored, and responses
+ * to requests carrying an identity ({@code Authorization} or {@code X-Sent-By}) are only stored when the server allows
+ * it with {@code public}, {@code s-maxage} or {@code must-revalidate}.
+ */
+final class CacheEntry {
+
+	private static final int ENTRY_OVERHEAD = 256;
+	private static final int OK = 200;
+	private static final List<String> IDENTITY_HEADERS = List.of(AUTHORIZATION, Identifier.HEADER_NAME);
+	private static final List<String> SHARED_DIRECTIVES = List.of("public", "s-maxage", "must-revalidate");
+
+	private final String reason;
+	private final Map<String, Collection<String>> headers;
+	private final byte[] body;
+	private final Map<String, Collection<String>> varyValues;
+	private final long freshUntil;
+	private final Map<Type, Object> decoded;
+
+	private CacheEntry(final String reason, final Map<String, Collection<String>> headers, final byte[] body, final Map<String, Collection<String>> varyValues, final long freshUntil,
+		final Map<Type, Object> decoded) {
+		this.reason = reason;
+		this.headers = headers;
+		this.body = body;
+		this.varyValues = varyValues;
+		this.freshUntil = freshUntil;
+		this.decoded = decoded;
+	}
+
+	/**
+	 * @return whether the response may be cached, which is decided before its body is read
+	 */
+	static boolean isStorable(final Request request, final Response response) {
+		if (response.status() != OK) {
+			return false;
+		}
+		final var directives = cacheControl(response.headers());
+		if (directives.containsKey("no-store") || directives.containsKey("private") || varyNames(response.headers()).contains("*")) {
+			return false;
+		}
+		if (hasIdentity(request) && SHARED_DIRECTIVES.stream().noneMatch(directives::containsKey)) {
+			return false;
+		}
+		return directives.containsKey("max-age") || (value(response.headers(), EXPIRES) != null) || hasValidators(response.headers());
+	}
+
+	static CacheEntry of(final Request request, final Response response, final byte[] body, final long now) {
+		final var headers = replayableHeaders(response.headers());
+		return new CacheEntry(response.reason(), headers, body, varyValues(request, headers), freshUntil(headers, now), new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * Updates the entry with the headers of a 304 response to a conditional request. The body and decoded objects are
+	 * kept.
+	 *
+	 * @return the updated entry, or null if the updated headers no longer allow it to be cached
+	 */
+	CacheEntry revalidated(final Response notModified, final long now) {
+		final Map<String, Collection<String>> merged = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		merged.putAll(headers);
+		merged.putAll(replayableHeaders(notModified.headers()));
+		merged.put(CONTENT_LENGTH, List.of(String.valueOf(body.length)));
+		if (cacheControl(merged).containsKey("no-store")) {
+			return null;
+		}
+		return new CacheEntry(reason, merged, body, varyValues, freshUntil(merged, now), decoded);
+	}
+
+	boolean isFresh(final long now) {
+		return now < freshUntil;
+	}
+
+	boolean canRevalidate() {
+		return hasValidators(headers);
+	}
+
+	/**
+	 * @return whether the request has the same values as the cached one for the headers the response varies on
+	 */
+	boolean matches(final Request request) {
+		return varyValues.entrySet().stream()
+			.allMatch(entry -> Objects.equals(values(request.headers(), entry.getKey()), entry.getValue()));
+	}
+
+	/**
+	 * @return a copy of the request asking the server to only send the body if it differs from the cached one
+	 */
+	Request conditional(final Request request) {
+		final Map<String, Collection<String>> conditionalHeaders = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		conditionalHeaders.putAll(request.headers());
+		final var eTag = value(headers, ETAG);
+		if (eTag != null) {
+			conditionalHeaders.put(IF_NONE_MATCH, List.of(eTag));
+		}
+		final var lastModified = value(headers, LAST_MODIFIED);
+		if (lastModified != null) {
+			conditionalHeaders.put(IF_MODIFIED_SINCE, List.of(lastModified));
+		}
+		return Request.create(request.httpMethod(), request.url(), conditionalHeaders, request.body(), request.charset(), request.requestTemplate());
+	}
+
+	Response toResponse(final Request request) {
+		return Response.builder()
+			.status(OK)
+			.reason(reason)
+			.headers(headers)
+			.request(request)
+			.body(new CachedBody(this))
+			.build();
+	}
+
+	/**
+	 * Returns the decoded object of the given type, decoding the body with the given decoding the first time.
+	 */
+	Object decoded(final Type type, final Decoding decoding) throws IOException {
+		var value = decoded.get(type);
+		if (value == null) {
+			value = decoding.decode();
+			if (value != null) {
+				decoded.putIfAbsent(type, value);
+			}
+		}
+		return value;
+	}
+
+	byte[] body() {
+		return body;
+	}
+
+	int weight() {
+		return ENTRY_OVERHEAD + body.length + headers.entrySet().stream()
+			.mapToInt(entry -> entry.getKey().length() + entry.getValue().stream().mapToInt(String::length).sum())
+			.sum();
+	}
+
+	@FunctionalInterface
+	interface Decoding {
+		Object decode() throws IOException;
+	}
+
+	private static long freshUntil(final Map<String, Collection<String>> headers, final long now) {
+		final var directives = cacheControl(headers);
+		if (directives.containsKey("no-cache")) {
+			return now;
+		}
+
+		final long lifetime;
+		final var maxAge = seconds(directives.get("max-age"));
+		if (maxAge >= 0) {
+			lifetime = maxAge * 1000;
+		} else {
+			// An invalid Expires, e.g. "0", means already expired
+			final var expires = epochMillis(value(headers, EXPIRES));
+			final var date = epochMillis(value(headers, DATE));
+			lifetime = expires < 0 ? 0 : Math.max(0, expires - (date < 0 ? now : date));
+		}
+		final var age = Math.max(0, seconds(value(headers, AGE)));
+		return now + lifetime - age * 1000;
+	}
+
+	private static boolean hasIdentity(final Request request) {
+		return IDENTITY_HEADERS.stream().anyMatch(name -> !values(request.headers(), name).isEmpty());
+	}
+
+	private static boolean hasValidators(final Map<String, Collection<String>> headers) {
+		return value(headers, ETAG) != null || value(headers, LAST_MODIFIED) != null;
+	}
+
+	private static Map<String, String> cacheControl(final Map<String, Collection<String>> headers) {
+		final Map<String, String> directives = new HashMap<>();
+		values(headers, CACHE_CONTROL).stream()
+			.flatMap(value -> Arrays.stream(value.split(",")))
+			.map(String::trim)
+			.filter(directive -> !directive.isEmpty())
+			.forEach(directive -> {
+				final var separator = directive.indexOf('=');
+				if (separator < 0) {
+					directives.put(directive.toLowerCase(Locale.ROOT), "");
+				} else {
+					directives.put(directive.substring(0, separator).trim().toLowerCase(Locale.ROOT), directive.substring(separator + 1).trim().replace("\"", ""));
+				}
+			});
+		return directives;
+	}
+
+	private static List<String> varyNames(final Map<String, Collection<String>> headers) {
+		return values(headers, VARY).stream()
+			.flatMap(value -> Arrays.stream(value.split(",")))
+			.map(String::trim)
+			.filter(name -> !name.isEmpty())
+			.toList();
+	}
+
+	private static Map<String, Collection<String>> varyValues(final Request request, final Map<String, Collection<String>> headers) {
+		final Map<String, Collection<String>> varyValues = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		varyNames(headers).forEach(name -> varyValues.put(name, values(request.headers(), name)));
+		return varyValues;
+	}
+
+	private static Map<String, Collection<String>> replayableHeaders(final Map<String, Collection<String>> headers) {
+		final Map<String, Collection<String>> replayable = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		headers.forEach((name, values) -> replayable.put(name, List.copyOf(values)));
+		replayable.remove(TRANSFER_ENCODING);
+		return replayable;
+	}
+
+	/**
+	 * @return the values of the header, looked up regardless of case as request headers may be case-sensitive
+	 */
+	private static List<String> values(final Map<String, Collection<String>> headers, final String name) {
+		return headers.entrySet().stream()
+			.filter(entry -> name.equalsIgnoreCase(entry.getKey()))
+			.flatMap(entry -> entry.getValue().stream())
+			.toList();
+	}
+
+	private static String value(final Map<String, Collection<String>> headers, final String name) {
+		final var values = values(headers, name);
+		return values.isEmpty() ? null : values.getFirst();
+	}
+
+	private static long seconds(final String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (final NumberFormatException _) {
+			return -1;
+		}
+	}
+
+	private static long epochMillis(final String value) {
+		if (value == null) {
+			return -1;
+		}
+		try {
+			return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (final DateTimeParseException _) {
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for {@link CachingClient}, created with {@link #create()} and adjusted with the {@code with}-methods.
+ * <p>
+ * The defaults cache up to 10 MB of responses, none of them larger than 1 MB, as bytes that are decoded on every hit.
+ */
+public class CacheSettings {
+
+	private DataSize maximumSize = DataSize.ofMegabytes(10);
+	private DataSize maximumEntrySize = DataSize.ofMegabytes(1);
+	private boolean storeDecoded;
+	private MeterRegistry meterRegistry;
+
+	private CacheSettings() {}
+
+	public static CacheSettings create() {
+		return new CacheSettings();
+	}
+
+	/**
+	 * @param  maximumSize the total size of the cached responses, bodies and headers, of the integration
+	 * @return             this settings instance
+	 */
+	public CacheSettings withMaximumSize(final DataSize maximumSize) {
+		Assert.notNull(maximumSize, "maximumSize may not be null");
+		Assert.isTrue(maximumSize.toBytes() > 0, "maximumSize must be greater than 0");
+		this.maximumSize = maximumSize;
+		return this;
+	}
+
+	/**
+	 * @param  maximumEntrySize the size of the largest body to cache. Larger responses are passed on without being cached.
+	 * @return                  this settings instance
+	 */
+	public CacheSettings withMaximumEntrySize(final DataSize maximumEntrySize) {
+		Assert.notNull(maximumEntrySize, "maximumEntrySize may not be null");
+		Assert.isTrue(maximumEntrySize.toBytes() > 0 && maximumEntrySize.toBytes() < Integer.MAX_VALUE, "maximumEntrySize must be greater than 0 and less than 2 GB");
+		this.maximumEntrySize = maximumEntrySize;
+		return this;
+	}
+
+	/**
+	 * Keeps the decoded objects of cached responses as well, so that hits don't decode the body again. The decoded objects
+	 * are shared by every caller that gets a hit and must not be modified.
+	 *
+	 * @param  storeDecoded whether decoded objects are cached
+	 * @return              this settings instance
+	 */
+	public CacheSettings withStoreDecoded(final boolean storeDecoded) {
+		this.storeDecoded = storeDecoded;
+		return this;
+	}
+
+	/**
+	 * @param  meterRegistry the registry to publish cache metrics in, defaults to the registry of the application
+	 * @return               this settings instance
+	 */
+	public CacheSettings withMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		return this;
+	}
+
+	public DataSize getMaximumSize() {
+		return maximumSize;
+	}
+
+	public DataSize getMaximumEntrySize() {
+		return maximumEntrySize;
+	}
+
+	public boolean isStoreDecoded() {
+		return storeDecoded;
+	}
+
+	/**
+	 * @return the registry to publish metrics in, or null if the registry of the application is used
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+}
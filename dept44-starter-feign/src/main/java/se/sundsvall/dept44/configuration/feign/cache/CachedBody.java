@@ -0,0 +1,40 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import feign.Response;
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.Charset;
+
+/**
+ * Body of a response served from the cache, which lets {@link CachingDecoder} find the {@link CacheEntry} to keep
+ * decoded objects in.
+ */
+record CachedBody(CacheEntry entry) implements Response.Body {
+
+	@Override
+	public Integer length() {
+		return entry.body().length;
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return true;
+	}
+
+	@Override
+	public InputStream asInputStream() {
+		return new ByteArrayInputStream(entry.body());
+	}
+
+	@Override
+	public Reader asReader(final Charset charset) {
+		return new InputStreamReader(asInputStream(), charset);
+	}
+
+	@Override
+	public void close() {
+		// Nothing to release
+	}
+}
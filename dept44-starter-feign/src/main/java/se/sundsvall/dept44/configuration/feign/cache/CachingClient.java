@@ -0,0 +1,149 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.time.Clock;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static feign.Request.HttpMethod.GET;
+import static org.springframework.http.HttpHeaders.CACHE_CONTROL;
+import static org.springframework.http.HttpHeaders.IF_MATCH;
+import static org.springframework.http.HttpHeaders.IF_MODIFIED_SINCE;
+import static org.springframework.http.HttpHeaders.IF_NONE_MATCH;
+import static org.springframework.http.HttpHeaders.IF_UNMODIFIED_SINCE;
+import static org.springframework.http.HttpHeaders.RANGE;
+
+/**
+ * Client that caches 200 responses to GET requests as given by their {@code Cache-Control}, {@code Expires},
+ * {@code ETag}, {@code Last-Modified} and {@code Vary} headers. Fresh responses are served from the cache. Stale
+ * responses with an {@code ETag} or {@code Last-Modified} are revalidated with a conditional request, so an unchanged
+ * response costs a 304 without body.
+ * <p>
+ * Requests with conditional or range headers, or with {@code Cache-Control}, are passed on as they are, as the caller
+ * is then handling caching itself. Responses are cached by URL and shared by all callers, so responses to requests
+ * carrying an identity are only stored when the server marks them as shareable (see {@link CacheEntry}).
+ * <p>
+ * Requests are counted in the {@value #REQUESTS} metric, tagged with the integration name and the outcome
+ * ({@value #OUTCOME_HIT}, {@value #OUTCOME_REVALIDATED} or {@value #OUTCOME_MISS}).
+ */
+public class CachingClient implements Client {
+
+	public static final String REQUESTS = "dept44.feign.cache.requests";
+	public static final String OUTCOME_HIT = "hit";
+	public static final String OUTCOME_REVALIDATED = "revalidated";
+	public static final String OUTCOME_MISS = "miss";
+
+	private static final int NOT_MODIFIED = 304;
+	private static final Set<String> BYPASSING_HEADERS = caseInsensitiveSet(CACHE_CONTROL, IF_MATCH, IF_NONE_MATCH, IF_MODIFIED_SINCE, IF_UNMODIFIED_SINCE, RANGE);
+
+	private final Client delegate;
+	private final Cache<String, CacheEntry> cache;
+	private final int maximumEntrySize;
+	private final Clock clock;
+	private final Counter hits;
+	private final Counter revalidations;
+	private final Counter misses;
+
+	CachingClient(final String integrationName, final Client delegate, final Cache<String, CacheEntry> cache, final CacheSettings settings, final Clock clock) {
+		this.delegate = delegate;
+		this.cache = cache;
+		this.maximumEntrySize = (int) settings.getMaximumEntrySize().toBytes();
+		this.clock = clock;
+		this.hits = counter(integrationName, OUTCOME_HIT, settings);
+		this.revalidations = counter(integrationName, OUTCOME_REVALIDATED, settings);
+		this.misses = counter(integrationName, OUTCOME_MISS, settings);
+	}
+
+	@Override
+	public Response execute(final Request request, final Request.Options options) throws IOException {
+		if (request.httpMethod() != GET || request.headers().keySet().stream().anyMatch(BYPASSING_HEADERS::contains)) {
+			return delegate.execute(request, options);
+		}
+
+		final var key = request.url();
+		final var entry = cache.getIfPresent(key);
+		if (entry != null && entry.matches(request)) {
+			if (entry.isFresh(clock.millis())) {
+				hits.increment();
+				return entry.toResponse(request);
+			}
+			if (entry.canRevalidate()) {
+				final var response = delegate.execute(entry.conditional(request), options);
+				if (response.status() == NOT_MODIFIED) {
+					response.close();
+					revalidations.increment();
+					return revalidate(key, entry, response).toResponse(request);
+				}
+				misses.increment();
+				return store(key, request, response);
+			}
+		}
+
+		misses.increment();
+		return store(key, request, delegate.execute(request, options));
+	}
+
+	private CacheEntry revalidate(final String key, final CacheEntry entry, final Response notModified) {
+		final var revalidated = entry.revalidated(notModified, clock.millis());
+		if (revalidated == null) {
+			cache.invalidate(key);
+			return entry;
+		}
+		cache.put(key, revalidated);
+		return revalidated;
+	}
+
+	private Response store(final String key, final Request request, final Response response) throws IOException {
+		if (!CacheEntry.isStorable(request, response)) {
+			cache.invalidate(key);
+			return response;
+		}
+		if (response.body() == null || (response.body().length() != null && response.body().length() > maximumEntrySize)) {
+			return response;
+		}
+
+		final InputStream body = response.body().asInputStream();
+		final byte[] bytes;
+		try {
+			bytes = body.readNBytes(maximumEntrySize + 1);
+		} catch (final IOException | RuntimeException e) {
+			response.close();
+			throw e;
+		}
+		if (bytes.length > maximumEntrySize) {
+			// Too large to cache, pass on what has been read followed by the rest of the body
+			return response.toBuilder()
+				.body(new SequenceInputStream(new ByteArrayInputStream(bytes), body), null)
+				.build();
+		}
+		response.close();
+
+		final var entry = CacheEntry.of(request, response, bytes, clock.millis());
+		if (entry.isFresh(clock.millis()) || entry.canRevalidate()) {
+			cache.put(key, entry);
+		}
+		return entry.toResponse(request);
+	}
+
+	private static Counter counter(final String integrationName, final String outcome, final CacheSettings settings) {
+		return Counter.builder(REQUESTS)
+			.description("Cacheable Feign requests")
+			.tag("integration", integrationName)
+			.tag("outcome", outcome)
+			.register(settings.getMeterRegistry());
+	}
+
+	private static Set<String> caseInsensitiveSet(final String... values) {
+		final Set<String> set = new TreeSet<>(String.CASE_INSENSITIVE_ORDER);
+		set.addAll(Set.of(values));
+		return set;
+	}
+}
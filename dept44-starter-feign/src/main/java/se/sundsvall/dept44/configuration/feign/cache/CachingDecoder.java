@@ -0,0 +1,27 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import feign.Response;
+import feign.codec.Decoder;
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Decoder that keeps the decoded objects of cached responses in their {@link CacheEntry}, so that later hits and
+ * revalidated responses skip decoding.
+ */
+class CachingDecoder implements Decoder {
+
+	private final Decoder delegate;
+
+	CachingDecoder(final Decoder delegate) {
+		this.delegate = delegate;
+	}
+
+	@Override
+	public Object decode(final Response response, final Type type) throws IOException {
+		if (response.body() instanceof final CachedBody cachedBody) {
+			return cachedBody.entry().decoded(type, () -> delegate.decode(response, type));
+		}
+		return delegate.decode(response, type);
+	}
+}
@@ -0,0 +1,89 @@
+package se.sundsvall.dept44.configuration.feign.compression;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.CompressionSettings;
+
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+import static se.sundsvall.dept44.compression.CompressionMetrics.REQUEST;
+
+/**
+ * Client that negotiates compressed responses with an {@code Accept-Encoding} header listing the codings of the
+ * settings, unless the request already has one, and decompresses responses in such a coding as the body is read. Request
+ * bodies of at least {@link CompressionSettings#getRequestCompressionThreshold()} are compressed with the first coding,
+ * unless the request already has a {@code Content-Encoding}.
+ * <p>
+ * The delegate must pass compressed responses on as they are, which OkHttp does when the {@code Accept-Encoding} header
+ * is set by the caller.
+ */
+public class CompressingClient implements Client {
+
+	private final Client delegate;
+	private final CompressionSettings settings;
+	private final CompressionMetrics metrics;
+
+	CompressingClient(final Client delegate, final CompressionSettings settings, final CompressionMetrics metrics) {
+		this.delegate = delegate;
+		this.settings = settings;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public Response execute(final Request request, final Request.Options options) throws IOException {
+		return decompress(delegate.execute(compress(request), options));
+	}
+
+	private Request compress(final Request request) throws IOException {
+		final var headers = caseInsensitiveCopy(request.headers());
+		headers.putIfAbsent(ACCEPT_ENCODING, List.of(settings.getAcceptEncoding()));
+
+		final var body = request.body();
+		if (body == null || !settings.isCompressed(body.length) || headers.containsKey(CONTENT_ENCODING)) {
+			return Request.create(request.httpMethod(), request.url(), headers, body, request.charset(), request.requestTemplate());
+		}
+
+		final var coding = settings.getCodings().getFirst();
+		final var start = System.nanoTime();
+		final var compressed = coding.compress(body);
+		metrics.record(REQUEST, coding, body.length, compressed.length, System.nanoTime() - start);
+
+		headers.put(CONTENT_ENCODING, List.of(coding.name()));
+		headers.put(CONTENT_LENGTH, List.of(String.valueOf(compressed.length)));
+		// Without charset, as the body is no longer text
+		return Request.create(request.httpMethod(), request.url(), headers, compressed, null, request.requestTemplate());
+	}
+
+	private Response decompress(final Response response) {
+		final var contentEncoding = response.headers().getOrDefault(CONTENT_ENCODING, List.of());
+		if (response.body() == null || contentEncoding.size() != 1) {
+			return response;
+		}
+
+		return settings.getCoding(contentEncoding.iterator().next())
+			.map(coding -> {
+				final var headers = caseInsensitiveCopy(response.headers());
+				headers.remove(CONTENT_ENCODING);
+				headers.remove(CONTENT_LENGTH);
+				return response.toBuilder()
+					.headers(headers)
+					.body(new DecompressingInputStream(response.body(), coding, metrics), null)
+					.build();
+			})
+			.orElse(response);
+	}
+
+	private static Map<String, Collection<String>> caseInsensitiveCopy(final Map<String, Collection<String>> headers) {
+		final var copy = new TreeMap<String, Collection<String>>(String.CASE_INSENSITIVE_ORDER);
+		copy.putAll(headers);
+		return copy;
+	}
+}
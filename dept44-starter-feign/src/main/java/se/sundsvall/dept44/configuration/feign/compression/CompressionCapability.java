@@ -0,0 +1,27 @@
+package se.sundsvall.dept44.configuration.feign.compression;
+
+import feign.Capability;
+import feign.Client;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.CompressionSettings;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feign capability that wraps the client in a {@link CompressingClient} when the Feign client is built.
+ */
+public class CompressionCapability implements Capability {
+
+	private final CompressionSettings settings;
+	private final CompressionMetrics metrics;
+
+	public CompressionCapability(final String integrationName, final CompressionSettings settings) {
+		this.settings = requireNonNull(settings);
+		this.metrics = new CompressionMetrics(requireNonNull(integrationName), requireNonNull(settings.getMeterRegistry(), "meterRegistry of settings may not be null"));
+	}
+
+	@Override
+	public Client enrich(final Client client) {
+		return new CompressingClient(client, settings, metrics);
+	}
+}
@@ -0,0 +1,131 @@
+package se.sundsvall.dept44.configuration.feign.compression;
+
+import feign.Response;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.ContentCoding;
+
+import static se.sundsvall.dept44.compression.CompressionMetrics.RESPONSE;
+
+/**
+ * Decompresses a response body as it is read, without buffering it. The body is opened on the first read, so that an
+ * empty body, e.g. of a HEAD request, reads as empty rather than failing on a missing header of the coding. The ratio and
+ * the time spent decompressing, not counting the time waiting for the network, are recorded when the end of the body is
+ * reached.
+ */
+final class DecompressingInputStream extends InputStream {
+
+	private final Response.Body body;
+	private final ContentCoding coding;
+	private final CompressionMetrics metrics;
+
+	private CountingInputStream compressed;
+	private InputStream decompressed;
+	private long uncompressedBytes;
+	private long nanos;
+	private boolean recorded;
+
+	DecompressingInputStream(final Response.Body body, final ContentCoding coding, final CompressionMetrics metrics) {
+		this.body = body;
+		this.coding = coding;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public int read() throws IOException {
+		final var buffer = new byte[1];
+		final var read = read(buffer, 0, 1);
+		return read == -1 ? -1 : buffer[0] & 0xFF;
+	}
+
+	@Override
+	public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+		final var start = System.nanoTime();
+		final var waited = compressed == null ? 0 : compressed.nanos;
+		final var read = open().read(buffer, offset, length);
+		nanos += System.nanoTime() - start - (compressed.nanos - waited);
+
+		if (read == -1) {
+			record();
+		} else {
+			uncompressedBytes += read;
+		}
+		return read;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (decompressed != null) {
+			decompressed.close();
+		}
+		body.close();
+	}
+
+	private InputStream open() throws IOException {
+		if (decompressed == null) {
+			compressed = new CountingInputStream(body.asInputStream());
+			final var pushback = new PushbackInputStream(compressed);
+			final var first = pushback.read();
+			if (first == -1) {
+				decompressed = InputStream.nullInputStream();
+				recorded = true;
+			} else {
+				pushback.unread(first);
+				decompressed = coding.decompress(pushback);
+			}
+		}
+		return decompressed;
+	}
+
+	private void record() {
+		if (!recorded) {
+			recorded = true;
+			metrics.record(RESPONSE, coding, uncompressedBytes, compressed.count, nanos);
+		}
+	}
+
+	/**
+	 * Counts the bytes read from the network and the time spent waiting for them.
+	 */
+	private static final class CountingInputStream extends FilterInputStream {
+
+		private long count;
+		private long nanos;
+
+		private CountingInputStream(final InputStream inputStream) {
+			super(inputStream);
+		}
+
+		@Override
+		public int read() throws IOException {
+			final var start = System.nanoTime();
+			final var read = super.read();
+			nanos += System.nanoTime() - start;
+			if (read != -1) {
+				count++;
+			}
+			return read;
+		}
+
+		@Override
+		public int read(final byte[] buffer, final int offset, final int length) throws IOException {
+			final var start = System.nanoTime();
+			final var read = super.read(buffer, offset, length);
+			nanos += System.nanoTime() - start;
+			if (read > 0) {
+				count += read;
+			}
+			return read;
+		}
+
+		@Override
+		public long skip(final long n) throws IOException {
+			final var skipped = super.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+}
@@ -14,9 +14,12 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatus.Series;
+import org.springframework.util.Assert;
 import se.sundsvall.dept44.exception.ClientProblem;
 import se.sundsvall.dept44.exception.ServerProblem;
 import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.problem.ProblemMetrics;
+import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
@@ -31,12 +34,20 @@ import static org.springframework.http.HttpStatus.BAD_GATEWAY;
  */
 public abstract class AbstractErrorDecoder implements ErrorDecoder {
 
+	/**
+	 * Default maximum number of bytes read from an error body. Problem bodies are small, so anything beyond this (e.g. an
+	 * HTML error page from a proxy) is not read.
+	 */
+	public static final int DEFAULT_MAX_BODY_SIZE = 64 * 1024;
+
 	private static final Logger LOGGER = LoggerFactory.getLogger(AbstractErrorDecoder.class);
 
 	protected final String integrationName;
 	protected final RetryResponseVerifier retryResponseVerifier;
 	protected List<Integer> bypassResponseCodes;
 
+	private int maxBodySize = DEFAULT_MAX_BODY_SIZE;
+
 	/**
 	 * Creates a new ErrorDecoder with an integration name and bypass response codes.
 	 * <p>
@@ -74,21 +85,45 @@ public abstract class AbstractErrorDecoder implements ErrorDecoder {
 		this.retryResponseVerifier = retryResponseVerifier;
 	}
 
+	/**
+	 * Decodes the error response into a problem. The problem is counted, and the time spent decoding is recorded, in the
+	 * metrics of {@link ProblemMetrics}, tagged with the integration name.
+	 */
 	@Override
 	public Exception decode(final String methodKey, final Response response) {
+		final var start = System.nanoTime();
+		final var problem = mapToProblem(response);
+		ProblemMetrics.getShared().recordDecode(ProblemMetrics.SOURCE_FEIGN, integrationName, response.status(), System.nanoTime() - start);
+		ProblemMetrics.getShared().recordProblem(ProblemMetrics.SOURCE_FEIGN, problem.getStatus(), problem.getTitle(), integrationName, problem.getClass());
+
 		if ((retryResponseVerifier != null) && retryResponseVerifier.shouldReturnRetryableException(response)) {
 			return new RetryableException(
 				response.status(),
 				retryResponseVerifier.getMessage(),
 				response.request().httpMethod(),
-				mapToProblem(response),
+				problem,
 				(Long) null,
 				response.request());
 		}
-		return mapToProblem(response);
+		return problem;
+	}
+
+	/**
+	 * Sets the maximum number of bytes read from an error body. Longer bodies are truncated, which makes them fail to
+	 * parse and produce a problem with an "Unknown error" title.
+	 *
+	 * @param maxBodySize the maximum number of bytes to read, greater than 0
+	 */
+	public void setMaxBodySize(final int maxBodySize) {
+		Assert.isTrue(maxBodySize > 0, "maxBodySize must be greater than 0");
+		this.maxBodySize = maxBodySize;
+	}
+
+	public int getMaxBodySize() {
+		return maxBodySize;
 	}
 
-	private Exception mapToProblem(final Response response) {
+	private ThrowableProblem mapToProblem(final Response response) {
 		// Use the bypass status code if it matches the response code, otherwise BAD_GATEWAY.
 		final var status = Optional.ofNullable(bypassResponseCodes).orElse(emptyList()).stream()
 			.filter(bypassCode -> bypassCode.equals(response.status()))
@@ -96,27 +131,43 @@ public abstract class AbstractErrorDecoder implements ErrorDecoder {
 			.findAny()
 			.orElse(BAD_GATEWAY);
 
+		final var message = extractMessage(response);
 		return switch (Series.valueOf(response.status())) {
-			case CLIENT_ERROR -> new ClientProblem(status, extractMessage(response));
-			case SERVER_ERROR -> new ServerProblem(status, extractMessage(response));
-			default -> Problem.valueOf(status, extractMessage(response));
+			case CLIENT_ERROR -> new ClientProblem(status, message);
+			case SERVER_ERROR -> new ServerProblem(status, message);
+			default -> Problem.valueOf(status, message);
 		};
 	}
 
+	/**
+	 * Reads the body of the response as a UTF-8 string, at most {@link #getMaxBodySize()} bytes of it.
+	 *
+	 * @param  response    the response
+	 * @return             the (possibly truncated) body
+	 * @throws IOException if the body can't be read
+	 */
 	protected String bodyAsString(final Response response) throws IOException {
-		return new String(response.body().asInputStream().readAllBytes(), UTF_8);
+		try (final var inputStream = response.body().asInputStream()) {
+			return new String(inputStream.readNBytes(maxBodySize), UTF_8);
+		}
 	}
 
 	private String extractMessage(final Response response) {
 		try {
 			// Body will be null for HTTP 401, 404, 407, etc. This is how the default decoder behaves in Feign.
 			// Some services can also return an empty string as a body, which should be treated the same way as null.
-			if (isNull(response.body()) || isBlank(bodyAsString(response))) {
+			if (isNull(response.body())) {
+				return extractAsNullBodyResponse(response);
+			}
+
+			// The body is read once, and passed on along with a response holding the same (truncated) body.
+			final var body = bodyAsString(response);
+			if (isBlank(body)) {
 				return extractAsNullBodyResponse(response);
 			}
 
 			// Call the implementation (as implemented by the subclasses).
-			return extractErrorMessage(response);
+			return extractErrorMessage(response.toBuilder().body(body, UTF_8).build(), body);
 		} catch (final Exception e) {
 			return extractAsLastResort(response, e);
 		}
@@ -131,6 +182,19 @@ public abstract class AbstractErrorDecoder implements ErrorDecoder {
 	 */
 	public abstract String extractErrorMessage(Response response) throws IOException;
 
+	/**
+	 * Creates a String that represents the error from a body that has already been read. Override this method to avoid
+	 * reading the body again; the default implementation calls {@link #extractErrorMessage(Response)}.
+	 *
+	 * @param  response    the response that caused the error, with the body buffered.
+	 * @param  body        the body of the response, at most {@link #getMaxBodySize()} bytes of it.
+	 * @return             a String that represents the error message returned in the response.
+	 * @throws IOException if something goes wrong.
+	 */
+	protected String extractErrorMessage(final Response response, final String body) throws IOException {
+		return extractErrorMessage(response);
+	}
+
 	private String extractAsNullBodyResponse(final Response response) {
 		return ErrorMessage.create(integrationName, response.status()).extractMessage();
 	}
@@ -8,11 +8,15 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.lang.reflect.Type;
 import org.springframework.core.io.InputStreamResource;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+import se.sundsvall.dept44.configuration.feign.StreamingBody;
+
+import static feign.Util.ensureClosed;
 
 /**
- * Feign decoder that handles binary response types (byte[], InputStream, InputStreamResource) by bypassing the standard
- * message converters. Spring's ResourceHttpMessageConverter cannot read into InputStreamResource (only write from it),
- * so we need this
+ * Feign decoder that handles binary response types (byte[], InputStream, InputStreamResource, StreamingBody) by
+ * bypassing the standard message converters. Spring's ResourceHttpMessageConverter cannot read into
+ * InputStreamResource (only write from it), so we need this
  * special handling.
  *
  * <p>
@@ -26,17 +30,40 @@ import org.springframework.core.io.InputStreamResource;
  * <p>
  * Wraps another decoder for non-binary types.
  * </p>
+ *
+ * <p>
+ * By default, the body is read into memory and the stream types are backed by the bytes. In streaming mode (see
+ * {@link FeignMultiCustomizer#withStreaming()}) the decoder is placed first in the chain, and InputStream,
+ * InputStreamResource and StreamingBody are backed by the live response stream, so the body is never held in heap. As
+ * Feign then leaves the response open, the connection is released when the caller closes the stream, and the decoder
+ * closes the response itself after decoding any other type.
+ * </p>
  */
 public class BinaryAwareDecoder implements Decoder {
 
 	private final Decoder delegate;
+	private final boolean streaming;
 
 	public BinaryAwareDecoder(final Decoder delegate) {
+		this(delegate, false);
+	}
+
+	/**
+	 * @param delegate  decoder for non-binary types
+	 * @param streaming whether stream types are backed by the live response stream. Must only be used with Feign clients
+	 *                  built with {@code doNotCloseAfterDecode()}.
+	 */
+	public BinaryAwareDecoder(final Decoder delegate, final boolean streaming) {
 		this.delegate = delegate;
+		this.streaming = streaming;
 	}
 
 	@Override
 	public Object decode(final Response response, final Type type) throws IOException, FeignException {
+		if (streaming) {
+			return decodeStreaming(response, type);
+		}
+
 		// Handle byte[] directly
 		if (type == byte[].class) {
 			return readBytes(response);
@@ -52,10 +79,42 @@ public class BinaryAwareDecoder implements Decoder {
 			return new InputStreamResource(new ByteArrayInputStream(readBytes(response)));
 		}
 
+		// Handle StreamingBody directly
+		if (type == StreamingBody.class) {
+			final var bytes = readBytes(response);
+			return new StreamingBody(response.status(), response.headers(), bytes.length, new ByteArrayInputStream(bytes));
+		}
+
 		// For all other types, delegate to the standard decoder
 		return delegate.decode(response, type);
 	}
 
+	private Object decodeStreaming(final Response response, final Type type) throws IOException {
+		if (type == InputStream.class) {
+			return openStream(response);
+		}
+
+		if (type == InputStreamResource.class) {
+			return new InputStreamResource(openStream(response));
+		}
+
+		if (type == StreamingBody.class) {
+			final var length = response.body() == null ? 0 : response.body().length();
+			return new StreamingBody(response.status(), response.headers(), length == null ? -1 : length, openStream(response));
+		}
+
+		// Feign leaves the response open in streaming mode, so it is closed here once decoded
+		try {
+			return delegate.decode(response, type);
+		} finally {
+			ensureClosed(response.body());
+		}
+	}
+
+	private static InputStream openStream(final Response response) throws IOException {
+		return response.body() == null ? InputStream.nullInputStream() : response.body().asInputStream();
+	}
+
 	private byte[] readBytes(final Response response) throws IOException {
 		if (response.body() == null) {
 			return new byte[0];
@@ -1,6 +1,8 @@
 package se.sundsvall.dept44.configuration.feign.decoder;
 
+import com.jayway.jsonpath.Configuration;
 import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.ParseContext;
 import feign.Response;
 import feign.RetryableException;
 import jakarta.annotation.Nonnull;
@@ -18,7 +20,10 @@ import static java.util.Objects.requireNonNull;
  */
 public class JsonPathErrorDecoder extends AbstractErrorDecoder {
 
-	private final JsonPathSetup jsonPathSetup;
+	private static final ParseContext PARSE_CONTEXT = JsonPath.using(Configuration.defaultConfiguration());
+
+	private final JsonPath titlePath;
+	private final JsonPath detailPath;
 
 	/**
 	 * Creates a new JsonPathErrorDecoder with an integration name and bypass response codes.
@@ -36,7 +41,8 @@ public class JsonPathErrorDecoder extends AbstractErrorDecoder {
 	public JsonPathErrorDecoder(@Nonnull final String integrationName, @Nonnull final List<Integer> bypassResponseCodes, @Nonnull final JsonPathSetup jsonPathSetup) {
 		super(integrationName, bypassResponseCodes, new WSO2RetryResponseVerifier());
 
-		this.jsonPathSetup = requireNonNull(jsonPathSetup);
+		this.titlePath = compile(requireNonNull(jsonPathSetup).titlePath());
+		this.detailPath = compile(jsonPathSetup.detailPath());
 	}
 
 	/**
@@ -50,7 +56,8 @@ public class JsonPathErrorDecoder extends AbstractErrorDecoder {
 	public JsonPathErrorDecoder(@Nonnull final String integrationName, @Nonnull final JsonPathSetup jsonPathSetup) {
 		super(integrationName, new WSO2RetryResponseVerifier());
 
-		this.jsonPathSetup = requireNonNull(jsonPathSetup);
+		this.titlePath = compile(requireNonNull(jsonPathSetup).titlePath());
+		this.detailPath = compile(jsonPathSetup.detailPath());
 	}
 
 	/**
@@ -70,17 +77,28 @@ public class JsonPathErrorDecoder extends AbstractErrorDecoder {
 	public JsonPathErrorDecoder(@Nonnull final String integrationName, @Nonnull final List<Integer> bypassResponseCodes, @Nonnull final JsonPathSetup jsonPathSetup, final RetryResponseVerifier retryResponseVerifier) {
 		super(integrationName, bypassResponseCodes, retryResponseVerifier);
 
-		this.jsonPathSetup = requireNonNull(jsonPathSetup);
+		this.titlePath = compile(requireNonNull(jsonPathSetup).titlePath());
+		this.detailPath = compile(jsonPathSetup.detailPath());
 	}
 
 	@Override
 	public String extractErrorMessage(final Response response) throws IOException {
-		final var parsedJson = JsonPath.parse(bodyAsString(response));
-		final var title = nonNull(this.jsonPathSetup.titlePath()) ? parsedJson.read(this.jsonPathSetup.titlePath(), String.class) : null;
-		final var detail = nonNull(this.jsonPathSetup.detailPath()) ? parsedJson.read(this.jsonPathSetup.detailPath(), String.class) : null;
+		return extractErrorMessage(response, bodyAsString(response));
+	}
+
+	@Override
+	protected String extractErrorMessage(final Response response, final String body) {
+		final var parsedJson = PARSE_CONTEXT.parse(body);
+		final var title = nonNull(titlePath) ? parsedJson.read(titlePath, String.class) : null;
+		final var detail = nonNull(detailPath) ? parsedJson.read(detailPath, String.class) : null;
 		return ErrorMessage.create(integrationName, response.status(), title, detail).extractMessage();
 	}
 
+	// The paths are compiled once, instead of on every read
+	private static JsonPath compile(final String path) {
+		return nonNull(path) ? JsonPath.compile(path) : null;
+	}
+
 	/**
 	 * Creates a new JsonPathSetup with paths to the content of title and detail.
 	 *
@@ -13,8 +13,6 @@ import tools.jackson.databind.DeserializationFeature;
 import tools.jackson.databind.annotation.JsonDeserialize;
 import tools.jackson.databind.json.JsonMapper;
 
-import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
-
 /**
  * A Problem ErrorDecoder that allows you to process a Problem-based error response.
  * <p>
@@ -26,6 +24,8 @@ public class ProblemErrorDecoder extends AbstractErrorDecoder {
 		.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false)
 		.build();
 
+	private static final String VIOLATIONS = "violations";
+
 	/**
 	 * Creates a new ProblemErrorDecoder with an integration name and bypass response codes.
 	 * <p>
@@ -76,27 +76,27 @@ public class ProblemErrorDecoder extends AbstractErrorDecoder {
 
 	@Override
 	public String extractErrorMessage(final Response response) throws IOException {
-		// Read the body once and reuse it for all parsings
-		final var body = bodyAsString(response);
+		return extractErrorMessage(response, bodyAsString(response));
+	}
+
+	@Override
+	protected String extractErrorMessage(final Response response, final String body) {
 		final Problem problem = extractProblem(body);
 
 		return ErrorMessage.create(integrationName, response.status(), problem).extractMessage();
 	}
 
 	private Problem extractProblem(final String body) {
-		// First, try to deserialize as ConstraintViolationProblemResponse
-		try {
-			final var cvpResponse = JSON_MAPPER_MAPPER.readValue(body, ConstraintViolationProblemResponse.class);
-			if (isNotEmpty(cvpResponse.violations())) {
-				// Convert violations to detail string and create a Problem
-				return toProblem(cvpResponse);
-			}
-		} catch (final Exception _) {
-			// Not a ConstraintViolationProblem, fall through to try DefaultProblemResponse
+		// Parse the body once, and pick the shape from the tree. Let the exception propagate if the body isn't JSON.
+		final var tree = JSON_MAPPER_MAPPER.readTree(body);
+
+		final var violations = tree.get(VIOLATIONS);
+		if (violations != null && violations.isArray() && !violations.isEmpty()) {
+			// Convert violations to detail string and create a Problem
+			return toProblem(JSON_MAPPER_MAPPER.treeToValue(tree, ConstraintViolationProblemResponse.class));
 		}
 
-		// Fall back to DefaultProblemResponse - let the exception propagate if this also fails
-		return JSON_MAPPER_MAPPER.readValue(body, DefaultProblemResponse.class);
+		return JSON_MAPPER_MAPPER.treeToValue(tree, DefaultProblemResponse.class);
 	}
 
 	private Problem toProblem(final ConstraintViolationProblemResponse cvpResponse) {
@@ -0,0 +1,18 @@
+package se.sundsvall.dept44.configuration.feign.decoder;
+
+import feign.Capability;
+import feign.codec.Decoder;
+
+/**
+ * Feign capability that wraps the decoder of a client in a streaming {@link BinaryAwareDecoder}. Capabilities are applied
+ * when the client is built, which places the decoder first in the chain, before any Optional or ResponseEntity handling.
+ * <p>
+ * Feign enriches components by reflection, so capabilities need to be public classes.
+ */
+public class StreamingCapability implements Capability {
+
+	@Override
+	public Decoder enrich(final Decoder decoder) {
+		return new BinaryAwareDecoder(decoder, true);
+	}
+}
@@ -0,0 +1,57 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import feign.Capability;
+import feign.Client;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import se.sundsvall.dept44.configuration.feign.retryer.RetryBudget;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feign capability that wraps the client in a {@link HedgingClient} when the Feign client is built.
+ * <p>
+ * Each capability has its own hedge budget, so one capability should be created per integration. When the integration
+ * has retries as well, hedges also withdraw from its retry budget, so that retries and hedges together stay within it.
+ * <p>
+ * The attempts of all clients of the capability run on its executor. After {@link #close()} running attempts finish
+ * and requests are sent without hedging.
+ */
+public class HedgingCapability implements Capability, AutoCloseable {
+
+	private final String integrationName;
+	private final HedgingSettings settings;
+	private final RetryBudget budget;
+	private final Supplier<RetryBudget> retryBudget;
+	private final ExecutorService executor;
+
+	public HedgingCapability(final String integrationName, final HedgingSettings settings) {
+		this(integrationName, settings, () -> null);
+	}
+
+	/**
+	 * @param integrationName the name of the integration
+	 * @param settings        the hedging settings
+	 * @param retryBudget     supplies the retry budget of the integration when the client is built, or null if it has no
+	 *                        retries
+	 */
+	public HedgingCapability(final String integrationName, final HedgingSettings settings, final Supplier<RetryBudget> retryBudget) {
+		this.integrationName = requireNonNull(integrationName);
+		this.settings = requireNonNull(settings);
+		this.retryBudget = requireNonNull(retryBudget);
+		requireNonNull(settings.getMeterRegistry(), "meterRegistry of settings may not be null");
+		this.budget = new RetryBudget(settings.getMaxHedgeRatio(), settings.getHedgeReserve());
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feign-hedging-" + integrationName + "-", 0).factory());
+	}
+
+	@Override
+	public Client enrich(final Client client) {
+		return new HedgingClient(integrationName, client, settings, budget, retryBudget.get(), executor);
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+}
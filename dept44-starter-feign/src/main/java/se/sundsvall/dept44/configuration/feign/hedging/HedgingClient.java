@@ -0,0 +1,194 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.Counter;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import se.sundsvall.dept44.async.ContextSnapshot;
+import se.sundsvall.dept44.configuration.feign.http.CallCanceller;
+import se.sundsvall.dept44.configuration.feign.retryer.RetryBudget;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer.IDEMPOTENT_METHODS;
+
+/**
+ * Client that sends a second, hedged, attempt of an idempotent request that hasn't been answered within the delay of
+ * the {@link HedgingSettings}. The first response wins. If an attempt fails, the other one is waited for. Hedges are
+ * limited by the hedge budget, and by the retry budget of the integration when it has retries as well.
+ * <p>
+ * Attempts run on the executor of the {@link HedgingCapability} with the request id, identifier and MDC of the caller.
+ * Once the executor is shut down, requests are sent without hedging. The call of the losing attempt is cancelled with
+ * a {@link CallCanceller}, which only resets its stream, rather than interrupted, as an interrupt can close a connection
+ * shared with other calls over HTTP/2. Its response, if it has one, is closed.
+ * <p>
+ * Hedges are counted in the {@value #HEDGES} metric, tagged with the integration name and the outcome
+ * ({@value #OUTCOME_SENT}, {@value #OUTCOME_WON}, {@value #OUTCOME_WASTED} or {@value #OUTCOME_BUDGET_EXHAUSTED}).
+ */
+public class HedgingClient implements Client {
+
+	public static final String HEDGES = "dept44.feign.hedges";
+	public static final String OUTCOME_SENT = "sent";
+	public static final String OUTCOME_WON = "won";
+	public static final String OUTCOME_WASTED = "wasted";
+	public static final String OUTCOME_BUDGET_EXHAUSTED = "budget_exhausted";
+
+	private final Client delegate;
+	private final HedgingSettings settings;
+	private final RetryBudget budget;
+	private final RetryBudget retryBudget;
+	private final LatencyWindow latencyWindow;
+	private final ExecutorService executor;
+	private final Counter sent;
+	private final Counter won;
+	private final Counter wasted;
+	private final Counter budgetExhausted;
+
+	/**
+	 * @param retryBudget the retry budget of the integration, which hedges withdraw from as well, or null if the integration
+	 *                    has no retries
+	 * @param executor    the executor to run the attempts on
+	 */
+	HedgingClient(final String integrationName, final Client delegate, final HedgingSettings settings, final RetryBudget budget, final RetryBudget retryBudget,
+		final ExecutorService executor) {
+		this.delegate = delegate;
+		this.settings = settings;
+		this.budget = budget;
+		this.retryBudget = retryBudget;
+		this.latencyWindow = settings.getPercentile() > 0 ? new LatencyWindow(settings.getPercentile()) : null;
+		this.executor = executor;
+		this.sent = counter(integrationName, OUTCOME_SENT);
+		this.won = counter(integrationName, OUTCOME_WON);
+		this.wasted = counter(integrationName, OUTCOME_WASTED);
+		this.budgetExhausted = counter(integrationName, OUTCOME_BUDGET_EXHAUSTED);
+	}
+
+	@Override
+	public Response execute(final Request request, final Request.Options options) throws IOException {
+		budget.deposit();
+		if (!IDEMPOTENT_METHODS.contains(request.httpMethod()) || executor.isShutdown()) {
+			return delegate.execute(request, options);
+		}
+
+		final var primary = start(request, options);
+		Attempt hedge = null;
+		try {
+			try {
+				return primary.result().get(delayNanos(), NANOSECONDS);
+			} catch (final TimeoutException _) {
+				// No response within the delay, hedge if the budget allows
+			}
+
+			if (!budget.tryWithdraw() || (retryBudget != null && !retryBudget.tryWithdraw())) {
+				budgetExhausted.increment();
+				return primary.result().get();
+			}
+			sent.increment();
+			hedge = start(request, options);
+
+			final var winner = firstSuccessful(primary, hedge).get();
+			if (winner == null) {
+				// Both attempts failed, report the failure of the request as it would have been without hedging
+				return primary.result().get();
+			}
+			(winner == hedge ? won : wasted).increment();
+			(winner == hedge ? primary : hedge).discard();
+			return winner.result().get();
+		} catch (final ExecutionException e) {
+			throw rethrow(e.getCause());
+		} catch (final InterruptedException _) {
+			Thread.currentThread().interrupt();
+			primary.discard();
+			if (hedge != null) {
+				hedge.discard();
+			}
+			throw new InterruptedIOException("Interrupted while waiting for response");
+		}
+	}
+
+	private Attempt start(final Request request, final Request.Options options) {
+		final var result = new CompletableFuture<Response>();
+		final var canceller = new CallCanceller();
+		try {
+			executor.execute(ContextSnapshot.capture().wrap(() -> {
+				final var start = System.nanoTime();
+				try {
+					final var response = canceller.run(() -> delegate.execute(request, options));
+					if (latencyWindow != null) {
+						latencyWindow.record(System.nanoTime() - start);
+					}
+					result.complete(response);
+				} catch (final Throwable t) {
+					result.completeExceptionally(t);
+				}
+			}));
+		} catch (final RejectedExecutionException e) {
+			// Shut down after the request started, the attempt fails and the other one, if any, is used
+			result.completeExceptionally(e);
+		}
+		return new Attempt(result, canceller);
+	}
+
+	private long delayNanos() {
+		final var percentileNanos = latencyWindow != null ? latencyWindow.getPercentileNanos() : -1;
+		return percentileNanos >= 0 ? percentileNanos : settings.getDelay().toNanos();
+	}
+
+	/**
+	 * @return the first attempt to succeed, or null if both fail
+	 */
+	private static CompletableFuture<Attempt> firstSuccessful(final Attempt first, final Attempt second) {
+		final var winner = new CompletableFuture<Attempt>();
+		final var failures = new AtomicInteger();
+		for (final var attempt : List.of(first, second)) {
+			attempt.result().whenComplete((_, failure) -> {
+				if (failure == null) {
+					winner.complete(attempt);
+				} else if (failures.incrementAndGet() == 2) {
+					winner.complete(null);
+				}
+			});
+		}
+		return winner;
+	}
+
+	private static IOException rethrow(final Throwable cause) {
+		if (cause instanceof final IOException ioException) {
+			return ioException;
+		}
+		if (cause instanceof final RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		if (cause instanceof final Error error) {
+			throw error;
+		}
+		return new IOException(cause);
+	}
+
+	private Counter counter(final String integrationName, final String outcome) {
+		return Counter.builder(HEDGES)
+			.description("Hedged Feign requests")
+			.tag("integration", integrationName)
+			.tag("outcome", outcome)
+			.register(settings.getMeterRegistry());
+	}
+
+	private record Attempt(CompletableFuture<Response> result, CallCanceller canceller) {
+
+		/**
+		 * Cancels the call of the attempt, and closes its response if it completes anyway, which releases the connection.
+		 */
+		void discard() {
+			canceller.cancel();
+			result.thenAccept(Response::close);
+		}
+	}
+}
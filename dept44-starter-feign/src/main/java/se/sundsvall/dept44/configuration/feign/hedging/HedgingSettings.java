@@ -0,0 +1,100 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import org.springframework.util.Assert;
+
+/**
+ * Settings for {@link HedgingClient}, created with {@link #create()} and adjusted with the {@code with}-methods.
+ * <p>
+ * The defaults send a hedged request when an idempotent request hasn't been answered within 500 ms, limited to 10% of the
+ * requests of the integration plus a reserve of 10 hedges.
+ */
+public class HedgingSettings {
+
+	private Duration delay = Duration.ofMillis(500);
+	private double percentile;
+	private double maxHedgeRatio = 0.1;
+	private int hedgeReserve = 10;
+	private MeterRegistry meterRegistry;
+
+	private HedgingSettings() {}
+
+	public static HedgingSettings create() {
+		return new HedgingSettings();
+	}
+
+	/**
+	 * @param  delay the time to wait for a response before sending a hedged request
+	 * @return       this settings instance
+	 */
+	public HedgingSettings withDelay(final Duration delay) {
+		Assert.notNull(delay, "delay may not be null");
+		Assert.isTrue(!delay.isNegative(), "delay must not be negative");
+		this.delay = delay;
+		return this;
+	}
+
+	/**
+	 * Derives the delay from the observed latency of the integration, e.g. 0.95 to hedge requests slower than 95% of the
+	 * recent requests. The static delay is used until enough requests have been observed.
+	 *
+	 * @param  percentile the latency percentile to use as delay, greater than 0 and less than 1
+	 * @return            this settings instance
+	 */
+	public HedgingSettings withPercentileDelay(final double percentile) {
+		Assert.isTrue(percentile > 0 && percentile < 1, "percentile must be greater than 0 and less than 1");
+		this.percentile = percentile;
+		return this;
+	}
+
+	/**
+	 * @param  maxHedgeRatio the share of requests that may be hedged, e.g. 0.1 for 10%
+	 * @param  hedgeReserve  the number of hedges allowed regardless of the ratio, which is also the most the budget can
+	 *                       save up
+	 * @return               this settings instance
+	 */
+	public HedgingSettings withMaxHedgeRatio(final double maxHedgeRatio, final int hedgeReserve) {
+		Assert.isTrue(maxHedgeRatio >= 0, "maxHedgeRatio must not be negative");
+		Assert.isTrue(hedgeReserve >= 0, "hedgeReserve must not be negative");
+		this.maxHedgeRatio = maxHedgeRatio;
+		this.hedgeReserve = hedgeReserve;
+		return this;
+	}
+
+	/**
+	 * @param  meterRegistry the registry to publish hedging metrics in, defaults to the registry of the application
+	 * @return               this settings instance
+	 */
+	public HedgingSettings withMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		return this;
+	}
+
+	public Duration getDelay() {
+		return delay;
+	}
+
+	/**
+	 * @return the latency percentile used as delay, or 0 if the static delay is used
+	 */
+	public double getPercentile() {
+		return percentile;
+	}
+
+	public double getMaxHedgeRatio() {
+		return maxHedgeRatio;
+	}
+
+	public int getHedgeReserve() {
+		return hedgeReserve;
+	}
+
+	/**
+	 * @return the registry to publish metrics in, or null if the registry of the application is used
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+}
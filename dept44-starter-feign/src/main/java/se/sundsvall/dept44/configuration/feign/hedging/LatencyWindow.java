@@ -0,0 +1,49 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The latencies of the most recent requests, with a percentile that is recalculated every {@value #RECALCULATE_EVERY}
+ * requests rather than on every read.
+ */
+final class LatencyWindow {
+
+	static final int SIZE = 1024;
+	static final int RECALCULATE_EVERY = 100;
+
+	private final double percentile;
+	private final AtomicLongArray latencies = new AtomicLongArray(SIZE);
+	private final AtomicLong count = new AtomicLong();
+	private volatile long percentileNanos = -1;
+
+	LatencyWindow(final double percentile) {
+		this.percentile = percentile;
+	}
+
+	void record(final long nanos) {
+		final var index = count.getAndIncrement();
+		latencies.set((int) (index % SIZE), nanos);
+		if ((index + 1) % RECALCULATE_EVERY == 0) {
+			percentileNanos = calculate(Math.min(index + 1, SIZE));
+		}
+	}
+
+	/**
+	 * @return the latency at the percentile in nanos, or -1 if fewer than {@value #RECALCULATE_EVERY} requests have been
+	 *         recorded
+	 */
+	long getPercentileNanos() {
+		return percentileNanos;
+	}
+
+	private long calculate(final long samples) {
+		final var sorted = new long[(int) samples];
+		for (var i = 0; i < samples; i++) {
+			sorted[i] = latencies.get(i);
+		}
+		Arrays.sort(sorted);
+		return sorted[(int) Math.min(samples - 1, (long) Math.ceil(percentile * samples) - 1)];
+	}
+}
@@ -0,0 +1,71 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import java.util.concurrent.Callable;
+import okhttp3.Call;
+import okhttp3.Interceptor;
+
+/**
+ * Cancels the OkHttp call sent by an action from another thread, with {@link Call#cancel()}. Unlike interrupting the
+ * thread of the action, which can close a connection shared with other calls over HTTP/2, cancelling a call only resets
+ * its own stream (or closes its connection over HTTP/1.1).
+ * <p>
+ * Calls are registered by the {@link #interceptor()} of the OkHttp clients of the {@link FeignHttpClientFactory}. Calls
+ * sent through other clients are not cancelled.
+ */
+public final class CallCanceller {
+
+	private static final ThreadLocal<CallCanceller> CURRENT = new ThreadLocal<>();
+
+	private static final Interceptor INTERCEPTOR = chain -> {
+		final var canceller = CURRENT.get();
+		if (canceller != null) {
+			canceller.register(chain.call());
+		}
+		return chain.proceed(chain.request());
+	};
+
+	private Call call;
+	private boolean cancelled;
+
+	/**
+	 * Runs the action on the calling thread. The OkHttp call it sends is cancelled by {@link #cancel()}.
+	 *
+	 * @param  action    the action sending the call
+	 * @return           the result of the action
+	 * @throws Exception if the action fails, for example as the call is cancelled
+	 */
+	public <T> T run(final Callable<T> action) throws Exception {
+		final var previous = CURRENT.get();
+		CURRENT.set(this);
+		try {
+			return action.call();
+		} finally {
+			if (previous != null) {
+				CURRENT.set(previous);
+			} else {
+				CURRENT.remove();
+			}
+		}
+	}
+
+	/**
+	 * Cancels the call of the action, or the call it sends later if it hasn't sent one yet.
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		if (call != null) {
+			call.cancel();
+		}
+	}
+
+	static Interceptor interceptor() {
+		return INTERCEPTOR;
+	}
+
+	private synchronized void register(final Call call) {
+		this.call = call;
+		if (cancelled) {
+			call.cancel();
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Connection;
+import okhttp3.EventListener;
+import okhttp3.Handshake;
+import okhttp3.Protocol;
+
+/**
+ * Times the connection phases of each call: DNS lookup, TCP connect, TLS handshake, and how long the call waited for a
+ * connection (including any lookup, connect and handshake it needed). A call that reuses a pooled connection only
+ * records the acquisition time.
+ * <p>
+ * A new listener is created per call, so the start times need no synchronization.
+ */
+final class ConnectionMetricsEventListener extends EventListener {
+
+	static final String DNS = "dept44.feign.http.dns";
+	static final String CONNECT = "dept44.feign.http.connect";
+	static final String TLS = "dept44.feign.http.tls";
+	static final String ACQUIRE = "dept44.feign.http.connection.acquire";
+
+	private final Timers timers;
+
+	private long callStart;
+	private long dnsStart;
+	private long connectStart;
+	private long secureConnectStart;
+
+	private ConnectionMetricsEventListener(final Timers timers) {
+		this.timers = timers;
+	}
+
+	static EventListener.Factory factory(final String client, final MeterRegistry meterRegistry) {
+		final var timers = new Timers(
+			timer(DNS, "Time spent resolving host names", client, null, meterRegistry),
+			timer(CONNECT, "Time spent establishing connections", client, "success", meterRegistry),
+			timer(CONNECT, "Time spent establishing connections", client, "failure", meterRegistry),
+			timer(TLS, "Time spent in TLS handshakes", client, null, meterRegistry),
+			timer(ACQUIRE, "Time calls waited for a connection", client, null, meterRegistry));
+		return _ -> new ConnectionMetricsEventListener(timers);
+	}
+
+	@Override
+	public void callStart(final Call call) {
+		callStart = System.nanoTime();
+	}
+
+	@Override
+	public void dnsStart(final Call call, final String domainName) {
+		dnsStart = System.nanoTime();
+	}
+
+	@Override
+	public void dnsEnd(final Call call, final String domainName, final List<InetAddress> inetAddressList) {
+		record(timers.dns(), dnsStart);
+	}
+
+	@Override
+	public void connectStart(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy) {
+		connectStart = System.nanoTime();
+	}
+
+	@Override
+	public void secureConnectStart(final Call call) {
+		secureConnectStart = System.nanoTime();
+	}
+
+	@Override
+	public void secureConnectEnd(final Call call, final Handshake handshake) {
+		record(timers.tls(), secureConnectStart);
+	}
+
+	@Override
+	public void connectEnd(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol) {
+		record(timers.connectSuccess(), connectStart);
+	}
+
+	@Override
+	public void connectFailed(final Call call, final InetSocketAddress inetSocketAddress, final Proxy proxy, final Protocol protocol, final IOException ioe) {
+		record(timers.connectFailure(), connectStart);
+	}
+
+	@Override
+	public void connectionAcquired(final Call call, final Connection connection) {
+		record(timers.acquire(), callStart);
+	}
+
+	private static void record(final Timer timer, final long start) {
+		if (start != 0) {
+			timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private static Timer timer(final String name, final String description, final String client, final String outcome, final MeterRegistry meterRegistry) {
+		final var builder = Timer.builder(name)
+			.description(description)
+			.tag("client", client);
+		if (outcome != null) {
+			builder.tag("outcome", outcome);
+		}
+		return builder.register(meterRegistry);
+	}
+
+	private record Timers(Timer dns, Timer connectSuccess, Timer connectFailure, Timer tls, Timer acquire) {}
+}
@@ -0,0 +1,27 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import se.sundsvall.dept44.configuration.TruststoreConfiguration;
+import se.sundsvall.dept44.security.Truststore;
+
+/**
+ * Autoconfiguration of the {@link FeignHttpClientFactory} shared by all Feign clients. See
+ * {@link FeignHttpClientProperties} for the available settings.
+ */
+@AutoConfiguration(after = TruststoreConfiguration.class)
+@EnableConfigurationProperties(FeignHttpClientProperties.class)
+public class FeignHttpClientConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	FeignHttpClientFactory feignHttpClientFactory(final FeignHttpClientProperties properties, final ObjectProvider<Truststore> truststoreProvider,
+		final ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		return new FeignHttpClientFactory(properties, truststoreProvider.getIfAvailable(), meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+}
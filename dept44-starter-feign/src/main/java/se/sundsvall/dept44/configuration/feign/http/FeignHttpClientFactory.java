@@ -0,0 +1,131 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import javax.net.ssl.X509TrustManager;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientProperties.Pool;
+import se.sundsvall.dept44.security.Truststore;
+
+import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Creates the OkHttp clients used by Feign.
+ * <p>
+ * Feign clients share one connection pool and dispatcher, unless their integration is given its own pool in
+ * {@link FeignHttpClientProperties#getClients()}. When enabled, HTTP/2 is negotiated over TLS if the server supports it,
+ * so calls to the same host are multiplexed over one connection, and cleartext HTTP/2 (h2c) can be enabled per
+ * integration. The {@link Truststore} SSL context is shared by all clients. Calls sent by a {@link CallCanceller} action
+ * can be cancelled.
+ * <p>
+ * Unless disabled, each pool publishes {@code dept44.feign.http.connections} (tagged {@code state} idle or active) and
+ * the connection phase timers of {@link ConnectionMetricsEventListener}, all tagged with {@code client} (the
+ * integration, or {@value #SHARED} for the shared pool).
+ */
+public class FeignHttpClientFactory implements AutoCloseable {
+
+	public static final String SHARED = "shared";
+
+	static final String CONNECTIONS = "dept44.feign.http.connections";
+
+	private final FeignHttpClientProperties properties;
+	private final Truststore truststore;
+	private final MeterRegistry meterRegistry;
+	private final OkHttpClient sharedClient;
+	private final ConcurrentMap<String, OkHttpClient> clients = new ConcurrentHashMap<>();
+	private final List<OkHttpClient> pooledClients = new ArrayList<>();
+
+	/**
+	 * @param properties    the pool, protocol and metrics settings
+	 * @param truststore    the truststore whose SSL context is used for TLS connections (may be null)
+	 * @param meterRegistry the registry to publish connection metrics to
+	 */
+	public FeignHttpClientFactory(final FeignHttpClientProperties properties, final Truststore truststore, final MeterRegistry meterRegistry) {
+		this.properties = properties;
+		this.truststore = truststore;
+		this.meterRegistry = meterRegistry;
+		this.sharedClient = createPooledClient(SHARED, properties.getPool());
+	}
+
+	/**
+	 * Returns the OkHttp client of a Feign client. Clients for the same integration are the same instance.
+	 *
+	 * @param  clientName the Feign client name (may be null)
+	 * @return            the OkHttp client for the integration, or the shared client
+	 */
+	public OkHttpClient getClient(final String clientName) {
+		final var client = ofNullable(clientName).map(properties.getClients()::get).orElse(null);
+		if (client == null) {
+			return sharedClient;
+		}
+		return clients.computeIfAbsent(clientName, name -> {
+			final var okHttpClient = ofNullable(client.getPool())
+				.map(pool -> createPooledClient(name, pool))
+				.orElse(sharedClient);
+			if (client.isH2cPriorKnowledge()) {
+				// Derived clients share the connection pool and dispatcher of the client they are derived from
+				return okHttpClient.newBuilder().protocols(List.of(Protocol.H2_PRIOR_KNOWLEDGE)).build();
+			}
+			return okHttpClient;
+		});
+	}
+
+	/**
+	 * Closes the idle connections and stops the dispatchers of all clients.
+	 */
+	@Override
+	public void close() {
+		synchronized (pooledClients) {
+			pooledClients.forEach(client -> {
+				client.connectionPool().evictAll();
+				client.dispatcher().executorService().shutdown();
+			});
+		}
+	}
+
+	private OkHttpClient createPooledClient(final String name, final Pool pool) {
+		final var connectionPool = new ConnectionPool(pool.getMaxIdleConnections(), pool.getKeepAlive().toMillis(), MILLISECONDS);
+		// The dispatcher only runs asynchronous calls; synchronous Feign calls run on the calling thread
+		final var dispatcher = new Dispatcher(Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("okhttp-" + name + "-", 0).factory()));
+		dispatcher.setMaxRequests(pool.getMaxRequests());
+		dispatcher.setMaxRequestsPerHost(pool.getMaxRequestsPerHost());
+
+		final var builder = new OkHttpClient.Builder()
+			.connectionPool(connectionPool)
+			.dispatcher(dispatcher)
+			.addInterceptor(CallCanceller.interceptor())
+			.protocols(properties.isHttp2() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1));
+
+		if (truststore != null) {
+			final var trustManager = (X509TrustManager) truststore.getTrustManagerFactory().getTrustManagers()[0];
+			builder.sslSocketFactory(truststore.getSSLContext().getSocketFactory(), trustManager);
+		}
+
+		if (properties.isMetricsEnabled()) {
+			builder.eventListenerFactory(ConnectionMetricsEventListener.factory(name, meterRegistry));
+			Gauge.builder(CONNECTIONS, connectionPool, ConnectionPool::idleConnectionCount)
+				.description("Connections in the pool")
+				.tags("client", name, "state", "idle")
+				.register(meterRegistry);
+			Gauge.builder(CONNECTIONS, connectionPool, p -> p.connectionCount() - p.idleConnectionCount())
+				.description("Connections in the pool")
+				.tags("client", name, "state", "active")
+				.register(meterRegistry);
+		}
+
+		final var client = builder.build();
+		synchronized (pooledClients) {
+			pooledClients.add(client);
+		}
+		return client;
+	}
+}
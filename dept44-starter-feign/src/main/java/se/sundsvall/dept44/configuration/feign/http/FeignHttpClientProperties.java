@@ -0,0 +1,129 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the OkHttp clients used by Feign.
+ * <p>
+ * All Feign clients share one connection pool and dispatcher sized by the top-level settings. An integration listed
+ * under {@code clients} (keyed by the Feign client name) gets its own pool and dispatcher instead.
+ * <p>
+ * HTTP/2 is opt-in. Calls multiplexed over one HTTP/2 connection share its socket, so interrupting a thread blocked in a
+ * call (for example with {@code Future.cancel(true)}) can close the connection and fail every other call on it. Cancel
+ * calls with {@code okhttp3.Call.cancel()} instead when HTTP/2 is enabled.
+ */
+@ConfigurationProperties(prefix = "dept44.feign.http-client")
+public class FeignHttpClientProperties {
+
+	private Pool pool = new Pool();
+	private boolean http2;
+	private boolean metricsEnabled = true;
+	private Map<String, Client> clients = new HashMap<>();
+
+	public Pool getPool() {
+		return pool;
+	}
+
+	public void setPool(final Pool pool) {
+		this.pool = pool;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	public void setHttp2(final boolean http2) {
+		this.http2 = http2;
+	}
+
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+
+	public void setMetricsEnabled(final boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+	}
+
+	public Map<String, Client> getClients() {
+		return clients;
+	}
+
+	public void setClients(final Map<String, Client> clients) {
+		this.clients = clients;
+	}
+
+	/**
+	 * Sizing of a connection pool and its dispatcher.
+	 */
+	public static class Pool {
+
+		private int maxIdleConnections = 20;
+		private Duration keepAlive = Duration.ofMinutes(5);
+		private int maxRequests = 256;
+		private int maxRequestsPerHost = 64;
+
+		public int getMaxIdleConnections() {
+			return maxIdleConnections;
+		}
+
+		public void setMaxIdleConnections(final int maxIdleConnections) {
+			this.maxIdleConnections = maxIdleConnections;
+		}
+
+		public Duration getKeepAlive() {
+			return keepAlive;
+		}
+
+		public void setKeepAlive(final Duration keepAlive) {
+			this.keepAlive = keepAlive;
+		}
+
+		public int getMaxRequests() {
+			return maxRequests;
+		}
+
+		public void setMaxRequests(final int maxRequests) {
+			this.maxRequests = maxRequests;
+		}
+
+		public int getMaxRequestsPerHost() {
+			return maxRequestsPerHost;
+		}
+
+		public void setMaxRequestsPerHost(final int maxRequestsPerHost) {
+			this.maxRequestsPerHost = maxRequestsPerHost;
+		}
+	}
+
+	/**
+	 * Settings of a single integration.
+	 */
+	public static class Client {
+
+		private Pool pool;
+		private boolean h2cPriorKnowledge;
+
+		public Pool getPool() {
+			return pool;
+		}
+
+		public void setPool(final Pool pool) {
+			this.pool = pool;
+		}
+
+		/**
+		 * @return whether cleartext HTTP/2 is used without negotiation. OkHttp can't upgrade a cleartext HTTP/1.1
+		 *         connection to HTTP/2, so this must only be enabled for servers known to support h2c.
+		 */
+		public boolean isH2cPriorKnowledge() {
+			return h2cPriorKnowledge;
+		}
+
+		public void setH2cPriorKnowledge(final boolean h2cPriorKnowledge) {
+			this.h2cPriorKnowledge = h2cPriorKnowledge;
+		}
+	}
+}
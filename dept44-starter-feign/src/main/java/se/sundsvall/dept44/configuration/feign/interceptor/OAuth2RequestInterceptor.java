@@ -3,43 +3,30 @@ package se.sundsvall.dept44.configuration.feign.interceptor;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import java.time.Duration;
-import java.util.HashSet;
 import java.util.Set;
-import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
-import org.springframework.boot.http.client.HttpClientSettings;
-import org.springframework.http.converter.FormHttpMessageConverter;
-import org.springframework.security.authentication.AnonymousAuthenticationToken;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.authority.AuthorityUtils;
-import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
-import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
-import org.springframework.security.oauth2.client.OAuth2AuthorizeRequest;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClientManager;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClientProviderBuilder;
-import org.springframework.security.oauth2.client.endpoint.RestClientClientCredentialsTokenResponseClient;
-import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
-import org.springframework.security.oauth2.client.registration.InMemoryClientRegistrationRepository;
-import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
 import org.springframework.util.Assert;
-import org.springframework.web.client.RestClient;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+import se.sundsvall.dept44.oauth2.TokenStore;
 
-import static java.util.Objects.isNull;
-import static java.util.Optional.ofNullable;
 import static org.springframework.http.HttpHeaders.AUTHORIZATION;
 import static se.sundsvall.dept44.configuration.Constants.DEFAULT_TOKEN_CONNECT_TIMEOUT_IN_SECONDS;
 import static se.sundsvall.dept44.configuration.Constants.DEFAULT_TOKEN_READ_TIMEOUT_IN_SECONDS;
-import static se.sundsvall.dept44.util.ResourceUtils.requireNonNull;
 
+/**
+ * Adds a client credentials access token to each request.
+ * <p>
+ * Tokens are cached by an {@link OAuth2TokenProvider}, so the hot path is a lock-free read of the current token. The
+ * token is refreshed in the background before it expires, and only when it has expired do requests wait for the token
+ * endpoint. Providers are shared through the {@link TokenStore}, so all clients using the same client registration and
+ * scopes share one token.
+ */
 public class OAuth2RequestInterceptor implements RequestInterceptor {
 
-	private static final Authentication ANONYMOUS_AUTHENTICATION = new AnonymousAuthenticationToken(
-		"anonymous", "anonymousUser", AuthorityUtils.createAuthorityList("ROLE_ANONYMOUS"));
+	private static final String BEARER_PREFIX = "Bearer ";
 
-	private final OAuth2AuthorizedClientManager authorizedClientManager;
 	private final ClientRegistration clientRegistration;
-	private final InMemoryOAuth2AuthorizedClientService oAuth2AuthorizedClientService;
+	private final OAuth2TokenProvider tokenProvider;
 
 	public OAuth2RequestInterceptor(final ClientRegistration clientRegistration, Set<String> extraScopes) {
 		this(clientRegistration, extraScopes, Duration.ofSeconds(DEFAULT_TOKEN_CONNECT_TIMEOUT_IN_SECONDS), Duration.ofSeconds(DEFAULT_TOKEN_READ_TIMEOUT_IN_SECONDS));
@@ -48,9 +35,9 @@ public class OAuth2RequestInterceptor implements RequestInterceptor {
 	/**
 	 * Creates an interceptor with explicit timeouts for the calls to the token endpoint.
 	 * <p>
-	 * The token is fetched while a lock is held, so a token endpoint that never responds would otherwise block every
-	 * outbound request for this client indefinitely. Note that the timeouts configured on the Feign client itself do not
-	 * apply to the token fetch.
+	 * Requests wait for the token endpoint when no valid token is cached, so a token endpoint that never responds would
+	 * otherwise block every outbound request for this client indefinitely. Note that the timeouts configured on the Feign
+	 * client itself do not apply to the token fetch.
 	 *
 	 * @param clientRegistration containing authorization information for the client
 	 * @param extraScopes        a set of extra scopes (may be null or empty)
@@ -62,86 +49,15 @@ public class OAuth2RequestInterceptor implements RequestInterceptor {
 		Assert.notNull(connectTimeout, "connectTimeout cannot be null");
 		Assert.notNull(readTimeout, "readTimeout cannot be null");
 
-		Set<String> scope = getScopeSet(clientRegistration);
-		ofNullable(extraScopes).ifPresent(scope::addAll);
-		this.clientRegistration = ClientRegistration.withClientRegistration(clientRegistration).scope(scope).build();
-
-		var clientRegistrations = new InMemoryClientRegistrationRepository(this.clientRegistration);
-		oAuth2AuthorizedClientService = new InMemoryOAuth2AuthorizedClientService(clientRegistrations);
-
-		this.authorizedClientManager = createAuthorizedClientManager(clientRegistrations, oAuth2AuthorizedClientService, connectTimeout, readTimeout);
-	}
-
-	private Set<String> getScopeSet(final ClientRegistration clientRegistration) {
-		// When adding a scope to the clientRegistration it produces an "UnmodifiableSet", work around it.
-		return ofNullable(clientRegistration.getScopes())
-			.map(HashSet::new)
-			.orElseGet(HashSet::new);
-	}
-
-	private AuthorizedClientServiceOAuth2AuthorizedClientManager createAuthorizedClientManager(
-		final InMemoryClientRegistrationRepository clientRegistrationRepository,
-		final InMemoryOAuth2AuthorizedClientService clientService,
-		final Duration connectTimeout,
-		final Duration readTimeout) {
-
-		var manager = new AuthorizedClientServiceOAuth2AuthorizedClientManager(clientRegistrationRepository, clientService);
-		var clientProvider = OAuth2AuthorizedClientProviderBuilder.builder()
-			.clientCredentials(clientCredentials -> clientCredentials.accessTokenResponseClient(createTokenResponseClient(connectTimeout, readTimeout)))
-			.build();
-
-		manager.setAuthorizedClientProvider(clientProvider);
-		return manager;
-	}
-
-	/**
-	 * Creates a token response client with explicit timeouts. Without them, the default request factory has no read
-	 * timeout, and a hung token endpoint would block indefinitely while the token fetch lock is held.
-	 * <p>
-	 * The request factory is created with ClientHttpRequestFactoryBuilder.detect() so the same client implementation is
-	 * picked as a default-constructed RestClient would use (e.g. Apache HttpClient when on the classpath, preserving its
-	 * redirect-following behavior), only with timeouts applied.
-	 */
-	private RestClientClientCredentialsTokenResponseClient createTokenResponseClient(final Duration connectTimeout, final Duration readTimeout) {
-		final var requestFactory = ClientHttpRequestFactoryBuilder.detect().build(
-			HttpClientSettings.defaults().withTimeouts(connectTimeout, readTimeout));
-
-		// The message converters and status handler mirror the defaults set up in the constructor of
-		// RestClientClientCredentialsTokenResponseClient, which are lost when replacing its RestClient.
-		// Re-check them against that class when upgrading Spring Security.
-		final var restClient = RestClient.builder()
-			.requestFactory(requestFactory)
-			.messageConverters(converters -> {
-				converters.clear();
-				converters.add(new FormHttpMessageConverter());
-				converters.add(new OAuth2AccessTokenResponseHttpMessageConverter());
-			})
-			.defaultStatusHandler(new OAuth2ErrorResponseErrorHandler())
-			.build();
-
-		final var tokenResponseClient = new RestClientClientCredentialsTokenResponseClient();
-		tokenResponseClient.setRestClient(restClient);
-		return tokenResponseClient;
+		this.clientRegistration = TokenStore.withScopes(clientRegistration, extraScopes);
+		this.tokenProvider = TokenStore.getShared().getProvider(this.clientRegistration, connectTimeout, readTimeout);
 	}
 
 	@Override
 	public void apply(final RequestTemplate requestTemplate) {
-		if (isNull(authorizedClientManager)) {
-			return;
-		}
-
-		var request = OAuth2AuthorizeRequest
-			.withClientRegistrationId(clientRegistration.getRegistrationId())
-			.principal(ANONYMOUS_AUTHENTICATION)
-			.build();
-
-		OAuth2AuthorizedClient authorizedClient;
-		synchronized (this) {
-			authorizedClient = authorizedClientManager.authorize(request);
-		}
-		var accessToken = requireNonNull(authorizedClient, "authorizedClient cannot be null").getAccessToken();
+		final var accessToken = tokenProvider.getToken();
 		requestTemplate.removeHeader(AUTHORIZATION);
-		requestTemplate.header(AUTHORIZATION, String.format("Bearer %s", accessToken.getTokenValue()));
+		requestTemplate.header(AUTHORIZATION, BEARER_PREFIX + accessToken.getTokenValue());
 	}
 
 	/**
@@ -158,18 +74,8 @@ public class OAuth2RequestInterceptor implements RequestInterceptor {
 	 *                                  request that failed
 	 */
 	public void removeToken(final String failedAuthorizationHeader) {
-		synchronized (this) {
-			final var registrationId = clientRegistration.getRegistrationId();
-			final OAuth2AuthorizedClient currentClient = oAuth2AuthorizedClientService.loadAuthorizedClient(registrationId, ANONYMOUS_AUTHENTICATION.getName());
-			if (currentClient == null) {
-				// Already evicted (and possibly refreshed) by another thread - nothing to do.
-				return;
-			}
-
-			final var currentAuthorizationHeader = String.format("Bearer %s", currentClient.getAccessToken().getTokenValue());
-			if (currentAuthorizationHeader.equals(failedAuthorizationHeader)) {
-				oAuth2AuthorizedClientService.removeAuthorizedClient(registrationId, ANONYMOUS_AUTHENTICATION.getName());
-			}
+		if (failedAuthorizationHeader != null && failedAuthorizationHeader.startsWith(BEARER_PREFIX)) {
+			tokenProvider.invalidate(failedAuthorizationHeader.substring(BEARER_PREFIX.length()));
 		}
 	}
 }
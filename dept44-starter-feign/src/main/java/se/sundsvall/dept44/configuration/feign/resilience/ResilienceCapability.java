@@ -0,0 +1,120 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import feign.Capability;
+import feign.FeignException;
+import feign.InvocationHandlerFactory;
+import feign.InvocationHandlerFactory.MethodHandler;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import io.github.resilience4j.timelimiter.TimeLimiterConfig;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import java.lang.reflect.Method;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import se.sundsvall.dept44.exception.ClientProblem;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Feign capability that sends each call of a Feign client through a semaphore bulkhead, a circuit breaker and a time
+ * limiter, all named after the integration.
+ * <p>
+ * The components wrap the method handlers of the client, i.e. the call including encoding, retries and decoding, so
+ * they apply to both synchronous and asynchronous methods. Responses decoded to a {@link ClientProblem} or a
+ * {@link FeignException.FeignClientException} are not counted as failures, as a 4xx says nothing about the health of
+ * the integration.
+ * <p>
+ * The components are taken from the {@link ResilienceRegistries} when the client is built. An instance configured with
+ * {@code resilience4j.<component>.instances.<integration name>} properties is used as configured, otherwise one is
+ * created from the default configuration of the registry with the values of the {@link ResilienceSettings}. Their
+ * metrics are published by the registries, tagged with the integration name, e.g.
+ * {@code resilience4j.circuitbreaker.state}, {@code resilience4j.bulkhead.available.concurrent.calls} and
+ * {@code resilience4j.timelimiter.calls}.
+ * <p>
+ * The time limiter runs the calls on virtual threads of the capability. {@link #close()} lets running calls finish and
+ * rejects new ones.
+ */
+public class ResilienceCapability implements Capability, AutoCloseable {
+
+	private final String integrationName;
+	private final ResilienceSettings settings;
+	private final Supplier<ResilienceRegistries> registries;
+	private final ExecutorService executor;
+
+	private Components components;
+
+	public ResilienceCapability(final String integrationName, final ResilienceSettings settings) {
+		this(integrationName, settings, ResilienceRegistries::ofDefaults);
+	}
+
+	/**
+	 * @param integrationName the name of the integration, used as name of the components
+	 * @param settings        the settings of components not configured in the registries
+	 * @param registries      supplies the registries when the client is built
+	 */
+	public ResilienceCapability(final String integrationName, final ResilienceSettings settings, final Supplier<ResilienceRegistries> registries) {
+		this.integrationName = requireNonNull(integrationName);
+		this.settings = requireNonNull(settings);
+		this.registries = requireNonNull(registries);
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("feign-resilience-" + integrationName + "-", 0).factory());
+	}
+
+	@Override
+	public InvocationHandlerFactory enrich(final InvocationHandlerFactory invocationHandlerFactory) {
+		final var current = components();
+		return (target, dispatch) -> invocationHandlerFactory.create(target, wrap(dispatch, current));
+	}
+
+	private Map<Method, MethodHandler> wrap(final Map<Method, MethodHandler> dispatch, final Components current) {
+		final var wrapped = new LinkedHashMap<Method, MethodHandler>();
+		// Default methods are left as they are, as the calls they make go through the wrapped handlers
+		dispatch.forEach((method, handler) -> wrapped.put(method, method.isDefault() ? handler
+			: new ResilienceMethodHandler(integrationName, handler, current.bulkhead(), current.circuitBreaker(), current.timeLimiter(), executor)));
+		return wrapped;
+	}
+
+	private synchronized Components components() {
+		if (components == null) {
+			final var resolved = registries.get();
+			components = new Components(bulkhead(resolved.bulkheadRegistry()), circuitBreaker(resolved.circuitBreakerRegistry()), timeLimiter(resolved.timeLimiterRegistry()));
+		}
+		return components;
+	}
+
+	@Override
+	public void close() {
+		executor.shutdown();
+	}
+
+	private Bulkhead bulkhead(final BulkheadRegistry registry) {
+		return registry.find(integrationName).orElseGet(() -> registry.bulkhead(integrationName, BulkheadConfig.from(registry.getDefaultConfig())
+			.maxConcurrentCalls(settings.getMaxConcurrentCalls())
+			.maxWaitDuration(settings.getMaxWait())
+			.build()));
+	}
+
+	private CircuitBreaker circuitBreaker(final CircuitBreakerRegistry registry) {
+		return registry.find(integrationName).orElseGet(() -> registry.circuitBreaker(integrationName, CircuitBreakerConfig.from(registry.getDefaultConfig())
+			.failureRateThreshold(settings.getFailureRateThreshold())
+			.slowCallDurationThreshold(settings.getSlowCallDuration())
+			.slowCallRateThreshold(settings.getSlowCallRateThreshold())
+			.waitDurationInOpenState(settings.getWaitDurationInOpenState())
+			.build()));
+	}
+
+	private TimeLimiter timeLimiter(final TimeLimiterRegistry registry) {
+		return registry.find(integrationName).orElseGet(() -> registry.timeLimiter(integrationName, TimeLimiterConfig.from(registry.getDefaultConfig())
+			.timeoutDuration(settings.getTimeout())
+			.build()));
+	}
+
+	private record Components(Bulkhead bulkhead, CircuitBreaker circuitBreaker, TimeLimiter timeLimiter) {}
+}
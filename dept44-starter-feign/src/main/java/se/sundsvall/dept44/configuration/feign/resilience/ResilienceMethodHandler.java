@@ -0,0 +1,128 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import feign.FeignException;
+import feign.InvocationHandlerFactory.MethodHandler;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.timelimiter.TimeLimiter;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeoutException;
+import se.sundsvall.dept44.async.ContextSnapshot;
+import se.sundsvall.dept44.exception.ClientProblem;
+import se.sundsvall.dept44.exception.ServerProblem;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Method handler that takes a permit of the bulkhead and of the circuit breaker before calling the delegate, and stops
+ * waiting for the call when it exceeds the timeout of the time limiter. The call runs on a virtual thread with the
+ * request id, identifier and MDC of the caller.
+ * <p>
+ * A timed out call is not interrupted, as interrupting a thread blocked on a socket may break the connection for other
+ * calls. It keeps its bulkhead permit until it has completed, so the bulkhead bounds the calls actually running against
+ * the integration, and a response it returns late is closed.
+ * <p>
+ * Rejected and timed out calls are thrown as {@link ServerProblem}s, with status 503 when the bulkhead is full or the
+ * circuit breaker is open, and 504 when the call timed out.
+ */
+class ResilienceMethodHandler implements MethodHandler {
+
+	private final String integrationName;
+	private final MethodHandler delegate;
+	private final Bulkhead bulkhead;
+	private final CircuitBreaker circuitBreaker;
+	private final TimeLimiter timeLimiter;
+	private final ExecutorService executor;
+
+	ResilienceMethodHandler(final String integrationName, final MethodHandler delegate, final Bulkhead bulkhead, final CircuitBreaker circuitBreaker, final TimeLimiter timeLimiter,
+		final ExecutorService executor) {
+		this.integrationName = integrationName;
+		this.delegate = delegate;
+		this.bulkhead = bulkhead;
+		this.circuitBreaker = circuitBreaker;
+		this.timeLimiter = timeLimiter;
+		this.executor = executor;
+	}
+
+	@Override
+	public Object invoke(final Object[] argv) throws Throwable {
+		if (!bulkhead.tryAcquirePermission()) {
+			throw new ServerProblem(SERVICE_UNAVAILABLE, "Too many concurrent calls to '%s'".formatted(integrationName));
+		}
+		if (!circuitBreaker.tryAcquirePermission()) {
+			bulkhead.onComplete();
+			throw new ServerProblem(SERVICE_UNAVAILABLE, "Circuit breaker of '%s' is open".formatted(integrationName));
+		}
+
+		final var start = circuitBreaker.getCurrentTimestamp();
+		try {
+			final var result = invokeWithTimeout(argv);
+			circuitBreaker.onResult(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), result);
+			return result;
+		} catch (final Throwable t) {
+			if (isClientError(t)) {
+				// A 4xx says nothing about the health of the integration
+				circuitBreaker.releasePermission();
+			} else {
+				circuitBreaker.onError(circuitBreaker.getCurrentTimestamp() - start, circuitBreaker.getTimestampUnit(), t);
+			}
+			throw t;
+		}
+	}
+
+	private Object invokeWithTimeout(final Object[] argv) throws Throwable {
+		final var result = new CompletableFuture<>();
+		try {
+			executor.execute(ContextSnapshot.capture().wrap(() -> {
+				try {
+					result.complete(delegate.invoke(argv));
+				} catch (final Throwable t) {
+					result.completeExceptionally(t);
+				} finally {
+					bulkhead.onComplete();
+				}
+			}));
+		} catch (final RuntimeException e) {
+			bulkhead.onComplete();
+			throw e;
+		}
+
+		final var timeout = timeLimiter.getTimeLimiterConfig().getTimeoutDuration();
+		try {
+			final var value = result.get(timeout.toNanos(), NANOSECONDS);
+			timeLimiter.onSuccess();
+			return value;
+		} catch (final ExecutionException e) {
+			timeLimiter.onError(e.getCause());
+			throw e.getCause();
+		} catch (final TimeoutException e) {
+			closeWhenDone(result);
+			timeLimiter.onError(e);
+			throw new ServerProblem(GATEWAY_TIMEOUT, "Call to '%s' timed out after %s".formatted(integrationName, timeout));
+		} catch (final InterruptedException e) {
+			closeWhenDone(result);
+			Thread.currentThread().interrupt();
+			throw e;
+		}
+	}
+
+	private static void closeWhenDone(final CompletableFuture<Object> result) {
+		result.thenAccept(value -> {
+			if (value instanceof final AutoCloseable closeable) {
+				try {
+					closeable.close();
+				} catch (final Exception _) {
+					// Nobody is waiting for the value any more
+				}
+			}
+		});
+	}
+
+	private static boolean isClientError(final Throwable throwable) {
+		return throwable instanceof ClientProblem || throwable instanceof FeignException.FeignClientException;
+	}
+}
@@ -0,0 +1,72 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.util.Assert;
+
+/**
+ * The Resilience4j registries that the components of a {@link ResilienceCapability} are taken from.
+ * <p>
+ * In an application these are the registries of the Resilience4j autoconfiguration, so the components follow the
+ * {@code resilience4j.*} properties and show up in the actuator endpoints and metrics like any other instance. Outside
+ * an application context, {@link #ofDefaults()} is used, whose metrics are published to the global registry.
+ *
+ * @param circuitBreakerRegistry the circuit breaker registry
+ * @param bulkheadRegistry       the bulkhead registry
+ * @param timeLimiterRegistry    the time limiter registry
+ */
+public record ResilienceRegistries(CircuitBreakerRegistry circuitBreakerRegistry, BulkheadRegistry bulkheadRegistry, TimeLimiterRegistry timeLimiterRegistry) {
+
+	public ResilienceRegistries {
+		Assert.notNull(circuitBreakerRegistry, "circuitBreakerRegistry may not be null");
+		Assert.notNull(bulkheadRegistry, "bulkheadRegistry may not be null");
+		Assert.notNull(timeLimiterRegistry, "timeLimiterRegistry may not be null");
+	}
+
+	/**
+	 * @return registries with the Resilience4j default configurations, shared by every capability without an application
+	 *         context
+	 */
+	public static ResilienceRegistries ofDefaults() {
+		return Defaults.INSTANCE;
+	}
+
+	/**
+	 * Returns the registries of the application context, with the default registries standing in for any that is missing.
+	 *
+	 * @param  beanFactory the bean factory to look the registries up in, or {@code null}
+	 * @return             the registries
+	 */
+	public static ResilienceRegistries from(final BeanFactory beanFactory) {
+		if (beanFactory == null) {
+			return ofDefaults();
+		}
+		return new ResilienceRegistries(
+			beanFactory.getBeanProvider(CircuitBreakerRegistry.class).getIfAvailable(() -> ofDefaults().circuitBreakerRegistry()),
+			beanFactory.getBeanProvider(BulkheadRegistry.class).getIfAvailable(() -> ofDefaults().bulkheadRegistry()),
+			beanFactory.getBeanProvider(TimeLimiterRegistry.class).getIfAvailable(() -> ofDefaults().timeLimiterRegistry()));
+	}
+
+	/**
+	 * Created on first use, so that applications, which use their own registries, never bind these to the global
+	 * registry.
+	 */
+	private static final class Defaults {
+
+		private static final ResilienceRegistries INSTANCE = create();
+
+		private static ResilienceRegistries create() {
+			final var registries = new ResilienceRegistries(CircuitBreakerRegistry.ofDefaults(), BulkheadRegistry.ofDefaults(), TimeLimiterRegistry.ofDefaults());
+			TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registries.circuitBreakerRegistry()).bindTo(Metrics.globalRegistry);
+			TaggedBulkheadMetrics.ofBulkheadRegistry(registries.bulkheadRegistry()).bindTo(Metrics.globalRegistry);
+			TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(registries.timeLimiterRegistry()).bindTo(Metrics.globalRegistry);
+			return registries;
+		}
+	}
+}
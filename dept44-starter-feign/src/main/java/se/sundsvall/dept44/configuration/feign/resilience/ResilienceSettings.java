@@ -0,0 +1,120 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import java.time.Duration;
+import org.springframework.util.Assert;
+
+/**
+ * Settings for {@link ResilienceCapability}, created with {@link #create()} and adjusted with the {@code with}-methods.
+ * <p>
+ * The defaults let 25 calls to the integration run at the same time and reject further calls at once, give each call
+ * 10 seconds, and open the circuit breaker for 10 seconds when half of the calls in its sliding window failed or took
+ * more than 3 seconds. The sliding window, the minimum number of calls and the other values not set here come from the
+ * default configuration of the registries, i.e. the {@code resilience4j.<component>.configs.default} properties.
+ * <p>
+ * The settings are not used for a component configured with {@code resilience4j.<component>.instances.<integration
+ * name>} properties.
+ */
+public class ResilienceSettings {
+
+	private int maxConcurrentCalls = 25;
+	private Duration maxWait = Duration.ZERO;
+	private Duration timeout = Duration.ofSeconds(10);
+	private float failureRateThreshold = 50;
+	private Duration slowCallDuration = Duration.ofSeconds(3);
+	private float slowCallRateThreshold = 50;
+	private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+	private ResilienceSettings() {}
+
+	public static ResilienceSettings create() {
+		return new ResilienceSettings();
+	}
+
+	/**
+	 * @param  maxConcurrentCalls the maximum number of calls to the integration running at the same time
+	 * @param  maxWait            the time a call may wait for a running call to complete before being rejected
+	 * @return                    this settings instance
+	 */
+	public ResilienceSettings withMaxConcurrentCalls(final int maxConcurrentCalls, final Duration maxWait) {
+		Assert.isTrue(maxConcurrentCalls > 0, "maxConcurrentCalls must be greater than 0");
+		Assert.notNull(maxWait, "maxWait may not be null");
+		Assert.isTrue(!maxWait.isNegative(), "maxWait must not be negative");
+		this.maxConcurrentCalls = maxConcurrentCalls;
+		this.maxWait = maxWait;
+		return this;
+	}
+
+	/**
+	 * @param  timeout the time a caller waits for a call, including retries, before it fails with a timeout
+	 * @return         this settings instance
+	 */
+	public ResilienceSettings withTimeout(final Duration timeout) {
+		Assert.notNull(timeout, "timeout may not be null");
+		Assert.isTrue(timeout.isPositive(), "timeout must be positive");
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * @param  failureRateThreshold the percentage of failed calls that opens the circuit breaker
+	 * @return                      this settings instance
+	 */
+	public ResilienceSettings withFailureRateThreshold(final float failureRateThreshold) {
+		Assert.isTrue(failureRateThreshold > 0 && failureRateThreshold <= 100, "failureRateThreshold must be greater than 0 and at most 100");
+		this.failureRateThreshold = failureRateThreshold;
+		return this;
+	}
+
+	/**
+	 * @param  slowCallDuration      the duration above which a call is slow
+	 * @param  slowCallRateThreshold the percentage of slow calls that opens the circuit breaker
+	 * @return                       this settings instance
+	 */
+	public ResilienceSettings withSlowCalls(final Duration slowCallDuration, final float slowCallRateThreshold) {
+		Assert.notNull(slowCallDuration, "slowCallDuration may not be null");
+		Assert.isTrue(slowCallDuration.isPositive(), "slowCallDuration must be positive");
+		Assert.isTrue(slowCallRateThreshold > 0 && slowCallRateThreshold <= 100, "slowCallRateThreshold must be greater than 0 and at most 100");
+		this.slowCallDuration = slowCallDuration;
+		this.slowCallRateThreshold = slowCallRateThreshold;
+		return this;
+	}
+
+	/**
+	 * @param  waitDurationInOpenState the time the circuit breaker stays open before letting trial calls through
+	 * @return                         this settings instance
+	 */
+	public ResilienceSettings withWaitDurationInOpenState(final Duration waitDurationInOpenState) {
+		Assert.notNull(waitDurationInOpenState, "waitDurationInOpenState may not be null");
+		Assert.isTrue(waitDurationInOpenState.isPositive(), "waitDurationInOpenState must be positive");
+		this.waitDurationInOpenState = waitDurationInOpenState;
+		return this;
+	}
+
+	public int getMaxConcurrentCalls() {
+		return maxConcurrentCalls;
+	}
+
+	public Duration getMaxWait() {
+		return maxWait;
+	}
+
+	public Duration getTimeout() {
+		return timeout;
+	}
+
+	public float getFailureRateThreshold() {
+		return failureRateThreshold;
+	}
+
+	public Duration getSlowCallDuration() {
+		return slowCallDuration;
+	}
+
+	public float getSlowCallRateThreshold() {
+		return slowCallRateThreshold;
+	}
+
+	public Duration getWaitDurationInOpenState() {
+		return waitDurationInOpenState;
+	}
+}
@@ -0,0 +1,146 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import feign.Request.HttpMethod;
+import feign.RetryableException;
+import feign.Retryer;
+import io.micrometer.core.instrument.Counter;
+import java.net.ConnectException;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static feign.Request.HttpMethod.DELETE;
+import static feign.Request.HttpMethod.GET;
+import static feign.Request.HttpMethod.HEAD;
+import static feign.Request.HttpMethod.OPTIONS;
+import static feign.Request.HttpMethod.PUT;
+import static feign.Request.HttpMethod.TRACE;
+
+/**
+ * Retries transient failures (I/O errors and the retryable statuses of {@link RetrySettings}) with exponential backoff
+ * and full jitter, honouring {@code Retry-After}, within the {@link RetryBudget} of the integration. Other retryable
+ * exceptions, e.g. the invalid token responses handled by {@link ActionRetryer}, are passed on to the wrapped retryer.
+ * <p>
+ * Created by {@link RetryCapability}, which also makes the error decoder return retryable exceptions for the retryable
+ * statuses. When such a response is not retried, the problem from the error decoder is thrown as it would have been
+ * without retries.
+ * <p>
+ * Retries are counted in the {@value #RETRIES} metric, tagged with the integration name and the outcome
+ * ({@value #OUTCOME_RETRIED}, {@value #OUTCOME_EXHAUSTED} or {@value #OUTCOME_BUDGET_EXHAUSTED}).
+ */
+public class BackoffRetryer implements Retryer {
+
+	public static final String RETRIES = "dept44.feign.retries";
+	public static final String OUTCOME_RETRIED = "retried";
+	public static final String OUTCOME_EXHAUSTED = "exhausted";
+	public static final String OUTCOME_BUDGET_EXHAUSTED = "budget_exhausted";
+
+	/** The methods that can be sent again without changing the outcome, which are retried by default. */
+	public static final Set<HttpMethod> IDEMPOTENT_METHODS = Collections.unmodifiableSet(EnumSet.of(GET, HEAD, OPTIONS, PUT, DELETE, TRACE));
+
+	// Feign uses -1 as status for exceptions thrown while executing the request, i.e. I/O errors
+	private static final int IO_ERROR_STATUS = -1;
+
+	private final RetrySettings settings;
+	private final RetryBudget budget;
+	private final Retryer delegate;
+	private final Counter retried;
+	private final Counter exhausted;
+	private final Counter budgetExhausted;
+	private int attempt = 1;
+
+	BackoffRetryer(final String integrationName, final RetrySettings settings, final RetryBudget budget, final Retryer delegate) {
+		this.settings = settings;
+		this.budget = budget;
+		this.delegate = delegate;
+		this.retried = counter(integrationName, OUTCOME_RETRIED);
+		this.exhausted = counter(integrationName, OUTCOME_EXHAUSTED);
+		this.budgetExhausted = counter(integrationName, OUTCOME_BUDGET_EXHAUSTED);
+	}
+
+	private BackoffRetryer(final BackoffRetryer retryer) {
+		this.settings = retryer.settings;
+		this.budget = retryer.budget;
+		this.delegate = retryer.delegate.clone();
+		this.retried = retryer.retried;
+		this.exhausted = retryer.exhausted;
+		this.budgetExhausted = retryer.budgetExhausted;
+	}
+
+	@Override
+	public void continueOrPropagate(final RetryableException e) {
+		if (!isTransient(e)) {
+			delegate.continueOrPropagate(e);
+			return;
+		}
+		if (!isSafeToRetry(e)) {
+			throw propagate(e);
+		}
+
+		final var waitMillis = waitMillis(e);
+		if (attempt >= settings.getMaxAttempts() || waitMillis > settings.getMaxRetryAfter().toMillis()) {
+			exhausted.increment();
+			throw propagate(e);
+		}
+		if (!budget.tryWithdraw()) {
+			budgetExhausted.increment();
+			throw propagate(e);
+		}
+
+		try {
+			Thread.sleep(waitMillis);
+		} catch (final InterruptedException _) {
+			Thread.currentThread().interrupt();
+			throw propagate(e);
+		}
+		attempt++;
+		retried.increment();
+	}
+
+	/**
+	 * Creates the retryer for a new request, which adds to the retry budget of the integration.
+	 */
+	@Override
+	public Retryer clone() {
+		budget.deposit();
+		return new BackoffRetryer(this);
+	}
+
+	long backoffMillis(final int forAttempt) {
+		final var initial = settings.getInitialBackoff().toMillis();
+		final var max = settings.getMaxBackoff().toMillis();
+		// Shift at most 30 bits, which is far beyond any sensible max backoff
+		final var ceiling = Math.min(max, initial << Math.min(forAttempt - 1, 30));
+		return ThreadLocalRandom.current().nextLong(ceiling + 1);
+	}
+
+	private long waitMillis(final RetryableException e) {
+		if (e.retryAfter() != null) {
+			return Math.max(0, e.retryAfter() - System.currentTimeMillis());
+		}
+		return backoffMillis(attempt);
+	}
+
+	private boolean isTransient(final RetryableException e) {
+		return e.status() == IO_ERROR_STATUS || settings.getRetryableStatuses().contains(e.status());
+	}
+
+	private boolean isSafeToRetry(final RetryableException e) {
+		// A request that failed to connect never reached the server, and can be retried regardless of method
+		return settings.isRetryNonIdempotent() || IDEMPOTENT_METHODS.contains(e.method()) || (e.getCause() instanceof ConnectException);
+	}
+
+	private static RuntimeException propagate(final RetryableException e) {
+		// Throw the problem from the error decoder rather than the retryable exception wrapping it
+		return (e instanceof RetryableResponseException) && (e.getCause() instanceof final RuntimeException cause) ? cause : e;
+	}
+
+	private Counter counter(final String integrationName, final String outcome) {
+		return Counter.builder(RETRIES)
+			.description("Retries of Feign requests")
+			.tag("integration", integrationName)
+			.tag("outcome", outcome)
+			.register(settings.getMeterRegistry());
+	}
+}
@@ -0,0 +1,48 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token bucket that limits retries to a share of the requests. Every request deposits {@code ratio} tokens and every
+ * retry withdraws one, so during an outage at most {@code ratio} extra requests per request reach the integration. The
+ * bucket starts with {@code reserve} tokens and holds at most that many, which lets integrations with little traffic
+ * retry as well.
+ * <p>
+ * Used for retries by {@link BackoffRetryer} and for hedged requests, which are retries that don't wait for the first
+ * attempt to fail.
+ */
+public final class RetryBudget {
+
+	// Tokens are counted in thousandths, so that deposits of a fraction of a token don't need floating point arithmetic
+	private static final long SCALE = 1000;
+
+	private final long deposit;
+	private final long capacity;
+	private final AtomicLong balance;
+
+	public RetryBudget(final double ratio, final int reserve) {
+		this.deposit = Math.round(ratio * SCALE);
+		// Room for at least one token, or deposits could never add up to a retry
+		this.capacity = Math.max(reserve, 1) * SCALE;
+		this.balance = new AtomicLong(reserve * SCALE);
+	}
+
+	public void deposit() {
+		balance.accumulateAndGet(deposit, (current, amount) -> Math.min(capacity, current + amount));
+	}
+
+	public boolean tryWithdraw() {
+		var current = balance.get();
+		while (current >= SCALE) {
+			if (balance.compareAndSet(current, current - SCALE)) {
+				return true;
+			}
+			current = balance.get();
+		}
+		return false;
+	}
+
+	public double getBalance() {
+		return (double) balance.get() / SCALE;
+	}
+}
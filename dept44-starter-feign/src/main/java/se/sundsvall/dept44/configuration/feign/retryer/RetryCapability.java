@@ -0,0 +1,87 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import feign.Capability;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import io.micrometer.core.instrument.Gauge;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+
+import static java.util.Objects.requireNonNull;
+import static org.springframework.http.HttpHeaders.RETRY_AFTER;
+
+/**
+ * Feign capability that adds retries with backoff to a client, see {@link BackoffRetryer}. The capability wraps the
+ * retryer and error decoder of the client when it is built, so it composes with the retryer set by the OAuth2
+ * interceptor regardless of the order of the customizers.
+ * <p>
+ * Each capability has its own retry budget, so one capability should be created per integration. The balance of the
+ * budget is published in the {@value #BUDGET} metric, tagged with the integration name.
+ */
+public class RetryCapability implements Capability {
+
+	public static final String BUDGET = "dept44.feign.retry.budget";
+
+	private final String integrationName;
+	private final RetrySettings settings;
+	private final RetryBudget budget;
+
+	public RetryCapability(final String integrationName, final RetrySettings settings) {
+		this.integrationName = requireNonNull(integrationName);
+		this.settings = requireNonNull(settings);
+		requireNonNull(settings.getMeterRegistry(), "meterRegistry of settings may not be null");
+		this.budget = new RetryBudget(settings.getBudgetRatio(), settings.getBudgetReserve());
+
+		Gauge.builder(BUDGET, budget, RetryBudget::getBalance)
+			.description("Retries left in the retry budget of the integration")
+			.tag("integration", integrationName)
+			.register(settings.getMeterRegistry());
+	}
+
+	/**
+	 * @return the retry budget of the integration, shared with hedged requests
+	 */
+	public RetryBudget getBudget() {
+		return budget;
+	}
+
+	@Override
+	public Retryer enrich(final Retryer retryer) {
+		return new BackoffRetryer(integrationName, settings, budget, retryer);
+	}
+
+	public ErrorDecoder enrich(final ErrorDecoder errorDecoder) {
+		return (methodKey, response) -> {
+			final var exception = errorDecoder.decode(methodKey, response);
+			if ((exception instanceof RetryableException) || !settings.getRetryableStatuses().contains(response.status())) {
+				return exception;
+			}
+			return new RetryableResponseException(response, exception, retryAfter(response));
+		};
+	}
+
+	/**
+	 * @return the time in epoch millis given by the Retry-After header (in seconds or as an HTTP date), or null if absent
+	 *         or invalid
+	 */
+	static Long retryAfter(final Response response) {
+		final Collection<String> values = response.headers().get(RETRY_AFTER);
+		if (values == null || values.isEmpty()) {
+			return null;
+		}
+
+		final var value = values.iterator().next().trim();
+		try {
+			if (value.chars().allMatch(Character::isDigit)) {
+				return System.currentTimeMillis() + Long.parseLong(value) * 1000;
+			}
+			return ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+		} catch (final NumberFormatException | DateTimeParseException _) {
+			return null;
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import org.springframework.util.Assert;
+
+/**
+ * Settings for {@link BackoffRetryer}, created with {@link #create()} and adjusted with the {@code with}-methods.
+ * <p>
+ * The defaults retry idempotent requests that fail with an I/O error or a 502, 503 or 504 response up to 3 times in
+ * total, with exponential backoff and full jitter between 100 ms and 2 s. Retries are limited by a budget of 10% of the
+ * requests of the integration, plus a reserve of 10 retries for integrations with little traffic.
+ */
+public class RetrySettings {
+
+	private int maxAttempts = 3;
+	private Duration initialBackoff = Duration.ofMillis(100);
+	private Duration maxBackoff = Duration.ofSeconds(2);
+	private Duration maxRetryAfter = Duration.ofSeconds(10);
+	private Set<Integer> retryableStatuses = Set.of(502, 503, 504);
+	private boolean retryNonIdempotent;
+	private double budgetRatio = 0.1;
+	private int budgetReserve = 10;
+	private MeterRegistry meterRegistry;
+
+	private RetrySettings() {}
+
+	public static RetrySettings create() {
+		return new RetrySettings();
+	}
+
+	/**
+	 * @param  maxAttempts the maximum number of attempts, including the first one. 1 disables retries.
+	 * @return             this settings instance
+	 */
+	public RetrySettings withMaxAttempts(final int maxAttempts) {
+		Assert.isTrue(maxAttempts > 0, "maxAttempts must be greater than 0");
+		this.maxAttempts = maxAttempts;
+		return this;
+	}
+
+	/**
+	 * @param  initialBackoff the upper bound of the first backoff, doubled for every attempt up to the max backoff
+	 * @param  maxBackoff     the upper bound of any backoff
+	 * @return                this settings instance
+	 */
+	public RetrySettings withBackoff(final Duration initialBackoff, final Duration maxBackoff) {
+		Assert.notNull(initialBackoff, "initialBackoff may not be null");
+		Assert.notNull(maxBackoff, "maxBackoff may not be null");
+		Assert.isTrue(!initialBackoff.isNegative() && initialBackoff.compareTo(maxBackoff) <= 0, "initialBackoff must be between 0 and maxBackoff");
+		this.initialBackoff = initialBackoff;
+		this.maxBackoff = maxBackoff;
+		return this;
+	}
+
+	/**
+	 * @param  maxRetryAfter the longest {@code Retry-After} to wait for. Responses asking for a longer wait are not
+	 *                       retried.
+	 * @return               this settings instance
+	 */
+	public RetrySettings withMaxRetryAfter(final Duration maxRetryAfter) {
+		Assert.notNull(maxRetryAfter, "maxRetryAfter may not be null");
+		this.maxRetryAfter = maxRetryAfter;
+		return this;
+	}
+
+	/**
+	 * @param  retryableStatuses the response statuses to retry
+	 * @return                   this settings instance
+	 */
+	public RetrySettings withRetryableStatuses(final Set<Integer> retryableStatuses) {
+		Assert.notNull(retryableStatuses, "retryableStatuses may not be null");
+		this.retryableStatuses = Set.copyOf(retryableStatuses);
+		return this;
+	}
+
+	/**
+	 * Retries non-idempotent requests (POST and PATCH) as well. Only enable this for integrations where a repeated request
+	 * is known to be harmless.
+	 *
+	 * @param  retryNonIdempotent whether non-idempotent requests are retried
+	 * @return                    this settings instance
+	 */
+	public RetrySettings withRetryNonIdempotent(final boolean retryNonIdempotent) {
+		this.retryNonIdempotent = retryNonIdempotent;
+		return this;
+	}
+
+	/**
+	 * @param  budgetRatio   the share of requests that may be retried, e.g. 0.1 for 10%
+	 * @param  budgetReserve the number of retries allowed regardless of the ratio, which is also the most the budget can
+	 *                       save up
+	 * @return               this settings instance
+	 */
+	public RetrySettings withBudget(final double budgetRatio, final int budgetReserve) {
+		Assert.isTrue(budgetRatio >= 0, "budgetRatio must not be negative");
+		Assert.isTrue(budgetReserve >= 0, "budgetReserve must not be negative");
+		this.budgetRatio = budgetRatio;
+		this.budgetReserve = budgetReserve;
+		return this;
+	}
+
+	/**
+	 * @param  meterRegistry the registry to publish retry metrics in, defaults to the registry of the application
+	 * @return               this settings instance
+	 */
+	public RetrySettings withMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		return this;
+	}
+
+	public int getMaxAttempts() {
+		return maxAttempts;
+	}
+
+	public Duration getInitialBackoff() {
+		return initialBackoff;
+	}
+
+	public Duration getMaxBackoff() {
+		return maxBackoff;
+	}
+
+	public Duration getMaxRetryAfter() {
+		return maxRetryAfter;
+	}
+
+	public Set<Integer> getRetryableStatuses() {
+		return retryableStatuses;
+	}
+
+	public boolean isRetryNonIdempotent() {
+		return retryNonIdempotent;
+	}
+
+	public double getBudgetRatio() {
+		return budgetRatio;
+	}
+
+	public int getBudgetReserve() {
+		return budgetReserve;
+	}
+
+	/**
+	 * @return the registry to publish metrics in, or null if the registry of the application is used
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+}
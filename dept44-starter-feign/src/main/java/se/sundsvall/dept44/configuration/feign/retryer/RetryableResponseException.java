@@ -0,0 +1,16 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import feign.Response;
+import feign.RetryableException;
+
+/**
+ * Retryable exception for a response with a retryable status, wrapping the exception from the error decoder.
+ */
+final class RetryableResponseException extends RetryableException {
+
+	private static final long serialVersionUID = 1L;
+
+	RetryableResponseException(final Response response, final Exception cause, final Long retryAfter) {
+		super(response.status(), cause.getMessage(), response.request().httpMethod(), cause, retryAfter, response.request());
+	}
+}
@@ -4,6 +4,7 @@ import feign.QueryMapEncoder;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
@@ -23,7 +24,10 @@ import org.springframework.http.converter.ByteArrayHttpMessageConverter;
 import org.springframework.http.converter.HttpMessageConverter;
 import org.springframework.http.converter.json.JacksonJsonHttpMessageConverter;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.zalando.logbook.Logbook;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientFactory;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientProperties;
 import se.sundsvall.dept44.security.Truststore;
 import tools.jackson.databind.json.JsonMapper;
 
@@ -94,8 +98,15 @@ class FeignConfigurationTest {
 	}
 
 	@Test
-	void testOkHttpClient() {
-		assertThat(configuration.okHttpClient(new Truststore("/dummy"))).isNotNull().isInstanceOf(OkHttpClient.class);
+	void testOkHttpClientUsesSharedHttpClientFactory() {
+		final var factory = new FeignHttpClientFactory(new FeignHttpClientProperties(), null, new SimpleMeterRegistry());
+
+		final var client1 = configuration.okHttpClient(factory, "petstore");
+		final var client2 = configuration.okHttpClient(factory, "other");
+
+		assertThat(client1).isInstanceOf(OkHttpClient.class).extracting("delegate")
+			.isSameAs(factory.getClient(FeignHttpClientFactory.SHARED))
+			.isSameAs(ReflectionTestUtils.getField(client2, "delegate"));
 	}
 
 	@Test
@@ -0,0 +1,136 @@
+package se.sundsvall.dept44.configuration.feign;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Feign;
+import feign.RequestLine;
+import feign.Retryer;
+import feign.okhttp.OkHttpClient;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Duration;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.openfeign.FeignBuilderCustomizer;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.ContentCoding;
+import se.sundsvall.dept44.configuration.feign.cache.CachingClient;
+import se.sundsvall.dept44.configuration.feign.hedging.HedgingClient;
+import se.sundsvall.dept44.configuration.feign.hedging.HedgingSettings;
+import se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer;
+import se.sundsvall.dept44.configuration.feign.retryer.RetrySettings;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.serviceUnavailable;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Retries, hedging, caching, compression and resilience on one client, with the meter registry and circuit breaker
+ * registry of the application.
+ */
+@WireMockTest
+class FeignMultiCustomizerCompositionTest {
+
+	private static final String BODY = "a body that compresses well, ".repeat(20);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+	private final DefaultListableBeanFactory beanFactory = new DefaultListableBeanFactory();
+
+	private FeignBuilderCustomizer customizer;
+
+	@BeforeEach
+	void setUp() {
+		beanFactory.registerSingleton("meterRegistry", meterRegistry);
+		beanFactory.registerSingleton("circuitBreakerRegistry", circuitBreakerRegistry);
+
+		// Added in the order that would make the cache the innermost and compression the outermost capability, if the
+		// capabilities wrapping the client were applied as added
+		customizer = FeignMultiCustomizer.create()
+			.withCache("test")
+			.withHedging("test", HedgingSettings.create().withDelay(Duration.ofMillis(100)))
+			.withCompression("test")
+			.withRetry("test", RetrySettings.create().withBackoff(Duration.ZERO, Duration.ZERO))
+			.withResilience("test")
+			.composeCustomizersToOne();
+		((BeanFactoryAware) customizer).setBeanFactory(beanFactory);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		((DisposableBean) customizer).destroy();
+	}
+
+	@Test
+	void retriedResponseIsDecompressedAndCached(final WireMockRuntimeInfo wmRuntimeInfo) throws IOException {
+		stubFor(get("/test")
+			.inScenario("composition")
+			.whenScenarioStateIs(STARTED)
+			.willReturn(serviceUnavailable())
+			.willSetStateTo("available"));
+		stubFor(get("/test")
+			.inScenario("composition")
+			.whenScenarioStateIs("available")
+			.willReturn(ok()
+				.withHeader("Content-Encoding", "gzip")
+				.withHeader("Cache-Control", "max-age=60")
+				.withBody(ContentCoding.GZIP.compress(BODY.getBytes(UTF_8)))));
+		final var client = createClient(wmRuntimeInfo);
+
+		assertThat(client.get()).isEqualTo(BODY);
+		assertThat(client.get()).isEqualTo(BODY);
+
+		// The failed attempt and the retry, both negotiating compression. The second call is a hit of the decompressed
+		// response.
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/test")).withHeader("Accept-Encoding", equalTo("gzip")));
+		assertThat(meterRegistry.get(BackoffRetryer.RETRIES).tags("integration", "test", "outcome", BackoffRetryer.OUTCOME_RETRIED).counter().count()).isOne();
+		assertThat(meterRegistry.get(CachingClient.REQUESTS).tags("integration", "test", "outcome", CachingClient.OUTCOME_HIT).counter().count()).isOne();
+		assertThat(meterRegistry.get(CompressionMetrics.RATIO).tags("client", "test", "direction", CompressionMetrics.RESPONSE).summary().count()).isOne();
+		assertThat(meterRegistry.get(HedgingClient.HEDGES).tags("integration", "test", "outcome", HedgingClient.OUTCOME_SENT).counter().count()).isZero();
+		assertThat(circuitBreakerRegistry.find("test")).hasValueSatisfying(circuitBreaker -> assertThat(circuitBreaker.getMetrics().getNumberOfSuccessfulCalls()).isEqualTo(2));
+	}
+
+	@Test
+	void onlyCacheMissesAreHedged(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok(BODY)
+			.withHeader("Cache-Control", "max-age=60")
+			.withFixedDelay(300)));
+		final var client = createClient(wmRuntimeInfo);
+
+		assertThat(client.get()).isEqualTo(BODY);
+		assertThat(client.get()).isEqualTo(BODY);
+
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/test")));
+		assertThat(meterRegistry.get(HedgingClient.HEDGES).tags("integration", "test", "outcome", HedgingClient.OUTCOME_SENT).counter().count()).isOne();
+		assertThat(meterRegistry.get(CachingClient.REQUESTS).tags("integration", "test", "outcome", CachingClient.OUTCOME_HIT).counter().count()).isOne();
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient())
+			.retryer(Retryer.NEVER_RETRY);
+		customizer.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		String get();
+	}
+}
@@ -1,14 +1,22 @@
 package se.sundsvall.dept44.configuration.feign;
 
+import feign.Capability;
+import feign.Client;
 import feign.Feign;
+import feign.InvocationHandlerFactory;
 import feign.Request;
 import feign.RequestInterceptor;
 import feign.RequestTemplate;
 import feign.codec.Decoder;
 import feign.codec.Encoder;
 import feign.codec.ErrorDecoder;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.Duration;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -16,11 +24,25 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
 import org.springframework.cloud.openfeign.FeignBuilderCustomizer;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.test.util.ReflectionTestUtils;
+import se.sundsvall.dept44.configuration.feign.async.AsyncCapability;
+import se.sundsvall.dept44.configuration.feign.cache.CacheCapability;
+import se.sundsvall.dept44.configuration.feign.compression.CompressionCapability;
+import se.sundsvall.dept44.configuration.feign.decoder.BinaryAwareDecoder;
+import se.sundsvall.dept44.configuration.feign.decoder.StreamingCapability;
+import se.sundsvall.dept44.configuration.feign.hedging.HedgingCapability;
 import se.sundsvall.dept44.configuration.feign.interceptor.OAuth2RequestInterceptor;
+import se.sundsvall.dept44.configuration.feign.resilience.ResilienceCapability;
 import se.sundsvall.dept44.configuration.feign.retryer.ActionRetryer;
+import se.sundsvall.dept44.configuration.feign.retryer.RetryCapability;
+import se.sundsvall.dept44.configuration.feign.retryer.RetrySettings;
+import se.sundsvall.dept44.oauth2.TokenStore;
 import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.support.Identifier;
 import se.sundsvall.dept44.support.Identifier.Type;
@@ -141,6 +163,22 @@ class FeignMultiCustomizerTest {
 			.first().matches(scope -> scope.matches("device_([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})$"));
 	}
 
+	@Test
+	void testWithRetryableOauth2InterceptorForClientRegistrationSharesDeviceScopeAndToken() {
+		final var clientRegistration = createClientRegistration();
+
+		FeignMultiCustomizer.create().withRetryableOAuth2InterceptorForClientRegistration(clientRegistration).composeCustomizersToOne().customize(builderMock);
+		FeignMultiCustomizer.create().withRetryableOAuth2InterceptorForClientRegistration(clientRegistration).composeCustomizersToOne().customize(builderMock);
+
+		verify(builderMock, times(2)).requestInterceptor(oAuth2RequestInterceptorCaptor.capture());
+
+		final var interceptors = oAuth2RequestInterceptorCaptor.getAllValues();
+		assertThat(interceptors.getFirst()).extracting("clientRegistration").extracting("scopes")
+			.asInstanceOf(collection(String.class)).containsExactly(TokenStore.DEVICE_SCOPE);
+		assertThat(interceptors.getFirst()).extracting("tokenProvider")
+			.isSameAs(ReflectionTestUtils.getField(interceptors.getLast(), "tokenProvider"));
+	}
+
 	@Test
 	void testWithRetryableOauth2InterceptorForClientRegistrationWithEmptyExtraScopes() {
 		final var clientRegistration = createClientRegistration();
@@ -248,6 +286,230 @@ class FeignMultiCustomizerTest {
 		verify(builderMock).errorDecoder(same(errorDecoderMock));
 	}
 
+	@Test
+	void testWithStreaming() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withStreaming()
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock).doNotCloseAfterDecode();
+		verify(builderMock).addCapability(capabilityCaptor.capture());
+		assertThat(capabilityCaptor.getValue()).isInstanceOf(StreamingCapability.class);
+		assertThat(capabilityCaptor.getValue().enrich(Mockito.mock(Decoder.class)))
+			.isInstanceOf(BinaryAwareDecoder.class)
+			.hasFieldOrPropertyWithValue("streaming", true);
+	}
+
+	@Test
+	void testWithRetry() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withRetry("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(RetryCapability.class));
+	}
+
+	@Test
+	void testWithHedging() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withHedging("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(HedgingCapability.class));
+	}
+
+	@Test
+	void testWithHedgingSharesRetryBudgetOfIntegration() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withHedging("test")
+			.withRetry("test")
+			.withHedging("other")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock, times(3)).addCapability(capabilityCaptor.capture());
+		final var capabilities = capabilityCaptor.getAllValues();
+		// Capabilities wrapping the client are added after the others
+		final var retryBudget = ((RetryCapability) capabilities.get(0)).getBudget();
+		assertThat(ReflectionTestUtils.getField(capabilities.get(1).enrich(Mockito.mock(Client.class)), "retryBudget")).isSameAs(retryBudget);
+		assertThat(ReflectionTestUtils.getField(capabilities.get(2).enrich(Mockito.mock(Client.class)), "retryBudget")).isNull();
+	}
+
+	@Test
+	void testCapabilitiesWrappingClientAreAddedInFixedOrder() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withCache("test")
+			.withHedging("test")
+			.withCompression("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock, times(3)).addCapability(capabilityCaptor.capture());
+		// Feign applies the capabilities in the order they are added, so the first one wraps the client innermost
+		assertThat(capabilityCaptor.getAllValues()).asInstanceOf(LIST)
+			.hasExactlyElementsOfTypes(CompressionCapability.class, HedgingCapability.class, CacheCapability.class);
+	}
+
+	@Test
+	void testCapabilitiesAreSharedByClients() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withRetry("test")
+			.withCache("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+		customizer.customize(builderMock);
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock, times(4)).addCapability(capabilityCaptor.capture());
+		final var capabilities = capabilityCaptor.getAllValues();
+		assertThat(capabilities.get(2)).isSameAs(capabilities.get(0));
+		assertThat(capabilities.get(3)).isSameAs(capabilities.get(1));
+	}
+
+	@Test
+	void testWithMeterRegistry() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var customizer = FeignMultiCustomizer.create()
+			.withMeterRegistry(meterRegistry)
+			.withRetry("test")
+			.withAsync("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		assertThat(meterRegistry.find(RetryCapability.BUDGET).tag("integration", "test").gauge()).isNotNull();
+		assertThat(meterRegistry.find(AsyncCapability.QUEUED).tag("integration", "test").gauge()).isNotNull();
+	}
+
+	@Test
+	void testMeterRegistryOfSettingsIsKept() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settingsMeterRegistry = new SimpleMeterRegistry();
+		final var settings = RetrySettings.create().withMeterRegistry(settingsMeterRegistry);
+		final var customizer = FeignMultiCustomizer.create()
+			.withMeterRegistry(meterRegistry)
+			.withRetry("test", settings)
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		assertThat(settings.getMeterRegistry()).isSameAs(settingsMeterRegistry);
+		assertThat(settingsMeterRegistry.find(RetryCapability.BUDGET).gauge()).isNotNull();
+		assertThat(meterRegistry.find(RetryCapability.BUDGET).gauge()).isNull();
+	}
+
+	@Test
+	void testMeterRegistryOfBeanFactory() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("meterRegistry", meterRegistry);
+		final var customizer = FeignMultiCustomizer.create()
+			.withRetry("test")
+			.composeCustomizersToOne();
+
+		((BeanFactoryAware) customizer).setBeanFactory(beanFactory);
+		customizer.customize(builderMock);
+
+		assertThat(meterRegistry.find(RetryCapability.BUDGET).tag("integration", "test").gauge()).isNotNull();
+	}
+
+	@Test
+	void testDestroyClosesCapabilities() throws Exception {
+		final var customizer = FeignMultiCustomizer.create()
+			.withAsync("test")
+			.withHedging("test")
+			.withResilience("test")
+			.composeCustomizersToOne();
+		customizer.customize(builderMock);
+
+		((DisposableBean) customizer).destroy();
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock, times(3)).addCapability(capabilityCaptor.capture());
+		assertThat(capabilityCaptor.getAllValues()).asInstanceOf(LIST)
+			.allSatisfy(capability -> assertThat((ExecutorService) ReflectionTestUtils.getField(capability, "executor")).matches(ExecutorService::isShutdown));
+	}
+
+	@Test
+	void testWithAsync() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withAsync("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(AsyncCapability.class));
+	}
+
+	@Test
+	void testWithCache() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withCache("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(CacheCapability.class));
+	}
+
+	@Test
+	void testWithCompression() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withCompression("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(CompressionCapability.class));
+	}
+
+	@Test
+	void testWithResilience() {
+		final var customizer = FeignMultiCustomizer.create()
+			.withResilience("test")
+			.composeCustomizersToOne();
+
+		customizer.customize(builderMock);
+
+		verify(builderMock).addCapability(any(ResilienceCapability.class));
+	}
+
+	@Test
+	void testWithResilienceUsesRegistriesOfBeanFactory() {
+		final var circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+		final var bulkheadRegistry = BulkheadRegistry.ofDefaults();
+		final var timeLimiterRegistry = TimeLimiterRegistry.ofDefaults();
+		final var beanFactory = new DefaultListableBeanFactory();
+		beanFactory.registerSingleton("circuitBreakerRegistry", circuitBreakerRegistry);
+		beanFactory.registerSingleton("bulkheadRegistry", bulkheadRegistry);
+		beanFactory.registerSingleton("timeLimiterRegistry", timeLimiterRegistry);
+		final var customizer = FeignMultiCustomizer.create()
+			.withResilience("test")
+			.composeCustomizersToOne();
+
+		((BeanFactoryAware) customizer).setBeanFactory(beanFactory);
+		customizer.customize(builderMock);
+
+		final var capabilityCaptor = ArgumentCaptor.forClass(Capability.class);
+		verify(builderMock).addCapability(capabilityCaptor.capture());
+		capabilityCaptor.getValue().enrich(Mockito.mock(InvocationHandlerFactory.class));
+		assertThat(circuitBreakerRegistry.find("test")).isPresent();
+		assertThat(bulkheadRegistry.find("test")).isPresent();
+		assertThat(timeLimiterRegistry.find("test")).isPresent();
+	}
+
 	@Test
 	void testWithRequestOptions() {
 		final var requestOptionMock = Mockito.mock(Request.Options.class);
@@ -0,0 +1,174 @@
+package se.sundsvall.dept44.configuration.feign;
+
+import com.sun.net.httpserver.HttpServer;
+import feign.Feign;
+import feign.RequestLine;
+import feign.codec.Decoder;
+import feign.okhttp.OkHttpClient;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.dept44.configuration.feign.decoder.BinaryAwareDecoder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+class StreamingBodyTest {
+
+	private static final long LARGE_BODY_SIZE = 1024L * 1024 * 1024;
+	private static final byte[] CHUNK = new byte[StreamingBody.TRANSFER_BUFFER_SIZE];
+
+	private HttpServer server;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		// WireMock holds stub bodies in memory, so a plain server writing the body in chunks is used
+		server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+		server.createContext("/large", exchange -> {
+			exchange.getResponseHeaders().add("Content-Type", "application/octet-stream");
+			exchange.sendResponseHeaders(200, LARGE_BODY_SIZE);
+			try (final var body = exchange.getResponseBody()) {
+				for (long written = 0; written < LARGE_BODY_SIZE; written += CHUNK.length) {
+					body.write(CHUNK);
+				}
+			}
+		});
+		server.start();
+	}
+
+	@AfterEach
+	void tearDown() {
+		server.stop(0);
+	}
+
+	@Test
+	void transferTo() throws Exception {
+		final var inputStream = spy(new ByteArrayInputStream("test data".getBytes(StandardCharsets.UTF_8)));
+		final var outputStream = new ByteArrayOutputStream();
+
+		final var transferred = new StreamingBody(200, Map.of(), 9, inputStream).transferTo(outputStream);
+
+		assertThat(transferred).isEqualTo(9);
+		assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("test data");
+		verify(inputStream).close();
+	}
+
+	@Test
+	void getContentTypeIgnoresCase() {
+		assertThat(new StreamingBody(200, Map.of("content-type", List.of("application/pdf")), -1, InputStream.nullInputStream()).getContentType()).isEqualTo("application/pdf");
+		assertThat(new StreamingBody(200, Map.of(), -1, InputStream.nullInputStream()).getContentType()).isNull();
+	}
+
+	@Test
+	void toResponseEntity() throws Exception {
+		final var body = new StreamingBody(201, Map.of("Content-Type", List.of("application/pdf")), 9,
+			new ByteArrayInputStream("test data".getBytes(StandardCharsets.UTF_8)));
+		final var outputStream = new ByteArrayOutputStream();
+
+		final var responseEntity = body.toResponseEntity();
+		responseEntity.getBody().writeTo(outputStream);
+
+		assertThat(responseEntity.getStatusCode().value()).isEqualTo(201);
+		assertThat(responseEntity.getHeaders().getContentType()).hasToString("application/pdf");
+		assertThat(responseEntity.getHeaders().getContentLength()).isEqualTo(9);
+		assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("test data");
+	}
+
+	@Test
+	void toResponseEntityWithUnknownLength() {
+		final var responseEntity = new StreamingBody(200, Map.of(), -1, InputStream.nullInputStream()).toResponseEntity();
+
+		assertThat(responseEntity.getHeaders().getContentType()).isNull();
+		assertThat(responseEntity.getHeaders().getContentLength()).isEqualTo(-1);
+	}
+
+	@Test
+	void toStreamingResponseBodyFromInputStream() throws Exception {
+		final var inputStream = spy(new ByteArrayInputStream("test data".getBytes(StandardCharsets.UTF_8)));
+		final var outputStream = new ByteArrayOutputStream();
+
+		StreamingBody.toStreamingResponseBody(inputStream).writeTo(outputStream);
+
+		assertThat(outputStream.toString(StandardCharsets.UTF_8)).isEqualTo("test data");
+		verify(inputStream).close();
+	}
+
+	@Test
+	void streamsLargeBodyWithoutHoldingItInHeap() throws Exception {
+		final var client = createClient();
+		final var threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final var counter = new CountingOutputStream();
+
+		final var allocatedBefore = threadMXBean.getCurrentThreadAllocatedBytes();
+		try (final var body = client.getLarge()) {
+			assertThat(body.getStatus()).isEqualTo(200);
+			assertThat(body.getContentType()).isEqualTo("application/octet-stream");
+			assertThat(body.getContentLength()).isEqualTo(LARGE_BODY_SIZE);
+
+			body.toStreamingResponseBody().writeTo(counter);
+		}
+		final var allocated = threadMXBean.getCurrentThreadAllocatedBytes() - allocatedBefore;
+
+		assertThat(counter.count).isEqualTo(LARGE_BODY_SIZE);
+		// A buffered body would need at least the size of the body
+		assertThat(allocated).isLessThan(LARGE_BODY_SIZE / 16);
+	}
+
+	@Test
+	void streamsLargeInputStream() throws Exception {
+		final var client = createClient();
+		final var counter = new CountingOutputStream();
+
+		try (final var inputStream = client.getLargeAsInputStream()) {
+			StreamingBody.toStreamingResponseBody(inputStream).writeTo(counter);
+		}
+
+		assertThat(counter.count).isEqualTo(LARGE_BODY_SIZE);
+	}
+
+	private LargeApi createClient() {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient())
+			.decoder(new BinaryAwareDecoder(new Decoder.Default()));
+		FeignMultiCustomizer.create()
+			.withStreaming()
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(LargeApi.class, "http://localhost:" + server.getAddress().getPort());
+	}
+
+	interface LargeApi {
+
+		@RequestLine("GET /large")
+		StreamingBody getLarge();
+
+		@RequestLine("GET /large")
+		InputStream getLargeAsInputStream();
+	}
+
+	private static class CountingOutputStream extends OutputStream {
+
+		private long count;
+
+		@Override
+		public void write(final int b) {
+			count++;
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) {
+			count += len;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Feign;
+import feign.RequestLine;
+import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+import se.sundsvall.dept44.configuration.feign.decoder.ProblemErrorDecoder;
+import se.sundsvall.dept44.exception.ServerProblem;
+import se.sundsvall.dept44.requestid.RequestId;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@WireMockTest
+class AsyncCapabilityTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	void asyncMethodRunsOnVirtualThread(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful")));
+		final var client = createClient(wmRuntimeInfo, AsyncSettings.create().withMeterRegistry(meterRegistry));
+
+		final var result = client.get();
+
+		assertThat(result).succeedsWithin(Duration.ofSeconds(5)).isEqualTo("successful");
+		assertThat(client.getSync()).isEqualTo("successful");
+	}
+
+	@Test
+	void propagatesRequestContext(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful")));
+		final var client = createClient(wmRuntimeInfo, AsyncSettings.create().withMeterRegistry(meterRegistry));
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		client.get().join();
+
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/test")).withHeader(RequestId.HEADER_NAME, equalTo("req-1")));
+	}
+
+	@Test
+	void failsWithProblemFromErrorDecoder(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(serverError()));
+		final var client = createClient(wmRuntimeInfo, AsyncSettings.create().withMeterRegistry(meterRegistry));
+
+		assertThat(client.get()).failsWithin(Duration.ofSeconds(5))
+			.withThrowableThat().havingCause().isInstanceOf(ServerProblem.class);
+	}
+
+	@Test
+	void limitsConcurrentCalls(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(200)));
+		final var client = createClient(wmRuntimeInfo, AsyncSettings.create().withMaxConcurrency(2).withMeterRegistry(meterRegistry));
+
+		final var start = System.nanoTime();
+		final var futures = IntStream.range(0, 4).mapToObj(_ -> client.get()).toArray(CompletableFuture[]::new);
+		CompletableFuture.allOf(futures).join();
+
+		// Two rounds of two calls each
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(400));
+		assertThat(meterRegistry.get(AsyncCapability.QUEUED).tag("integration", "test").gauge().value()).isZero();
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo, final AsyncSettings settings) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient());
+		FeignMultiCustomizer.create()
+			.withErrorDecoder(new ProblemErrorDecoder("test"))
+			.withAsync("test", settings)
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		CompletableFuture<String> get();
+
+		@RequestLine("GET /test")
+		String getSync();
+	}
+}
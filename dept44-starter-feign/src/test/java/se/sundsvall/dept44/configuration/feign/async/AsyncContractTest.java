@@ -0,0 +1,50 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import feign.Contract;
+import feign.MethodMetadata;
+import feign.RequestLine;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AsyncContractTest {
+
+	@Test
+	void unwrapsResultTypeOfAsyncMethods() {
+		final var returnTypes = new AsyncContract(new Contract.Default()).parseAndValidateMetadata(TestApi.class).stream()
+			.collect(Collectors.toMap(metadata -> metadata.method().getName(), MethodMetadata::returnType));
+
+		assertThat(returnTypes).containsExactlyInAnyOrderEntriesOf(Map.of(
+			"get", String.class,
+			"getAll", new ParameterizedTypeReference<List<String>>() {}.getType(),
+			"getRaw", Object.class,
+			"getSync", String.class));
+	}
+
+	@Test
+	void isAsync() {
+		assertThat(AsyncContract.isAsync(CompletableFuture.class)).isTrue();
+		assertThat(AsyncContract.isAsync(String.class)).isFalse();
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		CompletableFuture<String> get();
+
+		@RequestLine("GET /tests")
+		CompletableFuture<List<String>> getAll();
+
+		@SuppressWarnings("rawtypes")
+		@RequestLine("GET /raw")
+		CompletableFuture getRaw();
+
+		@RequestLine("GET /sync")
+		String getSync();
+	}
+}
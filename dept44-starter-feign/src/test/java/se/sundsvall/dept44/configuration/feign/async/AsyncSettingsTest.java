@@ -0,0 +1,37 @@
+package se.sundsvall.dept44.configuration.feign.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class AsyncSettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = AsyncSettings.create();
+
+		assertThat(settings.getMaxConcurrency()).isEqualTo(10);
+		assertThat(settings.getMeterRegistry()).isNull();
+	}
+
+	@Test
+	void withSettings() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settings = AsyncSettings.create()
+			.withMaxConcurrency(4)
+			.withMeterRegistry(meterRegistry);
+
+		assertThat(settings.getMaxConcurrency()).isEqualTo(4);
+		assertThat(settings.getMeterRegistry()).isSameAs(meterRegistry);
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		final var settings = AsyncSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxConcurrency(0)).withMessage("maxConcurrency must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMeterRegistry(null)).withMessage("meterRegistry may not be null");
+	}
+}
@@ -0,0 +1,96 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.codec.Decoder;
+import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.status;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@WireMockTest
+class CacheCapabilityTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger decodings = new AtomicInteger();
+	private final Decoder countingDecoder = (response, _) -> {
+		decodings.incrementAndGet();
+		try (var inputStream = response.body().asInputStream()) {
+			return new StringBuilder(new String(inputStream.readAllBytes(), UTF_8));
+		}
+	};
+
+	@Test
+	void enrich() {
+		final var capability = new CacheCapability("test", CacheSettings.create().withMeterRegistry(meterRegistry));
+		final var decoder = mock(Decoder.class);
+
+		assertThat(capability.enrich(mock(Client.class))).isInstanceOf(CachingClient.class);
+		assertThat(capability.enrich(decoder)).isSameAs(decoder);
+		assertThat(new CacheCapability("test", CacheSettings.create().withStoreDecoded(true).withMeterRegistry(meterRegistry)).enrich(decoder))
+			.isInstanceOf(CachingDecoder.class);
+	}
+
+	@Test
+	void revalidatesWithoutTransferringBody(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("cached").withHeader("ETag", "\"v1\"").withHeader("Cache-Control", "no-cache")));
+		stubFor(get("/test").withHeader("If-None-Match", matching("\"v1\"")).willReturn(status(304).withHeader("ETag", "\"v1\"")));
+		final var client = createClient(wmRuntimeInfo, CacheSettings.create().withMeterRegistry(meterRegistry));
+
+		assertThat(client.get()).hasToString("cached");
+		assertThat(client.get()).hasToString("cached");
+
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/test")));
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/test")).withHeader("If-None-Match", matching("\"v1\"")));
+		assertThat(decodings).hasValue(2);
+	}
+
+	@Test
+	void storesDecodedObjects(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("cached").withHeader("ETag", "\"v1\"").withHeader("Cache-Control", "no-cache")));
+		stubFor(get("/test").withHeader("If-None-Match", matching("\"v1\"")).willReturn(status(304)));
+		final var client = createClient(wmRuntimeInfo, CacheSettings.create().withStoreDecoded(true).withMeterRegistry(meterRegistry));
+
+		final var first = client.get();
+		assertThat(client.get()).isSameAs(first);
+
+		// The response was revalidated, and the object decoded from the first response reused
+		verify(exactly(2), getRequestedFor(urlPathEqualTo("/test")));
+		assertThat(decodings).hasValue(1);
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo, final CacheSettings settings) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient());
+		FeignMultiCustomizer.create()
+			.withDecoder(countingDecoder)
+			.withCache("test", settings)
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		StringBuilder get();
+	}
+}
@@ -0,0 +1,45 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CacheSettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = CacheSettings.create();
+
+		assertThat(settings.getMaximumSize()).isEqualTo(DataSize.ofMegabytes(10));
+		assertThat(settings.getMaximumEntrySize()).isEqualTo(DataSize.ofMegabytes(1));
+		assertThat(settings.isStoreDecoded()).isFalse();
+		assertThat(settings.getMeterRegistry()).isNull();
+	}
+
+	@Test
+	void withSettings() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settings = CacheSettings.create()
+			.withMaximumSize(DataSize.ofMegabytes(50))
+			.withMaximumEntrySize(DataSize.ofKilobytes(100))
+			.withStoreDecoded(true)
+			.withMeterRegistry(meterRegistry);
+
+		assertThat(settings.getMaximumSize()).isEqualTo(DataSize.ofMegabytes(50));
+		assertThat(settings.getMaximumEntrySize()).isEqualTo(DataSize.ofKilobytes(100));
+		assertThat(settings.isStoreDecoded()).isTrue();
+		assertThat(settings.getMeterRegistry()).isSameAs(meterRegistry);
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		final var settings = CacheSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaximumSize(DataSize.ofBytes(0))).withMessage("maximumSize must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaximumEntrySize(DataSize.ofGigabytes(2))).withMessage("maximumEntrySize must be greater than 0 and less than 2 GB");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMeterRegistry(null)).withMessage("meterRegistry may not be null");
+	}
+}
@@ -0,0 +1,256 @@
+package se.sundsvall.dept44.configuration.feign.cache;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CachingClientTest {
+
+	private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+	private static final String URL = "http://localhost/test";
+
+	private final AtomicReference<Instant> now = new AtomicReference<>(START);
+	private final Clock clock = mock(Clock.class);
+	private final Client delegate = mock(Client.class);
+	private final Request.Options options = new Request.Options();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private Client client;
+
+	@BeforeEach
+	void setUp() {
+		when(clock.millis()).thenAnswer(_ -> now.get().toEpochMilli());
+		client = new CacheCapability("test", CacheSettings.create()
+			.withMaximumEntrySize(DataSize.ofBytes(10))
+			.withMeterRegistry(meterRegistry), clock).enrich(delegate);
+	}
+
+	@Test
+	void servesFreshResponseFromCache() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60")), "body");
+
+		assertThat(body(client.execute(get(), options))).isEqualTo("body");
+		now.set(START.plusSeconds(59));
+		assertThat(body(client.execute(get(), options))).isEqualTo("body");
+
+		verify(delegate).execute(any(), any());
+		assertThat(count(CachingClient.OUTCOME_MISS)).isEqualTo(1);
+		assertThat(count(CachingClient.OUTCOME_HIT)).isEqualTo(1);
+	}
+
+	@Test
+	void fetchesStaleResponseWithoutValidatorsAgain() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60")), "body");
+
+		client.execute(get(), options);
+		now.set(START.plusSeconds(60));
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void subtractsAgeFromFreshness() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60"), "Age", List.of("50")), "body");
+
+		client.execute(get(), options);
+		now.set(START.plusSeconds(10));
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void usesExpiresRelativeToDate() throws IOException {
+		// The server clock is an hour behind, which doesn't affect the freshness lifetime
+		final var date = START.minus(Duration.ofHours(1));
+		stubResponse(200, Map.of("Date", List.of(httpDate(date)), "Expires", List.of(httpDate(date.plusSeconds(30)))), "body");
+
+		client.execute(get(), options);
+		now.set(START.plusSeconds(29));
+		client.execute(get(), options);
+
+		verify(delegate).execute(any(), any());
+	}
+
+	@Test
+	void revalidatesStaleResponseWithConditionalRequest() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("no-cache"), "ETag", List.of("\"v1\""), "Last-Modified", List.of(httpDate(START))), "body");
+		client.execute(get(), options);
+
+		stubResponse(304, Map.of("Cache-Control", List.of("max-age=60")), null);
+		final var response = client.execute(get(), options);
+
+		final var captor = ArgumentCaptor.forClass(Request.class);
+		verify(delegate, times(2)).execute(captor.capture(), any());
+		assertThat(captor.getValue().headers().get("If-None-Match")).containsExactly("\"v1\"");
+		assertThat(captor.getValue().headers().get("If-Modified-Since")).containsExactly(httpDate(START));
+		assertThat(response.status()).isEqualTo(200);
+		assertThat(body(response)).isEqualTo("body");
+		assertThat(count(CachingClient.OUTCOME_REVALIDATED)).isEqualTo(1);
+
+		// The freshness of the 304 applies to the cached response
+		client.execute(get(), options);
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void replacesChangedResponse() throws IOException {
+		stubResponse(200, Map.of("ETag", List.of("\"v1\"")), "old");
+		client.execute(get(), options);
+
+		stubResponse(200, Map.of("ETag", List.of("\"v2\"")), "new");
+		assertThat(body(client.execute(get(), options))).isEqualTo("new");
+
+		stubResponse(304, Map.of(), null);
+		assertThat(body(client.execute(get(), options))).isEqualTo("new");
+	}
+
+	@Test
+	void doesNotCacheNoStore() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("no-store, max-age=60")), "body");
+
+		client.execute(get(), options);
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void doesNotCachePrivate() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("private, max-age=60")), "body");
+
+		client.execute(get(), options);
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void doesNotShareResponsesBetweenIdentities() throws IOException {
+		doAnswer(invocation -> {
+			final Request request = invocation.getArgument(0);
+			return Response.builder()
+				.status(200)
+				.request(request)
+				.headers(Map.of("Cache-Control", List.of("max-age=60")))
+				.body(request.headers().get("X-Sent-By").iterator().next(), UTF_8)
+				.build();
+		}).when(delegate).execute(any(), any());
+
+		assertThat(body(client.execute(get(Map.of("X-Sent-By", List.of("joe"))), options))).isEqualTo("joe");
+		assertThat(body(client.execute(get(Map.of("X-Sent-By", List.of("ann"))), options))).isEqualTo("ann");
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void sharesPublicResponsesBetweenIdentities() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("public, max-age=60")), "body");
+
+		client.execute(get(Map.of("Authorization", List.of("Bearer one"))), options);
+		assertThat(body(client.execute(get(Map.of("Authorization", List.of("Bearer two"))), options))).isEqualTo("body");
+
+		verify(delegate).execute(any(), any());
+	}
+
+	@Test
+	void doesNotCacheOtherStatuses() throws IOException {
+		stubResponse(404, Map.of("Cache-Control", List.of("max-age=60")), "body");
+
+		client.execute(get(), options);
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void doesNotCacheLargeResponses() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60")), "a body larger than ten bytes");
+
+		assertThat(body(client.execute(get(), options))).isEqualTo("a body larger than ten bytes");
+		client.execute(get(), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void matchesVaryHeaders() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60"), "Vary", List.of("Accept-Language")), "body");
+
+		client.execute(get(Map.of("Accept-Language", List.of("sv"))), options);
+		client.execute(get(Map.of("Accept-Language", List.of("sv"))), options);
+		client.execute(get(Map.of("Accept-Language", List.of("en"))), options);
+
+		verify(delegate, times(2)).execute(any(), any());
+	}
+
+	@Test
+	void passesOnOtherMethodsAndConditionalRequests() throws IOException {
+		stubResponse(200, Map.of("Cache-Control", List.of("max-age=60")), "body");
+		final var post = Request.create(Request.HttpMethod.POST, URL, Map.of(), null, UTF_8, null);
+
+		client.execute(post, options);
+		client.execute(post, options);
+		client.execute(get(Map.of("If-None-Match", List.of("\"v1\""))), options);
+
+		verify(delegate, times(3)).execute(any(), any());
+		assertThat(count(CachingClient.OUTCOME_MISS)).isZero();
+	}
+
+	private void stubResponse(final int status, final Map<String, Collection<String>> headers, final String body) throws IOException {
+		// Stubbed with doAnswer, as stubbing with when would count as an invocation of the delegate
+		doAnswer(invocation -> Response.builder()
+			.status(status)
+			.request(invocation.getArgument(0))
+			.headers(headers)
+			.body(body, UTF_8)
+			.build()).when(delegate).execute(any(), any());
+	}
+
+	private double count(final String outcome) {
+		return meterRegistry.get(CachingClient.REQUESTS).tag("outcome", outcome).counter().count();
+	}
+
+	private static String body(final Response response) throws IOException {
+		try (var inputStream = response.body().asInputStream()) {
+			return new String(inputStream.readAllBytes(), UTF_8);
+		}
+	}
+
+	private static String httpDate(final Instant instant) {
+		return DateTimeFormatter.RFC_1123_DATE_TIME.format(instant.atZone(ZoneOffset.UTC));
+	}
+
+	private static Request get() {
+		return get(Map.of());
+	}
+
+	private static Request get(final Map<String, Collection<String>> headers) {
+		return Request.create(Request.HttpMethod.GET, URL, headers, null, UTF_8, null);
+	}
+}
@@ -0,0 +1,140 @@
+package se.sundsvall.dept44.configuration.feign.compression;
+
+import feign.Client;
+import feign.Request;
+import feign.Response;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.util.unit.DataSize;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.CompressionSettings;
+import se.sundsvall.dept44.compression.ContentCoding;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CompressingClientTest {
+
+	private static final String URL = "http://localhost/test";
+	private static final String BODY = "a body that compresses well, ".repeat(20);
+
+	private final Client delegate = mock(Client.class);
+	private final Request.Options options = new Request.Options();
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void negotiatesAndDecompressesResponse() throws IOException {
+		final var client = client(CompressionSettings.create());
+		stubResponse(Map.of("Content-Encoding", List.of("gzip"), "Content-Length", List.of("42")), ContentCoding.GZIP.compress(BODY.getBytes(UTF_8)));
+
+		final var response = client.execute(request(Map.of(), null), options);
+
+		assertThat(sentRequest().headers().get("Accept-Encoding")).containsExactly("gzip");
+		assertThat(response.headers()).doesNotContainKeys("Content-Encoding", "Content-Length");
+		assertThat(body(response)).isEqualTo(BODY);
+		assertThat(meterRegistry.get(CompressionMetrics.RATIO).tags("client", "test", "direction", "response", "coding", "gzip").summary().max()).isGreaterThan(5);
+		assertThat(meterRegistry.get(CompressionMetrics.TIME).tags("direction", "response").timer().count()).isOne();
+	}
+
+	@Test
+	void passesOnUncompressedAndEmptyResponses() throws IOException {
+		final var client = client(CompressionSettings.create());
+
+		stubResponse(Map.of(), BODY.getBytes(UTF_8));
+		assertThat(body(client.execute(request(Map.of(), null), options))).isEqualTo(BODY);
+
+		stubResponse(Map.of("Content-Encoding", List.of("gzip")), new byte[0]);
+		assertThat(body(client.execute(request(Map.of(), null), options))).isEmpty();
+
+		assertThat(meterRegistry.find(CompressionMetrics.TIME).timer()).isNull();
+	}
+
+	@Test
+	void keepsAcceptEncodingOfRequest() throws IOException {
+		final var client = client(CompressionSettings.create());
+		stubResponse(Map.of("Content-Encoding", List.of("gzip")), BODY.getBytes(UTF_8));
+
+		final var response = client.execute(request(Map.of("Accept-Encoding", List.of("identity")), null), options);
+
+		assertThat(sentRequest().headers().get("Accept-Encoding")).containsExactly("identity");
+		// Only responses in an accepted coding are decompressed
+		assertThat(response.headers()).containsKey("Content-Encoding");
+	}
+
+	@Test
+	void compressesRequestBodyAboveThreshold() throws IOException {
+		final var client = client(CompressionSettings.create().withRequestCompression(DataSize.ofBytes(100)));
+		stubResponse(Map.of(), new byte[0]);
+
+		client.execute(request(Map.of("Content-Length", List.of(String.valueOf(BODY.length()))), BODY.getBytes(UTF_8)), options);
+
+		final var sent = sentRequest();
+		assertThat(sent.headers().get("Content-Encoding")).containsExactly("gzip");
+		assertThat(sent.headers().get("Content-Length")).containsExactly(String.valueOf(sent.body().length));
+		assertThat(new String(ContentCoding.GZIP.decompress(new ByteArrayInputStream(sent.body())).readAllBytes(), UTF_8)).isEqualTo(BODY);
+		assertThat(meterRegistry.get(CompressionMetrics.RATIO).tags("direction", "request").summary().count()).isOne();
+	}
+
+	@Test
+	void doesNotCompressSmallOrEncodedRequestBodies() throws IOException {
+		final var client = client(CompressionSettings.create().withRequestCompression(DataSize.ofKilobytes(1)));
+		stubResponse(Map.of(), new byte[0]);
+
+		client.execute(request(Map.of(), BODY.getBytes(UTF_8)), options);
+		assertThat(sentRequest().body()).isEqualTo(BODY.getBytes(UTF_8));
+
+		final var encoded = ContentCoding.GZIP.compress(BODY.repeat(10).getBytes(UTF_8));
+		client.execute(request(Map.of("Content-Encoding", List.of("gzip")), encoded), options);
+		assertThat(sentRequest().body()).isEqualTo(encoded);
+	}
+
+	@Test
+	void doesNotCompressRequestsByDefault() throws IOException {
+		final var client = client(CompressionSettings.create());
+		stubResponse(Map.of(), new byte[0]);
+
+		client.execute(request(Map.of(), BODY.repeat(100).getBytes(UTF_8)), options);
+
+		assertThat(sentRequest().headers()).doesNotContainKey("Content-Encoding");
+	}
+
+	private Client client(final CompressionSettings settings) {
+		return new CompressionCapability("test", settings.withMeterRegistry(meterRegistry)).enrich(delegate);
+	}
+
+	private void stubResponse(final Map<String, Collection<String>> headers, final byte[] body) throws IOException {
+		doAnswer(invocation -> Response.builder()
+			.status(200)
+			.request(invocation.getArgument(0))
+			.headers(headers)
+			.body(body)
+			.build()).when(delegate).execute(any(), any());
+	}
+
+	private Request sentRequest() throws IOException {
+		final var captor = ArgumentCaptor.forClass(Request.class);
+		verify(delegate, atLeastOnce()).execute(captor.capture(), any());
+		return captor.getValue();
+	}
+
+	private static Request request(final Map<String, Collection<String>> headers, final byte[] body) {
+		return Request.create(Request.HttpMethod.POST, URL, headers, body, UTF_8, null);
+	}
+
+	private static String body(final Response response) throws IOException {
+		try (var inputStream = response.body().asInputStream()) {
+			return new String(inputStream.readAllBytes(), UTF_8);
+		}
+	}
+}
@@ -0,0 +1,85 @@
+package se.sundsvall.dept44.configuration.feign.compression;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Client;
+import feign.Feign;
+import feign.RequestLine;
+import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import se.sundsvall.dept44.compression.CompressionSettings;
+import se.sundsvall.dept44.compression.ContentCoding;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+@WireMockTest
+class CompressionCapabilityTest {
+
+	private static final String BODY = "a body that compresses well, ".repeat(20);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void enrich() {
+		final var capability = new CompressionCapability("test", CompressionSettings.create().withMeterRegistry(meterRegistry));
+
+		assertThat(capability.enrich(mock(Client.class))).isInstanceOf(CompressingClient.class);
+	}
+
+	@Test
+	void decompressesResponse(final WireMockRuntimeInfo wmRuntimeInfo) throws IOException {
+		stubFor(get("/test").willReturn(ok()
+			.withHeader("Content-Encoding", "gzip")
+			.withBody(ContentCoding.GZIP.compress(BODY.getBytes(UTF_8)))));
+		final var client = createClient(wmRuntimeInfo, CompressionSettings.create());
+
+		assertThat(client.get()).isEqualTo(BODY);
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/test")).withHeader("Accept-Encoding", equalTo("gzip")));
+	}
+
+	@Test
+	void compressesRequest(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/test").willReturn(ok()));
+		final var client = createClient(wmRuntimeInfo, CompressionSettings.create().withRequestCompression(DataSize.ofBytes(100)));
+
+		client.post(BODY);
+
+		verify(exactly(1), postRequestedFor(urlPathEqualTo("/test")).withHeader("Content-Encoding", equalTo("gzip")));
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo, final CompressionSettings settings) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient());
+		FeignMultiCustomizer.create()
+			.withCompression("test", settings.withMeterRegistry(meterRegistry))
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		String get();
+
+		@RequestLine("POST /test")
+		void post(String body);
+	}
+}
@@ -7,11 +7,16 @@ import java.io.ByteArrayInputStream;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import org.junit.jupiter.api.Test;
 import org.springframework.core.io.InputStreamResource;
+import se.sundsvall.dept44.configuration.feign.StreamingBody;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
@@ -101,6 +106,112 @@ class BinaryAwareDecoderTest {
 		verify(delegateMock).decode(response, String.class);
 	}
 
+	@Test
+	void testDecodeStreamingBody() throws Exception {
+		// Setup
+		final var testData = "test streaming body data".getBytes(StandardCharsets.UTF_8);
+		final var response = createResponse(testData);
+
+		// Call
+		final var result = decoder.decode(response, StreamingBody.class);
+
+		// Verify
+		assertThat(result).isInstanceOf(StreamingBody.class);
+		final var body = (StreamingBody) result;
+		assertThat(body.getStatus()).isEqualTo(200);
+		assertThat(body.getContentLength()).isEqualTo(testData.length);
+		assertThat(body.getInputStream().readAllBytes()).isEqualTo(testData);
+		verifyNoInteractions(delegateMock);
+	}
+
+	@Test
+	void testStreamingDecodeInputStreamReturnsLiveStream() throws Exception {
+		// Setup
+		final var streamingDecoder = new BinaryAwareDecoder(delegateMock, true);
+		final var inputStream = spy(new ByteArrayInputStream("test live data".getBytes(StandardCharsets.UTF_8)));
+		final var response = createResponse(inputStream, null);
+
+		// Call
+		final var result = (InputStream) streamingDecoder.decode(response, InputStream.class);
+
+		// Verify
+		assertThat(result.readAllBytes()).isEqualTo("test live data".getBytes(StandardCharsets.UTF_8));
+		verify(inputStream, never()).close();
+		result.close();
+		verify(inputStream).close();
+		verifyNoInteractions(delegateMock);
+	}
+
+	@Test
+	void testStreamingDecodeInputStreamResource() throws Exception {
+		// Setup
+		final var streamingDecoder = new BinaryAwareDecoder(delegateMock, true);
+		final var inputStream = new ByteArrayInputStream("test resource data".getBytes(StandardCharsets.UTF_8));
+		final var response = createResponse(inputStream, null);
+
+		// Call
+		final var result = (InputStreamResource) streamingDecoder.decode(response, InputStreamResource.class);
+
+		// Verify
+		assertThat(result.getInputStream()).isSameAs(inputStream);
+		verifyNoInteractions(delegateMock);
+	}
+
+	@Test
+	void testStreamingDecodeStreamingBody() throws Exception {
+		// Setup
+		final var streamingDecoder = new BinaryAwareDecoder(delegateMock, true);
+		final var inputStream = new ByteArrayInputStream("test streaming body data".getBytes(StandardCharsets.UTF_8));
+		final var response = createResponse(inputStream, null);
+
+		// Call
+		final var result = (StreamingBody) streamingDecoder.decode(response, StreamingBody.class);
+
+		// Verify
+		assertThat(result.getStatus()).isEqualTo(200);
+		assertThat(result.getContentType()).isEqualTo("application/pdf");
+		assertThat(result.getContentLength()).isEqualTo(-1);
+		assertThat(result.getInputStream()).isSameAs(inputStream);
+		verifyNoInteractions(delegateMock);
+	}
+
+	@Test
+	void testStreamingDecodeNullBody() throws Exception {
+		// Setup
+		final var streamingDecoder = new BinaryAwareDecoder(delegateMock, true);
+		final var response = Response.builder()
+			.status(204)
+			.reason("No Content")
+			.request(Request.create(Request.HttpMethod.GET, "http://test", Collections.emptyMap(), null, StandardCharsets.UTF_8, null))
+			.headers(Collections.emptyMap())
+			.body((byte[]) null)
+			.build();
+
+		// Call
+		final var result = (StreamingBody) streamingDecoder.decode(response, StreamingBody.class);
+
+		// Verify
+		assertThat(result.getContentLength()).isZero();
+		assertThat(result.getInputStream().read()).isEqualTo(-1);
+	}
+
+	@Test
+	void testStreamingDelegatesAndClosesForOtherTypes() throws Exception {
+		// Setup
+		final var streamingDecoder = new BinaryAwareDecoder(delegateMock, true);
+		final var inputStream = spy(new ByteArrayInputStream("{\"key\":\"value\"}".getBytes(StandardCharsets.UTF_8)));
+		final var response = createResponse(inputStream, null);
+		final var expectedResult = new Object();
+		when(delegateMock.decode(response, String.class)).thenReturn(expectedResult);
+
+		// Call
+		final var result = streamingDecoder.decode(response, String.class);
+
+		// Verify
+		assertThat(result).isSameAs(expectedResult);
+		verify(inputStream).close();
+	}
+
 	private Response createResponse(final byte[] body) {
 		return Response.builder()
 			.status(200)
@@ -110,4 +221,14 @@ class BinaryAwareDecoderTest {
 			.body(new ByteArrayInputStream(body), body.length)
 			.build();
 	}
+
+	private Response createResponse(final InputStream body, final Integer length) {
+		return Response.builder()
+			.status(200)
+			.reason("OK")
+			.request(Request.create(Request.HttpMethod.GET, "http://test", Collections.emptyMap(), null, StandardCharsets.UTF_8, null))
+			.headers(Map.of("Content-Type", List.of("application/pdf")))
+			.body(body, length)
+			.build();
+	}
 }
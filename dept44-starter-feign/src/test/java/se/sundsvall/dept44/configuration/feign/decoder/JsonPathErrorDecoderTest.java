@@ -1,5 +1,6 @@
 package se.sundsvall.dept44.configuration.feign.decoder;
 
+import com.jayway.jsonpath.InvalidPathException;
 import feign.Request;
 import feign.RequestTemplate;
 import feign.Response;
@@ -29,6 +30,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.verify;
@@ -160,6 +162,27 @@ class JsonPathErrorDecoderTest {
 		assertThat(exception).hasMessage(expectedMessage);
 	}
 
+	@Test
+	void decodeWithSameDecoderReusesCompiledPaths(@Load("customError1.json") final String errorBody) {
+
+		// Arrange
+		final var errorDecoder = new JsonPathErrorDecoder("XXX", new JsonPathSetup("$['Message']", "$['Detail']"));
+
+		// Act
+		final var first = errorDecoder.decode("test", buildErrorResponse(errorBody, 400, null));
+		final var second = errorDecoder.decode("test", buildErrorResponse("{\"Message\": \"Other message\", \"Detail\": \"Other detail\"}", 400, null));
+
+		// Assert
+		assertThat(first.getMessage()).isNotEqualTo(second.getMessage());
+		assertThat(second).hasMessage("Bad Gateway: XXX error: {detail=Other detail, status=400 Bad Request, title=Other message}");
+	}
+
+	@Test
+	void invalidJsonPathIsRejectedOnCreation() {
+		assertThatExceptionOfType(InvalidPathException.class)
+			.isThrownBy(() -> new JsonPathErrorDecoder("XXX", new JsonPathSetup("$[")));
+	}
+
 	@Test
 	void errorDecoderWhenBypassResponseCodesAreSet() {
 
@@ -5,10 +5,14 @@ import feign.RequestTemplate;
 import feign.Response;
 import feign.RetryableException;
 import feign.codec.ErrorDecoder;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.InputStream;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +23,7 @@ import org.mockito.Mockito;
 import se.sundsvall.dept44.exception.ClientProblem;
 import se.sundsvall.dept44.exception.ServerProblem;
 import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.problem.ProblemMetrics;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 import se.sundsvall.dept44.test.extension.ResourceLoaderExtension;
 
@@ -27,6 +32,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.same;
 import static org.mockito.Mockito.verify;
@@ -183,4 +189,98 @@ class ProblemErrorDecoderTest {
 		assertThat(exception.getMessage()).isEqualTo("Special message");
 		assertThat(exception.getCause()).isInstanceOf(ServerProblem.class);
 	}
+
+	@Test
+	void decodeProblemWithEmptyViolations() {
+
+		// Arrange
+		final var errorDecoder = new ProblemErrorDecoder("XXX");
+		final var errorResponse = buildErrorResponse("""
+			{
+				"title": "this is a title",
+				"detail": "this is a detail",
+				"violations": []
+			}
+			""", 400, null);
+
+		// Act
+		final var exception = errorDecoder.decode("test", errorResponse);
+
+		// Assert
+		assertThat(exception).hasMessage("Bad Gateway: XXX error: {detail=this is a detail, status=400 Bad Request, title=this is a title}");
+	}
+
+	@Test
+	void errorDecoderReadsAtMostMaxBodySize() {
+
+		// Arrange
+		final var errorDecoder = new ProblemErrorDecoder("XXX");
+		errorDecoder.setMaxBodySize(1024);
+		final var bytesRead = new AtomicLong();
+		final var body = new InputStream() {
+
+			private final byte[] page = "<html><body>Internal Server Error</body></html>".getBytes(UTF_8);
+			private long remaining = 20L * 1024 * 1024;
+
+			@Override
+			public int read() {
+				if (remaining == 0) {
+					return -1;
+				}
+				bytesRead.incrementAndGet();
+				return page[(int) (--remaining % page.length)];
+			}
+		};
+		final var errorResponse = Response.builder()
+			.body(body, null)
+			.request(Request.create(GET, "/api", emptyMap(), null, UTF_8, new RequestTemplate()))
+			.status(500)
+			.build();
+
+		// Act
+		final var exception = errorDecoder.decode("test", errorResponse);
+
+		// Assert
+		assertThat(exception).hasMessage("Bad Gateway: XXX error: {status=500 Internal Server Error, title=Unknown error}");
+		assertThat(bytesRead).hasValue(1024);
+	}
+
+	@Test
+	void setMaxBodySize() {
+		final var errorDecoder = new ProblemErrorDecoder("XXX");
+
+		assertThat(errorDecoder.getMaxBodySize()).isEqualTo(AbstractErrorDecoder.DEFAULT_MAX_BODY_SIZE);
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> errorDecoder.setMaxBodySize(0))
+			.withMessage("maxBodySize must be greater than 0");
+	}
+
+	@Test
+	void errorDecoderRecordsMetrics() {
+
+		// Arrange
+		final var meterRegistry = new SimpleMeterRegistry();
+		ProblemMetrics.setShared(new ProblemMetrics(meterRegistry, true));
+		final var errorDecoder = new ProblemErrorDecoder("XXX");
+		final var errorResponse = buildErrorResponse("Error", 500, null);
+
+		try {
+			// Act
+			errorDecoder.decode("test", errorResponse);
+
+			// Assert
+			assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS)
+				.tag("source", ProblemMetrics.SOURCE_FEIGN)
+				.tag("status", "502")
+				.tag("integration", "XXX")
+				.tag("exception", "ServerProblem")
+				.counter().count()).isEqualTo(1);
+			assertThat(meterRegistry.get(ProblemMetrics.DECODE)
+				.tag("integration", "XXX")
+				.tag("status", "500")
+				.timer().count()).isEqualTo(1);
+		} finally {
+			ProblemMetrics.setShared(new ProblemMetrics(Metrics.globalRegistry, true));
+		}
+	}
 }
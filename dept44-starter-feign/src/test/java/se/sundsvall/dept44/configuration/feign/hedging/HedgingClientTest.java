@@ -0,0 +1,333 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import feign.Client;
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientFactory;
+import se.sundsvall.dept44.configuration.feign.http.FeignHttpClientProperties;
+import se.sundsvall.dept44.configuration.feign.retryer.RetryBudget;
+import se.sundsvall.dept44.requestid.RequestId;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static se.sundsvall.dept44.configuration.feign.hedging.HedgingClient.HEDGES;
+import static se.sundsvall.dept44.configuration.feign.hedging.HedgingClient.OUTCOME_BUDGET_EXHAUSTED;
+import static se.sundsvall.dept44.configuration.feign.hedging.HedgingClient.OUTCOME_SENT;
+import static se.sundsvall.dept44.configuration.feign.hedging.HedgingClient.OUTCOME_WASTED;
+import static se.sundsvall.dept44.configuration.feign.hedging.HedgingClient.OUTCOME_WON;
+
+class HedgingClientTest {
+
+	private static final Request.Options OPTIONS = new Request.Options();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final HedgingSettings settings = HedgingSettings.create()
+		.withDelay(Duration.ofMillis(50))
+		.withMeterRegistry(meterRegistry);
+	private final AtomicInteger calls = new AtomicInteger();
+	private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+	@AfterEach
+	void tearDown() {
+		executor.close();
+	}
+
+	@Test
+	void fastResponseIsNotHedged() throws Exception {
+		final var client = createClient(respondAfter(0, 0));
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("1");
+
+		assertThat(calls).hasValue(1);
+		assertThat(count(OUTCOME_SENT)).isZero();
+	}
+
+	@Test
+	void slowResponseIsHedgedAndHedgeWinsWithoutInterruptingPrimary() throws Exception {
+		final var primaryDone = new CountDownLatch(1);
+		final var interrupted = new AtomicBoolean();
+		final var client = createClient((request, _) -> {
+			if (calls.incrementAndGet() == 1) {
+				try {
+					Thread.sleep(300);
+				} catch (final InterruptedException _) {
+					interrupted.set(true);
+				}
+				primaryDone.countDown();
+				return response(request, "primary", new AtomicBoolean());
+			}
+			return response(request, "hedge", new AtomicBoolean());
+		});
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("hedge");
+
+		assertThat(primaryDone.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(interrupted).isFalse();
+		assertThat(count(OUTCOME_SENT)).isEqualTo(1);
+		assertThat(count(OUTCOME_WON)).isEqualTo(1);
+	}
+
+	@Test
+	void attemptsRunWithContextOfCaller() throws Exception {
+		final List<String> requestIds = new CopyOnWriteArrayList<>();
+		final var client = createClient((request, _) -> {
+			requestIds.add(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+			sleep(calls.incrementAndGet() == 1 ? 150 : 0);
+			return response(request, "ok", new AtomicBoolean());
+		});
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		try {
+			body(client.execute(request(HttpMethod.GET), OPTIONS));
+		} finally {
+			MDC.clear();
+		}
+
+		assertThat(requestIds).containsExactly("req-1", "req-1");
+	}
+
+	@Test
+	void primaryWinsAndHedgeIsWasted() throws Exception {
+		final var client = createClient(respondAfter(150, 10_000));
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("1");
+
+		assertThat(count(OUTCOME_SENT)).isEqualTo(1);
+		assertThat(count(OUTCOME_WASTED)).isEqualTo(1);
+	}
+
+	@Test
+	void responseOfLosingAttemptIsClosed() throws Exception {
+		final var closed = new AtomicBoolean();
+		final var client = createClient((request, _) -> {
+			if (calls.incrementAndGet() == 1) {
+				// Ignores interrupts, like a call that is already reading the response
+				final var deadline = System.nanoTime() + Duration.ofMillis(300).toNanos();
+				while (System.nanoTime() < deadline) {
+					Thread.onSpinWait();
+				}
+				return response(request, "primary", closed);
+			}
+			return response(request, "hedge", new AtomicBoolean());
+		});
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("hedge");
+
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!closed.get() && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertThat(closed).isTrue();
+	}
+
+	@Test
+	void callOfLosingAttemptIsCancelled() throws Exception {
+		final var aborted = new CountDownLatch(1);
+		try (final var server = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+			final var httpClientFactory = new FeignHttpClientFactory(new FeignHttpClientProperties(), null, meterRegistry)) {
+			Thread.ofVirtual().start(() -> serve(server, aborted));
+			final var client = createClient(new OkHttpClient(httpClientFactory.getClient(null)));
+
+			final var response = client.execute(request(HttpMethod.GET, "http://localhost:" + server.getLocalPort() + "/test"), OPTIONS);
+
+			assertThat(body(response)).isEqualTo("hedge");
+			// The primary is still waiting for its response, which would take until the read timeout without cancellation
+			assertThat(aborted.await(5, TimeUnit.SECONDS)).isTrue();
+			assertThat(count(OUTCOME_WON)).isEqualTo(1);
+		}
+	}
+
+	@Test
+	void nonIdempotentRequestIsNotHedged() throws Exception {
+		final var client = createClient(respondAfter(150, 0));
+
+		assertThat(body(client.execute(request(HttpMethod.POST), OPTIONS))).isEqualTo("1");
+
+		assertThat(calls).hasValue(1);
+		assertThat(count(OUTCOME_SENT)).isZero();
+	}
+
+	@Test
+	void hedgesAreLimitedByBudget() throws Exception {
+		final var client = new HedgingClient("test", respondAfter(150, 0), settings, new RetryBudget(0, 0), null, executor);
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("1");
+
+		assertThat(calls).hasValue(1);
+		assertThat(count(OUTCOME_BUDGET_EXHAUSTED)).isEqualTo(1);
+	}
+
+	@Test
+	void hedgesWithdrawFromRetryBudget() throws Exception {
+		final var retryBudget = new RetryBudget(0, 1);
+		final var client = new HedgingClient("test", respondAfter(150, 0), settings, new RetryBudget(0.1, 10), retryBudget, executor);
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("2");
+		calls.set(0);
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("1");
+
+		assertThat(retryBudget.getBalance()).isZero();
+		assertThat(count(OUTCOME_SENT)).isEqualTo(1);
+		assertThat(count(OUTCOME_BUDGET_EXHAUSTED)).isEqualTo(1);
+	}
+
+	@Test
+	void requestsAreNotHedgedOnceExecutorIsShutDown() throws Exception {
+		final var client = createClient(respondAfter(150, 0));
+		executor.shutdown();
+
+		assertThat(body(client.execute(request(HttpMethod.GET), OPTIONS))).isEqualTo("1");
+
+		assertThat(calls).hasValue(1);
+		assertThat(count(OUTCOME_SENT)).isZero();
+	}
+
+	@Test
+	void failureOfBothAttemptsIsThrown() {
+		final var client = createClient((_, _) -> {
+			final var call = calls.incrementAndGet();
+			sleep(call == 1 ? 150 : 0);
+			throw new IOException("Failure " + call);
+		});
+
+		assertThatExceptionOfType(IOException.class)
+			.isThrownBy(() -> client.execute(request(HttpMethod.GET), OPTIONS))
+			.withMessage("Failure 1");
+	}
+
+	@Test
+	void delayIsDerivedFromPercentile() throws Exception {
+		settings.withDelay(Duration.ofSeconds(10)).withPercentileDelay(0.9);
+		final var slow = new AtomicBoolean();
+		final var client = createClient((request, _) -> {
+			calls.incrementAndGet();
+			sleep(slow.getAndSet(false) ? 300 : 0);
+			return response(request, "ok", new AtomicBoolean());
+		});
+		IntStream.range(0, LatencyWindow.RECALCULATE_EVERY).forEach(_ -> execute(client));
+
+		slow.set(true);
+		execute(client);
+
+		assertThat(count(OUTCOME_SENT)).isEqualTo(1);
+	}
+
+	private HedgingClient createClient(final Client delegate) {
+		return new HedgingClient("test", delegate, settings, new RetryBudget(0.1, 10), null, executor);
+	}
+
+	private Client respondAfter(final long firstMillis, final long otherMillis) {
+		return (request, _) -> {
+			final var call = calls.incrementAndGet();
+			sleep(call == 1 ? firstMillis : otherMillis);
+			return response(request, String.valueOf(call), new AtomicBoolean());
+		};
+	}
+
+	private double count(final String outcome) {
+		return meterRegistry.get(HEDGES).tag("integration", "test").tag("outcome", outcome).counter().count();
+	}
+
+	private static void execute(final HedgingClient client) {
+		try {
+			client.execute(request(HttpMethod.GET), OPTIONS).close();
+		} catch (final IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void sleep(final long millis) throws IOException {
+		try {
+			Thread.sleep(millis);
+		} catch (final InterruptedException _) {
+			throw new IOException("Canceled");
+		}
+	}
+
+	private static String body(final Response response) throws IOException {
+		try (response) {
+			return new String(response.body().asInputStream().readAllBytes(), UTF_8);
+		}
+	}
+
+	private static Response response(final Request request, final String body, final AtomicBoolean closed) {
+		return Response.builder()
+			.status(200)
+			.request(request)
+			.headers(Map.of())
+			.body(new ByteArrayInputStream(body.getBytes(UTF_8)) {
+				@Override
+				public void close() {
+					closed.set(true);
+				}
+			}, null)
+			.build();
+	}
+
+	private static Request request(final HttpMethod method) {
+		return request(method, "http://localhost/test");
+	}
+
+	private static Request request(final HttpMethod method, final String url) {
+		return Request.create(method, url, Map.of(), null, UTF_8, null);
+	}
+
+	/**
+	 * Leaves the first request unanswered until the client closes its connection, and answers the other ones.
+	 */
+	private static void serve(final ServerSocket server, final CountDownLatch aborted) {
+		final var requests = new AtomicInteger();
+		while (!server.isClosed()) {
+			try {
+				final var socket = server.accept();
+				final var first = requests.incrementAndGet() == 1;
+				Thread.ofVirtual().start(() -> {
+					try (socket) {
+						final var in = new BufferedReader(new InputStreamReader(socket.getInputStream(), US_ASCII));
+						for (var line = in.readLine(); line != null && !line.isEmpty(); line = in.readLine()) {
+							// Skips the request head
+						}
+						if (first) {
+							// Blocks until the client closes the connection
+							in.read();
+							aborted.countDown();
+						} else {
+							socket.getOutputStream().write("HTTP/1.1 200 OK\r\nContent-Length: 5\r\nConnection: close\r\n\r\nhedge".getBytes(US_ASCII));
+						}
+					} catch (final IOException _) {
+						if (first) {
+							aborted.countDown();
+						}
+					}
+				});
+			} catch (final IOException _) {
+				return;
+			}
+		}
+	}
+}
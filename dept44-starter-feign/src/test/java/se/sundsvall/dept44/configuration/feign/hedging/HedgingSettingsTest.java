@@ -0,0 +1,47 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class HedgingSettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = HedgingSettings.create();
+
+		assertThat(settings.getDelay()).isEqualTo(Duration.ofMillis(500));
+		assertThat(settings.getPercentile()).isZero();
+		assertThat(settings.getMaxHedgeRatio()).isEqualTo(0.1);
+		assertThat(settings.getHedgeReserve()).isEqualTo(10);
+		assertThat(settings.getMeterRegistry()).isNull();
+	}
+
+	@Test
+	void withSettings() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settings = HedgingSettings.create()
+			.withDelay(Duration.ofMillis(200))
+			.withPercentileDelay(0.95)
+			.withMaxHedgeRatio(0.05, 5)
+			.withMeterRegistry(meterRegistry);
+
+		assertThat(settings.getDelay()).isEqualTo(Duration.ofMillis(200));
+		assertThat(settings.getPercentile()).isEqualTo(0.95);
+		assertThat(settings.getMaxHedgeRatio()).isEqualTo(0.05);
+		assertThat(settings.getHedgeReserve()).isEqualTo(5);
+		assertThat(settings.getMeterRegistry()).isSameAs(meterRegistry);
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		final var settings = HedgingSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withDelay(Duration.ofMillis(-1))).withMessage("delay must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withPercentileDelay(1)).withMessage("percentile must be greater than 0 and less than 1");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxHedgeRatio(-0.1, 0)).withMessage("maxHedgeRatio must not be negative");
+	}
+}
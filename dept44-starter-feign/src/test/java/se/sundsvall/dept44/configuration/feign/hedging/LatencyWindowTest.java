@@ -0,0 +1,37 @@
+package se.sundsvall.dept44.configuration.feign.hedging;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyWindowTest {
+
+	@Test
+	void percentileIsUnknownUntilEnoughRequests() {
+		final var window = new LatencyWindow(0.5);
+
+		IntStream.range(1, LatencyWindow.RECALCULATE_EVERY).forEach(window::record);
+
+		assertThat(window.getPercentileNanos()).isEqualTo(-1);
+	}
+
+	@Test
+	void percentile() {
+		final var window = new LatencyWindow(0.95);
+
+		IntStream.rangeClosed(1, 200).forEach(window::record);
+
+		assertThat(window.getPercentileNanos()).isEqualTo(190);
+	}
+
+	@Test
+	void percentileOfMostRecentRequests() {
+		final var window = new LatencyWindow(0.5);
+
+		IntStream.range(0, LatencyWindow.SIZE).forEach(_ -> window.record(1000));
+		IntStream.range(0, LatencyWindow.SIZE + LatencyWindow.RECALCULATE_EVERY * 2).forEach(_ -> window.record(10));
+
+		assertThat(window.getPercentileNanos()).isEqualTo(10);
+	}
+}
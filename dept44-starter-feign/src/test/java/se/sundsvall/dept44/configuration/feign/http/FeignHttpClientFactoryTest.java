@@ -0,0 +1,122 @@
+package se.sundsvall.dept44.configuration.feign.http;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.Map;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.sundsvall.dept44.configuration.feign.http.ConnectionMetricsEventListener.ACQUIRE;
+import static se.sundsvall.dept44.configuration.feign.http.ConnectionMetricsEventListener.CONNECT;
+import static se.sundsvall.dept44.configuration.feign.http.FeignHttpClientFactory.CONNECTIONS;
+import static se.sundsvall.dept44.configuration.feign.http.FeignHttpClientFactory.SHARED;
+
+@WireMockTest
+class FeignHttpClientFactoryTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private FeignHttpClientFactory factory;
+
+	@AfterEach
+	void tearDown() {
+		if (factory != null) {
+			factory.close();
+		}
+	}
+
+	@Test
+	void clientsShareConnectionPoolAndDispatcher() {
+		factory = new FeignHttpClientFactory(new FeignHttpClientProperties(), null, meterRegistry);
+
+		final var client = factory.getClient("petstore");
+
+		assertThat(factory.getClient("other")).isSameAs(client);
+		assertThat(factory.getClient(null)).isSameAs(client);
+		assertThat(client.protocols()).containsExactly(Protocol.HTTP_1_1);
+		assertThat(client.connectionPool()).isNotNull();
+		assertThat(client.dispatcher().getMaxRequests()).isEqualTo(256);
+		assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(64);
+	}
+
+	@Test
+	void integrationWithOwnPool() {
+		final var pool = new FeignHttpClientProperties.Pool();
+		pool.setMaxRequests(10);
+		pool.setMaxRequestsPerHost(5);
+		final var clientProperties = new FeignHttpClientProperties.Client();
+		clientProperties.setPool(pool);
+		final var properties = new FeignHttpClientProperties();
+		properties.setClients(Map.of("petstore", clientProperties));
+		factory = new FeignHttpClientFactory(properties, null, meterRegistry);
+
+		final var client = factory.getClient("petstore");
+
+		assertThat(factory.getClient("petstore")).isSameAs(client);
+		assertThat(client.connectionPool()).isNotSameAs(factory.getClient(SHARED).connectionPool());
+		assertThat(client.dispatcher()).isNotSameAs(factory.getClient(SHARED).dispatcher());
+		assertThat(client.dispatcher().getMaxRequests()).isEqualTo(10);
+		assertThat(client.dispatcher().getMaxRequestsPerHost()).isEqualTo(5);
+		assertThat(meterRegistry.get(CONNECTIONS).tag("client", "petstore").gauges()).hasSize(2);
+	}
+
+	@Test
+	void integrationWithH2cPriorKnowledgeSharesPool() {
+		final var clientProperties = new FeignHttpClientProperties.Client();
+		clientProperties.setH2cPriorKnowledge(true);
+		final var properties = new FeignHttpClientProperties();
+		properties.setClients(Map.of("petstore", clientProperties));
+		factory = new FeignHttpClientFactory(properties, null, meterRegistry);
+
+		final var client = factory.getClient("petstore");
+
+		assertThat(client.protocols()).containsExactly(Protocol.H2_PRIOR_KNOWLEDGE);
+		assertThat(client.connectionPool()).isSameAs(factory.getClient(SHARED).connectionPool());
+		assertThat(client.dispatcher()).isSameAs(factory.getClient(SHARED).dispatcher());
+	}
+
+	@Test
+	void http2CanBeEnabled() {
+		final var properties = new FeignHttpClientProperties();
+		properties.setHttp2(true);
+		factory = new FeignHttpClientFactory(properties, null, meterRegistry);
+
+		assertThat(factory.getClient(SHARED).protocols()).containsExactly(Protocol.HTTP_2, Protocol.HTTP_1_1);
+	}
+
+	@Test
+	void publishesConnectionMetrics(final WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get("/test").willReturn(ok("ok")));
+		factory = new FeignHttpClientFactory(new FeignHttpClientProperties(), null, meterRegistry);
+		final var client = factory.getClient(SHARED);
+		final var request = new Request.Builder().url(wmRuntimeInfo.getHttpBaseUrl() + "/test").build();
+
+		for (var i = 0; i < 2; i++) {
+			try (var response = client.newCall(request).execute()) {
+				assertThat(response.body().string()).isEqualTo("ok");
+			}
+		}
+
+		// The second call reuses the pooled connection
+		assertThat(meterRegistry.get(CONNECT).tag("client", SHARED).tag("outcome", "success").timer().count()).isEqualTo(1);
+		assertThat(meterRegistry.get(ACQUIRE).tag("client", SHARED).timer().count()).isEqualTo(2);
+		assertThat(meterRegistry.get(CONNECTIONS).tag("client", SHARED).tag("state", "idle").gauge().value()).isEqualTo(1);
+		assertThat(meterRegistry.get(CONNECTIONS).tag("client", SHARED).tag("state", "active").gauge().value()).isZero();
+	}
+
+	@Test
+	void metricsCanBeDisabled() {
+		final var properties = new FeignHttpClientProperties();
+		properties.setMetricsEnabled(false);
+		factory = new FeignHttpClientFactory(properties, null, meterRegistry);
+
+		assertThat(meterRegistry.getMeters()).isEmpty();
+	}
+}
@@ -12,7 +12,10 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.Executors;
 import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -24,16 +27,16 @@ import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
-import org.springframework.security.oauth2.client.AuthorizedClientServiceOAuth2AuthorizedClientManager;
-import org.springframework.security.oauth2.client.InMemoryOAuth2AuthorizedClientService;
-import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.security.oauth2.core.OAuth2AccessToken;
 import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
 import org.springframework.test.util.ReflectionTestUtils;
 import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
 import se.sundsvall.dept44.configuration.feign.decoder.ProblemErrorDecoder;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+import se.sundsvall.dept44.oauth2.TokenStore;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
 import static com.github.tomakehurst.wiremock.client.WireMock.get;
@@ -51,10 +54,10 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.clearInvocations;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @WireMockTest
@@ -69,13 +72,7 @@ class OAuth2RequestInterceptorTest {
 	private RequestTemplate requestTemplateMock;
 
 	@Mock
-	private AuthorizedClientServiceOAuth2AuthorizedClientManager clientManagerMock;
-
-	@Mock
-	private OAuth2AuthorizedClient authorizedClientMock;
-
-	@Mock
-	private InMemoryOAuth2AuthorizedClientService oAuth2AuthorizedClientServiceMock;
+	private OAuth2TokenProvider tokenProviderMock;
 
 	@Mock
 	private OAuth2AccessToken accessTokenMock;
@@ -91,6 +88,12 @@ class OAuth2RequestInterceptorTest {
 		MockitoAnnotations.openMocks(this);
 	}
 
+	@AfterEach
+	void clearTokenStore() {
+		// Tokens are shared through the TokenStore, so each test starts without a cached token
+		TokenStore.getShared().clear();
+	}
+
 	@Test
 	void testImplements() {
 		assertThat(RequestInterceptor.class).isAssignableFrom(OAuth2RequestInterceptor.class);
@@ -165,6 +168,19 @@ class OAuth2RequestInterceptorTest {
 		assertThat(scopeCaptor.getValue()).containsAll(Set.of("scope1", "scope2"));
 	}
 
+	@Test
+	void testInterceptorsShareTokenProvider(WireMockRuntimeInfo wmRuntimeInfo) {
+		final var clientRegistration = createClientRegistration(wmRuntimeInfo.getHttpPort());
+
+		final var interceptor1 = new OAuth2RequestInterceptor(clientRegistration, DEFAULT_SCOPESET);
+		final var interceptor2 = new OAuth2RequestInterceptor(clientRegistration, DEFAULT_SCOPESET);
+		final var interceptorWithOtherScope = new OAuth2RequestInterceptor(clientRegistration, Set.of("scope1"));
+
+		assertThat(interceptor1).extracting("tokenProvider")
+			.isSameAs(ReflectionTestUtils.getField(interceptor2, "tokenProvider"))
+			.isNotSameAs(ReflectionTestUtils.getField(interceptorWithOtherScope, "tokenProvider"));
+	}
+
 	@Test
 	void testConstructorWithNull() {
 		assertThat(assertThrows(IllegalArgumentException.class, () -> new OAuth2RequestInterceptor(null, null)))
@@ -172,110 +188,101 @@ class OAuth2RequestInterceptorTest {
 	}
 
 	@Test
-	void testApplyWithNoAuthorizedClient() {
+	void testApplyWhenTokenFetchFails() {
 		when(clientRegistrationMock.getRegistrationId()).thenReturn("registrationId");
 		when(clientRegistrationBuilderMock.scope(ArgumentMatchers.<HashSet<String>>any())).thenReturn(clientRegistrationBuilderMock);
 		when(clientRegistrationBuilderMock.build()).thenReturn(clientRegistrationMock);
+		when(tokenProviderMock.getToken()).thenThrow(new OAuth2AuthorizationException(new OAuth2Error("invalid_client")));
 
 		try (MockedStatic<ClientRegistration> regMock = Mockito.mockStatic(ClientRegistration.class)) {
 			regMock.when(() -> ClientRegistration.withClientRegistration(any())).thenReturn(clientRegistrationBuilderMock);
 			final var oAuth2RequestInterceptor = new OAuth2RequestInterceptor(clientRegistrationMock, DEFAULT_SCOPESET);
-			assertThat(assertThrows(IllegalArgumentException.class, () -> oAuth2RequestInterceptor.apply(requestTemplateMock)))
-				.hasMessage("authorizedClient cannot be null");
+			ReflectionTestUtils.setField(oAuth2RequestInterceptor, "tokenProvider", tokenProviderMock);
+
+			assertThatExceptionOfType(OAuth2AuthorizationException.class)
+				.isThrownBy(() -> oAuth2RequestInterceptor.apply(requestTemplateMock));
 		}
+
+		verifyNoInteractions(requestTemplateMock);
 	}
 
 	@Test
-	void testApplyWithAuthorizedClient() {
+	void testApplyWithToken() {
 		ClientRegistration clientRegistrationWithScopeMock = mock(ClientRegistration.class);
 		when(clientRegistrationWithScopeMock.getRegistrationId()).thenReturn("registrationId");
 		when(clientRegistrationBuilderMock.scope(ArgumentMatchers.<HashSet<String>>any())).thenReturn(clientRegistrationBuilderMock);
 		when(clientRegistrationBuilderMock.build()).thenReturn(clientRegistrationWithScopeMock);
 		when(clientRegistrationMock.getRegistrationId()).thenReturn("registrationId");
-		when(clientManagerMock.authorize(any())).thenReturn(authorizedClientMock);
-		when(authorizedClientMock.getAccessToken()).thenReturn(accessTokenMock);
+		when(tokenProviderMock.getToken()).thenReturn(accessTokenMock);
 		when(accessTokenMock.getTokenValue()).thenReturn("tokenValue");
 
 		try (MockedStatic<ClientRegistration> regMock = Mockito.mockStatic(ClientRegistration.class)) {
 			regMock.when(() -> ClientRegistration.withClientRegistration(any())).thenReturn(clientRegistrationBuilderMock);
 
 			OAuth2RequestInterceptor interceptor = new OAuth2RequestInterceptor(clientRegistrationMock, DEFAULT_SCOPESET);
-			ReflectionTestUtils.setField(interceptor, "authorizedClientManager", clientManagerMock);
-
-			clearInvocations(clientRegistrationWithScopeMock);
+			ReflectionTestUtils.setField(interceptor, "tokenProvider", tokenProviderMock);
 
 			interceptor.apply(requestTemplateMock);
 		}
 
+		verify(requestTemplateMock).removeHeader(HttpHeaders.AUTHORIZATION);
 		verify(requestTemplateMock).header(HttpHeaders.AUTHORIZATION, "Bearer tokenValue");
-		verify(clientRegistrationWithScopeMock).getRegistrationId();
 	}
 
 	@Test
-	void testRemoveTokenWhenFailedTokenMatchesCachedToken() {
+	void testRemoveTokenInvalidatesFailedToken() {
 		when(clientRegistrationMock.getRegistrationId()).thenReturn("registrationId");
 		when(clientRegistrationBuilderMock.scope(ArgumentMatchers.<HashSet<String>>any())).thenReturn(clientRegistrationBuilderMock);
 		when(clientRegistrationBuilderMock.build()).thenReturn(clientRegistrationMock);
-		when(oAuth2AuthorizedClientServiceMock.<OAuth2AuthorizedClient>loadAuthorizedClient("registrationId", "anonymousUser")).thenReturn(authorizedClientMock);
-		when(authorizedClientMock.getAccessToken()).thenReturn(accessTokenMock);
-		when(accessTokenMock.getTokenValue()).thenReturn("tokenValue");
 
 		try (MockedStatic<ClientRegistration> regMock = Mockito.mockStatic(ClientRegistration.class)) {
 			regMock.when(() -> ClientRegistration.withClientRegistration(any())).thenReturn(clientRegistrationBuilderMock);
 
 			OAuth2RequestInterceptor interceptor = new OAuth2RequestInterceptor(clientRegistrationMock, DEFAULT_SCOPESET);
-			ReflectionTestUtils.setField(interceptor, "oAuth2AuthorizedClientService", oAuth2AuthorizedClientServiceMock);
-			clearInvocations(clientRegistrationMock);
+			ReflectionTestUtils.setField(interceptor, "tokenProvider", tokenProviderMock);
 
 			interceptor.removeToken("Bearer tokenValue");
 		}
 
-		verify(oAuth2AuthorizedClientServiceMock).removeAuthorizedClient("registrationId", "anonymousUser");
+		// The provider only evicts the token if it is still the cached one, see OAuth2TokenProviderTest
+		verify(tokenProviderMock).invalidate("tokenValue");
 	}
 
 	@Test
-	void testRemoveTokenWhenFailedTokenDiffersFromCachedToken() {
-		// Simulates another thread having already refreshed the token: the cached token is no longer the one that
-		// failed, so it must NOT be evicted.
+	void testRemoveTokenWithoutAuthorizationHeader() {
 		when(clientRegistrationMock.getRegistrationId()).thenReturn("registrationId");
 		when(clientRegistrationBuilderMock.scope(ArgumentMatchers.<HashSet<String>>any())).thenReturn(clientRegistrationBuilderMock);
 		when(clientRegistrationBuilderMock.build()).thenReturn(clientRegistrationMock);
-		when(oAuth2AuthorizedClientServiceMock.<OAuth2AuthorizedClient>loadAuthorizedClient("registrationId", "anonymousUser")).thenReturn(authorizedClientMock);
-		when(authorizedClientMock.getAccessToken()).thenReturn(accessTokenMock);
-		when(accessTokenMock.getTokenValue()).thenReturn("freshTokenValue");
 
 		try (MockedStatic<ClientRegistration> regMock = Mockito.mockStatic(ClientRegistration.class)) {
 			regMock.when(() -> ClientRegistration.withClientRegistration(any())).thenReturn(clientRegistrationBuilderMock);
 
 			OAuth2RequestInterceptor interceptor = new OAuth2RequestInterceptor(clientRegistrationMock, DEFAULT_SCOPESET);
-			ReflectionTestUtils.setField(interceptor, "oAuth2AuthorizedClientService", oAuth2AuthorizedClientServiceMock);
-			clearInvocations(clientRegistrationMock);
+			ReflectionTestUtils.setField(interceptor, "tokenProvider", tokenProviderMock);
 
-			interceptor.removeToken("Bearer staleTokenValue");
+			interceptor.removeToken(null);
 		}
 
-		verify(oAuth2AuthorizedClientServiceMock, never()).removeAuthorizedClient(any(), any());
+		verify(tokenProviderMock, never()).invalidate(any());
 	}
 
 	@Test
-	void testRemoveTokenWhenNoCachedToken() {
-		// Simulates another thread having already evicted the token: nothing to remove.
-		when(clientRegistrationMock.getRegistrationId()).thenReturn("registrationId");
-		when(clientRegistrationBuilderMock.scope(ArgumentMatchers.<HashSet<String>>any())).thenReturn(clientRegistrationBuilderMock);
-		when(clientRegistrationBuilderMock.build()).thenReturn(clientRegistrationMock);
-		when(oAuth2AuthorizedClientServiceMock.<OAuth2AuthorizedClient>loadAuthorizedClient("registrationId", "anonymousUser")).thenReturn(null);
+	void testConcurrentRequestsShareOneTokenFetch(WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubTokenEndpoint(3600, 200);
 
-		try (MockedStatic<ClientRegistration> regMock = Mockito.mockStatic(ClientRegistration.class)) {
-			regMock.when(() -> ClientRegistration.withClientRegistration(any())).thenReturn(clientRegistrationBuilderMock);
-
-			OAuth2RequestInterceptor interceptor = new OAuth2RequestInterceptor(clientRegistrationMock, DEFAULT_SCOPESET);
-			ReflectionTestUtils.setField(interceptor, "oAuth2AuthorizedClientService", oAuth2AuthorizedClientServiceMock);
-			clearInvocations(clientRegistrationMock);
+		final var clientRegistration = createClientRegistration(wmRuntimeInfo.getHttpPort());
+		final var interceptor = new OAuth2RequestInterceptor(clientRegistration, DEFAULT_SCOPESET);
 
-			interceptor.removeToken("Bearer anyToken");
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var futures = IntStream.range(0, 20)
+				.mapToObj(_ -> executor.submit(() -> interceptor.apply(new RequestTemplate())))
+				.toList();
+			for (final var future : futures) {
+				future.get();
+			}
 		}
 
-		verify(oAuth2AuthorizedClientServiceMock, never()).removeAuthorizedClient(any(), any());
+		com.github.tomakehurst.wiremock.client.WireMock.verify(1, postRequestedFor(urlPathEqualTo("/token")));
 	}
 
 	@Test
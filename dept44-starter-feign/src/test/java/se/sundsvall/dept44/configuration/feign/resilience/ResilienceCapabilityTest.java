@@ -0,0 +1,225 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Feign;
+import feign.RequestLine;
+import feign.okhttp.OkHttpClient;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedTimeLimiterMetrics;
+import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+import se.sundsvall.dept44.configuration.feign.async.AsyncSettings;
+import se.sundsvall.dept44.configuration.feign.decoder.ProblemErrorDecoder;
+import se.sundsvall.dept44.exception.ClientProblem;
+import se.sundsvall.dept44.exception.ServerProblem;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+import se.sundsvall.dept44.requestid.RequestId;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.equalTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.notFound;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.serverError;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.client.WireMock.verify;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+@WireMockTest
+class ResilienceCapabilityTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	// Configured like the defaults of dept44, resilience4j.circuitbreaker.configs.default.*
+	private final ResilienceRegistries registries = new ResilienceRegistries(
+		CircuitBreakerRegistry.of(CircuitBreakerConfig.custom().slidingWindowSize(10).minimumNumberOfCalls(5).build()),
+		BulkheadRegistry.ofDefaults(),
+		TimeLimiterRegistry.ofDefaults());
+
+	@BeforeEach
+	void setUp() {
+		TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(registries.circuitBreakerRegistry()).bindTo(meterRegistry);
+		TaggedBulkheadMetrics.ofBulkheadRegistry(registries.bulkheadRegistry()).bindTo(meterRegistry);
+		TaggedTimeLimiterMetrics.ofTimeLimiterRegistry(registries.timeLimiterRegistry()).bindTo(meterRegistry);
+	}
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	void callsPassThroughWithRequestContext(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful")));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create());
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+
+		assertThat(client.get()).isEqualTo("successful");
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/test")).withHeader(RequestId.HEADER_NAME, equalTo("req-1")));
+		assertThat(state("closed")).isOne();
+		assertThat(meterRegistry.get("resilience4j.bulkhead.max.allowed.concurrent.calls").tag("name", "test").gauge().value()).isEqualTo(25);
+	}
+
+	@Test
+	void timesOutSlowCall(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(2000)));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create().withTimeout(Duration.ofMillis(100)));
+
+		final var start = System.nanoTime();
+		assertThatThrownBy(client::get)
+			.isInstanceOfSatisfying(ServerProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(GATEWAY_TIMEOUT))
+			.hasMessageContaining("Call to 'test' timed out after PT0.1S");
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+		assertThat(meterRegistry.get("resilience4j.timelimiter.calls").tags("name", "test", "kind", "timeout").counter().count()).isOne();
+	}
+
+	@Test
+	void timedOutCallKeepsBulkheadPermitUntilItCompletes(final WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(500)));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create().withMaxConcurrentCalls(1, Duration.ZERO).withTimeout(Duration.ofMillis(100)));
+
+		assertThatThrownBy(client::get)
+			.isInstanceOfSatisfying(ServerProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(GATEWAY_TIMEOUT));
+
+		// The call is not interrupted, so it still occupies the bulkhead
+		assertThatThrownBy(client::get)
+			.isInstanceOfSatisfying(ServerProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(SERVICE_UNAVAILABLE));
+
+		final var available = meterRegistry.get("resilience4j.bulkhead.available.concurrent.calls").tag("name", "test").gauge();
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (available.value() < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(available.value()).isOne();
+		verify(exactly(1), getRequestedFor(urlPathEqualTo("/test")));
+	}
+
+	@Test
+	void usesInstanceConfiguredInRegistry(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful")));
+		registries.bulkheadRegistry().bulkhead("test", BulkheadConfig.custom().maxConcurrentCalls(3).build());
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create());
+
+		assertThat(client.get()).isEqualTo("successful");
+		assertThat(meterRegistry.get("resilience4j.bulkhead.max.allowed.concurrent.calls").tag("name", "test").gauge().value()).isEqualTo(3);
+	}
+
+	@Test
+	void rejectsCallsWhenBulkheadIsFull(final WireMockRuntimeInfo wmRuntimeInfo) throws Exception {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(500)));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create().withMaxConcurrentCalls(1, Duration.ZERO));
+
+		final var running = CompletableFuture.supplyAsync(client::get);
+		final var available = meterRegistry.get("resilience4j.bulkhead.available.concurrent.calls").tag("name", "test").gauge();
+		while (available.value() > 0) {
+			Thread.sleep(10);
+		}
+
+		assertThatThrownBy(client::get)
+			.isInstanceOfSatisfying(ServerProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(SERVICE_UNAVAILABLE))
+			.hasMessageContaining("Too many concurrent calls to 'test'");
+		assertThat(running.join()).isEqualTo("successful");
+	}
+
+	@Test
+	void opensCircuitOnServerErrors(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(serverError()));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create());
+
+		for (var i = 0; i < 5; i++) {
+			assertThatThrownBy(client::get).isInstanceOf(ServerProblem.class);
+		}
+
+		assertThatThrownBy(client::get)
+			.isInstanceOfSatisfying(ThrowableProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(SERVICE_UNAVAILABLE))
+			.hasMessageContaining("Circuit breaker of 'test' is open");
+		verify(exactly(5), getRequestedFor(urlPathEqualTo("/test")));
+		assertThat(state("open")).isOne();
+	}
+
+	@Test
+	void opensCircuitOnSlowCalls(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(100)));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create().withSlowCalls(Duration.ofMillis(50), 50));
+
+		for (var i = 0; i < 5; i++) {
+			assertThat(client.get()).isEqualTo("successful");
+		}
+
+		assertThat(state("open")).isOne();
+	}
+
+	@Test
+	void ignoresClientErrors(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(notFound()));
+		final var client = createClient(wmRuntimeInfo, ResilienceSettings.create());
+
+		for (var i = 0; i < 10; i++) {
+			assertThatThrownBy(client::get).isInstanceOf(ClientProblem.class);
+		}
+
+		assertThat(state("closed")).isOne();
+	}
+
+	@Test
+	void appliesToAsynchronousCalls(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test").willReturn(ok("successful").withFixedDelay(2000)));
+		final var builder = Feign.builder()
+			.client(new OkHttpClient());
+		FeignMultiCustomizer.create()
+			.withAsync("test", AsyncSettings.create().withMeterRegistry(meterRegistry))
+			.withCustomizer(feignBuilder -> feignBuilder.addCapability(new ResilienceCapability("test", ResilienceSettings.create().withTimeout(Duration.ofMillis(100)), () -> registries)))
+			.composeCustomizersToOne()
+			.customize(builder);
+		final var client = builder.target(AsyncTestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+
+		assertThat(client.get()).failsWithin(Duration.ofSeconds(1))
+			.withThrowableThat().havingCause().isInstanceOf(ServerProblem.class);
+	}
+
+	private double state(final String state) {
+		return meterRegistry.get("resilience4j.circuitbreaker.state").tags("name", "test", "state", state).gauge().value();
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo, final ResilienceSettings settings) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient());
+		FeignMultiCustomizer.create()
+			.withErrorDecoder(new ProblemErrorDecoder("test"))
+			.withCustomizer(feignBuilder -> feignBuilder.addCapability(new ResilienceCapability("test", settings, () -> registries)))
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		String get();
+	}
+
+	interface AsyncTestApi {
+
+		@RequestLine("GET /test")
+		CompletableFuture<String> get();
+	}
+}
@@ -0,0 +1,55 @@
+package se.sundsvall.dept44.configuration.feign.resilience;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ResilienceSettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = ResilienceSettings.create();
+
+		assertThat(settings.getMaxConcurrentCalls()).isEqualTo(25);
+		assertThat(settings.getMaxWait()).isZero();
+		assertThat(settings.getTimeout()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(settings.getFailureRateThreshold()).isEqualTo(50);
+		assertThat(settings.getSlowCallDuration()).isEqualTo(Duration.ofSeconds(3));
+		assertThat(settings.getSlowCallRateThreshold()).isEqualTo(50);
+		assertThat(settings.getWaitDurationInOpenState()).isEqualTo(Duration.ofSeconds(10));
+	}
+
+	@Test
+	void withValues() {
+		final var settings = ResilienceSettings.create()
+			.withMaxConcurrentCalls(5, Duration.ofMillis(100))
+			.withTimeout(Duration.ofSeconds(2))
+			.withFailureRateThreshold(25)
+			.withSlowCalls(Duration.ofSeconds(1), 80)
+			.withWaitDurationInOpenState(Duration.ofSeconds(30));
+
+		assertThat(settings.getMaxConcurrentCalls()).isEqualTo(5);
+		assertThat(settings.getMaxWait()).isEqualTo(Duration.ofMillis(100));
+		assertThat(settings.getTimeout()).isEqualTo(Duration.ofSeconds(2));
+		assertThat(settings.getFailureRateThreshold()).isEqualTo(25);
+		assertThat(settings.getSlowCallDuration()).isEqualTo(Duration.ofSeconds(1));
+		assertThat(settings.getSlowCallRateThreshold()).isEqualTo(80);
+		assertThat(settings.getWaitDurationInOpenState()).isEqualTo(Duration.ofSeconds(30));
+	}
+
+	@Test
+	void invalidValues() {
+		final var settings = ResilienceSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxConcurrentCalls(0, Duration.ZERO)).withMessage("maxConcurrentCalls must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxConcurrentCalls(1, null)).withMessage("maxWait may not be null");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxConcurrentCalls(1, Duration.ofMillis(-1))).withMessage("maxWait must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withTimeout(Duration.ZERO)).withMessage("timeout must be positive");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withFailureRateThreshold(101)).withMessage("failureRateThreshold must be greater than 0 and at most 100");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withSlowCalls(Duration.ZERO, 50)).withMessage("slowCallDuration must be positive");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withSlowCalls(Duration.ofSeconds(1), 0)).withMessage("slowCallRateThreshold must be greater than 0 and at most 100");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withWaitDurationInOpenState(null)).withMessage("waitDurationInOpenState may not be null");
+	}
+}
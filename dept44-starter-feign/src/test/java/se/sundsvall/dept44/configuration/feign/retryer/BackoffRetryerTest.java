@@ -0,0 +1,183 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import feign.Request;
+import feign.Request.HttpMethod;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.dept44.exception.ServerProblem;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+import static se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer.OUTCOME_BUDGET_EXHAUSTED;
+import static se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer.OUTCOME_EXHAUSTED;
+import static se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer.OUTCOME_RETRIED;
+import static se.sundsvall.dept44.configuration.feign.retryer.BackoffRetryer.RETRIES;
+
+class BackoffRetryerTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final Retryer delegateMock = mock(Retryer.class);
+	private final RetrySettings settings = RetrySettings.create()
+		.withBackoff(Duration.ZERO, Duration.ZERO)
+		.withMeterRegistry(meterRegistry);
+
+	@Test
+	void retriesIoErrorsOfIdempotentRequests() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+		final var exception = ioError(HttpMethod.GET, new IOException("Connection reset"));
+
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(exception));
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(exception));
+		assertThatThrownBy(() -> retryer.continueOrPropagate(exception)).isSameAs(exception);
+
+		assertThat(count(OUTCOME_RETRIED)).isEqualTo(2);
+		assertThat(count(OUTCOME_EXHAUSTED)).isEqualTo(1);
+		verifyNoInteractions(delegateMock);
+	}
+
+	@Test
+	void doesNotRetryNonIdempotentRequests() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+		final var exception = ioError(HttpMethod.POST, new IOException("Connection reset"));
+
+		assertThatThrownBy(() -> retryer.continueOrPropagate(exception)).isSameAs(exception);
+
+		assertThat(count(OUTCOME_RETRIED)).isZero();
+	}
+
+	@Test
+	void retriesNonIdempotentRequestsThatFailedToConnect() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(ioError(HttpMethod.POST, new ConnectException("Connection refused"))));
+	}
+
+	@Test
+	void retriesNonIdempotentRequestsWhenEnabled() {
+		settings.withRetryNonIdempotent(true);
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(ioError(HttpMethod.POST, new IOException("Connection reset"))));
+	}
+
+	@Test
+	void throwsProblemWhenResponseIsNotRetried() {
+		final var problem = new ServerProblem(BAD_GATEWAY, "Service unavailable");
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+		final var exception = new RetryableResponseException(response(HttpMethod.POST, 503), problem, null);
+
+		assertThatThrownBy(() -> retryer.continueOrPropagate(exception)).isSameAs(problem);
+	}
+
+	@Test
+	void stopsWhenBudgetIsExhausted() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 1));
+		final var exception = new RetryableResponseException(response(HttpMethod.GET, 503), new ServerProblem(BAD_GATEWAY, "Service unavailable"), null);
+
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(exception));
+		assertThatThrownBy(() -> retryer.clone().continueOrPropagate(exception)).isInstanceOf(ServerProblem.class);
+
+		assertThat(count(OUTCOME_BUDGET_EXHAUSTED)).isEqualTo(1);
+	}
+
+	@Test
+	void honoursRetryAfter() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+		final var exception = new RetryableResponseException(response(HttpMethod.GET, 503), new ServerProblem(BAD_GATEWAY, "Service unavailable"),
+			System.currentTimeMillis() + 200);
+
+		final var start = System.nanoTime();
+		retryer.continueOrPropagate(exception);
+
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(150));
+	}
+
+	@Test
+	void doesNotWaitForLongRetryAfter() {
+		final var retryer = createRetryer(new RetryBudget(0.1, 10));
+		final var exception = new RetryableResponseException(response(HttpMethod.GET, 503), new ServerProblem(BAD_GATEWAY, "Service unavailable"),
+			System.currentTimeMillis() + Duration.ofMinutes(1).toMillis());
+
+		assertThatThrownBy(() -> retryer.continueOrPropagate(exception)).isInstanceOf(ServerProblem.class);
+
+		assertThat(count(OUTCOME_EXHAUSTED)).isEqualTo(1);
+	}
+
+	@Test
+	void passesOtherExceptionsToDelegate() {
+		final var action = mock(Action.class);
+		final var retryer = new BackoffRetryer("test", settings, new RetryBudget(0.1, 10), new ActionRetryer(action, 1));
+		final var exception = new RetryableException(401, "Invalid token error", HttpMethod.POST, (Long) null, response(HttpMethod.POST, 401).request());
+
+		assertThatNoException().isThrownBy(() -> retryer.continueOrPropagate(exception));
+		assertThatThrownBy(() -> retryer.continueOrPropagate(exception)).isSameAs(exception);
+
+		verify(action).execute(null);
+		assertThat(count(OUTCOME_RETRIED)).isZero();
+	}
+
+	@Test
+	void backoffHasFullJitterAndIsCapped() {
+		final var retryer = new BackoffRetryer("test", RetrySettings.create().withBackoff(Duration.ofMillis(100), Duration.ofMillis(300)).withMeterRegistry(meterRegistry),
+			new RetryBudget(0.1, 10), delegateMock);
+
+		IntStream.range(0, 100).forEach(_ -> {
+			assertThat(retryer.backoffMillis(1)).isBetween(0L, 100L);
+			assertThat(retryer.backoffMillis(2)).isBetween(0L, 200L);
+			assertThat(retryer.backoffMillis(10)).isBetween(0L, 300L);
+		});
+	}
+
+	@Test
+	void cloneDepositsToBudgetAndClonesDelegate() {
+		final var budget = new RetryBudget(0.5, 1);
+		budget.tryWithdraw();
+		final var retryer = createRetryer(budget);
+		doReturn(mock(Retryer.class)).when(delegateMock).clone();
+
+		final var clone = retryer.clone();
+
+		assertThat(clone).isInstanceOf(BackoffRetryer.class).isNotSameAs(retryer);
+		assertThat(budget.getBalance()).isEqualTo(0.5);
+		verify(delegateMock).clone();
+	}
+
+	private BackoffRetryer createRetryer(final RetryBudget budget) {
+		return new BackoffRetryer("test", settings, budget, delegateMock);
+	}
+
+	private double count(final String outcome) {
+		return meterRegistry.get(RETRIES).tag("integration", "test").tag("outcome", outcome).counter().count();
+	}
+
+	private static RetryableException ioError(final HttpMethod method, final IOException cause) {
+		return new RetryableException(-1, cause.getMessage(), method, cause, (Long) null, request(method));
+	}
+
+	private static Response response(final HttpMethod method, final int status) {
+		return Response.builder()
+			.status(status)
+			.request(request(method))
+			.headers(Map.of())
+			.build();
+	}
+
+	private static Request request(final HttpMethod method) {
+		return Request.create(method, "http://localhost/test", Map.of(), null, UTF_8, null);
+	}
+}
@@ -0,0 +1,40 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetryBudgetTest {
+
+	@Test
+	void startsWithReserve() {
+		final var budget = new RetryBudget(0.1, 2);
+
+		assertThat(budget.getBalance()).isEqualTo(2);
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.tryWithdraw()).isFalse();
+	}
+
+	@Test
+	void depositsRatioPerRequest() {
+		final var budget = new RetryBudget(0.1, 0);
+
+		IntStream.range(0, 9).forEach(_ -> budget.deposit());
+		assertThat(budget.tryWithdraw()).isFalse();
+
+		budget.deposit();
+		assertThat(budget.tryWithdraw()).isTrue();
+		assertThat(budget.getBalance()).isZero();
+	}
+
+	@Test
+	void holdsAtMostReserve() {
+		final var budget = new RetryBudget(0.5, 3);
+
+		IntStream.range(0, 100).forEach(_ -> budget.deposit());
+
+		assertThat(budget.getBalance()).isEqualTo(3);
+	}
+}
@@ -0,0 +1,154 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import com.github.tomakehurst.wiremock.junit5.WireMockRuntimeInfo;
+import com.github.tomakehurst.wiremock.junit5.WireMockTest;
+import feign.Feign;
+import feign.Request;
+import feign.RequestLine;
+import feign.Response;
+import feign.RetryableException;
+import feign.Retryer;
+import feign.codec.ErrorDecoder;
+import feign.okhttp.OkHttpClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.dept44.configuration.feign.FeignMultiCustomizer;
+import se.sundsvall.dept44.configuration.feign.decoder.ProblemErrorDecoder;
+import se.sundsvall.dept44.exception.ServerProblem;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.exactly;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.ok;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.serviceUnavailable;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static com.github.tomakehurst.wiremock.stubbing.Scenario.STARTED;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@WireMockTest
+class RetryCapabilityTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final RetrySettings settings = RetrySettings.create()
+		.withBackoff(Duration.ZERO, Duration.ZERO)
+		.withMeterRegistry(meterRegistry);
+
+	@Test
+	void enrichRetryer() {
+		final var capability = new RetryCapability("test", settings);
+
+		assertThat(capability.enrich(Retryer.NEVER_RETRY)).isInstanceOf(BackoffRetryer.class);
+		assertThat(meterRegistry.get(RetryCapability.BUDGET).tag("integration", "test").gauge().value()).isEqualTo(10);
+	}
+
+	@Test
+	void errorDecoderMakesRetryableStatusesRetryable() {
+		final var errorDecoder = new RetryCapability("test", settings).enrich(new ProblemErrorDecoder("test"));
+
+		final var exception = errorDecoder.decode("test", response(503, Map.of("Retry-After", List.of("2"))));
+
+		assertThat(exception).isInstanceOf(RetryableResponseException.class).hasCauseInstanceOf(ServerProblem.class);
+		assertThat(((RetryableException) exception).status()).isEqualTo(503);
+		assertThat(((RetryableException) exception).retryAfter()).isCloseTo(System.currentTimeMillis() + 2000, within(1000L));
+	}
+
+	@Test
+	void errorDecoderKeepsOtherStatuses() {
+		final var errorDecoder = new RetryCapability("test", settings).enrich(new ProblemErrorDecoder("test"));
+
+		assertThat(errorDecoder.decode("test", response(500, Map.of()))).isInstanceOf(ServerProblem.class);
+	}
+
+	@Test
+	void errorDecoderKeepsRetryableExceptions() {
+		final var errorDecoderMock = mock(ErrorDecoder.class);
+		final var retryableException = new RetryableException(503, "Retry", Request.HttpMethod.GET, (Long) null, request());
+		when(errorDecoderMock.decode(any(), any())).thenReturn(retryableException);
+
+		assertThat(new RetryCapability("test", settings).enrich(errorDecoderMock).decode("test", response(503, Map.of()))).isSameAs(retryableException);
+	}
+
+	@Test
+	void retryAfter() {
+		final var date = ZonedDateTime.now(ZoneOffset.UTC).plusMinutes(1).truncatedTo(ChronoUnit.SECONDS);
+
+		assertThat(RetryCapability.retryAfter(response(503, Map.of("Retry-After", List.of(DateTimeFormatter.RFC_1123_DATE_TIME.format(date))))))
+			.isEqualTo(date.toInstant().toEpochMilli());
+		assertThat(RetryCapability.retryAfter(response(503, Map.of("Retry-After", List.of("soon"))))).isNull();
+		assertThat(RetryCapability.retryAfter(response(503, Map.of()))).isNull();
+	}
+
+	@Test
+	void retriesTransientResponses(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(get("/test")
+			.inScenario("retry")
+			.whenScenarioStateIs(STARTED)
+			.willReturn(serviceUnavailable())
+			.willSetStateTo("available"));
+		stubFor(get("/test")
+			.inScenario("retry")
+			.whenScenarioStateIs("available")
+			.willReturn(ok("successful")));
+
+		assertThat(createClient(wmRuntimeInfo).get()).isEqualTo("successful");
+		assertThat(meterRegistry.get(BackoffRetryer.RETRIES).tag("outcome", BackoffRetryer.OUTCOME_RETRIED).counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void doesNotRetryNonIdempotentRequests(final WireMockRuntimeInfo wmRuntimeInfo) {
+		stubFor(post("/test").willReturn(serviceUnavailable()));
+
+		assertThatExceptionOfType(ServerProblem.class).isThrownBy(() -> createClient(wmRuntimeInfo).post());
+		com.github.tomakehurst.wiremock.client.WireMock.verify(exactly(1), postRequestedFor(urlPathEqualTo("/test")));
+	}
+
+	private TestApi createClient(final WireMockRuntimeInfo wmRuntimeInfo) {
+		final var builder = Feign.builder()
+			.client(new OkHttpClient())
+			.retryer(Retryer.NEVER_RETRY);
+		FeignMultiCustomizer.create()
+			.withErrorDecoder(new ProblemErrorDecoder("test"))
+			.withRetry("test", settings)
+			.composeCustomizersToOne()
+			.customize(builder);
+
+		return builder.target(TestApi.class, wmRuntimeInfo.getHttpBaseUrl());
+	}
+
+	private static Response response(final int status, final Map<String, Collection<String>> headers) {
+		return Response.builder()
+			.status(status)
+			.request(request())
+			.headers(headers)
+			.build();
+	}
+
+	private static Request request() {
+		return Request.create(Request.HttpMethod.GET, "http://localhost/test", Map.of(), null, UTF_8, null);
+	}
+
+	interface TestApi {
+
+		@RequestLine("GET /test")
+		String get();
+
+		@RequestLine("POST /test")
+		String post();
+	}
+}
@@ -0,0 +1,60 @@
+package se.sundsvall.dept44.configuration.feign.retryer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class RetrySettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = RetrySettings.create();
+
+		assertThat(settings.getMaxAttempts()).isEqualTo(3);
+		assertThat(settings.getInitialBackoff()).isEqualTo(Duration.ofMillis(100));
+		assertThat(settings.getMaxBackoff()).isEqualTo(Duration.ofSeconds(2));
+		assertThat(settings.getMaxRetryAfter()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(settings.getRetryableStatuses()).containsExactlyInAnyOrder(502, 503, 504);
+		assertThat(settings.isRetryNonIdempotent()).isFalse();
+		assertThat(settings.getBudgetRatio()).isEqualTo(0.1);
+		assertThat(settings.getBudgetReserve()).isEqualTo(10);
+		assertThat(settings.getMeterRegistry()).isNull();
+	}
+
+	@Test
+	void withSettings() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settings = RetrySettings.create()
+			.withMaxAttempts(5)
+			.withBackoff(Duration.ofMillis(50), Duration.ofSeconds(1))
+			.withMaxRetryAfter(Duration.ofSeconds(30))
+			.withRetryableStatuses(Set.of(503))
+			.withRetryNonIdempotent(true)
+			.withBudget(0.2, 5)
+			.withMeterRegistry(meterRegistry);
+
+		assertThat(settings.getMaxAttempts()).isEqualTo(5);
+		assertThat(settings.getInitialBackoff()).isEqualTo(Duration.ofMillis(50));
+		assertThat(settings.getMaxBackoff()).isEqualTo(Duration.ofSeconds(1));
+		assertThat(settings.getMaxRetryAfter()).isEqualTo(Duration.ofSeconds(30));
+		assertThat(settings.getRetryableStatuses()).containsExactly(503);
+		assertThat(settings.isRetryNonIdempotent()).isTrue();
+		assertThat(settings.getBudgetRatio()).isEqualTo(0.2);
+		assertThat(settings.getBudgetReserve()).isEqualTo(5);
+		assertThat(settings.getMeterRegistry()).isSameAs(meterRegistry);
+	}
+
+	@Test
+	void rejectsInvalidSettings() {
+		final var settings = RetrySettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxAttempts(0)).withMessage("maxAttempts must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withBackoff(Duration.ofSeconds(2), Duration.ofSeconds(1)))
+			.withMessage("initialBackoff must be between 0 and maxBackoff");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withBudget(-1, 0)).withMessage("budgetRatio must not be negative");
+	}
+}
@@ -11,6 +11,7 @@ import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.core.env.Environment;
 import org.springframework.stereotype.Component;
+import se.sundsvall.dept44.concurrent.BatchLoader;
 import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.scheduling.health.Dept44CompositeHealthContributor;
 import se.sundsvall.dept44.scheduling.health.Dept44HealthIndicator;
@@ -153,7 +154,10 @@ public class Dept44SchedulerAspect {
 			MDC.remove(MDC_EXECUTION_ID);
 			MDC.remove(MDC_DURATION_MS);
 			MDC.remove(MDC_OUTCOME);
-			RequestId.reset();
+			final var requestId = RequestId.get();
+			if (RequestId.reset()) {
+				BatchLoader.endRequest(requestId);
+			}
 		}
 		return null;
 	}
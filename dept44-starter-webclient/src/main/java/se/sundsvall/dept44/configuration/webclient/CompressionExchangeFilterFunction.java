@@ -0,0 +1,187 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import io.netty.handler.codec.compression.Brotli;
+import io.netty.handler.codec.compression.Zstd;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import org.reactivestreams.Publisher;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.http.client.reactive.ClientHttpRequestDecorator;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.CompressionSettings;
+import se.sundsvall.dept44.compression.ContentCoding;
+
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_LENGTH;
+import static se.sundsvall.dept44.compression.CompressionMetrics.REQUEST;
+
+/**
+ * Negotiates compressed responses with an {@code Accept-Encoding} header listing the codings of the settings that
+ * Reactor Netty can decode, unless the request already has one, and compresses request bodies of at least
+ * {@link CompressionSettings#getRequestCompressionThreshold()} with the first coding.
+ * <p>
+ * Responses are decompressed as they stream in by Reactor Netty, which is enabled by
+ * {@link WebClientBuilder#withCompression(String, CompressionSettings)}. It decodes gzip and deflate, and br and zstd
+ * when their native libraries are available, so other codings of the settings are not advertised.
+ * <p>
+ * Request bodies are compressed as they are written. When the size of a body is not known up front, at most the
+ * threshold is buffered to decide whether to compress it.
+ */
+class CompressionExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private static final Set<String> DECODABLE = Set.of("gzip", "x-gzip", "deflate", "x-deflate");
+
+	private final CompressionSettings settings;
+	private final CompressionMetrics metrics;
+	private final String acceptEncoding;
+
+	CompressionExchangeFilterFunction(final String clientName, final CompressionSettings settings) {
+		this.settings = settings;
+		this.metrics = new CompressionMetrics(clientName, settings.getMeterRegistry());
+		this.acceptEncoding = acceptEncoding(settings.getCodings());
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(final ClientRequest request, final ExchangeFunction next) {
+		final var builder = ClientRequest.from(request)
+			.headers(headers -> {
+				// Reactor Netty sends gzip when no coding of the settings can be decoded
+				if (headers.getFirst(ACCEPT_ENCODING) == null && !acceptEncoding.isEmpty()) {
+					headers.set(ACCEPT_ENCODING, acceptEncoding);
+				}
+			});
+
+		if (settings.getRequestCompressionThreshold() != null && request.headers().getFirst(CONTENT_ENCODING) == null) {
+			builder.body((outputMessage, context) -> request.body().insert(new CompressingRequest(outputMessage), context));
+		}
+		return next.exchange(builder.build());
+	}
+
+	static boolean isDecodable(final ContentCoding coding) {
+		final var name = coding.name().toLowerCase(Locale.ROOT);
+		return DECODABLE.contains(name)
+			|| "br".equals(name) && Brotli.isAvailable()
+			|| "zstd".equals(name) && Zstd.isAvailable();
+	}
+
+	private static String acceptEncoding(final List<ContentCoding> codings) {
+		return codings.stream()
+			.filter(CompressionExchangeFilterFunction::isDecodable)
+			.map(ContentCoding::name)
+			.collect(Collectors.joining(", "));
+	}
+
+	private final class CompressingRequest extends ClientHttpRequestDecorator {
+
+		private CompressingRequest(final ClientHttpRequest delegate) {
+			super(delegate);
+		}
+
+		@Override
+		public Mono<Void> writeWith(final Publisher<? extends DataBuffer> body) {
+			final Flux<DataBuffer> buffers = Flux.from(body);
+			final var contentLength = getHeaders().getContentLength();
+			if (contentLength >= 0) {
+				return super.writeWith(settings.isCompressed(contentLength) ? compress(buffers) : buffers);
+			}
+			return Flux.defer(() -> {
+				final var threshold = settings.getRequestCompressionThreshold().toBytes();
+				final var size = new AtomicLong();
+				// The first list holds the buffers up to the threshold, or the whole body if it is smaller. The headers are
+				// written when the body is, so whether to compress is decided before writing.
+				return buffers.bufferUntil(buffer -> size.addAndGet(buffer.readableByteCount()) >= threshold)
+					.switchOnFirst((first, lists) -> {
+						final Flux<DataBuffer> all = lists.flatMapIterable(list -> list);
+						return super.writeWith(first.hasValue() && settings.isCompressed(size.get()) ? compress(all) : all);
+					});
+			}).then();
+		}
+
+		private Flux<DataBuffer> compress(final Flux<DataBuffer> body) {
+			final var coding = settings.getCodings().getFirst();
+			getHeaders().set(CONTENT_ENCODING, coding.name());
+			getHeaders().remove(CONTENT_LENGTH);
+
+			return Flux.defer(() -> {
+				final var compressed = new ByteArrayOutputStream();
+				final var uncompressedBytes = new AtomicLong();
+				final var compressedBytes = new AtomicLong();
+				final var nanos = new AtomicLong();
+				final var outputStream = open(coding, compressed);
+
+				return body.<DataBuffer> handle((buffer, sink) -> {
+					try {
+						final var start = System.nanoTime();
+						uncompressedBytes.addAndGet(buffer.readableByteCount());
+						try (var inputStream = buffer.asInputStream()) {
+							inputStream.transferTo(outputStream);
+						}
+						nanos.addAndGet(System.nanoTime() - start);
+						emit(compressed, compressedBytes).ifPresent(sink::next);
+					} catch (final IOException e) {
+						sink.error(e);
+					} finally {
+						DataBufferUtils.release(buffer);
+					}
+				})
+					.concatWith(Mono.fromCallable(() -> {
+						final var start = System.nanoTime();
+						outputStream.close();
+						nanos.addAndGet(System.nanoTime() - start);
+						final var trailer = emit(compressed, compressedBytes);
+						metrics.record(REQUEST, coding, uncompressedBytes.get(), compressedBytes.get(), nanos.get());
+						return trailer;
+					}).flatMap(Mono::justOrEmpty))
+					.doFinally(signal -> {
+						if (signal != SignalType.ON_COMPLETE) {
+							closeQuietly(outputStream);
+						}
+					});
+			});
+		}
+
+		private Optional<DataBuffer> emit(final ByteArrayOutputStream compressed, final AtomicLong compressedBytes) {
+			if (compressed.size() == 0) {
+				return Optional.empty();
+			}
+			final var bytes = compressed.toByteArray();
+			compressed.reset();
+			compressedBytes.addAndGet(bytes.length);
+			return Optional.of(bufferFactory().wrap(bytes));
+		}
+
+		private static OutputStream open(final ContentCoding coding, final ByteArrayOutputStream compressed) {
+			try {
+				return coding.compress(compressed);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		private static void closeQuietly(final OutputStream outputStream) {
+			try {
+				outputStream.close();
+			} catch (final IOException _) {
+				// The body was not written
+			}
+		}
+	}
+}
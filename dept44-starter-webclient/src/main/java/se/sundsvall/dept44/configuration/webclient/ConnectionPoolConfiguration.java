@@ -0,0 +1,37 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * Autoconfiguration of the {@link ConnectionProviderRegistry} shared by all WebClients, registering the pools of
+ * {@link ConnectionPoolProperties}.
+ * <p>
+ * The pools are registered by a bean factory post processor, i.e. before any other bean is created, so that they apply
+ * to WebClients built by any {@code @Bean} method. The connections of all pools are closed when the application context
+ * is closed.
+ */
+@AutoConfiguration
+@EnableConfigurationProperties(ConnectionPoolProperties.class)
+public class ConnectionPoolConfiguration {
+
+	@Bean
+	static BeanFactoryPostProcessor connectionPoolRegistrar(final Environment environment) {
+		return _ -> register(Binder.get(environment)
+			.bind(ConnectionPoolProperties.PREFIX, ConnectionPoolProperties.class)
+			.orElseGet(ConnectionPoolProperties::new));
+	}
+
+	@Bean(destroyMethod = "disposeAll")
+	ConnectionProviderRegistry connectionProviderRegistry() {
+		return ConnectionProviderRegistry.getShared();
+	}
+
+	static void register(final ConnectionPoolProperties properties) {
+		properties.getConnectionPools().forEach((name, pool) -> ConnectionProviderRegistry.getShared().configure(name, pool.toSettings()));
+	}
+}
@@ -0,0 +1,119 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Settings of the named connection pools of {@link ConnectionProviderRegistry}, keyed by pool name, e.g.
+ * {@code dept44.webclient.connection-pools.my-service.max-connections=50}. Unset values get the defaults of
+ * {@link ConnectionPoolSettings}.
+ */
+@ConfigurationProperties(prefix = ConnectionPoolProperties.PREFIX)
+public class ConnectionPoolProperties {
+
+	static final String PREFIX = "dept44.webclient";
+
+	private Map<String, Pool> connectionPools = new HashMap<>();
+
+	public Map<String, Pool> getConnectionPools() {
+		return connectionPools;
+	}
+
+	public void setConnectionPools(final Map<String, Pool> connectionPools) {
+		this.connectionPools = connectionPools;
+	}
+
+	/**
+	 * Sizing of a connection pool.
+	 */
+	public static class Pool {
+
+		private static final ConnectionPoolSettings DEFAULTS = ConnectionPoolSettings.create();
+
+		private int maxConnections = DEFAULTS.getMaxConnections();
+		private int pendingAcquireMaxCount = DEFAULTS.getPendingAcquireMaxCount();
+		private Duration pendingAcquireTimeout = DEFAULTS.getPendingAcquireTimeout();
+		private Duration maxIdleTime = DEFAULTS.getMaxIdleTime();
+		private Duration maxLifeTime = DEFAULTS.getMaxLifeTime();
+		private Duration evictionInterval = DEFAULTS.getEvictionInterval();
+		private boolean http2 = DEFAULTS.isHttp2();
+		private boolean metricsEnabled = DEFAULTS.isMetricsEnabled();
+
+		public int getMaxConnections() {
+			return maxConnections;
+		}
+
+		public void setMaxConnections(final int maxConnections) {
+			this.maxConnections = maxConnections;
+		}
+
+		public int getPendingAcquireMaxCount() {
+			return pendingAcquireMaxCount;
+		}
+
+		public void setPendingAcquireMaxCount(final int pendingAcquireMaxCount) {
+			this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+		}
+
+		public Duration getPendingAcquireTimeout() {
+			return pendingAcquireTimeout;
+		}
+
+		public void setPendingAcquireTimeout(final Duration pendingAcquireTimeout) {
+			this.pendingAcquireTimeout = pendingAcquireTimeout;
+		}
+
+		public Duration getMaxIdleTime() {
+			return maxIdleTime;
+		}
+
+		public void setMaxIdleTime(final Duration maxIdleTime) {
+			this.maxIdleTime = maxIdleTime;
+		}
+
+		public Duration getMaxLifeTime() {
+			return maxLifeTime;
+		}
+
+		public void setMaxLifeTime(final Duration maxLifeTime) {
+			this.maxLifeTime = maxLifeTime;
+		}
+
+		public Duration getEvictionInterval() {
+			return evictionInterval;
+		}
+
+		public void setEvictionInterval(final Duration evictionInterval) {
+			this.evictionInterval = evictionInterval;
+		}
+
+		public boolean isHttp2() {
+			return http2;
+		}
+
+		public void setHttp2(final boolean http2) {
+			this.http2 = http2;
+		}
+
+		public boolean isMetricsEnabled() {
+			return metricsEnabled;
+		}
+
+		public void setMetricsEnabled(final boolean metricsEnabled) {
+			this.metricsEnabled = metricsEnabled;
+		}
+
+		ConnectionPoolSettings toSettings() {
+			return ConnectionPoolSettings.create()
+				.withMaxConnections(maxConnections)
+				.withPendingAcquire(pendingAcquireMaxCount, pendingAcquireTimeout)
+				.withMaxIdleTime(maxIdleTime)
+				.withMaxLifeTime(maxLifeTime)
+				.withEvictionInterval(evictionInterval)
+				.withHttp2(http2)
+				.withMetricsEnabled(metricsEnabled);
+		}
+	}
+}
@@ -0,0 +1,138 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.time.Duration;
+import org.springframework.util.Assert;
+
+/**
+ * Settings for a connection pool of {@link ConnectionProviderRegistry}, created with {@link #create()} and adjusted with
+ * the {@code with}-methods.
+ * <p>
+ * The defaults allow 100 connections, let 200 requests wait at most 10 seconds for one, and close connections that have
+ * been idle for 30 seconds or open for 5 minutes, checked in the background every 30 seconds. HTTP/2 is off and metrics
+ * are on.
+ */
+public class ConnectionPoolSettings {
+
+	private int maxConnections = 100;
+	private int pendingAcquireMaxCount = 200;
+	private Duration pendingAcquireTimeout = Duration.ofSeconds(10);
+	private Duration maxIdleTime = Duration.ofSeconds(30);
+	private Duration maxLifeTime = Duration.ofMinutes(5);
+	private Duration evictionInterval = Duration.ofSeconds(30);
+	private boolean http2;
+	private boolean metricsEnabled = true;
+
+	private ConnectionPoolSettings() {}
+
+	public static ConnectionPoolSettings create() {
+		return new ConnectionPoolSettings();
+	}
+
+	/**
+	 * @param  maxConnections the maximum number of connections of the pool
+	 * @return                this settings instance
+	 */
+	public ConnectionPoolSettings withMaxConnections(final int maxConnections) {
+		Assert.isTrue(maxConnections > 0, "maxConnections must be greater than 0");
+		this.maxConnections = maxConnections;
+		return this;
+	}
+
+	/**
+	 * @param  pendingAcquireMaxCount the maximum number of requests waiting for a connection, further requests fail at
+	 *                                once
+	 * @param  pendingAcquireTimeout  the time a request may wait for a connection
+	 * @return                        this settings instance
+	 */
+	public ConnectionPoolSettings withPendingAcquire(final int pendingAcquireMaxCount, final Duration pendingAcquireTimeout) {
+		Assert.isTrue(pendingAcquireMaxCount > 0, "pendingAcquireMaxCount must be greater than 0");
+		Assert.notNull(pendingAcquireTimeout, "pendingAcquireTimeout may not be null");
+		Assert.isTrue(pendingAcquireTimeout.isPositive(), "pendingAcquireTimeout must be positive");
+		this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+		this.pendingAcquireTimeout = pendingAcquireTimeout;
+		return this;
+	}
+
+	/**
+	 * @param  maxIdleTime the time a connection may be idle before it is closed
+	 * @return             this settings instance
+	 */
+	public ConnectionPoolSettings withMaxIdleTime(final Duration maxIdleTime) {
+		Assert.notNull(maxIdleTime, "maxIdleTime may not be null");
+		Assert.isTrue(maxIdleTime.isPositive(), "maxIdleTime must be positive");
+		this.maxIdleTime = maxIdleTime;
+		return this;
+	}
+
+	/**
+	 * @param  maxLifeTime the time a connection may be open before it is closed, e.g. to follow DNS changes
+	 * @return             this settings instance
+	 */
+	public ConnectionPoolSettings withMaxLifeTime(final Duration maxLifeTime) {
+		Assert.notNull(maxLifeTime, "maxLifeTime may not be null");
+		Assert.isTrue(maxLifeTime.isPositive(), "maxLifeTime must be positive");
+		this.maxLifeTime = maxLifeTime;
+		return this;
+	}
+
+	/**
+	 * @param  evictionInterval the interval of the background check for idle and expired connections
+	 * @return                  this settings instance
+	 */
+	public ConnectionPoolSettings withEvictionInterval(final Duration evictionInterval) {
+		Assert.notNull(evictionInterval, "evictionInterval may not be null");
+		Assert.isTrue(evictionInterval.isPositive(), "evictionInterval must be positive");
+		this.evictionInterval = evictionInterval;
+		return this;
+	}
+
+	/**
+	 * @param  http2 whether HTTP/2 is negotiated over TLS, falling back to HTTP/1.1
+	 * @return       this settings instance
+	 */
+	public ConnectionPoolSettings withHttp2(final boolean http2) {
+		this.http2 = http2;
+		return this;
+	}
+
+	/**
+	 * @param  metricsEnabled whether the Reactor Netty connection pool metrics are published
+	 * @return                this settings instance
+	 */
+	public ConnectionPoolSettings withMetricsEnabled(final boolean metricsEnabled) {
+		this.metricsEnabled = metricsEnabled;
+		return this;
+	}
+
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	public int getPendingAcquireMaxCount() {
+		return pendingAcquireMaxCount;
+	}
+
+	public Duration getPendingAcquireTimeout() {
+		return pendingAcquireTimeout;
+	}
+
+	public Duration getMaxIdleTime() {
+		return maxIdleTime;
+	}
+
+	public Duration getMaxLifeTime() {
+		return maxLifeTime;
+	}
+
+	public Duration getEvictionInterval() {
+		return evictionInterval;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	public boolean isMetricsEnabled() {
+		return metricsEnabled;
+	}
+}
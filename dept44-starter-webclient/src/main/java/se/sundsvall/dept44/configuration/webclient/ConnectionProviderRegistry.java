@@ -0,0 +1,87 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.springframework.util.Assert;
+import reactor.netty.resources.ConnectionProvider;
+
+/**
+ * Registry of named Reactor Netty connection providers, shared by all WebClients using the same pool name.
+ * <p>
+ * A pool is created when first used, with the settings configured for its name in
+ * {@code dept44.webclient.connection-pools.<name>} if any, otherwise with the settings given by the first client using
+ * it. Pools configured in properties are registered before any bean of the application is created, so they apply to
+ * all WebClients built by beans. The connections of all pools are closed when the application context is closed.
+ * <p>
+ * Pools with metrics enabled publish the Reactor Netty connection pool metrics
+ * ({@code reactor.netty.connection.provider.*}) tagged with the pool name.
+ */
+public class ConnectionProviderRegistry {
+
+	private static final ConnectionProviderRegistry SHARED = new ConnectionProviderRegistry();
+
+	private final ConcurrentMap<String, ConnectionPoolSettings> configured = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+
+	ConnectionProviderRegistry() {}
+
+	/**
+	 * @return the registry shared by all WebClients of the application
+	 */
+	public static ConnectionProviderRegistry getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Configures the settings of a pool, taking precedence over the settings given by clients. Has no effect on a pool
+	 * that is already in use.
+	 *
+	 * @param name     the pool name
+	 * @param settings the pool settings
+	 */
+	public void configure(final String name, final ConnectionPoolSettings settings) {
+		Assert.hasText(name, "name may not be blank");
+		Assert.notNull(settings, "settings may not be null");
+		configured.put(name, settings);
+	}
+
+	/**
+	 * @param  name     the pool name
+	 * @param  settings the settings to use if none are configured for the name
+	 * @return          the effective settings of the pool
+	 */
+	public ConnectionPoolSettings getSettings(final String name, final ConnectionPoolSettings settings) {
+		return configured.getOrDefault(name, settings);
+	}
+
+	/**
+	 * @param  name     the pool name
+	 * @param  settings the settings to use if none are configured for the name and the pool doesn't exist yet
+	 * @return          the connection provider of the pool
+	 */
+	public ConnectionProvider getConnectionProvider(final String name, final ConnectionPoolSettings settings) {
+		return providers.computeIfAbsent(name, poolName -> createConnectionProvider(poolName, getSettings(poolName, settings)));
+	}
+
+	/**
+	 * Closes the connections of all pools. Pools used after this are created again.
+	 */
+	public void disposeAll() {
+		providers.keySet().forEach(name -> providers.computeIfPresent(name, (_, provider) -> {
+			provider.dispose();
+			return null;
+		}));
+	}
+
+	private static ConnectionProvider createConnectionProvider(final String name, final ConnectionPoolSettings settings) {
+		return ConnectionProvider.builder(name)
+			.maxConnections(settings.getMaxConnections())
+			.pendingAcquireMaxCount(settings.getPendingAcquireMaxCount())
+			.pendingAcquireTimeout(settings.getPendingAcquireTimeout())
+			.maxIdleTime(settings.getMaxIdleTime())
+			.maxLifeTime(settings.getMaxLifeTime())
+			.evictInBackground(settings.getEvictionInterval())
+			.metrics(settings.isMetricsEnabled())
+			.build();
+	}
+}
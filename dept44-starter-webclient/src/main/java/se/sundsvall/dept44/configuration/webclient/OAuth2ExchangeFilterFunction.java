@@ -0,0 +1,39 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+import se.sundsvall.dept44.oauth2.TokenStore;
+
+/**
+ * Adds a client credentials access token from a {@link TokenStore} provider to outbound requests.
+ * <p>
+ * A cached token is added without leaving the calling thread. Only when no valid token is cached is the token endpoint
+ * called, on a virtual thread, so event loop threads are never blocked. A token that is rejected with
+ * {@code 401 Unauthorized} is evicted, so the next request fetches a new one.
+ */
+class OAuth2ExchangeFilterFunction implements ExchangeFilterFunction {
+
+	private final OAuth2TokenProvider tokenProvider;
+
+	OAuth2ExchangeFilterFunction(final OAuth2TokenProvider tokenProvider) {
+		this.tokenProvider = tokenProvider;
+	}
+
+	@Override
+	public Mono<ClientResponse> filter(final ClientRequest request, final ExchangeFunction next) {
+		return Mono.fromFuture(tokenProvider::getTokenAsync)
+			.flatMap(token -> next.exchange(ClientRequest.from(request)
+				.headers(headers -> headers.setBearerAuth(token.getTokenValue()))
+				.build())
+				.doOnNext(response -> {
+					if (response.statusCode().isSameCodeAs(HttpStatus.UNAUTHORIZED)) {
+						tokenProvider.invalidate(token.getTokenValue());
+					}
+				}));
+	}
+}
@@ -6,20 +6,33 @@ import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import reactor.core.publisher.Mono;
+import se.sundsvall.dept44.reactive.ReactiveRequestContext;
 import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.support.Identifier;
 
+/**
+ * Propagates the request id and {@link Identifier} to outbound requests.
+ * <p>
+ * The values are read from the Reactor {@code Context} of the subscriber when present (i.e. when called from a WebFlux
+ * handler). Otherwise, they are read from the thread-locals of the subscribing thread, which covers blocking callers
+ * such as servlet threads calling {@code block()}.
+ */
 class RequestIdExchangeFilterFunction implements ExchangeFilterFunction {
 
 	@Override
 	public Mono<ClientResponse> filter(final ClientRequest request, final ExchangeFunction next) {
-		var builder = ClientRequest.from(request)
-			.header(RequestId.HEADER_NAME, RequestId.get());
+		return Mono.deferContextual(context -> {
+			final var requestId = ReactiveRequestContext.getRequestId(context).orElseGet(RequestId::get);
+			final var identifier = ReactiveRequestContext.getIdentifier(context).orElseGet(Identifier::get);
 
-		Optional.ofNullable(Identifier.get())
-			.map(Identifier::toHeaderValue)
-			.ifPresent(value -> builder.header(Identifier.HEADER_NAME, value));
+			final var builder = ClientRequest.from(request)
+				.header(RequestId.HEADER_NAME, requestId);
 
-		return next.exchange(builder.build());
+			Optional.ofNullable(identifier)
+				.map(Identifier::toHeaderValue)
+				.ifPresent(value -> builder.header(Identifier.HEADER_NAME, value));
+
+			return next.exchange(builder.build());
+		});
 	}
 }
@@ -1,22 +1,17 @@
 package se.sundsvall.dept44.configuration.webclient;
 
 import io.netty.channel.ChannelOption;
-import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.netty.handler.timeout.WriteTimeoutHandler;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
-import org.springframework.security.oauth2.client.AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager;
-import org.springframework.security.oauth2.client.InMemoryReactiveOAuth2AuthorizedClientService;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
-import org.springframework.security.oauth2.client.registration.InMemoryReactiveClientRegistrationRepository;
-import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
@@ -25,10 +20,13 @@ import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import org.zalando.logbook.Logbook;
 import org.zalando.logbook.netty.LogbookClientHandler;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
 import reactor.netty.http.client.HttpClient;
+import se.sundsvall.dept44.compression.CompressionSettings;
 import se.sundsvall.dept44.configuration.Constants;
+import se.sundsvall.dept44.oauth2.TokenStore;
 
-import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static se.sundsvall.dept44.util.ResourceUtils.requireNonNull;
 import static se.sundsvall.dept44.util.ResourceUtils.requireNotBlank;
 
@@ -40,6 +38,10 @@ public class WebClientBuilder {
 	private Duration readTimeout = Duration.ofSeconds(Constants.DEFAULT_READ_TIMEOUT_IN_SECONDS);
 	private Duration writeTimeout = Duration.ofSeconds(Constants.DEFAULT_WRITE_TIMEOUT_IN_SECONDS);
 	private Logbook logbook;
+	private boolean compression;
+	private String connectionPoolName;
+	private ConnectionPoolSettings connectionPoolSettings;
+	private MeterRegistry meterRegistry;
 
 	public WebClientBuilder() {
 		customizers = new ArrayList<>();
@@ -72,17 +74,19 @@ public class WebClientBuilder {
 	}
 
 	/**
-	 * Sets the OAuth2 client registration.
+	 * Sets the OAuth2 client registration. The device scope of the {@link TokenStore} is added to the scopes of the
+	 * client registration, so the token is shared with Feign clients using the same client registration.
 	 *
 	 * @param  clientRegistration the OAuth2 client registration
 	 * @return                    this builder
 	 */
 	public WebClientBuilder withOAuth2ClientRegistration(final ClientRegistration clientRegistration) {
-		return withOAuth2ClientRegistration(clientRegistration, Set.of());
+		return withOAuth2ClientRegistration(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE));
 	}
 
 	/**
-	 * Sets the OAuth2 client registration.
+	 * Sets the OAuth2 client registration. Tokens are shared through the {@link TokenStore} with all clients using the
+	 * same client registration and scopes.
 	 *
 	 * @param  clientRegistration the OAuth2 client registration
 	 * @param  extraScopes        extra scopes for the OAuth2 client registration
@@ -92,23 +96,11 @@ public class WebClientBuilder {
 		final Set<String> extraScopes) {
 		requireNonNull(clientRegistration, "client registration cannot be null");
 
-		final var scopes = getScopes(clientRegistration);
-		ofNullable(extraScopes).ifPresent(scopes::addAll);
-
-		final var clientRegistrationWithScopes = ClientRegistration.withClientRegistration(clientRegistration)
-			.scope(scopes)
-			.build();
+		final var clientRegistrationWithScopes = TokenStore.withScopes(clientRegistration, extraScopes);
 
 		return withCustomizer(builder -> builder.filter(createOAuth2Filter(clientRegistrationWithScopes)));
 	}
 
-	private Set<String> getScopes(final ClientRegistration clientRegistration) {
-		// When adding a scope to the clientRegistration it produces an "UnmodifiableSet", work around it.
-		return ofNullable(clientRegistration.getScopes())
-			.map(HashSet::new)
-			.orElseGet(HashSet::new);
-	}
-
 	/***
 	 * Adds a default header.
 	 *
@@ -163,6 +155,53 @@ public class WebClientBuilder {
 		return this;
 	}
 
+	/**
+	 * Accepts gzip-compressed responses, using the default {@link CompressionSettings}. See
+	 * {@link #withCompression(String, CompressionSettings)}.
+	 *
+	 * @param  clientName the name of the client, used in the metrics
+	 * @return            this builder
+	 */
+	public WebClientBuilder withCompression(final String clientName) {
+		return withCompression(clientName, CompressionSettings.create());
+	}
+
+	/**
+	 * Negotiates compressed responses with an {@code Accept-Encoding} header and decompresses them as they stream in, and
+	 * compresses request bodies above the threshold of the settings. Responses are decompressed by Reactor Netty, which
+	 * handles gzip and deflate, and br and zstd when their Netty codecs are on the classpath. The ratio and time of request
+	 * compression are published as metrics, in the registry of the settings or else the one of
+	 * {@link #withMeterRegistry(MeterRegistry)}, which one of them must have when the client is built.
+	 *
+	 * @param  clientName the name of the client, used in the metrics
+	 * @param  settings   the compression settings
+	 * @return            this builder
+	 */
+	public WebClientBuilder withCompression(final String clientName, final CompressionSettings settings) {
+		requireNotBlank(clientName, "clientName cannot be null or blank");
+		requireNonNull(settings, "settings cannot be null");
+
+		compression = true;
+		return withCustomizer(builder -> {
+			if (settings.getMeterRegistry() == null) {
+				settings.withMeterRegistry(requireNonNull(meterRegistry, "meterRegistry must be set in the compression settings or with withMeterRegistry"));
+			}
+			builder.filter(new CompressionExchangeFilterFunction(clientName, settings));
+		});
+	}
+
+	/**
+	 * Sets the registry to publish the metrics of the client in, usually the {@link MeterRegistry} bean of the
+	 * application.
+	 *
+	 * @param  meterRegistry the meter registry
+	 * @return               this builder
+	 */
+	public WebClientBuilder withMeterRegistry(final MeterRegistry meterRegistry) {
+		this.meterRegistry = requireNonNull(meterRegistry, "meterRegistry cannot be null");
+		return this;
+	}
+
 	/**
 	 * Sets the Logbook instance to use for payload logging.
 	 *
@@ -174,6 +213,35 @@ public class WebClientBuilder {
 		return this;
 	}
 
+	/**
+	 * Uses the named connection pool of the shared {@link ConnectionProviderRegistry}, with the default
+	 * {@link ConnectionPoolSettings} unless the pool is configured in properties. See
+	 * {@link #withConnectionPool(String, ConnectionPoolSettings)}.
+	 *
+	 * @param  name the pool name
+	 * @return      this builder
+	 */
+	public WebClientBuilder withConnectionPool(final String name) {
+		return withConnectionPool(name, ConnectionPoolSettings.create());
+	}
+
+	/**
+	 * Uses the named connection pool of the shared {@link ConnectionProviderRegistry}, shared by all WebClients using the
+	 * same name, instead of the global Reactor Netty pool. The pool is sized by
+	 * {@code dept44.webclient.connection-pools.<name>} if configured, otherwise by the given settings, evicts idle and
+	 * expired connections, bounds the requests waiting for a connection and publishes metrics. The settings also decide
+	 * whether HTTP/2 is negotiated.
+	 *
+	 * @param  name     the pool name
+	 * @param  settings the pool settings, used unless the pool is configured in properties
+	 * @return          this builder
+	 */
+	public WebClientBuilder withConnectionPool(final String name, final ConnectionPoolSettings settings) {
+		this.connectionPoolName = requireNotBlank(name, "name cannot be null or blank");
+		this.connectionPoolSettings = requireNonNull(settings, "settings cannot be null");
+		return this;
+	}
+
 	/**
 	 * Sets the connect timeout (defaults to 10 seconds).
 	 *
@@ -186,7 +254,8 @@ public class WebClientBuilder {
 	}
 
 	/**
-	 * Sets the read timeout (defaults to 60 seconds).
+	 * Sets the read timeout (defaults to 30 seconds), i.e. the time to wait for the response of each request, with
+	 * millisecond precision.
 	 *
 	 * @param  readTimeout the read timeout
 	 * @return             this builder
@@ -197,7 +266,7 @@ public class WebClientBuilder {
 	}
 
 	/**
-	 * Sets the write timeout (defaults to 60 seconds).
+	 * Sets the write timeout (defaults to 30 seconds), with millisecond precision.
 	 *
 	 * @param  writeTimeout the write timeout
 	 * @return              this builder
@@ -230,28 +299,34 @@ public class WebClientBuilder {
 		return builder;
 	}
 
-	private ServerOAuth2AuthorizedClientExchangeFilterFunction createOAuth2Filter(final ClientRegistration clientRegistration) {
-		final var clientRegistrations = new InMemoryReactiveClientRegistrationRepository(clientRegistration);
-		final var clientService = new InMemoryReactiveOAuth2AuthorizedClientService(clientRegistrations);
-		final var oAuth2Filter = new ServerOAuth2AuthorizedClientExchangeFilterFunction(
-			new AuthorizedClientServiceReactiveOAuth2AuthorizedClientManager(clientRegistrations, clientService));
-		oAuth2Filter.setDefaultClientRegistrationId(clientRegistration.getRegistrationId());
-
-		return oAuth2Filter;
+	private ExchangeFilterFunction createOAuth2Filter(final ClientRegistration clientRegistration) {
+		return new OAuth2ExchangeFilterFunction(TokenStore.getShared().getProvider(clientRegistration));
 	}
 
 	private ReactorClientHttpConnector createClientConnector() {
-		return new ReactorClientHttpConnector(HttpClient.create()
+		var httpClient = createHttpClient()
+			.compress(compression)
 			.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Math.toIntExact(connectTimeout.toMillis()))
+			.responseTimeout(readTimeout)
 			.doOnConnected(connection -> {
-				connection
-					.addHandlerLast(new ReadTimeoutHandler(Math.toIntExact(readTimeout.toSeconds())))
-					.addHandlerLast(new WriteTimeoutHandler(Math.toIntExact(writeTimeout.toSeconds())));
+				connection.addHandlerLast(new WriteTimeoutHandler(writeTimeout.toMillis(), MILLISECONDS));
 
 				if (logbook != null) {
 					connection.addHandlerLast(new LogbookClientHandler(logbook));
 				}
-			}));
+			});
+
+		if (connectionPoolName != null && ConnectionProviderRegistry.getShared().getSettings(connectionPoolName, connectionPoolSettings).isHttp2()) {
+			httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+		}
+		return new ReactorClientHttpConnector(httpClient);
+	}
+
+	private HttpClient createHttpClient() {
+		if (connectionPoolName == null) {
+			return HttpClient.create();
+		}
+		return HttpClient.create(ConnectionProviderRegistry.getShared().getConnectionProvider(connectionPoolName, connectionPoolSettings));
 	}
 
 	@FunctionalInterface
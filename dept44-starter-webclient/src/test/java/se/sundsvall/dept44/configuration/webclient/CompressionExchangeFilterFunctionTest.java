@@ -0,0 +1,149 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okio.Buffer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import se.sundsvall.dept44.compression.CompressionMetrics;
+import se.sundsvall.dept44.compression.CompressionSettings;
+import se.sundsvall.dept44.compression.ContentCoding;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.springframework.http.HttpHeaders.ACCEPT_ENCODING;
+import static org.springframework.http.HttpHeaders.CONTENT_ENCODING;
+
+class CompressionExchangeFilterFunctionTest {
+
+	private static final String BODY = "a body that compresses well, ".repeat(20);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private MockWebServer mockServer;
+
+	@BeforeEach
+	void startServer() throws IOException {
+		mockServer = new MockWebServer();
+		mockServer.start();
+	}
+
+	@AfterEach
+	void stopServer() throws IOException {
+		mockServer.shutdown();
+	}
+
+	@Test
+	void negotiatesAndDecompressesResponse() throws Exception {
+		mockServer.enqueue(new MockResponse()
+			.setHeader(CONTENT_ENCODING, "gzip")
+			.setBody(new Buffer().write(ContentCoding.GZIP.compress(BODY.getBytes(UTF_8)))));
+		final var webClient = builder(CompressionSettings.create()).build();
+
+		final var response = webClient.get().retrieve().bodyToMono(String.class).block();
+
+		assertThat(response).isEqualTo(BODY);
+		assertThat(mockServer.takeRequest().getHeader(ACCEPT_ENCODING)).isEqualTo("gzip");
+	}
+
+	@Test
+	void compressesRequestBodyAboveThreshold() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var webClient = builder(CompressionSettings.create().withRequestCompression(DataSize.ofBytes(100))).build();
+
+		webClient.post().bodyValue(BODY).retrieve().toBodilessEntity().block();
+
+		final var request = mockServer.takeRequest();
+		assertThat(request.getHeader(CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(new String(ContentCoding.GZIP.decompress(new ByteArrayInputStream(request.getBody().readByteArray())).readAllBytes(), UTF_8)).isEqualTo(BODY);
+		assertThat(meterRegistry.get(CompressionMetrics.RATIO).tags("client", "test", "direction", "request", "coding", "gzip").summary().count()).isOne();
+	}
+
+	@Test
+	void doesNotCompressSmallRequestBody() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var webClient = builder(CompressionSettings.create().withRequestCompression(DataSize.ofKilobytes(1))).build();
+
+		webClient.post().bodyValue(BODY).retrieve().toBodilessEntity().block();
+
+		final var request = mockServer.takeRequest();
+		assertThat(request.getHeader(CONTENT_ENCODING)).isNull();
+		assertThat(request.getBody().readUtf8()).isEqualTo(BODY);
+	}
+
+	@Test
+	void advertisesOnlyCodingsThatCanBeDecoded() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var unknown = ContentCoding.of("unknown", outputStream -> outputStream, inputStream -> inputStream);
+		final var webClient = builder(CompressionSettings.create().withCodings(List.of(unknown, ContentCoding.GZIP))).build();
+
+		webClient.get().retrieve().toBodilessEntity().block();
+
+		assertThat(mockServer.takeRequest().getHeader(ACCEPT_ENCODING)).isEqualTo("gzip");
+	}
+
+	@Test
+	void compressesStreamedRequestBodyAboveThreshold() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var webClient = builder(CompressionSettings.create().withRequestCompression(DataSize.ofBytes(100))).build();
+		final var parts = Collections.nCopies(20, "a body that compresses well, ");
+
+		webClient.post().body(Flux.fromIterable(parts), String.class).retrieve().toBodilessEntity().block();
+
+		final var request = mockServer.takeRequest();
+		assertThat(request.getHeader(CONTENT_ENCODING)).isEqualTo("gzip");
+		assertThat(new String(ContentCoding.GZIP.decompress(new ByteArrayInputStream(request.getBody().readByteArray())).readAllBytes(), UTF_8)).isEqualTo(BODY);
+		assertThat(meterRegistry.get(CompressionMetrics.RATIO).tags("client", "test", "direction", "request", "coding", "gzip").summary().count()).isOne();
+	}
+
+	@Test
+	void doesNotCompressSmallStreamedRequestBody() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var webClient = builder(CompressionSettings.create().withRequestCompression(DataSize.ofKilobytes(1))).build();
+		final var parts = Collections.nCopies(20, "a body that compresses well, ");
+
+		webClient.post().body(Flux.fromIterable(parts), String.class).retrieve().toBodilessEntity().block();
+
+		final var request = mockServer.takeRequest();
+		assertThat(request.getHeader(CONTENT_ENCODING)).isNull();
+		assertThat(request.getBody().readUtf8()).isEqualTo(BODY);
+	}
+
+	@Test
+	void meterRegistryOfSettingsIsUsedBeforeTheOneOfTheBuilder() throws Exception {
+		mockServer.enqueue(new MockResponse());
+		final var settingsMeterRegistry = new SimpleMeterRegistry();
+		final var webClient = builder(CompressionSettings.create().withRequestCompression(DataSize.ofBytes(100)).withMeterRegistry(settingsMeterRegistry)).build();
+
+		webClient.post().bodyValue(BODY).retrieve().toBodilessEntity().block();
+
+		assertThat(settingsMeterRegistry.find(CompressionMetrics.RATIO).summary()).isNotNull();
+		assertThat(meterRegistry.find(CompressionMetrics.RATIO).summary()).isNull();
+	}
+
+	@Test
+	void meterRegistryIsRequired() {
+		final var builder = new WebClientBuilder()
+			.withBaseUrl(mockServer.url("/").url().toString())
+			.withCompression("test");
+
+		assertThatIllegalArgumentException()
+			.isThrownBy(builder::build)
+			.withMessage("meterRegistry must be set in the compression settings or with withMeterRegistry");
+	}
+
+	private WebClientBuilder builder(final CompressionSettings settings) {
+		return new WebClientBuilder()
+			.withBaseUrl(mockServer.url("/").url().toString())
+			.withMeterRegistry(meterRegistry)
+			.withCompression("test", settings);
+	}
+}
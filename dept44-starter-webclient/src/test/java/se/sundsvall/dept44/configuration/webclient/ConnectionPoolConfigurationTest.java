@@ -0,0 +1,63 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.resources.ConnectionProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConnectionPoolConfigurationTest {
+
+	private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+		.withConfiguration(AutoConfigurations.of(ConnectionPoolConfiguration.class))
+		.withPropertyValues(
+			"dept44.webclient.connection-pools.configuration-test.max-connections=12",
+			"dept44.webclient.connection-pools.configuration-test.max-idle-time=15s",
+			"dept44.webclient.connection-pools.configuration-test.http2=true");
+
+	@Test
+	void registersConfiguredPools() {
+		contextRunner.run(context -> {
+			final var registry = context.getBean(ConnectionProviderRegistry.class);
+			final var settings = registry.getSettings("configuration-test", ConnectionPoolSettings.create());
+
+			assertThat(registry).isSameAs(ConnectionProviderRegistry.getShared());
+			assertThat(settings.getMaxConnections()).isEqualTo(12);
+			assertThat(settings.getMaxIdleTime()).isEqualTo(Duration.ofSeconds(15));
+			assertThat(settings.getMaxLifeTime()).isEqualTo(Duration.ofMinutes(5));
+			assertThat(settings.isHttp2()).isTrue();
+		});
+	}
+
+	@Test
+	void registersConfiguredPoolsBeforeOtherBeansAreCreated() {
+		contextRunner.withUserConfiguration(EarlyClientConfiguration.class).run(context -> {
+			final var provider = context.getBean(ConnectionProvider.class);
+
+			assertThat(provider.maxConnections()).isEqualTo(12);
+		});
+	}
+
+	@Test
+	void disposesPoolsWhenContextIsClosed() {
+		final var provider = new ConnectionProvider[1];
+
+		contextRunner.run(_ -> provider[0] = ConnectionProviderRegistry.getShared().getConnectionProvider("dispose-test", ConnectionPoolSettings.create()));
+
+		assertThat(provider[0].isDisposed()).isTrue();
+	}
+
+	@Configuration(proxyBeanMethods = false)
+	static class EarlyClientConfiguration {
+
+		// Doesn't depend on the registry bean, like a WebClient built by a @Bean method
+		@Bean
+		ConnectionProvider earlyConnectionProvider() {
+			return ConnectionProviderRegistry.getShared().getConnectionProvider("configuration-test", ConnectionPoolSettings.create());
+		}
+	}
+}
@@ -0,0 +1,58 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ConnectionPoolSettingsTest {
+
+	@Test
+	void defaults() {
+		final var settings = ConnectionPoolSettings.create();
+
+		assertThat(settings.getMaxConnections()).isEqualTo(100);
+		assertThat(settings.getPendingAcquireMaxCount()).isEqualTo(200);
+		assertThat(settings.getPendingAcquireTimeout()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(settings.getMaxIdleTime()).isEqualTo(Duration.ofSeconds(30));
+		assertThat(settings.getMaxLifeTime()).isEqualTo(Duration.ofMinutes(5));
+		assertThat(settings.getEvictionInterval()).isEqualTo(Duration.ofSeconds(30));
+		assertThat(settings.isHttp2()).isFalse();
+		assertThat(settings.isMetricsEnabled()).isTrue();
+	}
+
+	@Test
+	void withValues() {
+		final var settings = ConnectionPoolSettings.create()
+			.withMaxConnections(10)
+			.withPendingAcquire(20, Duration.ofSeconds(1))
+			.withMaxIdleTime(Duration.ofSeconds(5))
+			.withMaxLifeTime(Duration.ofMinutes(1))
+			.withEvictionInterval(Duration.ofSeconds(10))
+			.withHttp2(true)
+			.withMetricsEnabled(false);
+
+		assertThat(settings.getMaxConnections()).isEqualTo(10);
+		assertThat(settings.getPendingAcquireMaxCount()).isEqualTo(20);
+		assertThat(settings.getPendingAcquireTimeout()).isEqualTo(Duration.ofSeconds(1));
+		assertThat(settings.getMaxIdleTime()).isEqualTo(Duration.ofSeconds(5));
+		assertThat(settings.getMaxLifeTime()).isEqualTo(Duration.ofMinutes(1));
+		assertThat(settings.getEvictionInterval()).isEqualTo(Duration.ofSeconds(10));
+		assertThat(settings.isHttp2()).isTrue();
+		assertThat(settings.isMetricsEnabled()).isFalse();
+	}
+
+	@Test
+	void invalidValues() {
+		final var settings = ConnectionPoolSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxConnections(0)).withMessage("maxConnections must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withPendingAcquire(0, Duration.ofSeconds(1))).withMessage("pendingAcquireMaxCount must be greater than 0");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withPendingAcquire(1, null)).withMessage("pendingAcquireTimeout may not be null");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withPendingAcquire(1, Duration.ZERO)).withMessage("pendingAcquireTimeout must be positive");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxIdleTime(Duration.ZERO)).withMessage("maxIdleTime must be positive");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMaxLifeTime(null)).withMessage("maxLifeTime may not be null");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withEvictionInterval(Duration.ofSeconds(-1))).withMessage("evictionInterval must be positive");
+	}
+}
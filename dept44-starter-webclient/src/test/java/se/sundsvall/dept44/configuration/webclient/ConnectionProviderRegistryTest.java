@@ -0,0 +1,60 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class ConnectionProviderRegistryTest {
+
+	private final ConnectionProviderRegistry registry = new ConnectionProviderRegistry();
+
+	@AfterEach
+	void tearDown() {
+		registry.disposeAll();
+	}
+
+	@Test
+	void providersAreSharedByName() {
+		final var first = registry.getConnectionProvider("pool", ConnectionPoolSettings.create().withMaxConnections(5));
+		final var second = registry.getConnectionProvider("pool", ConnectionPoolSettings.create().withMaxConnections(50));
+		final var other = registry.getConnectionProvider("other", ConnectionPoolSettings.create());
+
+		assertThat(second).isSameAs(first);
+		assertThat(first.name()).isEqualTo("pool");
+		assertThat(first.maxConnections()).isEqualTo(5);
+		assertThat(other).isNotSameAs(first);
+	}
+
+	@Test
+	void configuredSettingsTakePrecedence() {
+		final var configured = ConnectionPoolSettings.create().withMaxConnections(3).withHttp2(true);
+		final var settings = ConnectionPoolSettings.create();
+		registry.configure("pool", configured);
+
+		assertThat(registry.getSettings("pool", settings)).isSameAs(configured);
+		assertThat(registry.getSettings("other", settings)).isSameAs(settings);
+		assertThat(registry.getConnectionProvider("pool", settings).maxConnections()).isEqualTo(3);
+	}
+
+	@Test
+	void disposeAllReplacesProviders() {
+		final var provider = registry.getConnectionProvider("pool", ConnectionPoolSettings.create());
+
+		registry.disposeAll();
+
+		assertThat(registry.getConnectionProvider("pool", ConnectionPoolSettings.create())).isNotSameAs(provider);
+	}
+
+	@Test
+	void invalidConfiguration() {
+		assertThatIllegalArgumentException().isThrownBy(() -> registry.configure(" ", ConnectionPoolSettings.create())).withMessage("name may not be blank");
+		assertThatIllegalArgumentException().isThrownBy(() -> registry.configure("pool", null)).withMessage("settings may not be null");
+	}
+
+	@Test
+	void shared() {
+		assertThat(ConnectionProviderRegistry.getShared()).isSameAs(ConnectionProviderRegistry.getShared());
+	}
+}
@@ -0,0 +1,81 @@
+package se.sundsvall.dept44.configuration.webclient;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class OAuth2ExchangeFilterFunctionTest {
+
+	private static final OAuth2AccessToken TOKEN = new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(), Instant.now().plusSeconds(60));
+
+	@Mock
+	private OAuth2TokenProvider tokenProviderMock;
+
+	@Mock
+	private ExchangeFunction functionMock;
+
+	private final ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost")).build();
+
+	@BeforeEach
+	void initMocks() {
+		MockitoAnnotations.openMocks(this);
+	}
+
+	@Test
+	void testFilterAddsBearerToken() {
+		final var requestCaptor = ArgumentCaptor.forClass(ClientRequest.class);
+		when(tokenProviderMock.getTokenAsync()).thenReturn(CompletableFuture.completedFuture(TOKEN));
+		when(functionMock.exchange(requestCaptor.capture())).thenReturn(Mono.just(ClientResponse.create(HttpStatus.OK).build()));
+
+		new OAuth2ExchangeFilterFunction(tokenProviderMock).filter(request, functionMock).block();
+
+		assertThat(requestCaptor.getValue().headers().getFirst(HttpHeaders.AUTHORIZATION)).isEqualTo("Bearer token");
+		verify(tokenProviderMock, never()).invalidate(any());
+	}
+
+	@Test
+	void testFilterInvalidatesRejectedToken() {
+		when(tokenProviderMock.getTokenAsync()).thenReturn(CompletableFuture.completedFuture(TOKEN));
+		when(functionMock.exchange(any(ClientRequest.class))).thenReturn(Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED).build()));
+
+		final var response = new OAuth2ExchangeFilterFunction(tokenProviderMock).filter(request, functionMock).block();
+
+		assertThat(response.statusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+		verify(tokenProviderMock).invalidate("token");
+	}
+
+	@Test
+	void testFilterWhenTokenFetchFails() {
+		when(tokenProviderMock.getTokenAsync()).thenReturn(CompletableFuture.failedFuture(new OAuth2AuthorizationException(new OAuth2Error("invalid_client"))));
+
+		final var filter = new OAuth2ExchangeFilterFunction(tokenProviderMock);
+
+		assertThatExceptionOfType(OAuth2AuthorizationException.class)
+			.isThrownBy(() -> filter.filter(request, functionMock).block());
+		verifyNoInteractions(functionMock);
+	}
+}
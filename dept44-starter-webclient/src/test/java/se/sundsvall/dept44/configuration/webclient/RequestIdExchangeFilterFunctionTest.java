@@ -12,6 +12,8 @@ import org.springframework.util.LinkedMultiValueMap;
 import org.springframework.web.reactive.function.client.ClientRequest;
 import org.springframework.web.reactive.function.client.ExchangeFunction;
 import reactor.core.publisher.Mono;
+import se.sundsvall.dept44.reactive.ReactiveRequestContext;
+import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.support.Identifier;
 import se.sundsvall.dept44.support.Identifier.Type;
 
@@ -40,8 +42,9 @@ class RequestIdExchangeFilterFunctionTest {
 	void testFilter() {
 		when(requestMock.headers()).thenReturn(headersMock);
 		when(requestMock.cookies()).thenReturn(new LinkedMultiValueMap<>());
+		when(functionMock.exchange(any(ClientRequest.class))).thenReturn(Mono.empty());
 
-		new RequestIdExchangeFilterFunction().filter(requestMock, functionMock);
+		new RequestIdExchangeFilterFunction().filter(requestMock, functionMock).block();
 
 		verify(functionMock).exchange(any(ClientRequest.class));
 	}
@@ -74,4 +77,39 @@ class RequestIdExchangeFilterFunctionTest {
 
 		assertThat(requestCaptor.getValue().headers().containsHeader(Identifier.HEADER_NAME)).isFalse();
 	}
+
+	@Test
+	void testFilterReadsFromReactorContext() {
+		final var request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost")).build();
+		final var requestCaptor = ArgumentCaptor.forClass(ClientRequest.class);
+		final var identifier = Identifier.create().withType(Type.PARTY_ID).withValue("e9f1319d-0aae-4fc4-bc31-91eb39e02fb5");
+		when(functionMock.exchange(requestCaptor.capture())).thenReturn(Mono.empty());
+
+		new RequestIdExchangeFilterFunction().filter(request, functionMock)
+			.contextWrite(context -> ReactiveRequestContext.write(context, "context-request-id", identifier))
+			.block();
+
+		assertThat(requestCaptor.getValue().headers().getFirst(RequestId.HEADER_NAME)).isEqualTo("context-request-id");
+		assertThat(requestCaptor.getValue().headers().getFirst(Identifier.HEADER_NAME))
+			.isEqualTo("e9f1319d-0aae-4fc4-bc31-91eb39e02fb5; type=partyId");
+	}
+
+	@Test
+	void testFilterPrefersReactorContextOverThreadLocals() {
+		final var request = ClientRequest.create(HttpMethod.GET, URI.create("http://localhost")).build();
+		final var requestCaptor = ArgumentCaptor.forClass(ClientRequest.class);
+		when(functionMock.exchange(requestCaptor.capture())).thenReturn(Mono.empty());
+
+		try {
+			RequestId.init("thread-request-id");
+
+			new RequestIdExchangeFilterFunction().filter(request, functionMock)
+				.contextWrite(context -> ReactiveRequestContext.write(context, "context-request-id", null))
+				.block();
+		} finally {
+			RequestId.reset();
+		}
+
+		assertThat(requestCaptor.getValue().headers().getFirst(RequestId.HEADER_NAME)).isEqualTo("context-request-id");
+	}
 }
@@ -11,7 +11,6 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.oauth2.client.registration.ClientRegistration;
-import org.springframework.security.oauth2.client.web.reactive.function.client.ServerOAuth2AuthorizedClientExchangeFilterFunction;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.client.support.WebClientAdapter;
 import org.springframework.web.service.annotation.GetExchange;
@@ -19,10 +18,13 @@ import org.springframework.web.service.invoker.HttpExchangeAdapter;
 import org.springframework.web.service.invoker.HttpServiceProxyFactory;
 import org.zalando.logbook.Logbook;
 import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
 import se.sundsvall.dept44.problem.Problem;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.InstanceOfAssertFactories.LIST;
+import static org.assertj.core.util.introspection.PropertyOrFieldSupport.EXTRACTION;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
@@ -46,7 +48,8 @@ class WebClientBuilderTest {
 	@Test
 	void testNullFields() {
 		assertThat(createBuilder(false))
-			.hasAllNullFieldsOrPropertiesExcept("connectTimeout", "readTimeout", "writeTimeout", "customizers")
+			.hasAllNullFieldsOrPropertiesExcept("connectTimeout", "readTimeout", "writeTimeout", "customizers", "compression")
+			.hasFieldOrPropertyWithValue("compression", false)
 			.hasFieldOrPropertyWithValue("connectTimeout", Duration.ofSeconds(10))
 			.hasFieldOrPropertyWithValue("readTimeout", Duration.ofSeconds(30))
 			.hasFieldOrPropertyWithValue("writeTimeout", Duration.ofSeconds(30))
@@ -76,6 +79,10 @@ class WebClientBuilderTest {
 		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withConnectTimeout(null))).hasMessage("connectTimeout may not be null.");
 		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withReadTimeout(null))).hasMessage("readTimeout may not be null.");
 		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withWriteTimeout(null))).hasMessage("writeTimeout may not be null.");
+		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withCompression(" "))).hasMessage("clientName cannot be null or blank");
+		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withConnectionPool(" "))).hasMessage("name cannot be null or blank");
+		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withConnectionPool("pool", null))).hasMessage("settings cannot be null");
+		assertThat(assertThrows(IllegalArgumentException.class, () -> builder.withCompression("test", null))).hasMessage("settings cannot be null");
 	}
 
 	@Test
@@ -114,7 +121,7 @@ class WebClientBuilderTest {
 		assertThat(webClient).extracting("builder").extracting("filters").asInstanceOf(LIST)
 			.hasSize(2)
 			.hasAtLeastOneElementOfType(RequestIdExchangeFilterFunction.class)
-			.hasAtLeastOneElementOfType(ServerOAuth2AuthorizedClientExchangeFilterFunction.class);
+			.hasAtLeastOneElementOfType(OAuth2ExchangeFilterFunction.class);
 	}
 
 	@Test
@@ -162,6 +169,36 @@ class WebClientBuilderTest {
 		}
 	}
 
+	@Test
+	void testBuildWithResponseTimeout() {
+		final var webClient = createBuilder(false)
+			.withReadTimeout(Duration.ofMillis(1500))
+			.build();
+
+		assertThat(httpClient(webClient).configuration().responseTimeout()).isEqualTo(Duration.ofMillis(1500));
+		assertThat(httpClient(webClient).configuration().protocols()).containsExactly(HttpProtocol.HTTP11);
+	}
+
+	@Test
+	void testBuildWithConnectionPool() {
+		final var first = createBuilder(false)
+			.withConnectionPool("builder-test", ConnectionPoolSettings.create().withMaxConnections(7).withHttp2(true))
+			.build();
+		final var second = createBuilder(false)
+			.withConnectionPool("builder-test")
+			.build();
+
+		final var connectionProvider = httpClient(first).configuration().connectionProvider();
+		assertThat(connectionProvider.name()).isEqualTo("builder-test");
+		assertThat(connectionProvider.maxConnections()).isEqualTo(7);
+		assertThat(httpClient(second).configuration().connectionProvider()).isSameAs(connectionProvider);
+		assertThat(httpClient(first).configuration().protocols()).containsExactlyInAnyOrder(HttpProtocol.H2, HttpProtocol.HTTP11);
+	}
+
+	private HttpClient httpClient(final WebClient webClient) {
+		return (HttpClient) EXTRACTION.getValueOf("builder.connector.httpClient", webClient);
+	}
+
 	private void assertTimeoutSetting(WebClient webClient, int timeoutMillis) {
 		assertThat(webClient)
 			.extracting("builder").extracting("connector").extracting("httpClient").extracting("config")
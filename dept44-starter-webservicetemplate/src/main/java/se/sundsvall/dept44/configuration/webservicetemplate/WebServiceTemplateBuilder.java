@@ -19,6 +19,7 @@ import org.apache.hc.client5.http.ssl.NoopHostnameVerifier;
 import org.apache.hc.core5.ssl.SSLContexts;
 import org.apache.hc.core5.util.Timeout;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
 import org.springframework.ws.WebServiceMessageFactory;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
@@ -31,8 +32,11 @@ import org.zalando.logbook.httpclient5.LogbookHttpResponseInterceptor;
 import se.sundsvall.dept44.configuration.Constants;
 import se.sundsvall.dept44.configuration.webservicetemplate.exception.WebServiceTemplateException;
 import se.sundsvall.dept44.configuration.webservicetemplate.interceptor.DefaultFaultInterceptor;
+import se.sundsvall.dept44.configuration.webservicetemplate.interceptor.OAuth2Interceptor;
 import se.sundsvall.dept44.configuration.webservicetemplate.interceptor.RemoveContentLengthHeaderInterceptor;
 import se.sundsvall.dept44.configuration.webservicetemplate.interceptor.RequestIdInterceptor;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+import se.sundsvall.dept44.oauth2.TokenStore;
 import se.sundsvall.dept44.support.BasicAuthentication;
 
 import static java.util.HashSet.newHashSet;
@@ -53,6 +57,7 @@ public class WebServiceTemplateBuilder {
 	private Duration readTimeout = Duration.ofSeconds(Constants.DEFAULT_READ_TIMEOUT_IN_SECONDS);
 
 	private BasicAuthentication basicAuthentication;
+	private OAuth2TokenProvider oAuth2TokenProvider;
 	private Set<ClientInterceptor> clientInterceptors;
 	private Logbook logbook;
 	private Set<String> packagesToScan;
@@ -192,6 +197,32 @@ public class WebServiceTemplateBuilder {
 		return this;
 	}
 
+	/**
+	 * Sets the OAuth2 client registration. The device scope of the {@link TokenStore} is added to the scopes of the
+	 * client registration, so the token is shared with Feign clients and WebClients using the same client registration.
+	 *
+	 * @param  clientRegistration the OAuth2 client registration
+	 * @return                    this builder {@link WebServiceTemplateBuilder}
+	 */
+	public WebServiceTemplateBuilder withOAuth2ClientRegistration(final ClientRegistration clientRegistration) {
+		return withOAuth2ClientRegistration(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE));
+	}
+
+	/**
+	 * Sets the OAuth2 client registration. Tokens are shared through the {@link TokenStore} with all clients using the
+	 * same client registration and scopes.
+	 *
+	 * @param  clientRegistration the OAuth2 client registration
+	 * @param  extraScopes        extra scopes for the OAuth2 client registration (may be null or empty)
+	 * @return                    this builder {@link WebServiceTemplateBuilder}
+	 */
+	public WebServiceTemplateBuilder withOAuth2ClientRegistration(final ClientRegistration clientRegistration, final Set<String> extraScopes) {
+		requireNonNull(clientRegistration, "clientRegistration may not be null");
+
+		oAuth2TokenProvider = TokenStore.getShared().getProvider(TokenStore.withScopes(clientRegistration, extraScopes));
+		return this;
+	}
+
 	/**
 	 * Adds an interceptor.
 	 *
@@ -281,6 +312,13 @@ public class WebServiceTemplateBuilder {
 			.addRequestInterceptorFirst(new RemoveContentLengthHeaderInterceptor())
 			.addRequestInterceptorFirst(new RequestIdInterceptor());
 
+		if (oAuth2TokenProvider != null) {
+			final var oAuth2Interceptor = new OAuth2Interceptor(oAuth2TokenProvider);
+			httpClientBuilder
+				.addRequestInterceptorLast(oAuth2Interceptor)
+				.addResponseInterceptorFirst(oAuth2Interceptor);
+		}
+
 		if (logbook != null) {
 			httpClientBuilder
 				.addRequestInterceptorFirst(new LogbookHttpRequestInterceptor(logbook))
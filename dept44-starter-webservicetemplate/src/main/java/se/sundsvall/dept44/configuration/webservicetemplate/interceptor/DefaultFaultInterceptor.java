@@ -9,6 +9,7 @@ import org.springframework.ws.context.MessageContext;
 import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.SoapMessage;
 import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.problem.ProblemMetrics;
 
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
 
@@ -31,11 +32,13 @@ public class DefaultFaultInterceptor extends ClientInterceptorAdapter {
 	private void handleSoapFault(final SoapFault soapFault) {
 		final String faultStringOrReason = soapFault.getFaultStringOrReason();
 		LOG.error("Got a soap fault: {}", faultStringOrReason);
-		throw Problem.builder()
+		final var problem = Problem.builder()
 			.withTitle("Error while calling SOAP-service")
 			.withStatus(INTERNAL_SERVER_ERROR)
 			.withDetail(faultStringOrReason)
 			.build();
+		ProblemMetrics.getShared().recordProblem(ProblemMetrics.SOURCE_SOAP, problem.getStatus(), problem.getTitle(), null, SoapFault.class);
+		throw problem;
 	}
 
 	Optional<SoapFault> getFault(final MessageContext messageContext) {
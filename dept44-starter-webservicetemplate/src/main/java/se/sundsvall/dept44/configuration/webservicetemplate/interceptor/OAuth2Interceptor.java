@@ -0,0 +1,44 @@
+package se.sundsvall.dept44.configuration.webservicetemplate.interceptor;
+
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpRequestInterceptor;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.HttpResponseInterceptor;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+/**
+ * Adds a client credentials access token from a {@link se.sundsvall.dept44.oauth2.TokenStore TokenStore} provider to
+ * each request. A token that is rejected with {@code 401 Unauthorized} is evicted, so the next request fetches a new
+ * one.
+ */
+public class OAuth2Interceptor implements HttpRequestInterceptor, HttpResponseInterceptor {
+
+	static final String TOKEN_ATTRIBUTE = OAuth2Interceptor.class.getName() + ".token";
+
+	private static final String BEARER_PREFIX = "Bearer ";
+
+	private final OAuth2TokenProvider tokenProvider;
+
+	public OAuth2Interceptor(final OAuth2TokenProvider tokenProvider) {
+		this.tokenProvider = tokenProvider;
+	}
+
+	@Override
+	public void process(final HttpRequest request, final EntityDetails entityDetails, final HttpContext context) {
+		final var tokenValue = tokenProvider.getToken().getTokenValue();
+		context.setAttribute(TOKEN_ATTRIBUTE, tokenValue);
+		request.setHeader(AUTHORIZATION, BEARER_PREFIX + tokenValue);
+	}
+
+	@Override
+	public void process(final HttpResponse response, final EntityDetails entityDetails, final HttpContext context) {
+		if (response.getCode() == HttpStatus.SC_UNAUTHORIZED && context.getAttribute(TOKEN_ATTRIBUTE) instanceof final String tokenValue) {
+			tokenProvider.invalidate(tokenValue);
+		}
+	}
+}
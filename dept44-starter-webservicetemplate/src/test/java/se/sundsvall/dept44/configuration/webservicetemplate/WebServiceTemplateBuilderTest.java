@@ -9,6 +9,8 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.oxm.jaxb.Jaxb2Marshaller;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
 import org.springframework.ws.WebServiceMessageFactory;
 import org.springframework.ws.client.core.WebServiceTemplate;
 import org.springframework.ws.client.support.interceptor.ClientInterceptor;
@@ -16,6 +18,7 @@ import org.springframework.ws.transport.http.SimpleHttpComponents5MessageSender;
 import org.zalando.logbook.Logbook;
 import se.sundsvall.dept44.configuration.webservicetemplate.exception.WebServiceTemplateException;
 import se.sundsvall.dept44.configuration.webservicetemplate.interceptor.DefaultFaultInterceptor;
+import se.sundsvall.dept44.oauth2.TokenStore;
 import se.sundsvall.dept44.support.BasicAuthentication;
 
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -202,6 +205,24 @@ class WebServiceTemplateBuilderTest {
 		assertThat(sender).isInstanceOf(SimpleHttpComponents5MessageSender.class);
 	}
 
+	@Test
+	void testWebServiceTemplateWithOAuth2ClientRegistration() {
+		final var clientRegistration = ClientRegistration.withRegistrationId("test")
+			.clientId("clientId")
+			.clientSecret("secret")
+			.tokenUri("http://localhost/token")
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.build();
+
+		final var builder = WebServiceTemplateBuilder.create()
+			.withOAuth2ClientRegistration(clientRegistration);
+
+		// The provider is shared with all clients using the same client registration and scopes
+		assertThat(builder).extracting("oAuth2TokenProvider")
+			.isSameAs(TokenStore.getShared().getProvider(TokenStore.withScopes(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE))));
+		assertThat(builder.build()).isNotNull();
+	}
+
 	@Test
 	void testSSLClientWithKeyStoreFileLocation() {
 		// Setup variables
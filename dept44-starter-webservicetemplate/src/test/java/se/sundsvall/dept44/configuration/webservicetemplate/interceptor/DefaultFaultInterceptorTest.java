@@ -1,5 +1,7 @@
 package se.sundsvall.dept44.configuration.webservicetemplate.interceptor;
 
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mock;
@@ -10,6 +12,7 @@ import org.springframework.ws.soap.SoapBody;
 import org.springframework.ws.soap.SoapEnvelope;
 import org.springframework.ws.soap.SoapFault;
 import org.springframework.ws.soap.SoapMessage;
+import se.sundsvall.dept44.problem.ProblemMetrics;
 import se.sundsvall.dept44.problem.ThrowableProblem;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -127,4 +130,31 @@ class DefaultFaultInterceptorTest {
 		verify(soapEnvelopeMock).getBody();
 		verify(soapBodyMock).getFault();
 	}
+
+	@Test
+	void testHandleFaultRecordsMetrics() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		ProblemMetrics.setShared(new ProblemMetrics(meterRegistry, true));
+
+		// Setup mocks
+		when(messageContextMock.getResponse()).thenReturn(soapMessageMock);
+		when(soapMessageMock.getEnvelope()).thenReturn(soapEnvelopeMock);
+		when(soapEnvelopeMock.getBody()).thenReturn(soapBodyMock);
+		when(soapBodyMock.getFault()).thenReturn(soapFaultMock);
+		when(soapFaultMock.getFaultStringOrReason()).thenReturn("faultStringOrReason");
+
+		try {
+			// Call and assert
+			assertThrows(ThrowableProblem.class, () -> interceptor.handleFault(messageContextMock));
+
+			assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS)
+				.tag("source", ProblemMetrics.SOURCE_SOAP)
+				.tag("status", "500")
+				.tag("title", "Error while calling SOAP-service")
+				.tag("exception", "SoapFault")
+				.counter().count()).isEqualTo(1);
+		} finally {
+			ProblemMetrics.setShared(new ProblemMetrics(Metrics.globalRegistry, true));
+		}
+	}
 }
@@ -0,0 +1,73 @@
+package se.sundsvall.dept44.configuration.webservicetemplate.interceptor;
+
+import java.time.Instant;
+import org.apache.hc.core5.http.EntityDetails;
+import org.apache.hc.core5.http.HttpRequest;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.BasicHttpContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import se.sundsvall.dept44.oauth2.OAuth2TokenProvider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpHeaders.AUTHORIZATION;
+
+@ExtendWith(MockitoExtension.class)
+class OAuth2InterceptorTest {
+
+	@Mock
+	private OAuth2TokenProvider mockTokenProvider;
+
+	@Mock
+	private HttpRequest mockHttpRequest;
+
+	@Mock
+	private HttpResponse mockHttpResponse;
+
+	@Mock
+	private EntityDetails mockEntityDetails;
+
+	@Test
+	void testProcessRequest() {
+		final var context = new BasicHttpContext();
+		when(mockTokenProvider.getToken()).thenReturn(token());
+
+		new OAuth2Interceptor(mockTokenProvider).process(mockHttpRequest, mockEntityDetails, context);
+
+		verify(mockHttpRequest).setHeader(AUTHORIZATION, "Bearer token");
+		assertThat(context.getAttribute(OAuth2Interceptor.TOKEN_ATTRIBUTE)).isEqualTo("token");
+	}
+
+	@Test
+	void testProcessUnauthorizedResponseInvalidatesToken() {
+		final var context = new BasicHttpContext();
+		context.setAttribute(OAuth2Interceptor.TOKEN_ATTRIBUTE, "token");
+		when(mockHttpResponse.getCode()).thenReturn(401);
+
+		new OAuth2Interceptor(mockTokenProvider).process(mockHttpResponse, mockEntityDetails, context);
+
+		verify(mockTokenProvider).invalidate("token");
+	}
+
+	@Test
+	void testProcessSuccessfulResponse() {
+		final var context = new BasicHttpContext();
+		context.setAttribute(OAuth2Interceptor.TOKEN_ATTRIBUTE, "token");
+		when(mockHttpResponse.getCode()).thenReturn(200);
+
+		new OAuth2Interceptor(mockTokenProvider).process(mockHttpResponse, mockEntityDetails, context);
+
+		verify(mockTokenProvider, never()).invalidate(any());
+	}
+
+	private static OAuth2AccessToken token() {
+		return new OAuth2AccessToken(OAuth2AccessToken.TokenType.BEARER, "token", Instant.now(), Instant.now().plusSeconds(60));
+	}
+}
@@ -0,0 +1,151 @@
+package se.sundsvall.dept44.async;
+
+import ch.qos.logback.classic.util.LogbackMDCAdapter;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.support.Identifier;
+
+/**
+ * Immutable snapshot of the logging/correlation context of a thread: the SLF4J {@link MDC} and the {@link Identifier}
+ * thread-local.
+ * <p>
+ * With Logback, capturing does not copy the MDC. Logback keeps a read-only view of the MDC that is replaced on every
+ * write, and the snapshot holds a reference to that view. As long as the MDC and identifier of the capturing thread are
+ * unchanged, {@link #capture()} returns the same snapshot, so all tasks submitted from one request share one instance.
+ * <p>
+ * {@link #apply()} installs the snapshot on the current thread and returns a {@link Scope} that restores the previous
+ * context. Applying a snapshot that is already current does not touch the MDC at all, and an empty context is
+ * installed by clearing the MDC instead of copying a map.
+ */
+public final class ContextSnapshot {
+
+	private static final ContextSnapshot EMPTY = new ContextSnapshot(Map.of(), null);
+	private static final Scope NOOP = () -> {};
+	private static final ThreadLocal<ContextSnapshot> LAST_CAPTURED = new ThreadLocal<>();
+
+	private final Map<String, String> mdc;
+	private final Identifier identifier;
+
+	private ContextSnapshot(final Map<String, String> mdc, final Identifier identifier) {
+		this.mdc = mdc;
+		this.identifier = identifier;
+	}
+
+	/**
+	 * Captures the context of the current thread.
+	 *
+	 * @return the snapshot, shared with earlier captures of an unchanged context on this thread
+	 */
+	public static ContextSnapshot capture() {
+		final var mdc = currentMdc();
+		final var identifier = Identifier.get();
+		if (mdc.isEmpty() && identifier == null) {
+			return EMPTY;
+		}
+
+		final var last = LAST_CAPTURED.get();
+		if (last != null && last.mdc == mdc && last.identifier == identifier) {
+			return last;
+		}
+
+		final var snapshot = new ContextSnapshot(mdc, identifier);
+		LAST_CAPTURED.set(snapshot);
+		return snapshot;
+	}
+
+	/**
+	 * Applies this snapshot to the current thread.
+	 *
+	 * @return a scope that restores the previous context of the current thread when closed
+	 */
+	public Scope apply() {
+		final var previousMdc = currentMdc();
+		final var previousIdentifier = Identifier.get();
+		if (previousMdc == mdc && previousIdentifier == identifier) {
+			return NOOP;
+		}
+
+		install(mdc, identifier);
+		return () -> install(previousMdc, previousIdentifier);
+	}
+
+	/**
+	 * Wraps a task so that it runs with this snapshot applied.
+	 *
+	 * @param  runnable the task
+	 * @return          the wrapped task
+	 */
+	public Runnable wrap(final Runnable runnable) {
+		return () -> {
+			try (var _ = apply()) {
+				runnable.run();
+			}
+		};
+	}
+
+	/**
+	 * Wraps a task so that it runs with this snapshot applied.
+	 *
+	 * @param  <V>      the result type
+	 * @param  callable the task
+	 * @return          the wrapped task
+	 */
+	public <V> Callable<V> wrap(final Callable<V> callable) {
+		return () -> {
+			try (var _ = apply()) {
+				return callable.call();
+			}
+		};
+	}
+
+	/**
+	 * Returns the captured MDC.
+	 *
+	 * @return an unmodifiable view of the captured MDC
+	 */
+	public Map<String, String> getMdc() {
+		return mdc;
+	}
+
+	/**
+	 * Returns the captured identifier.
+	 *
+	 * @return the identifier, or {@code null} if none was set
+	 */
+	public Identifier getIdentifier() {
+		return identifier;
+	}
+
+	/**
+	 * The MDC is installed last since it already contains the {@code sent_by}/{@code sent_by_type} keys of the identifier.
+	 */
+	private static void install(final Map<String, String> mdc, final Identifier identifier) {
+		Identifier.restore(identifier);
+		if (mdc.isEmpty()) {
+			MDC.clear();
+		} else {
+			MDC.setContextMap(mdc);
+		}
+	}
+
+	private static Map<String, String> currentMdc() {
+		if (MDC.getMDCAdapter() instanceof final LogbackMDCAdapter logbackMdcAdapter) {
+			final var readOnlyMap = logbackMdcAdapter.getPropertyMap();
+			return readOnlyMap != null ? readOnlyMap : Map.of();
+		}
+		final var copy = MDC.getCopyOfContextMap();
+		return copy != null ? Collections.unmodifiableMap(copy) : Map.of();
+	}
+
+	/**
+	 * Restores the previous context when closed.
+	 */
+	@FunctionalInterface
+	public interface Scope extends AutoCloseable {
+
+		@Override
+		void close();
+	}
+}
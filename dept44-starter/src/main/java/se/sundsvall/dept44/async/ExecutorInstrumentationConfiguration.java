@@ -0,0 +1,25 @@
+package se.sundsvall.dept44.async;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration of executor instrumentation, see {@link ExecutorInstrumentationPostProcessor} and
+ * {@link ExecutorMetrics}.
+ * <p>
+ * The instrumentation also propagates the MDC and identity of the submitting thread, unless
+ * {@code dept44.async.mdc.enabled=false}, so service-defined executors get the same context propagation as the
+ * autoconfigured ones. Can be disabled with {@code dept44.async.instrumentation.enabled=false}.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "dept44.async.instrumentation.enabled", havingValue = "true", matchIfMissing = true)
+public class ExecutorInstrumentationConfiguration {
+
+	@Bean
+	static ExecutorInstrumentationPostProcessor executorInstrumentationPostProcessor(
+		@Value("${dept44.async.mdc.enabled:true}") final boolean propagateContext) {
+		return new ExecutorInstrumentationPostProcessor(propagateContext);
+	}
+}
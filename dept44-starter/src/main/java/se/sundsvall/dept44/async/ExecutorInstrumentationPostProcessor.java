@@ -0,0 +1,116 @@
+package se.sundsvall.dept44.async;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.IntSupplier;
+import org.springframework.beans.DirectFieldAccessor;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Instruments every {@link TaskExecutor} and {@link TaskScheduler} bean that accepts a {@link TaskDecorator} - the
+ * autoconfigured ones as well as executors declared by the service - with an {@link InstrumentedTaskDecorator}.
+ * Rejections are counted for executors backed by a {@link ThreadPoolExecutor}.
+ * <p>
+ * The meters are bound by Spring Boot, since this post processor is also a {@link MeterBinder}. Executors created after
+ * binding are bound at once.
+ */
+class ExecutorInstrumentationPostProcessor implements BeanPostProcessor, MeterBinder {
+
+	private static final String TASK_DECORATOR_PROPERTY = "taskDecorator";
+
+	private final boolean propagateContext;
+	private final List<ExecutorMetrics> executors = new CopyOnWriteArrayList<>();
+
+	private volatile MeterRegistry registry;
+
+	/**
+	 * @param propagateContext whether to propagate the context of the submitting thread
+	 */
+	ExecutorInstrumentationPostProcessor(final boolean propagateContext) {
+		this.propagateContext = propagateContext;
+	}
+
+	@Override
+	public Object postProcessBeforeInitialization(final Object bean, final String beanName) {
+		if (!(bean instanceof TaskExecutor || bean instanceof TaskScheduler)) {
+			return bean;
+		}
+
+		final var beanWrapper = PropertyAccessorFactory.forBeanPropertyAccess(bean);
+		final var fieldAccessor = new DirectFieldAccessor(bean);
+		if (!beanWrapper.isWritableProperty(TASK_DECORATOR_PROPERTY) || !fieldAccessor.isReadableProperty(TASK_DECORATOR_PROPERTY)) {
+			return bean;
+		}
+
+		final var existing = (TaskDecorator) fieldAccessor.getPropertyValue(TASK_DECORATOR_PROPERTY);
+		if (existing instanceof InstrumentedTaskDecorator) {
+			return bean;
+		}
+
+		final var metrics = new ExecutorMetrics(beanName, bean instanceof TaskScheduler, maxThreads(bean));
+		beanWrapper.setPropertyValue(TASK_DECORATOR_PROPERTY, new InstrumentedTaskDecorator(metrics, existing, propagateContext));
+		register(metrics);
+		return bean;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		final var threadPoolExecutor = switch (bean) {
+			case final ThreadPoolTaskExecutor executor -> executor.getThreadPoolExecutor();
+			case final ThreadPoolTaskScheduler scheduler -> scheduler.getScheduledThreadPoolExecutor();
+			default -> null;
+		};
+		if (threadPoolExecutor != null) {
+			executors.stream()
+				.filter(metrics -> metrics.getName().equals(beanName))
+				.findFirst()
+				.ifPresent(metrics -> threadPoolExecutor.setRejectedExecutionHandler(countingHandler(threadPoolExecutor.getRejectedExecutionHandler(), metrics)));
+		}
+		return bean;
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry meterRegistry) {
+		this.registry = meterRegistry;
+		executors.forEach(metrics -> metrics.bindTo(meterRegistry));
+	}
+
+	List<ExecutorMetrics> getExecutors() {
+		return List.copyOf(executors);
+	}
+
+	private void register(final ExecutorMetrics metrics) {
+		executors.add(metrics);
+		final var boundRegistry = registry;
+		if (boundRegistry != null) {
+			metrics.bindTo(boundRegistry);
+		}
+	}
+
+	private static IntSupplier maxThreads(final Object bean) {
+		return switch (bean) {
+			case final ThreadPoolTaskExecutor executor -> executor::getMaxPoolSize;
+			case final ThreadPoolTaskScheduler scheduler -> scheduler::getPoolSize;
+			case final SimpleAsyncTaskExecutor executor when executor.getConcurrencyLimit() > 0 -> executor::getConcurrencyLimit;
+			default -> null;
+		};
+	}
+
+	private static RejectedExecutionHandler countingHandler(final RejectedExecutionHandler delegate, final ExecutorMetrics metrics) {
+		return (runnable, executor) -> {
+			metrics.taskRejected();
+			delegate.rejectedExecution(runnable, executor);
+		};
+	}
+}
@@ -0,0 +1,107 @@
+package se.sundsvall.dept44.async;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntSupplier;
+
+/**
+ * Meters of one instrumented executor, tagged with the executor name:
+ * <ul>
+ * <li>{@code dept44.executor.queue.wait} - time from submission until a task starts running (not recorded for
+ * schedulers, where the wait is the intended delay)</li>
+ * <li>{@code dept44.executor.execution} - time a task runs</li>
+ * <li>{@code dept44.executor.rejected} - tasks rejected by the executor</li>
+ * <li>{@code dept44.executor.running} - tasks currently running</li>
+ * <li>{@code dept44.executor.utilization} - running tasks relative to the maximum number of threads, when known</li>
+ * </ul>
+ * Both timers publish percentile histograms. Nothing is recorded until the meters are bound to a registry.
+ */
+class ExecutorMetrics {
+
+	private final String name;
+	private final boolean scheduler;
+	private final IntSupplier maxThreads;
+	private final AtomicInteger running = new AtomicInteger();
+
+	private volatile Timer queueWaitTimer;
+	private volatile Timer executionTimer;
+	private volatile Counter rejectedCounter;
+
+	/**
+	 * @param name       the executor name
+	 * @param scheduler  whether the executor is a scheduler
+	 * @param maxThreads the maximum number of threads, or {@code null} if unbounded or unknown
+	 */
+	ExecutorMetrics(final String name, final boolean scheduler, final IntSupplier maxThreads) {
+		this.name = name;
+		this.scheduler = scheduler;
+		this.maxThreads = maxThreads;
+	}
+
+	void bindTo(final MeterRegistry registry) {
+		queueWaitTimer = Timer.builder("dept44.executor.queue.wait")
+			.description("Time tasks wait in the queue before running")
+			.tag("name", name)
+			.publishPercentileHistogram()
+			.register(registry);
+		executionTimer = Timer.builder("dept44.executor.execution")
+			.description("Time tasks run")
+			.tag("name", name)
+			.publishPercentileHistogram()
+			.register(registry);
+		rejectedCounter = Counter.builder("dept44.executor.rejected")
+			.description("Tasks rejected by the executor")
+			.tag("name", name)
+			.register(registry);
+		Gauge.builder("dept44.executor.running", running, AtomicInteger::get)
+			.description("Tasks currently running")
+			.tag("name", name)
+			.register(registry);
+		if (maxThreads != null) {
+			Gauge.builder("dept44.executor.utilization", this, ExecutorMetrics::utilization)
+				.description("Running tasks relative to the maximum number of threads")
+				.tag("name", name)
+				.register(registry);
+		}
+	}
+
+	String getName() {
+		return name;
+	}
+
+	void taskStarted(final long submittedNanos, final long startedNanos) {
+		running.incrementAndGet();
+		final var timer = queueWaitTimer;
+		if (timer != null && !scheduler) {
+			timer.record(startedNanos - submittedNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	void taskFinished(final long startedNanos) {
+		running.decrementAndGet();
+		final var timer = executionTimer;
+		if (timer != null) {
+			timer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	void taskRejected() {
+		final var counter = rejectedCounter;
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	int getRunning() {
+		return running.get();
+	}
+
+	double utilization() {
+		final var max = maxThreads.getAsInt();
+		return max > 0 ? (double) running.get() / max : 0;
+	}
+}
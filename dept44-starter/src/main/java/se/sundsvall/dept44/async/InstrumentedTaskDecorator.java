@@ -0,0 +1,50 @@
+package se.sundsvall.dept44.async;
+
+import org.jspecify.annotations.NonNull;
+import org.springframework.core.task.TaskDecorator;
+
+/**
+ * {@link TaskDecorator} that records the queue wait and run time of every task in {@link ExecutorMetrics} and, in the
+ * same wrapper, propagates the context of the submitting thread as a {@link ContextSnapshot}.
+ * <p>
+ * A decorator already set on the executor is applied inside this one, except a {@link MdcTaskDecorator}, which is
+ * replaced since the context is propagated here.
+ */
+class InstrumentedTaskDecorator implements TaskDecorator {
+
+	private final ExecutorMetrics metrics;
+	private final TaskDecorator delegate;
+	private final boolean propagateContext;
+
+	/**
+	 * @param metrics          the metrics of the executor
+	 * @param delegate         the decorator previously set on the executor, or {@code null}
+	 * @param propagateContext whether to propagate the context of the submitting thread
+	 */
+	InstrumentedTaskDecorator(final ExecutorMetrics metrics, final TaskDecorator delegate, final boolean propagateContext) {
+		this.metrics = metrics;
+		this.delegate = delegate instanceof MdcTaskDecorator ? null : delegate;
+		this.propagateContext = propagateContext || delegate instanceof MdcTaskDecorator;
+	}
+
+	@Override
+	public @NonNull Runnable decorate(final @NonNull Runnable runnable) {
+		final var submittedNanos = System.nanoTime();
+		final var snapshot = propagateContext ? ContextSnapshot.capture() : null;
+		final var task = delegate != null ? delegate.decorate(runnable) : runnable;
+
+		return () -> {
+			final var startedNanos = System.nanoTime();
+			metrics.taskStarted(submittedNanos, startedNanos);
+			try (var _ = snapshot != null ? snapshot.apply() : null) {
+				task.run();
+			} finally {
+				metrics.taskFinished(startedNanos);
+			}
+		};
+	}
+
+	TaskDecorator getDelegate() {
+		return delegate;
+	}
+}
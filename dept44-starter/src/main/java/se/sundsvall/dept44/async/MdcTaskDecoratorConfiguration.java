@@ -19,13 +19,12 @@ import org.springframework.core.task.TaskDecorator;
  * {@code @EnableAsync} themselves. The decorator is applied to the executor regardless of whether {@code @Async} is
  * enabled.
  * <p>
- * <strong>Coverage limitation:</strong> the decorator is only wired into Spring Boot's autoconfigured
+ * <strong>Coverage:</strong> the decorator is only wired into Spring Boot's autoconfigured
  * {@code applicationTaskExecutor} (and {@code taskScheduler}). A service that declares its own {@code Executor}/
- * {@code TaskExecutor} bean makes Spring Boot's {@code applicationTaskExecutor} back off, so the decorator has nothing
- * to
- * attach to - the same applies to {@code @Async("someNamedExecutor")} pointing at a custom executor. Such services must
- * set {@link TaskDecorator} on their own executor (e.g. {@code executor.setTaskDecorator(new MdcTaskDecorator())}) to
- * get MDC propagation.
+ * {@code TaskExecutor} bean makes Spring Boot's {@code applicationTaskExecutor} back off. Such executors get MDC
+ * propagation from the executor instrumentation instead (see {@link ExecutorInstrumentationConfiguration}), which
+ * decorates every {@code TaskExecutor}/{@code TaskScheduler} bean. With the instrumentation disabled, services must set
+ * {@link TaskDecorator} on their own executor (e.g. {@code executor.setTaskDecorator(new MdcTaskDecorator())}).
  * <p>
  * Can be disabled with {@code dept44.async.mdc.enabled=false}, and replaced by declaring a custom
  * {@link TaskDecorator} bean.
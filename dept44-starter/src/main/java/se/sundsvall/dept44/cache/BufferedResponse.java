@@ -0,0 +1,95 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import se.sundsvall.dept44.requestid.RequestId;
+
+/**
+ * A fully buffered response that can be replayed to other requests, e.g. from a cache or to coalesced requests.
+ * <p>
+ * Headers that are specific to a single request (or set by outer filters for every request) are not captured.
+ *
+ * @param status      the status code
+ * @param contentType the content type
+ * @param headers     the response headers to replay
+ * @param body        the serialized body
+ */
+public record BufferedResponse(int status, String contentType, Map<String, List<String>> headers, byte[] body) {
+
+	private static final Set<String> NON_REPLAYABLE_HEADERS = caseInsensitiveSet(
+		HttpHeaders.CONTENT_TYPE,
+		HttpHeaders.CONTENT_LENGTH,
+		HttpHeaders.TRANSFER_ENCODING,
+		HttpHeaders.DATE,
+		HttpHeaders.SET_COOKIE,
+		HttpHeaders.CACHE_CONTROL,
+		HttpHeaders.EXPIRES,
+		HttpHeaders.PRAGMA,
+		RequestId.HEADER_NAME);
+
+	/**
+	 * Captures the buffered response of the given wrapper.
+	 *
+	 * @param  wrapper the wrapper the response was written to
+	 * @return         the buffered response
+	 */
+	public static BufferedResponse capture(final ContentCachingResponseWrapper wrapper) {
+		final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+		wrapper.getHeaderNames().forEach(name -> headers.put(name, List.copyOf(wrapper.getHeaders(name))));
+		return new BufferedResponse(wrapper.getStatus(), wrapper.getContentType(), replayableHeaders(headers), wrapper.getContentAsByteArray());
+	}
+
+	static BufferedResponse capture(final DetachedResponse response) {
+		return new BufferedResponse(response.getStatus(), response.getContentType(), replayableHeaders(response.getHeaderMap()), response.getContentAsByteArray());
+	}
+
+	/**
+	 * Writes status, headers and body to the given response. Headers already present in the response are kept.
+	 *
+	 * @param  response    the response to write to
+	 * @throws IOException if the body could not be written
+	 */
+	public void writeTo(final HttpServletResponse response) throws IOException {
+		response.setStatus(status);
+		headers.forEach((name, values) -> {
+			if (!response.containsHeader(name)) {
+				values.forEach(value -> response.addHeader(name, value));
+			}
+		});
+		if (contentType != null) {
+			response.setContentType(contentType);
+		}
+		response.setContentLength(body.length);
+		response.getOutputStream().write(body);
+	}
+
+	long weight() {
+		return body.length + headers.entrySet().stream()
+			.mapToLong(entry -> entry.getKey().length() + entry.getValue().stream().mapToLong(String::length).sum())
+			.sum();
+	}
+
+	private static Map<String, List<String>> replayableHeaders(final Map<String, List<String>> headers) {
+		final Map<String, List<String>> replayable = new LinkedCaseInsensitiveMap<>();
+		headers.forEach((name, values) -> {
+			if (!NON_REPLAYABLE_HEADERS.contains(name)) {
+				replayable.put(name, List.copyOf(values));
+			}
+		});
+		return replayable;
+	}
+
+	private static Set<String> caseInsensitiveSet(final String... values) {
+		final var set = new TreeSet<String>(String.CASE_INSENSITIVE_ORDER);
+		set.addAll(List.of(values));
+		return Collections.unmodifiableSet(set);
+	}
+}
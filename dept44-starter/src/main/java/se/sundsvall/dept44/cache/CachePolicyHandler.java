@@ -0,0 +1,189 @@
+package se.sundsvall.dept44.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.DigestUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Applies a {@link Dept44CachePolicy} to a request.
+ * <p>
+ * The response is buffered so that the {@code Cache-Control} and {@code ETag} headers can be decided when the status is
+ * known. The {@code ETag} is calculated by streaming the buffered body through the digest, without copying it. For
+ * responses with a max age, the generated validator is kept in a bounded cache, so that a conditional request for a
+ * still fresh response is answered with {@code 304 Not Modified} without invoking the handler (and serializing the
+ * body) again.
+ */
+public class CachePolicyHandler {
+
+	private static final String WEAK_PREFIX = "W/";
+
+	private final Cache<String, CachedValidator> validators;
+
+	/**
+	 * @param maximumValidators the maximum number of cached validators
+	 */
+	public CachePolicyHandler(final long maximumValidators) {
+		this.validators = Caffeine.newBuilder()
+			.maximumSize(maximumValidators)
+			.expireAfter(new ValidatorExpiry())
+			.build();
+	}
+
+	/**
+	 * Checks if the policy can be applied to the request, i.e. if it is a {@code GET} or {@code HEAD} request.
+	 *
+	 * @param  request the request
+	 * @return         true if the policy applies
+	 */
+	public static boolean isApplicable(final HttpServletRequest request) {
+		return HttpMethod.GET.matches(request.getMethod()) || HttpMethod.HEAD.matches(request.getMethod());
+	}
+
+	/**
+	 * Invokes the filter chain and applies the cache policy to the response.
+	 *
+	 * @param  request          the request
+	 * @param  response         the response
+	 * @param  chain            the filter chain
+	 * @param  policy           the cache policy of the handler
+	 * @param  noStoreHeaders   applies the default (no-store) headers, used for non-successful responses
+	 * @throws IOException      if the response body could not be written
+	 * @throws ServletException if thrown by the filter chain
+	 */
+	public void handle(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain,
+		final Dept44CachePolicy policy, final Consumer<HttpServletResponse> noStoreHeaders) throws IOException, ServletException {
+
+		final var cacheControl = toCacheControl(policy);
+		final var validatorKey = sharesValidators(policy) ? validatorKey(request) : null;
+		final var ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+		if (nonNull(validatorKey) && nonNull(ifNoneMatch)) {
+			final var cached = validators.getIfPresent(validatorKey);
+			if (nonNull(cached) && matches(ifNoneMatch, cached.etag())) {
+				response.setHeader(HttpHeaders.ETAG, cached.etag());
+				response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+
+		final var wrapper = new ContentCachingResponseWrapper(response);
+		chain.doFilter(request, wrapper);
+
+		if (!isSuccessful(wrapper.getStatus())) {
+			noStoreHeaders.accept(wrapper);
+			wrapper.copyBodyToResponse();
+			return;
+		}
+
+		wrapper.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl);
+		// The body of a HEAD response is never written, so the ETag can only be generated for GET requests
+		if (policy.etag() && HttpMethod.GET.matches(request.getMethod()) && !wrapper.containsHeader(HttpHeaders.ETAG)) {
+			final var etag = generateEtag(wrapper.getContentInputStream(), policy.weakEtag());
+			wrapper.setHeader(HttpHeaders.ETAG, etag);
+
+			if (nonNull(validatorKey)) {
+				validators.put(validatorKey, new CachedValidator(etag, TimeUnit.SECONDS.toNanos(policy.maxAge())));
+			}
+			if (nonNull(ifNoneMatch) && matches(ifNoneMatch, etag)) {
+				// Discard the buffered body
+				wrapper.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return;
+			}
+		}
+		wrapper.copyBodyToResponse();
+	}
+
+	/**
+	 * Removes all cached validators, e.g. after a change of data served by cached endpoints.
+	 */
+	public void invalidateAll() {
+		validators.invalidateAll();
+	}
+
+	static String toCacheControl(final Dept44CachePolicy policy) {
+		final var cacheControl = policy.maxAge() > 0 ? CacheControl.maxAge(Duration.ofSeconds(policy.maxAge())) : CacheControl.noCache();
+		return (policy.privateCache() ? cacheControl.cachePrivate() : cacheControl.cachePublic()).getHeaderValue();
+	}
+
+	static String generateEtag(final InputStream body, final boolean weak) throws IOException {
+		final var builder = new StringBuilder(weak ? 37 : 35);
+		if (weak) {
+			builder.append(WEAK_PREFIX);
+		}
+		builder.append('"');
+		DigestUtils.appendMd5DigestAsHex(body, builder);
+		return builder.append('"').toString();
+	}
+
+	/**
+	 * Weak comparison of the If-None-Match header value against an entity tag, as required by RFC 9110 section 13.1.2.
+	 */
+	static boolean matches(final String ifNoneMatch, final String etag) {
+		final var opaqueTag = stripWeakPrefix(etag);
+		for (final var candidate : StringUtils.commaDelimitedListToStringArray(ifNoneMatch)) {
+			final var trimmed = candidate.trim();
+			if ("*".equals(trimmed) || stripWeakPrefix(trimmed).equals(opaqueTag)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static String stripWeakPrefix(final String etag) {
+		return etag.startsWith(WEAK_PREFIX) ? etag.substring(WEAK_PREFIX.length()) : etag;
+	}
+
+	private static boolean sharesValidators(final Dept44CachePolicy policy) {
+		return policy.etag() && policy.maxAge() > 0 && !policy.privateCache();
+	}
+
+	private static String validatorKey(final HttpServletRequest request) {
+		final var key = new StringBuilder(request.getRequestURI());
+		if (nonNull(request.getQueryString())) {
+			key.append('?').append(request.getQueryString());
+		}
+		return key.append('|').append(request.getHeader(HttpHeaders.ACCEPT)).toString();
+	}
+
+	private static boolean isSuccessful(final int status) {
+		return status >= 200 && status < 300;
+	}
+
+	record CachedValidator(String etag, long timeToLiveNanos) {}
+
+	private static class ValidatorExpiry implements Expiry<String, CachedValidator> {
+
+		@Override
+		public long expireAfterCreate(final String key, final CachedValidator value, final long currentTime) {
+			return value.timeToLiveNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(final String key, final CachedValidator value, final long currentTime, final long currentDuration) {
+			return value.timeToLiveNanos();
+		}
+
+		@Override
+		public long expireAfterRead(final String key, final CachedValidator value, final long currentTime, final long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
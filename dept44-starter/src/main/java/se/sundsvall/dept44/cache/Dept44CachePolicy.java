@@ -0,0 +1,62 @@
+package se.sundsvall.dept44.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Opts a {@code GET} (or {@code HEAD}) endpoint out of the global {@code Cache-Control: no-store} policy.
+ * <p>
+ * Successful (2xx) responses from annotated handler methods (or all handler methods of an annotated controller) get a
+ * {@code Cache-Control} header based on {@link #maxAge()} instead of {@code no-store}, and optionally an {@code ETag}
+ * generated from the response body. A request carrying a matching {@code If-None-Match} header is answered with
+ * {@code 304 Not Modified} without a body. While a response is still fresh (within {@link #maxAge()}), a matching
+ * {@code If-None-Match} is answered directly from the cached validator, without invoking the handler again.
+ * <p>
+ * Error responses always get the global {@code no-store} headers.
+ *
+ * <pre>{@code
+ * &#64;Dept44CachePolicy(maxAge = 3600)
+ * &#64;GetMapping("/{municipalityId}/codes")
+ * List<Code> getCodes(@PathVariable String municipalityId) { ... }
+ * }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({
+	ElementType.METHOD, ElementType.TYPE
+})
+public @interface Dept44CachePolicy {
+
+	/**
+	 * The max age in seconds. If 0 (default), clients may store the response but must revalidate it on each use
+	 * ({@code Cache-Control: no-cache}).
+	 *
+	 * @return the max age in seconds
+	 */
+	long maxAge() default 0;
+
+	/**
+	 * Whether an {@code ETag} should be generated from the response body.
+	 *
+	 * @return true if an ETag should be generated
+	 */
+	boolean etag() default true;
+
+	/**
+	 * Whether the generated {@code ETag} should be weak ({@code W/"..."}), i.e. only semantically equivalent.
+	 *
+	 * @return true if the ETag should be weak
+	 */
+	boolean weakEtag() default false;
+
+	/**
+	 * Whether the response is user specific and may only be stored by private (browser) caches. Validators of private
+	 * responses are never shared between requests on the server side.
+	 *
+	 * @return true if {@code Cache-Control: private} should be used
+	 */
+	boolean privateCache() default false;
+}
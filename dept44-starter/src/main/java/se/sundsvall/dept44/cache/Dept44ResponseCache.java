@@ -0,0 +1,62 @@
+package se.sundsvall.dept44.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Caches the serialized response of an idempotent {@code GET} endpoint on the server side.
+ * <p>
+ * Successful ({@code 200}) responses are stored as bytes in a bounded in-memory cache (see {@link ResponseCache}) and
+ * replayed for subsequent requests with the same municipality id, path, query, {@code Accept} header and
+ * {@link #varyHeaders()}. Error responses are never cached.
+ * <p>
+ * Only use this for responses that are the same for every caller (or vary on a header listed in
+ * {@link #varyHeaders()}).
+ *
+ * <pre>{@code
+ * &#64;Dept44ResponseCache(name = "pet-inventory", ttl = 300, staleWhileRevalidate = 60)
+ * &#64;GetMapping("/{municipalityId}/pets")
+ * List<PetItem> getPets(@PathVariable String municipalityId) { ... }
+ * }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({
+	ElementType.METHOD, ElementType.TYPE
+})
+public @interface Dept44ResponseCache {
+
+	/**
+	 * The name of the cache, used for programmatic invalidation with {@link ResponseCache#invalidateCache(String)}.
+	 * Defaults to the controller and method name.
+	 *
+	 * @return the cache name
+	 */
+	String name() default "";
+
+	/**
+	 * The time to live in seconds.
+	 *
+	 * @return the time to live in seconds
+	 */
+	long ttl() default 60;
+
+	/**
+	 * For how many seconds after the time to live a stale response may still be served, while the entry is refreshed.
+	 * The refresh is done once per entry, after the stale response has been written to the client.
+	 *
+	 * @return the stale-while-revalidate window in seconds
+	 */
+	long staleWhileRevalidate() default 0;
+
+	/**
+	 * Request headers, in addition to {@code Accept}, that select different responses and therefore are part of the
+	 * cache key.
+	 *
+	 * @return the header names
+	 */
+	String[] varyHeaders() default {};
+}
@@ -0,0 +1,49 @@
+package se.sundsvall.dept44.cache;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import se.sundsvall.dept44.concurrent.SingleFlight;
+
+/**
+ * Coalesces identical concurrent {@code GET} requests to an idempotent endpoint.
+ * <p>
+ * While a request is being handled, requests with the same path, query, {@code Accept} header and
+ * {@link #varyHeaders()} wait for it and get a copy of its response - including an error response - instead of
+ * invoking the handler themselves. See {@link SingleFlight}.
+ *
+ * <pre>{@code
+ * &#64;Dept44SingleFlight(timeout = "PT10S")
+ * &#64;GetMapping("/{municipalityId}/pets")
+ * List<PetItem> getPets(@PathVariable String municipalityId) { ... }
+ * }</pre>
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({
+	ElementType.METHOD, ElementType.TYPE
+})
+public @interface Dept44SingleFlight {
+
+	/**
+	 * For how long a coalesced request waits for the in-flight request before failing with
+	 * {@code 503 Service Unavailable}.
+	 * <p>
+	 * Should be ISO8601 duration as described in {@link java.time.Duration#parse(CharSequence)}, for example PT30S.
+	 * <p>
+	 * Default is 30 seconds.
+	 *
+	 * @return the timeout
+	 */
+	String timeout() default "PT30S";
+
+	/**
+	 * Request headers, in addition to {@code Accept}, that select different responses and therefore must be equal for
+	 * requests to be coalesced.
+	 *
+	 * @return the header names
+	 */
+	String[] varyHeaders() default {};
+}
@@ -0,0 +1,40 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * The request of a stale cache entry, as seen by the handler that refreshes the entry in the background.
+ * <p>
+ * The refresh is an asynchronous dispatch of the request. That is hidden from the filters and the handler, so they
+ * write the refreshed response synchronously, as they would for any other request.
+ */
+final class DetachedRequest extends HttpServletRequestWrapper {
+
+	DetachedRequest(final HttpServletRequest request) {
+		super(request);
+	}
+
+	@Override
+	public boolean isAsyncStarted() {
+		return false;
+	}
+
+	@Override
+	public boolean isAsyncSupported() {
+		return false;
+	}
+
+	@Override
+	public AsyncContext startAsync() {
+		throw new IllegalStateException("Asynchronous processing is not supported when refreshing cached responses");
+	}
+
+	@Override
+	public AsyncContext startAsync(final ServletRequest servletRequest, final ServletResponse servletResponse) {
+		throw new IllegalStateException("Asynchronous processing is not supported when refreshing cached responses");
+	}
+}
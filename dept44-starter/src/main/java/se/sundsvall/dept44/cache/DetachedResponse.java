@@ -0,0 +1,249 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.FastByteArrayOutputStream;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+
+/**
+ * A response that captures status, headers and body without touching the wrapped response, which may already have been
+ * written to the client. Used when a stale cache entry is refreshed after the stale response has been sent.
+ */
+final class DetachedResponse extends HttpServletResponseWrapper {
+
+	private final Map<String, List<String>> headers = new LinkedCaseInsensitiveMap<>();
+	private final FastByteArrayOutputStream content = new FastByteArrayOutputStream();
+	private final ServletOutputStream outputStream = new CapturingOutputStream();
+
+	private int status = SC_OK;
+	private String contentType;
+	private String characterEncoding;
+	private PrintWriter writer;
+
+	DetachedResponse(final HttpServletResponse response) {
+		super(response);
+	}
+
+	byte[] getContentAsByteArray() {
+		if (writer != null) {
+			writer.flush();
+		}
+		return content.toByteArray();
+	}
+
+	Map<String, List<String>> getHeaderMap() {
+		return headers;
+	}
+
+	@Override
+	public void setStatus(final int status) {
+		this.status = status;
+	}
+
+	@Override
+	public int getStatus() {
+		return status;
+	}
+
+	@Override
+	public void sendError(final int status) {
+		this.status = status;
+	}
+
+	@Override
+	public void sendError(final int status, final String message) {
+		this.status = status;
+	}
+
+	@Override
+	public void sendRedirect(final String location) {
+		this.status = SC_FOUND;
+		setHeader(HttpHeaders.LOCATION, location);
+	}
+
+	@Override
+	public void setHeader(final String name, final String value) {
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+			setContentType(value);
+			return;
+		}
+		final var values = new ArrayList<String>(1);
+		values.add(value);
+		headers.put(name, values);
+	}
+
+	@Override
+	public void addHeader(final String name, final String value) {
+		if (HttpHeaders.CONTENT_TYPE.equalsIgnoreCase(name)) {
+			setContentType(value);
+			return;
+		}
+		headers.computeIfAbsent(name, _ -> new ArrayList<>(1)).add(value);
+	}
+
+	@Override
+	public void setIntHeader(final String name, final int value) {
+		setHeader(name, String.valueOf(value));
+	}
+
+	@Override
+	public void addIntHeader(final String name, final int value) {
+		addHeader(name, String.valueOf(value));
+	}
+
+	@Override
+	public void setDateHeader(final String name, final long date) {
+		final var httpHeaders = new HttpHeaders();
+		httpHeaders.setDate(name, date);
+		setHeader(name, httpHeaders.getFirst(name));
+	}
+
+	@Override
+	public void addDateHeader(final String name, final long date) {
+		final var httpHeaders = new HttpHeaders();
+		httpHeaders.setDate(name, date);
+		addHeader(name, httpHeaders.getFirst(name));
+	}
+
+	@Override
+	public boolean containsHeader(final String name) {
+		return headers.containsKey(name);
+	}
+
+	@Override
+	public String getHeader(final String name) {
+		return Optional.ofNullable(headers.get(name))
+			.map(List::getFirst)
+			.orElse(null);
+	}
+
+	@Override
+	public Collection<String> getHeaders(final String name) {
+		return headers.getOrDefault(name, List.of());
+	}
+
+	@Override
+	public Collection<String> getHeaderNames() {
+		return headers.keySet();
+	}
+
+	@Override
+	public void addCookie(final Cookie cookie) {
+		// Cookies are never cached
+	}
+
+	@Override
+	public void setContentType(final String contentType) {
+		this.contentType = contentType;
+	}
+
+	@Override
+	public String getContentType() {
+		return contentType;
+	}
+
+	@Override
+	public void setCharacterEncoding(final String characterEncoding) {
+		this.characterEncoding = characterEncoding;
+	}
+
+	@Override
+	public String getCharacterEncoding() {
+		return characterEncoding != null ? characterEncoding : StandardCharsets.ISO_8859_1.name();
+	}
+
+	@Override
+	public void setContentLength(final int length) {
+		// Calculated from the captured content
+	}
+
+	@Override
+	public void setContentLengthLong(final long length) {
+		// Calculated from the captured content
+	}
+
+	@Override
+	public ServletOutputStream getOutputStream() {
+		return outputStream;
+	}
+
+	@Override
+	public PrintWriter getWriter() {
+		if (writer == null) {
+			writer = new PrintWriter(new OutputStreamWriter(content, Charset.forName(getCharacterEncoding())));
+		}
+		return writer;
+	}
+
+	@Override
+	public void setBufferSize(final int size) {
+		// Everything is buffered
+	}
+
+	@Override
+	public void flushBuffer() {
+		if (writer != null) {
+			writer.flush();
+		}
+	}
+
+	@Override
+	public void resetBuffer() {
+		content.reset();
+	}
+
+	@Override
+	public void reset() {
+		content.reset();
+		headers.clear();
+		status = SC_OK;
+		contentType = null;
+	}
+
+	@Override
+	public boolean isCommitted() {
+		return false;
+	}
+
+	private class CapturingOutputStream extends ServletOutputStream {
+
+		@Override
+		public void write(final int b) throws IOException {
+			content.write(b);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			content.write(b, off, len);
+		}
+
+		@Override
+		public boolean isReady() {
+			return true;
+		}
+
+		@Override
+		public void setWriteListener(final WriteListener writeListener) {
+			// Writes to the buffer never block, so writing is possible at once
+			try {
+				writeListener.onWritePossible();
+			} catch (final IOException e) {
+				writeListener.onError(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+/**
+ * Resolves annotations of the handler method that will serve a request, before the request reaches the
+ * {@code DispatcherServlet}. Makes it possible for servlet filters to be driven by annotations on controller methods
+ * (e.g. {@link Dept44CachePolicy}).
+ * <p>
+ * The handler lookup is done at most once per request, and the annotation lookup at most once per handler method and
+ * annotation type.
+ */
+public class HandlerAnnotationResolver {
+
+	private static final String HANDLER_METHOD_ATTRIBUTE = HandlerAnnotationResolver.class.getName() + ".handlerMethod";
+
+	private final ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider;
+	private final Map<AnnotationKey, Optional<Annotation>> annotations = new ConcurrentHashMap<>();
+
+	public HandlerAnnotationResolver(final ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+		this.handlerMappingProvider = handlerMappingProvider;
+	}
+
+	/**
+	 * Finds the given annotation on the handler method serving the request, or on its controller class.
+	 *
+	 * @param  request        the request
+	 * @param  annotationType the annotation type
+	 * @param  <A>            the annotation type
+	 * @return                the annotation, if the request is served by an annotated handler method
+	 */
+	public <A extends Annotation> Optional<A> findAnnotation(final HttpServletRequest request, final Class<A> annotationType) {
+		return findHandlerMethod(request)
+			.flatMap(handlerMethod -> annotations.computeIfAbsent(new AnnotationKey(handlerMethod.getBeanType(), handlerMethod.getMethod(), annotationType),
+				key -> Optional.ofNullable(findMergedAnnotation(key))))
+			.map(annotationType::cast);
+	}
+
+	/**
+	 * Finds the request mapping pattern of the handler method serving the request, e.g.
+	 * {@code /{municipalityId}/pets/{id}}.
+	 *
+	 * @param  request the request
+	 * @return         the pattern, if the request is served by a handler method
+	 */
+	public Optional<String> findPathPattern(final HttpServletRequest request) {
+		return findHandlerMethod(request)
+			.map(_ -> request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE))
+			.map(Object::toString);
+	}
+
+	Optional<HandlerMethod> findHandlerMethod(final HttpServletRequest request) {
+		if (request.getAttribute(HANDLER_METHOD_ATTRIBUTE) instanceof final Optional<?> resolved) {
+			return resolved.map(HandlerMethod.class::cast);
+		}
+
+		final var handlerMapping = handlerMappingProvider.getIfAvailable();
+		if (handlerMapping == null) {
+			return Optional.empty();
+		}
+
+		final var handlerMethod = lookupHandlerMethod(handlerMapping, request);
+		request.setAttribute(HANDLER_METHOD_ATTRIBUTE, handlerMethod);
+		return handlerMethod;
+	}
+
+	private static Optional<HandlerMethod> lookupHandlerMethod(final RequestMappingHandlerMapping handlerMapping, final HttpServletRequest request) {
+		// The handler mapping expects a parsed request path, which is normally done by the DispatcherServlet
+		final var previousPath = ServletRequestPathUtils.hasParsedRequestPath(request) ? ServletRequestPathUtils.getParsedRequestPath(request) : null;
+		try {
+			ServletRequestPathUtils.parseAndCache(request);
+			final var chain = handlerMapping.getHandler(request);
+			return Optional.ofNullable(chain)
+				.map(HandlerExecutionChain::getHandler)
+				.filter(HandlerMethod.class::isInstance)
+				.map(HandlerMethod.class::cast);
+		} catch (final Exception _) {
+			// No handler (e.g. 404 or 405), the DispatcherServlet will produce the appropriate response
+			return Optional.empty();
+		} finally {
+			ServletRequestPathUtils.setParsedRequestPath(previousPath, request);
+		}
+	}
+
+	private static Annotation findMergedAnnotation(final AnnotationKey key) {
+		final var annotation = AnnotatedElementUtils.findMergedAnnotation(key.method(), key.annotationType());
+		return annotation != null ? annotation : AnnotatedElementUtils.findMergedAnnotation(key.beanType(), key.annotationType());
+	}
+
+	private record AnnotationKey(Class<?> beanType, Method method, Class<? extends Annotation> annotationType) {}
+}
@@ -0,0 +1,185 @@
+package se.sundsvall.dept44.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import java.util.Objects;
+import java.util.function.Predicate;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Server-side cache of serialized responses of endpoints annotated with {@link Dept44ResponseCache}.
+ * <p>
+ * Entries are weighed by their size in bytes, and the least valuable entries are evicted when the configured maximum
+ * size is exceeded. An entry expires when both its time to live and its stale-while-revalidate window have passed.
+ * <p>
+ * Inject this bean to invalidate entries when the underlying data changes:
+ *
+ * <pre>{@code
+ * responseCache.invalidateCache("pet-inventory");
+ * }</pre>
+ *
+ * Hit, miss and eviction metrics are published as the standard Micrometer {@code cache.*} meters with the tag
+ * {@code cache=dept44.response-cache}, together with {@code dept44.response.cache.stale} (stale responses served) and
+ * {@code dept44.response.cache.refresh} (refreshes of stale entries, tagged with the outcome).
+ */
+public class ResponseCache implements MeterBinder {
+
+	static final String CACHE_NAME = "dept44.response-cache";
+
+	private static final int ENTRY_OVERHEAD = 256;
+
+	private final Cache<ResponseCacheKey, CachedResponse> cache;
+	private final Ticker ticker;
+
+	private volatile Counter staleCounter;
+	private volatile Counter refreshSuccessCounter;
+	private volatile Counter refreshFailureCounter;
+
+	public ResponseCache(final DataSize maximumSize) {
+		this(maximumSize, Ticker.systemTicker());
+	}
+
+	ResponseCache(final DataSize maximumSize, final Ticker ticker) {
+		this.ticker = ticker;
+		this.cache = Caffeine.newBuilder()
+			.maximumWeight(maximumSize.toBytes())
+			.weigher(ResponseCache::weigh)
+			.expireAfter(new ResponseExpiry())
+			.ticker(ticker)
+			.recordStats()
+			.build();
+	}
+
+	/**
+	 * Removes the cached response for the given key.
+	 *
+	 * @param key the key
+	 */
+	public void invalidate(final ResponseCacheKey key) {
+		cache.invalidate(key);
+	}
+
+	/**
+	 * Removes all cached responses of the given cache (see {@link Dept44ResponseCache#name()}).
+	 *
+	 * @param cacheName the cache name
+	 */
+	public void invalidateCache(final String cacheName) {
+		invalidateIf(key -> Objects.equals(key.cacheName(), cacheName));
+	}
+
+	/**
+	 * Removes all cached responses for the given municipality.
+	 *
+	 * @param municipalityId the municipality id
+	 */
+	public void invalidateMunicipality(final String municipalityId) {
+		invalidateIf(key -> Objects.equals(key.municipalityId(), municipalityId));
+	}
+
+	/**
+	 * Removes all cached responses with a key matching the given predicate.
+	 *
+	 * @param predicate the predicate
+	 */
+	public void invalidateIf(final Predicate<ResponseCacheKey> predicate) {
+		cache.asMap().keySet().removeIf(predicate);
+	}
+
+	/**
+	 * Removes all cached responses.
+	 */
+	public void invalidateAll() {
+		cache.invalidateAll();
+	}
+
+	@Override
+	public void bindTo(final MeterRegistry registry) {
+		CaffeineCacheMetrics.monitor(registry, cache, CACHE_NAME);
+		staleCounter = Counter.builder("dept44.response.cache.stale")
+			.description("Stale responses served while refreshing")
+			.register(registry);
+		refreshSuccessCounter = Counter.builder("dept44.response.cache.refresh")
+			.description("Refreshes of stale responses")
+			.tag("outcome", "success")
+			.register(registry);
+		refreshFailureCounter = Counter.builder("dept44.response.cache.refresh")
+			.description("Refreshes of stale responses")
+			.tag("outcome", "failure")
+			.register(registry);
+	}
+
+	CachedResponse get(final ResponseCacheKey key) {
+		return cache.getIfPresent(key);
+	}
+
+	void put(final ResponseCacheKey key, final CachedResponse response) {
+		cache.put(key, response);
+	}
+
+	long now() {
+		return ticker.read();
+	}
+
+	void recordStale() {
+		increment(staleCounter);
+	}
+
+	void recordRefresh(final boolean successful) {
+		increment(successful ? refreshSuccessCounter : refreshFailureCounter);
+	}
+
+	private static void increment(final Counter counter) {
+		if (counter != null) {
+			counter.increment();
+		}
+	}
+
+	private static int weigh(final ResponseCacheKey key, final CachedResponse response) {
+		final long weight = ENTRY_OVERHEAD + key.weight() + response.weight();
+		return (int) Math.min(weight, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * A cached response.
+	 *
+	 * @param response        the buffered response
+	 * @param storedAt        when the response was stored (ticker time in nanoseconds)
+	 * @param timeToLiveNanos the time to live
+	 * @param staleNanos      the stale-while-revalidate window
+	 */
+	record CachedResponse(BufferedResponse response, long storedAt, long timeToLiveNanos, long staleNanos) {
+
+		boolean isFresh(final long now) {
+			return now - storedAt < timeToLiveNanos;
+		}
+
+		long weight() {
+			return response.weight();
+		}
+	}
+
+	private static class ResponseExpiry implements Expiry<ResponseCacheKey, CachedResponse> {
+
+		@Override
+		public long expireAfterCreate(final ResponseCacheKey key, final CachedResponse value, final long currentTime) {
+			return value.timeToLiveNanos() + value.staleNanos();
+		}
+
+		@Override
+		public long expireAfterUpdate(final ResponseCacheKey key, final CachedResponse value, final long currentTime, final long currentDuration) {
+			return value.timeToLiveNanos() + value.staleNanos();
+		}
+
+		@Override
+		public long expireAfterRead(final ResponseCacheKey key, final CachedResponse value, final long currentTime, final long currentDuration) {
+			return currentDuration;
+		}
+	}
+}
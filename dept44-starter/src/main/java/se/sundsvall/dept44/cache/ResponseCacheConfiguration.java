@@ -0,0 +1,41 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.util.unit.DataSize;
+import se.sundsvall.dept44.configuration.WebConfiguration;
+
+/**
+ * Autoconfiguration of the server-side response cache for endpoints annotated with {@link Dept44ResponseCache}.
+ * <p>
+ * The total size of the cached responses is limited by {@code dept44.response-cache.maximum-size} (default 50MB). The
+ * cache can be disabled with {@code dept44.response-cache.enabled=false}.
+ */
+@AutoConfiguration(after = WebConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnBean(HandlerAnnotationResolver.class)
+@ConditionalOnProperty(name = "dept44.response-cache.enabled", havingValue = "true", matchIfMissing = true)
+public class ResponseCacheConfiguration {
+
+	@Bean
+	ResponseCache responseCache(@Value("${dept44.response-cache.maximum-size:50MB}") final DataSize maximumSize) {
+		return new ResponseCache(maximumSize);
+	}
+
+	@Bean
+	FilterRegistrationBean<ResponseCacheFilter> responseCacheFilterRegistration(final HandlerAnnotationResolver handlerAnnotationResolver,
+		final ResponseCache responseCache) {
+		final var registration = new FilterRegistrationBean<>(new ResponseCacheFilter(handlerAnnotationResolver, responseCache));
+		registration.addUrlPatterns("/*");
+		// Stale entries are refreshed by an asynchronous dispatch
+		registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+		registration.setOrder(3);
+		return registration;
+	}
+}
@@ -0,0 +1,188 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import se.sundsvall.dept44.async.ContextSnapshot;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * Serves {@code GET} requests to endpoints annotated with {@link Dept44ResponseCache} from the {@link ResponseCache}.
+ * <p>
+ * On a miss the response is buffered, stored if successful, and written to the client. On a hit the cached bytes are
+ * written without invoking the handler. A stale entry (within its stale-while-revalidate window) is written to the
+ * client, whose response is then completed by closing the output stream. The entry is refreshed by an asynchronous
+ * dispatch of the request, which passes the filter chain and handler once more with the MDC and identifier of the
+ * request, against a detached response. A request that doesn't support asynchronous processing is not refreshed,
+ * leaving the entry to be loaded again once it has expired. Concurrent requests for an entry that is being refreshed
+ * are served the stale response without waiting.
+ */
+class ResponseCacheFilter extends OncePerRequestFilter {
+
+	private static final Logger LOG = LoggerFactory.getLogger(ResponseCacheFilter.class);
+
+	private static final String REFRESH_ATTRIBUTE = ResponseCacheFilter.class.getName() + ".refresh";
+
+	/**
+	 * How long a refresh may wait for its dispatch, after which the request is completed without refreshing.
+	 */
+	private static final Duration REFRESH_TIMEOUT = Duration.ofSeconds(30);
+
+	private final HandlerAnnotationResolver handlerAnnotationResolver;
+	private final ResponseCache responseCache;
+	private final Set<ResponseCacheKey> refreshing = ConcurrentHashMap.newKeySet();
+
+	ResponseCacheFilter(final HandlerAnnotationResolver handlerAnnotationResolver, final ResponseCache responseCache) {
+		this.handlerAnnotationResolver = handlerAnnotationResolver;
+		this.responseCache = responseCache;
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		// The refresh of a stale entry is an asynchronous dispatch
+		return false;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain)
+		throws ServletException, IOException {
+
+		if (isAsyncDispatch(request)) {
+			if (request.getAttribute(REFRESH_ATTRIBUTE) instanceof final Refresh refresh) {
+				request.removeAttribute(REFRESH_ATTRIBUTE);
+				refresh(refresh, request, response, chain);
+			} else {
+				chain.doFilter(request, response);
+			}
+			return;
+		}
+
+		final var annotation = HttpMethod.GET.matches(request.getMethod())
+			? handlerAnnotationResolver.findAnnotation(request, Dept44ResponseCache.class).orElse(null)
+			: null;
+
+		if (annotation == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		final var key = ResponseCacheKey.of(cacheName(annotation, request), request, annotation.varyHeaders());
+		final var cached = responseCache.get(key);
+
+		if (cached == null) {
+			final var wrapper = new ContentCachingResponseWrapper(response);
+			chain.doFilter(request, wrapper);
+			store(key, annotation, BufferedResponse.capture(wrapper));
+			wrapper.copyBodyToResponse();
+			return;
+		}
+
+		cached.response().writeTo(response);
+		if (!cached.isFresh(responseCache.now())) {
+			responseCache.recordStale();
+			if (request.isAsyncSupported() && refreshing.add(key)) {
+				dispatchRefresh(new Refresh(key, annotation, ContextSnapshot.capture()), request, response);
+			}
+		}
+	}
+
+	private void dispatchRefresh(final Refresh refresh, final HttpServletRequest request, final HttpServletResponse response) throws IOException {
+		final AsyncContext asyncContext;
+		try {
+			asyncContext = request.startAsync();
+		} catch (final IllegalStateException e) {
+			refreshing.remove(refresh.key());
+			LOG.warn("Unable to refresh cached response for {}", refresh.key().path(), e);
+			return;
+		}
+		asyncContext.setTimeout(REFRESH_TIMEOUT.toMillis());
+		asyncContext.addListener(new RefreshListener(refresh.key()));
+		request.setAttribute(REFRESH_ATTRIBUTE, refresh);
+
+		// The client has the complete stale response before the refresh starts
+		response.getOutputStream().close();
+		asyncContext.dispatch();
+	}
+
+	private void refresh(final Refresh refresh, final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain) {
+		final var detachedResponse = new DetachedResponse(response);
+		try (var _ = refresh.context().apply()) {
+			chain.doFilter(new DetachedRequest(request), detachedResponse);
+			final var stored = store(refresh.key(), refresh.annotation(), BufferedResponse.capture(detachedResponse));
+			responseCache.recordRefresh(stored);
+		} catch (final Exception e) {
+			LOG.warn("Unable to refresh cached response for {}", refresh.key().path(), e);
+			responseCache.recordRefresh(false);
+		} finally {
+			refreshing.remove(refresh.key());
+		}
+	}
+
+	private boolean store(final ResponseCacheKey key, final Dept44ResponseCache annotation, final BufferedResponse response) {
+		if (response.status() != HttpServletResponse.SC_OK) {
+			return false;
+		}
+		responseCache.put(key, new ResponseCache.CachedResponse(response, responseCache.now(),
+			TimeUnit.SECONDS.toNanos(annotation.ttl()), TimeUnit.SECONDS.toNanos(annotation.staleWhileRevalidate())));
+		return true;
+	}
+
+	private String cacheName(final Dept44ResponseCache annotation, final HttpServletRequest request) {
+		if (hasText(annotation.name())) {
+			return annotation.name();
+		}
+		return handlerAnnotationResolver.findHandlerMethod(request)
+			.map(handlerMethod -> handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName())
+			.orElseGet(request::getRequestURI);
+	}
+
+	private record Refresh(ResponseCacheKey key, Dept44ResponseCache annotation, ContextSnapshot context) {}
+
+	/**
+	 * Releases the entry for other refreshes when the request completes, also if it times out or fails before the
+	 * refresh is dispatched.
+	 */
+	private final class RefreshListener implements AsyncListener {
+
+		private final ResponseCacheKey key;
+
+		private RefreshListener(final ResponseCacheKey key) {
+			this.key = key;
+		}
+
+		@Override
+		public void onComplete(final AsyncEvent event) {
+			refreshing.remove(key);
+		}
+
+		@Override
+		public void onTimeout(final AsyncEvent event) {
+			event.getAsyncContext().complete();
+		}
+
+		@Override
+		public void onError(final AsyncEvent event) {
+			event.getAsyncContext().complete();
+		}
+
+		@Override
+		public void onStartAsync(final AsyncEvent event) {
+			// Not restarted
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.HandlerMapping;
+import se.sundsvall.dept44.support.Identifier;
+
+/**
+ * Key of a response in the {@link ResponseCache}.
+ *
+ * @param cacheName         the cache name (see {@link Dept44ResponseCache#name()})
+ * @param municipalityId    the municipality id of the request, if the path has a {@code municipalityId} variable
+ * @param path              the request path
+ * @param query             the query string
+ * @param accept            the {@code Accept} header
+ * @param varyHeaderValues  the values of the {@link Dept44ResponseCache#varyHeaders()}, in declaration order
+ * @param identity          a digest of the {@code Authorization} and {@code X-Sent-By} headers, if present, so that a
+ *                          response is never served to another caller than the one it was produced for
+ */
+public record ResponseCacheKey(String cacheName, String municipalityId, String path, String query, String accept, List<String> varyHeaderValues, String identity) {
+
+	static final String MUNICIPALITY_ID_VARIABLE = "municipalityId";
+
+	static ResponseCacheKey of(final String cacheName, final HttpServletRequest request, final String[] varyHeaders) {
+		return new ResponseCacheKey(cacheName,
+			municipalityId(request),
+			request.getRequestURI(),
+			request.getQueryString(),
+			request.getHeader(HttpHeaders.ACCEPT),
+			Stream.of(varyHeaders).map(request::getHeader).toList(),
+			identity(request));
+	}
+
+	int weight() {
+		return length(cacheName) + length(municipalityId) + length(path) + length(query) + length(accept) + length(identity)
+			+ varyHeaderValues.stream().mapToInt(ResponseCacheKey::length).sum();
+	}
+
+	private static String identity(final HttpServletRequest request) {
+		final var authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+		final var sentBy = request.getHeader(Identifier.HEADER_NAME);
+		if (authorization == null && sentBy == null) {
+			return null;
+		}
+		// Digested, so that the cache doesn't hold on to the credentials
+		try {
+			final var digest = MessageDigest.getInstance("SHA-256");
+			digest.update(String.valueOf(authorization).getBytes(StandardCharsets.UTF_8));
+			digest.update((byte) 0);
+			digest.update(String.valueOf(sentBy).getBytes(StandardCharsets.UTF_8));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (final NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String municipalityId(final HttpServletRequest request) {
+		// Populated when the handler was resolved by the HandlerAnnotationResolver
+		if (request.getAttribute(HandlerMapping.URI_TEMPLATE_VARIABLES_ATTRIBUTE) instanceof final Map<?, ?> variables
+			&& variables.get(MUNICIPALITY_ID_VARIABLE) instanceof final String municipalityId) {
+			return municipalityId;
+		}
+		return null;
+	}
+
+	private static int length(final String value) {
+		return value != null ? value.length() : 0;
+	}
+}
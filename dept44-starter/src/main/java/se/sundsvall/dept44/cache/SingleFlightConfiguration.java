@@ -0,0 +1,40 @@
+package se.sundsvall.dept44.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import se.sundsvall.dept44.configuration.WebConfiguration;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Autoconfiguration of request coalescing for endpoints annotated with {@link Dept44SingleFlight}.
+ * <p>
+ * The number of distinct requests in flight per endpoint is limited by {@code dept44.single-flight.max-keys} (default
+ * 10000). Coalescing can be disabled with {@code dept44.single-flight.enabled=false}.
+ */
+@AutoConfiguration(after = WebConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnBean(HandlerAnnotationResolver.class)
+@ConditionalOnProperty(name = "dept44.single-flight.enabled", havingValue = "true", matchIfMissing = true)
+public class SingleFlightConfiguration {
+
+	@Bean
+	FilterRegistrationBean<SingleFlightFilter> singleFlightFilterRegistration(final HandlerAnnotationResolver handlerAnnotationResolver,
+		final JsonMapper jsonMapper,
+		final ObjectProvider<MeterRegistry> meterRegistryProvider,
+		@Value("${dept44.single-flight.max-keys:10000}") final int maxKeys) {
+		final var filter = new SingleFlightFilter(handlerAnnotationResolver, jsonMapper, meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry), maxKeys);
+		final var registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/*");
+		// After the response cache, so that concurrent cache misses are coalesced
+		registration.setOrder(4);
+		return registration;
+	}
+}
@@ -0,0 +1,117 @@
+package se.sundsvall.dept44.cache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.http.HttpMethod;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import se.sundsvall.dept44.concurrent.SingleFlight;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.springframework.http.MediaType.APPLICATION_PROBLEM_JSON_VALUE;
+
+/**
+ * Coalesces identical concurrent {@code GET} requests to endpoints annotated with {@link Dept44SingleFlight}.
+ * <p>
+ * The first request is handled as usual, with its response buffered. Identical requests arriving meanwhile wait for it
+ * and get a copy of the buffered response, or the failure of the first request. There is one {@link SingleFlight} per
+ * handler method, so metrics are tagged with the controller and method name.
+ */
+class SingleFlightFilter extends OncePerRequestFilter {
+
+	private final HandlerAnnotationResolver handlerAnnotationResolver;
+	private final JsonMapper jsonMapper;
+	private final MeterRegistry meterRegistry;
+	private final int maxKeys;
+	private final Map<String, SingleFlight<ResponseCacheKey, BufferedResponse>> flights = new ConcurrentHashMap<>();
+
+	SingleFlightFilter(final HandlerAnnotationResolver handlerAnnotationResolver, final JsonMapper jsonMapper, final MeterRegistry meterRegistry, final int maxKeys) {
+		this.handlerAnnotationResolver = handlerAnnotationResolver;
+		this.jsonMapper = jsonMapper;
+		this.meterRegistry = meterRegistry;
+		this.maxKeys = maxKeys;
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain)
+		throws ServletException, IOException {
+
+		final var annotation = HttpMethod.GET.matches(request.getMethod())
+			? handlerAnnotationResolver.findAnnotation(request, Dept44SingleFlight.class).orElse(null)
+			: null;
+
+		if (annotation == null) {
+			chain.doFilter(request, response);
+			return;
+		}
+
+		final var name = handlerName(request);
+		final var flight = flights.computeIfAbsent(name, _ -> SingleFlight.<ResponseCacheKey, BufferedResponse>create(name, meterRegistry)
+			.withMaxKeys(maxKeys)
+			.withTimeout(Duration.parse(annotation.timeout())));
+
+		final var wrapper = new ContentCachingResponseWrapper(response);
+		final var leader = new AtomicBoolean();
+		final BufferedResponse shared;
+		try {
+			shared = flight.execute(ResponseCacheKey.of(name, request, annotation.varyHeaders()), () -> {
+				leader.set(true);
+				try {
+					chain.doFilter(request, wrapper);
+				} catch (final IOException | ServletException e) {
+					throw new ChainException(e);
+				}
+				return BufferedResponse.capture(wrapper);
+			});
+		} catch (final ThrowableProblem problem) {
+			writeProblem(response, problem);
+			return;
+		} catch (final ChainException e) {
+			// Followers share the failure of the leader, like any other failure, instead of running the chain again
+			throw e.unwrap();
+		}
+
+		if (leader.get()) {
+			wrapper.copyBodyToResponse();
+		} else {
+			shared.writeTo(response);
+		}
+	}
+
+	private void writeProblem(final HttpServletResponse response, final ThrowableProblem problem) throws IOException {
+		response.setContentType(APPLICATION_PROBLEM_JSON_VALUE);
+		response.setStatus(problem.getStatus().value());
+		response.getWriter().write(jsonMapper.writeValueAsString(problem));
+	}
+
+	private String handlerName(final HttpServletRequest request) {
+		return handlerAnnotationResolver.findHandlerMethod(request)
+			.map(handlerMethod -> handlerMethod.getBeanType().getSimpleName() + "." + handlerMethod.getMethod().getName())
+			.orElseGet(request::getRequestURI);
+	}
+
+	private static final class ChainException extends RuntimeException {
+
+		private static final long serialVersionUID = 1L;
+
+		private ChainException(final Exception cause) {
+			super(cause);
+		}
+
+		private IOException unwrap() throws ServletException {
+			if (getCause() instanceof final ServletException servletException) {
+				throw servletException;
+			}
+			return (IOException) getCause();
+		}
+	}
+}
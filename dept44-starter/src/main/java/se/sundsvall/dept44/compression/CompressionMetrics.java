@@ -0,0 +1,49 @@
+package se.sundsvall.dept44.compression;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.time.Duration;
+
+/**
+ * Publishes the compression ratio (uncompressed size divided by compressed size) in {@value #RATIO} and the time spent
+ * compressing or decompressing in {@value #TIME}, tagged with the client name, the direction ({@value #REQUEST} or
+ * {@value #RESPONSE}) and the coding.
+ */
+public final class CompressionMetrics {
+
+	public static final String RATIO = "dept44.http.client.compression.ratio";
+	public static final String TIME = "dept44.http.client.compression.time";
+	public static final String REQUEST = "request";
+	public static final String RESPONSE = "response";
+
+	private final String clientName;
+	private final MeterRegistry meterRegistry;
+
+	public CompressionMetrics(final String clientName, final MeterRegistry meterRegistry) {
+		this.clientName = clientName;
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * @param direction         {@value #REQUEST} or {@value #RESPONSE}
+	 * @param coding            the coding
+	 * @param uncompressedBytes the size of the uncompressed body
+	 * @param compressedBytes   the size of the compressed body
+	 * @param nanos             the time spent compressing or decompressing
+	 */
+	public void record(final String direction, final ContentCoding coding, final long uncompressedBytes, final long compressedBytes, final long nanos) {
+		if (compressedBytes > 0) {
+			DistributionSummary.builder(RATIO)
+				.description("Uncompressed size divided by compressed size of HTTP client bodies")
+				.tags("client", clientName, "direction", direction, "coding", coding.name())
+				.register(meterRegistry)
+				.record((double) uncompressedBytes / compressedBytes);
+		}
+		Timer.builder(TIME)
+			.description("Time spent compressing or decompressing HTTP client bodies")
+			.tags("client", clientName, "direction", direction, "coding", coding.name())
+			.register(meterRegistry)
+			.record(Duration.ofNanos(nanos));
+	}
+}
@@ -0,0 +1,107 @@
+package se.sundsvall.dept44.compression;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import org.springframework.util.Assert;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Settings for compression of HTTP client requests and responses, created with {@link #create()} and adjusted with the
+ * {@code with}-methods.
+ * <p>
+ * The defaults accept gzip-compressed responses and send requests uncompressed. Request compression is opt-in, as the
+ * server must be able to decompress request bodies, which Spring Boot servers don't do by default.
+ */
+public class CompressionSettings {
+
+	private List<ContentCoding> codings = List.of(ContentCoding.GZIP);
+	private DataSize requestCompressionThreshold;
+	private MeterRegistry meterRegistry;
+
+	private CompressionSettings() {}
+
+	public static CompressionSettings create() {
+		return new CompressionSettings();
+	}
+
+	/**
+	 * @param  codings the codings to accept for responses, in order of preference. The first one is used to compress
+	 *                 requests.
+	 * @return         this settings instance
+	 */
+	public CompressionSettings withCodings(final List<ContentCoding> codings) {
+		Assert.notEmpty(codings, "codings may not be empty");
+		this.codings = List.copyOf(codings);
+		return this;
+	}
+
+	/**
+	 * Compresses request bodies of at least the given size with the first coding.
+	 *
+	 * @param  threshold the size of the smallest body to compress
+	 * @return           this settings instance
+	 */
+	public CompressionSettings withRequestCompression(final DataSize threshold) {
+		Assert.notNull(threshold, "threshold may not be null");
+		Assert.isTrue(!threshold.isNegative(), "threshold must not be negative");
+		this.requestCompressionThreshold = threshold;
+		return this;
+	}
+
+	/**
+	 * @param  meterRegistry the registry to publish compression metrics in, defaults to the registry of the application
+	 * @return               this settings instance
+	 */
+	public CompressionSettings withMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		return this;
+	}
+
+	public List<ContentCoding> getCodings() {
+		return codings;
+	}
+
+	/**
+	 * @return the size of the smallest request body to compress, or null if requests are not compressed
+	 */
+	public DataSize getRequestCompressionThreshold() {
+		return requestCompressionThreshold;
+	}
+
+	/**
+	 * @return the registry to publish metrics in, or null if the registry of the application is used
+	 */
+	public MeterRegistry getMeterRegistry() {
+		return meterRegistry;
+	}
+
+	/**
+	 * @return the value of the {@code Accept-Encoding} header, e.g. {@code "zstd, gzip"}
+	 */
+	public String getAcceptEncoding() {
+		return codings.stream()
+			.map(ContentCoding::name)
+			.collect(Collectors.joining(", "));
+	}
+
+	/**
+	 * @param  name the name of a coding, e.g. from a {@code Content-Encoding} header
+	 * @return      the coding with the name, if accepted
+	 */
+	public Optional<ContentCoding> getCoding(final String name) {
+		return codings.stream()
+			.filter(coding -> coding.name().equalsIgnoreCase(name == null ? null : name.trim()))
+			.findFirst();
+	}
+
+	/**
+	 * @param  bodySize the size of a request body
+	 * @return          whether a body of the size is compressed
+	 */
+	public boolean isCompressed(final long bodySize) {
+		return requestCompressionThreshold != null && bodySize > 0 && bodySize >= requestCompressionThreshold.toBytes();
+	}
+}
@@ -0,0 +1,77 @@
+package se.sundsvall.dept44.compression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * An HTTP content coding, e.g. {@code gzip}, used in {@code Accept-Encoding} and {@code Content-Encoding}.
+ * <p>
+ * {@link #GZIP} is built in. Other codings are created with {@link #of(String, Codec, Codec)}, e.g. zstd with the
+ * streams of a zstd library:
+ *
+ * <pre>{@code
+ * ContentCoding zstd = ContentCoding.of("zstd", ZstdOutputStream::new, ZstdInputStream::new);
+ * }</pre>
+ */
+public interface ContentCoding {
+
+	ContentCoding GZIP = of("gzip", GZIPOutputStream::new, GZIPInputStream::new);
+
+	/**
+	 * @return the name of the coding in HTTP headers
+	 */
+	String name();
+
+	/**
+	 * @param  outputStream the stream to write the compressed bytes to
+	 * @return              a stream compressing what is written to it, which must be closed to finish the compression
+	 * @throws IOException  if the stream could not be created
+	 */
+	OutputStream compress(OutputStream outputStream) throws IOException;
+
+	/**
+	 * @param  bytes       the bytes to compress
+	 * @return             the compressed bytes
+	 * @throws IOException if the bytes could not be compressed
+	 */
+	default byte[] compress(final byte[] bytes) throws IOException {
+		final var compressed = new ByteArrayOutputStream(bytes.length / 4 + 64);
+		try (var outputStream = compress(compressed)) {
+			outputStream.write(bytes);
+		}
+		return compressed.toByteArray();
+	}
+
+	/**
+	 * @param  inputStream the stream of compressed bytes
+	 * @return             a stream of the decompressed bytes, decompressed as they are read
+	 * @throws IOException if the stream could not be created
+	 */
+	InputStream decompress(InputStream inputStream) throws IOException;
+
+	/**
+	 * Creates a content coding from a pair of stream constructors.
+	 *
+	 * @param  name         the name of the coding in HTTP headers
+	 * @param  compressor   creates the compressing stream
+	 * @param  decompressor creates the decompressing stream
+	 * @return              the content coding
+	 */
+	static ContentCoding of(final String name, final Codec<OutputStream> compressor, final Codec<InputStream> decompressor) {
+		return new StreamContentCoding(name, compressor, decompressor);
+	}
+
+	/**
+	 * Wraps a stream in a compressing or decompressing stream.
+	 *
+	 * @param <S> the stream type
+	 */
+	@FunctionalInterface
+	interface Codec<S> {
+		S wrap(S stream) throws IOException;
+	}
+}
@@ -0,0 +1,26 @@
+package se.sundsvall.dept44.compression;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static java.util.Objects.requireNonNull;
+
+record StreamContentCoding(String name, Codec<OutputStream> compressor, Codec<InputStream> decompressor) implements ContentCoding {
+
+	StreamContentCoding {
+		requireNonNull(name);
+		requireNonNull(compressor);
+		requireNonNull(decompressor);
+	}
+
+	@Override
+	public OutputStream compress(final OutputStream outputStream) throws IOException {
+		return compressor.wrap(outputStream);
+	}
+
+	@Override
+	public InputStream decompress(final InputStream inputStream) throws IOException {
+		return decompressor.wrap(inputStream);
+	}
+}
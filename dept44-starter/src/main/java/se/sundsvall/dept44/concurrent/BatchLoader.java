@@ -0,0 +1,377 @@
+package se.sundsvall.dept44.concurrent;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+import org.springframework.util.Assert;
+import se.sundsvall.dept44.async.ContextSnapshot;
+import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Collects keys loaded one at a time into batches, so that a list of N items costs one bulk call instead of N lookups.
+ * <p>
+ * Keys loaded with {@link #load(Object)} within a short window, from any thread, are dispatched together to the batch
+ * function, e.g. a repository {@code findAllById} or a bulk endpoint of an integration. A batch is dispatched when the
+ * window has passed or when it reaches the maximum batch size, whichever comes first. {@link #loadAll(Collection)}
+ * dispatches its keys right away, split into batches of at most the maximum batch size.
+ * <p>
+ * Values are memoized per request id and {@link Identifier}, so a key loaded again while handling the same request,
+ * e.g. from the subtasks of a {@link Fanout}, is not loaded again. The memoized values of a request are dropped by
+ * {@link #endRequest(String)} when the request ends, and are kept for at most the memoization time. Without a request
+ * id, nothing is memoized. Failed loads are not memoized.
+ * <p>
+ * Keys are batched per {@link Identifier}, so callers acting as different users never share a batch. The batch function
+ * is called with the request id, identifier and MDC of the caller that started the batch. Keys missing in the map it
+ * returns are loaded as {@code null}. A failure of the batch function is rethrown to every caller waiting for the
+ * batch; callers give up after the timeout with a {@code 503 Service Unavailable} problem.
+ * <p>
+ * The sizes of the dispatched batches and the number of memoized loads are published as
+ * {@code dept44.batch.loader.batch.size} and {@code dept44.batch.loader.memoized}, tagged with the name, to the registry
+ * given on creation.
+ * <p>
+ * <strong>Example usage:</strong>
+ *
+ * <pre>{@code
+ * private final BatchLoader<Long, PetNameEntity> petNames;
+ *
+ * PetInventoryService(final PetNameRepository petNameRepository, final MeterRegistry meterRegistry) {
+ * 	this.petNames = BatchLoader.<Long, PetNameEntity>create("pet-names", meterRegistry,
+ * 		ids -> petNameRepository.findAllById(ids).stream().collect(toMap(PetNameEntity::getId, identity())));
+ * }
+ *
+ * List<PetInventoryItem> getPetInventoryList() {
+ * 	return fanout.map(petStoreClient.findAllPets(), pet -> withName(toPetInventoryItem(pet), petNames.load(pet.getId())));
+ * }
+ * }</pre>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class BatchLoader<K, V> {
+
+	static final int DEFAULT_MAX_BATCH_SIZE = 100;
+	static final Duration DEFAULT_WINDOW = Duration.ofMillis(5);
+	static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+	static final Duration DEFAULT_MEMOIZATION = Duration.ofSeconds(30);
+	static final int MAX_MEMOIZED_REQUESTS = 10_000;
+
+	private static final Set<BatchLoader<?, ?>> LOADERS = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+	private final String name;
+	private final Function<Set<K>, Map<K, V>> batchFunction;
+	private final ExecutorService executor;
+	private final Object lock = new Object();
+
+	private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+	private Duration window = DEFAULT_WINDOW;
+	private Duration timeout = DEFAULT_TIMEOUT;
+	private final Map<String, Batch<K, V>> pending = new HashMap<>();
+
+	private final DistributionSummary batchSizeSummary;
+	private final Counter memoizedCounter;
+	private Cache<String, Map<String, Map<K, CompletableFuture<V>>>> memoized;
+
+	private BatchLoader(final String name, final MeterRegistry meterRegistry, final Function<Set<K>, Map<K, V>> batchFunction) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.name = name;
+		this.batchFunction = batchFunction;
+		this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("batch-loader-" + name + "-", 0).factory());
+		this.batchSizeSummary = DistributionSummary.builder("dept44.batch.loader.batch.size")
+			.description("Number of keys in dispatched batches")
+			.tag("name", name)
+			.register(meterRegistry);
+		this.memoizedCounter = Counter.builder("dept44.batch.loader.memoized")
+			.description("Loads answered by a value already loaded for the request")
+			.tag("name", name)
+			.register(meterRegistry);
+		withMemoization(DEFAULT_MEMOIZATION);
+		LOADERS.add(this);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param  name          the name, used in thread names, metrics and problem details
+	 * @param  meterRegistry the registry to publish metrics to, normally the application registry
+	 * @param  batchFunction loads the values of a set of keys, returning them mapped by key
+	 * @param  <K>           the key type
+	 * @param  <V>           the value type
+	 * @return               a new instance
+	 */
+	public static <K, V> BatchLoader<K, V> create(final String name, final MeterRegistry meterRegistry, final Function<Set<K>, Map<K, V>> batchFunction) {
+		return new BatchLoader<>(name, meterRegistry, batchFunction);
+	}
+
+	/**
+	 * Drops the values memoized for the request id by every loader. Called when a request, or a scheduled execution, ends,
+	 * so that a request id reused by a later request does not see them.
+	 *
+	 * @param requestId the request id
+	 */
+	public static void endRequest(final String requestId) {
+		if (requestId == null) {
+			return;
+		}
+		final List<BatchLoader<?, ?>> loaders;
+		synchronized (LOADERS) {
+			loaders = List.copyOf(LOADERS);
+		}
+		loaders.stream()
+			.map(loader -> loader.memoized)
+			.filter(Objects::nonNull)
+			.forEach(cache -> cache.invalidate(requestId));
+	}
+
+	/**
+	 * Sets the maximum number of keys in one batch (default 100).
+	 *
+	 * @param  maxBatchSize the maximum batch size
+	 * @return              this instance
+	 */
+	public BatchLoader<K, V> withMaxBatchSize(final int maxBatchSize) {
+		this.maxBatchSize = maxBatchSize;
+		return this;
+	}
+
+	/**
+	 * Sets for how long keys are collected before a batch is dispatched (default 5 milliseconds).
+	 *
+	 * @param  window the window
+	 * @return        this instance
+	 */
+	public BatchLoader<K, V> withWindow(final Duration window) {
+		this.window = window;
+		return this;
+	}
+
+	/**
+	 * Sets for how long a caller waits for its batch (default 30 seconds).
+	 *
+	 * @param  timeout the timeout
+	 * @return         this instance
+	 */
+	public BatchLoader<K, V> withTimeout(final Duration timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Sets for how long the values loaded for a request id are memoized at most (default 30 seconds).
+	 * {@link Duration#ZERO} disables memoization.
+	 *
+	 * @param  memoization the memoization time
+	 * @return             this instance
+	 */
+	public BatchLoader<K, V> withMemoization(final Duration memoization) {
+		this.memoized = memoization.isZero() ? null : Caffeine.newBuilder()
+			.expireAfterWrite(memoization)
+			.maximumSize(MAX_MEMOIZED_REQUESTS)
+			.build();
+		return this;
+	}
+
+	/**
+	 * Loads the value of the key, in a batch with the keys loaded by other callers within the window.
+	 *
+	 * @param  key the key
+	 * @return     the value, or {@code null} if the batch function returned none for the key
+	 */
+	public V load(final K key) {
+		return await(loadAsync(key));
+	}
+
+	/**
+	 * Loads the value of the key, in a batch with the keys loaded by other callers within the window.
+	 *
+	 * @param  key the key
+	 * @return     a future completed with the value when the batch has been loaded
+	 */
+	public CompletableFuture<V> loadAsync(final K key) {
+		final var requestValues = requestValues();
+		if (requestValues != null) {
+			final var existing = requestValues.get(key);
+			if (existing != null) {
+				memoizedCounter.increment();
+				return existing;
+			}
+		}
+		return memoize(requestValues, key, enqueue(key));
+	}
+
+	/**
+	 * Loads the values of the keys right away, in batches of at most the maximum batch size.
+	 *
+	 * @param  keys the keys
+	 * @return      the values mapped by key, in the order of the keys. Keys without value are mapped to {@code null}.
+	 */
+	public Map<K, V> loadAll(final Collection<? extends K> keys) {
+		final var requestValues = requestValues();
+		final Map<K, CompletableFuture<V>> futures = new LinkedHashMap<>();
+		final List<K> missing = new ArrayList<>();
+		for (final K key : new LinkedHashSet<K>(keys)) {
+			final var existing = requestValues != null ? requestValues.get(key) : null;
+			if (existing != null) {
+				memoizedCounter.increment();
+				futures.put(key, existing);
+			} else {
+				missing.add(key);
+			}
+		}
+
+		for (var from = 0; from < missing.size(); from += maxBatchSize) {
+			final var batch = new Batch<K, V>(identity(), ContextSnapshot.capture());
+			missing.subList(from, Math.min(from + maxBatchSize, missing.size()))
+				.forEach(key -> futures.put(key, memoize(requestValues, key, batch.add(key))));
+			dispatch(batch);
+		}
+
+		final Map<K, V> values = new LinkedHashMap<>();
+		futures.forEach((key, future) -> values.put(key, await(future)));
+		return values;
+	}
+
+	private CompletableFuture<V> enqueue(final K key) {
+		final var identity = identity();
+		final CompletableFuture<V> future;
+		Batch<K, V> full = null;
+		synchronized (lock) {
+			var batch = pending.get(identity);
+			if (batch == null) {
+				final var created = new Batch<K, V>(identity, ContextSnapshot.capture());
+				pending.put(identity, created);
+				CompletableFuture.runAsync(() -> dispatchIfPending(created), CompletableFuture.delayedExecutor(window.toNanos(), TimeUnit.NANOSECONDS, executor));
+				batch = created;
+			}
+			future = batch.add(key);
+			if (batch.size() >= maxBatchSize) {
+				full = batch;
+				pending.remove(identity);
+			}
+		}
+		// A full batch is dispatched by the caller that filled it, rather than waiting for the window to pass
+		if (full != null) {
+			dispatch(full);
+		}
+		return future;
+	}
+
+	private void dispatchIfPending(final Batch<K, V> batch) {
+		synchronized (lock) {
+			if (!pending.remove(batch.identity(), batch)) {
+				// Already dispatched when it was filled
+				return;
+			}
+		}
+		dispatch(batch);
+	}
+
+	private void dispatch(final Batch<K, V> batch) {
+		batchSizeSummary.record(batch.size());
+		try (var _ = batch.snapshot().apply()) {
+			final var values = batchFunction.apply(Collections.unmodifiableSet(batch.futures().keySet()));
+			batch.futures().forEach((key, future) -> future.complete(values.get(key)));
+		} catch (final RuntimeException | Error e) {
+			batch.futures().values().forEach(future -> future.completeExceptionally(e));
+		}
+	}
+
+	private Map<K, CompletableFuture<V>> requestValues() {
+		final var requestId = RequestId.get();
+		if (memoized == null || requestId == null) {
+			return null;
+		}
+		return memoized.get(requestId, _ -> new ConcurrentHashMap<>()).computeIfAbsent(identity(), _ -> new ConcurrentHashMap<>());
+	}
+
+	/**
+	 * @return the identifier of the caller as a key, empty if there is none
+	 */
+	private static String identity() {
+		final var identifier = Identifier.get();
+		return identifier != null ? identifier.toHeaderValue() : "";
+	}
+
+	private static <K, V> CompletableFuture<V> memoize(final Map<K, CompletableFuture<V>> requestValues, final K key, final CompletableFuture<V> future) {
+		if (requestValues == null) {
+			return future;
+		}
+		final var existing = requestValues.putIfAbsent(key, future);
+		if (existing != null) {
+			return existing;
+		}
+		future.whenComplete((_, failure) -> {
+			if (failure != null) {
+				requestValues.remove(key, future);
+			}
+		});
+		return future;
+	}
+
+	private V await(final CompletableFuture<V> future) {
+		try {
+			return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (final TimeoutException _) {
+			throw Problem.valueOf(SERVICE_UNAVAILABLE, "Timed out waiting for batch of '%s'".formatted(name));
+		} catch (final InterruptedException _) {
+			Thread.currentThread().interrupt();
+			throw Problem.valueOf(SERVICE_UNAVAILABLE, "Interrupted while waiting for batch of '%s'".formatted(name));
+		} catch (final ExecutionException e) {
+			throw rethrow(e.getCause());
+		}
+	}
+
+	private static RuntimeException rethrow(final Throwable cause) {
+		if (cause instanceof final RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		if (cause instanceof final Error error) {
+			throw error;
+		}
+		return new IllegalStateException(cause);
+	}
+
+	/**
+	 * Keys collected for one call of the batch function, by callers with the same identity. Keys are only added while the
+	 * batch is pending, under the lock of the loader, or before it is dispatched by the thread that created it.
+	 */
+	private record Batch<K, V>(String identity, ContextSnapshot snapshot, Map<K, CompletableFuture<V>> futures) {
+
+		Batch(final String identity, final ContextSnapshot snapshot) {
+			this(identity, snapshot, new LinkedHashMap<>());
+		}
+
+		CompletableFuture<V> add(final K key) {
+			return futures.computeIfAbsent(key, _ -> new CompletableFuture<>());
+		}
+
+		int size() {
+			return futures.size();
+		}
+	}
+}
@@ -0,0 +1,210 @@
+package se.sundsvall.dept44.concurrent;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import se.sundsvall.dept44.async.ContextSnapshot;
+import se.sundsvall.dept44.problem.Problem;
+
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Runs independent sub-calls in parallel on virtual threads and waits for all of them.
+ * <p>
+ * Every call is structured: it does not return until all its subtasks are done, and the first failure cancels the
+ * remaining subtasks. The request id, {@link se.sundsvall.dept44.support.Identifier} and MDC of the calling thread are
+ * propagated to the subtasks.
+ * <p>
+ * The whole call must complete within the deadline, otherwise the remaining subtasks are cancelled and a
+ * {@code 504 Gateway Timeout} problem is thrown. The number of subtasks running at the same time in one call is limited
+ * by the maximum concurrency, so that a large list does not use hundreds of database connections. A failing subtask is
+ * rethrown as is, so that it is mapped to a problem the same way as if it was called directly; checked exceptions are
+ * mapped to a {@code 500 Internal Server Error} problem.
+ * <p>
+ * <strong>Example usage:</strong>
+ *
+ * <pre>{@code
+ * private final Fanout fanout = Fanout.create("pet-inventory")
+ * 	.withDeadline(Duration.ofSeconds(10))
+ * 	.withMaxConcurrency(4);
+ *
+ * List<PetInventoryItem> getPetInventoryList() {
+ * 	return fanout.map(petStoreClient.findAllPets(), pet -> populateWithName(toPetInventoryItem(pet)));
+ * }
+ * }</pre>
+ */
+public final class Fanout {
+
+	static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(30);
+	static final int DEFAULT_MAX_CONCURRENCY = 8;
+
+	private final String name;
+	private final ThreadFactory threadFactory;
+
+	private Duration deadline = DEFAULT_DEADLINE;
+	private int maxConcurrency = DEFAULT_MAX_CONCURRENCY;
+
+	private Fanout(final String name) {
+		this.name = name;
+		this.threadFactory = Thread.ofVirtual().name("fanout-" + name + "-", 0).factory();
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param  name the name, used in thread names and problem details
+	 * @return      a new instance
+	 */
+	public static Fanout create(final String name) {
+		return new Fanout(name);
+	}
+
+	/**
+	 * Sets the deadline for each call, including waiting for a free slot (default 30 seconds).
+	 *
+	 * @param  deadline the deadline
+	 * @return          this instance
+	 */
+	public Fanout withDeadline(final Duration deadline) {
+		this.deadline = deadline;
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of subtasks running at the same time in each call (default 8).
+	 *
+	 * @param  maxConcurrency the maximum concurrency
+	 * @return                this instance
+	 */
+	public Fanout withMaxConcurrency(final int maxConcurrency) {
+		this.maxConcurrency = maxConcurrency;
+		return this;
+	}
+
+	/**
+	 * Applies the function to every item in parallel.
+	 *
+	 * @param  items    the items
+	 * @param  function the function
+	 * @param  <T>      the item type
+	 * @param  <R>      the result type
+	 * @return          the results, in the order of the items
+	 */
+	public <T, R> List<R> map(final Collection<? extends T> items, final Function<? super T, ? extends R> function) {
+		return invokeAll(items.stream()
+			.<Callable<R>>map(item -> () -> function.apply(item))
+			.toList());
+	}
+
+	/**
+	 * Runs two calls in parallel and combines their results.
+	 *
+	 * @param  first    the first call
+	 * @param  second   the second call
+	 * @param  combiner combines the results
+	 * @param  <A>      the result type of the first call
+	 * @param  <B>      the result type of the second call
+	 * @param  <R>      the combined type
+	 * @return          the combined result
+	 */
+	@SuppressWarnings("unchecked")
+	public <A, B, R> R join(final Callable<A> first, final Callable<B> second, final BiFunction<? super A, ? super B, ? extends R> combiner) {
+		final var results = invokeAll(List.<Callable<Object>>of(first::call, second::call));
+		return combiner.apply((A) results.get(0), (B) results.get(1));
+	}
+
+	/**
+	 * Runs the tasks in parallel.
+	 *
+	 * @param tasks the tasks
+	 */
+	public void run(final Runnable... tasks) {
+		invokeAll(Arrays.stream(tasks)
+			.<Callable<Void>>map(task -> () -> {
+				task.run();
+				return null;
+			})
+			.toList());
+	}
+
+	/**
+	 * Runs the calls in parallel.
+	 *
+	 * @param  calls the calls
+	 * @param  <R>   the result type
+	 * @return       the results, in the order of the calls
+	 */
+	public <R> List<R> invokeAll(final List<? extends Callable<? extends R>> calls) {
+		if (calls.isEmpty()) {
+			return List.of();
+		}
+
+		final var deadlineNanos = System.nanoTime() + deadline.toNanos();
+		final var snapshot = ContextSnapshot.capture();
+		final var permits = new Semaphore(maxConcurrency);
+		final var results = new ArrayList<R>(Collections.nCopies(calls.size(), null));
+		final var futures = new ArrayList<Future<Integer>>(calls.size());
+
+		try (var executor = Executors.newThreadPerTaskExecutor(threadFactory)) {
+			final var completionService = new ExecutorCompletionService<Integer>(executor);
+			for (var i = 0; i < calls.size(); i++) {
+				final var index = i;
+				final Callable<? extends R> call = calls.get(i);
+				futures.add(completionService.submit(snapshot.wrap(() -> {
+					permits.acquire();
+					try {
+						// Each subtask sets its own index, and completion is awaited through the futures before the results are read
+						results.set(index, call.call());
+						return index;
+					} finally {
+						permits.release();
+					}
+				})));
+			}
+
+			try {
+				for (var i = 0; i < calls.size(); i++) {
+					final var completed = completionService.poll(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+					if (completed == null) {
+						throw Problem.valueOf(GATEWAY_TIMEOUT, "Fanout '%s' did not complete within %s".formatted(name, deadline));
+					}
+					completed.get();
+				}
+			} catch (final InterruptedException _) {
+				Thread.currentThread().interrupt();
+				throw Problem.valueOf(SERVICE_UNAVAILABLE, "Interrupted while waiting for fanout '%s'".formatted(name));
+			} catch (final ExecutionException e) {
+				throw rethrow(e.getCause());
+			} finally {
+				futures.forEach(future -> future.cancel(true));
+			}
+		}
+
+		return Collections.unmodifiableList(results);
+	}
+
+	private RuntimeException rethrow(final Throwable cause) {
+		if (cause instanceof final RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		if (cause instanceof final Error error) {
+			throw error;
+		}
+		return Problem.valueOf(INTERNAL_SERVER_ERROR, "Fanout '%s' failed: %s".formatted(name, cause.getMessage()));
+	}
+}
@@ -0,0 +1,177 @@
+package se.sundsvall.dept44.concurrent;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import org.springframework.util.Assert;
+import se.sundsvall.dept44.problem.Problem;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+/**
+ * Coalesces concurrent calls with the same key into one in-flight computation.
+ * <p>
+ * The first caller for a key executes the computation, and callers arriving with the same key while it is in flight
+ * wait for it and share its result - or its failure. Nothing is cached: once the computation is done, the next call
+ * with the same key executes a new one.
+ * <p>
+ * The number of keys in flight is bounded. When the bound is reached, callers with new keys execute their computation
+ * directly, without coalescing. Waiting callers give up after the timeout with a {@code 503 Service Unavailable}
+ * problem.
+ * <p>
+ * The number of coalesced calls and wait timeouts are published as {@code dept44.single.flight.coalesced} and
+ * {@code dept44.single.flight.timeouts}, tagged with the name, to the registry given on creation.
+ * <p>
+ * <strong>Example usage:</strong>
+ *
+ * <pre>{@code
+ * private final SingleFlight<String, PetStoreItem> petFlight;
+ *
+ * PetService(final MeterRegistry meterRegistry) {
+ * 	this.petFlight = SingleFlight.<String, PetStoreItem>create("pets", meterRegistry).withTimeout(Duration.ofSeconds(10));
+ * }
+ *
+ * PetStoreItem getPet(final String id) {
+ * 	return petFlight.execute(id, () -> petStoreClient.getPet(id));
+ * }
+ * }</pre>
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class SingleFlight<K, V> {
+
+	static final int DEFAULT_MAX_KEYS = 10_000;
+	static final Duration DEFAULT_TIMEOUT = Duration.ofSeconds(30);
+
+	private final String name;
+	private final Map<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+	private int maxKeys = DEFAULT_MAX_KEYS;
+	private Duration timeout = DEFAULT_TIMEOUT;
+	private final Counter coalescedCounter;
+	private final Counter timeoutCounter;
+
+	private SingleFlight(final String name, final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.name = name;
+		this.coalescedCounter = Counter.builder("dept44.single.flight.coalesced")
+			.description("Calls that waited for an identical in-flight call")
+			.tag("name", name)
+			.register(meterRegistry);
+		this.timeoutCounter = Counter.builder("dept44.single.flight.timeouts")
+			.description("Calls that timed out waiting for an identical in-flight call")
+			.tag("name", name)
+			.register(meterRegistry);
+	}
+
+	/**
+	 * Creates a new instance.
+	 *
+	 * @param  name          the name, used in metrics and problem details
+	 * @param  meterRegistry the registry to publish metrics to, normally the application registry
+	 * @param  <K>           the key type
+	 * @param  <V>           the value type
+	 * @return               a new instance
+	 */
+	public static <K, V> SingleFlight<K, V> create(final String name, final MeterRegistry meterRegistry) {
+		return new SingleFlight<>(name, meterRegistry);
+	}
+
+	/**
+	 * Sets the maximum number of keys in flight (default 10000).
+	 *
+	 * @param  maxKeys the maximum number of keys
+	 * @return         this instance
+	 */
+	public SingleFlight<K, V> withMaxKeys(final int maxKeys) {
+		this.maxKeys = maxKeys;
+		return this;
+	}
+
+	/**
+	 * Sets for how long a caller waits for an in-flight computation (default 30 seconds).
+	 *
+	 * @param  timeout the timeout
+	 * @return         this instance
+	 */
+	public SingleFlight<K, V> withTimeout(final Duration timeout) {
+		this.timeout = timeout;
+		return this;
+	}
+
+	/**
+	 * Executes the computation for the key, or waits for an in-flight computation with the same key.
+	 *
+	 * @param  key         the key
+	 * @param  computation the computation
+	 * @return             the result of the computation
+	 */
+	public V execute(final K key, final Supplier<V> computation) {
+		final var existing = inFlight.get(key);
+		if (existing != null) {
+			return await(existing);
+		}
+		if (inFlight.size() >= maxKeys) {
+			return computation.get();
+		}
+
+		final var future = new CompletableFuture<V>();
+		final var previous = inFlight.putIfAbsent(key, future);
+		if (previous != null) {
+			return await(previous);
+		}
+
+		try {
+			final var value = computation.get();
+			future.complete(value);
+			return value;
+		} catch (final RuntimeException | Error e) {
+			future.completeExceptionally(e);
+			throw e;
+		} finally {
+			inFlight.remove(key, future);
+		}
+	}
+
+	/**
+	 * Returns the number of keys currently in flight.
+	 *
+	 * @return the number of keys in flight
+	 */
+	public int inFlight() {
+		return inFlight.size();
+	}
+
+	private V await(final CompletableFuture<V> future) {
+		coalescedCounter.increment();
+		try {
+			return future.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		} catch (final TimeoutException _) {
+			timeoutCounter.increment();
+			throw Problem.valueOf(SERVICE_UNAVAILABLE, "Timed out waiting for in-flight call to '%s'".formatted(name));
+		} catch (final InterruptedException _) {
+			Thread.currentThread().interrupt();
+			throw Problem.valueOf(SERVICE_UNAVAILABLE, "Interrupted while waiting for in-flight call to '%s'".formatted(name));
+		} catch (final ExecutionException e) {
+			throw rethrow(e.getCause());
+		}
+	}
+
+	private static RuntimeException rethrow(final Throwable cause) {
+		if (cause instanceof final RuntimeException runtimeException) {
+			throw runtimeException;
+		}
+		if (cause instanceof final Error error) {
+			throw error;
+		}
+		return new IllegalStateException(cause);
+	}
+}
@@ -0,0 +1,25 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+/**
+ * A concurrency limit that adapts to the observed latency of the requests it admits.
+ * <p>
+ * Implementations are thread safe.
+ */
+public interface AdaptiveLimit {
+
+	/**
+	 * Returns the current limit.
+	 *
+	 * @return the number of requests allowed in flight
+	 */
+	int getLimit();
+
+	/**
+	 * Updates the limit from a completed request.
+	 *
+	 * @param rttNanos the round-trip time of the request
+	 * @param inFlight the number of requests in flight when the request was admitted
+	 * @param dropped  whether the request failed in a way that indicates overload (e.g. a timeout or a 5xx)
+	 */
+	void onSample(long rttNanos, int inFlight, boolean dropped);
+}
@@ -0,0 +1,46 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+/**
+ * Additive increase, multiplicative decrease. The limit grows by one for each successful request that used at least half
+ * of the limit, and is multiplied by the backoff ratio when a request is dropped or slower than the latency threshold.
+ */
+public class AimdLimit implements AdaptiveLimit {
+
+	private final int minLimit;
+	private final int maxLimit;
+	private final double backoffRatio;
+	private final long latencyThresholdNanos;
+
+	private volatile int limit;
+
+	/**
+	 * @param initialLimit          the initial limit
+	 * @param minLimit              the minimum limit
+	 * @param maxLimit              the maximum limit
+	 * @param backoffRatio          the ratio the limit is multiplied with on overload, e.g. 0.9
+	 * @param latencyThresholdNanos the latency above which a request is considered dropped
+	 */
+	public AimdLimit(final int initialLimit, final int minLimit, final int maxLimit, final double backoffRatio, final long latencyThresholdNanos) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.backoffRatio = backoffRatio;
+		this.latencyThresholdNanos = latencyThresholdNanos;
+		this.limit = initialLimit;
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+		var newLimit = limit;
+		if (dropped || rttNanos > latencyThresholdNanos) {
+			newLimit = (int) (limit * backoffRatio);
+		} else if (inFlight * 2 >= limit) {
+			newLimit = limit + 1;
+		}
+		limit = Math.clamp(newLimit, minLimit, maxLimit);
+	}
+}
@@ -0,0 +1,49 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import se.sundsvall.dept44.cache.HandlerAnnotationResolver;
+import se.sundsvall.dept44.configuration.WebConfiguration;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Autoconfiguration of adaptive concurrency limiting of inbound requests.
+ * <p>
+ * Limiting is opt-in and enabled with {@code dept44.concurrency-limit.enabled=true}. See
+ * {@link ConcurrencyLimitProperties} for the available settings.
+ */
+@AutoConfiguration(after = WebConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnBean(HandlerAnnotationResolver.class)
+@ConditionalOnProperty(name = "dept44.concurrency-limit.enabled", havingValue = "true")
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfiguration {
+
+	@Bean
+	ConcurrencyLimiter concurrencyLimiter(final ConcurrencyLimitProperties properties, final ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		return new ConcurrencyLimiter(properties::createLimit, meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry), properties.getMaxPartitions());
+	}
+
+	@Bean
+	FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(final ConcurrencyLimiter concurrencyLimiter,
+		final HandlerAnnotationResolver handlerAnnotationResolver,
+		final JsonMapper jsonMapper,
+		final ConcurrencyLimitProperties properties,
+		@Value("${mdc.municipalityId.uriIndex:1}") final int municipalityIdUriIndex) {
+		final var filter = new ConcurrencyLimitFilter(concurrencyLimiter, handlerAnnotationResolver, jsonMapper, properties, municipalityIdUriIndex);
+		final var registration = new FilterRegistrationBean<>(filter);
+		registration.addUrlPatterns("/*");
+		// After the response cache and request coalescing, so that cached and coalesced requests are not limited
+		registration.setOrder(5);
+		return registration;
+	}
+}
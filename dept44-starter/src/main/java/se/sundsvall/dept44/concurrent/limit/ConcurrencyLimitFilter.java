@@ -0,0 +1,115 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.List;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.DisconnectedClientHelper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+import se.sundsvall.dept44.cache.HandlerAnnotationResolver;
+import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.util.MunicipalityUtils;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+import static org.springframework.http.MediaType.APPLICATION_PROBLEM_JSON_VALUE;
+import static se.sundsvall.dept44.concurrent.limit.ConcurrencyLimiter.DEFAULT_PARTITION;
+
+/**
+ * Sheds inbound load when the application cannot keep up. Requests exceeding the adaptive limit of their partition are
+ * rejected immediately with a {@code 503 Service Unavailable} problem and a {@code Retry-After} header, instead of
+ * queueing for a servlet thread.
+ * <p>
+ * Requests to exempt paths (by default everything under {@code /actuator}, including the Kubernetes probes) are never
+ * limited. Requests aborted by the client release their permit without affecting the limit.
+ */
+class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+	private static final String REJECTED_DETAIL = "The service is overloaded, please retry later";
+
+	private final ConcurrencyLimiter limiter;
+	private final HandlerAnnotationResolver handlerAnnotationResolver;
+	private final byte[] rejectedBody;
+	private final ConcurrencyLimitProperties.PartitionBy partitionBy;
+	private final int municipalityIdUriIndex;
+	private final String retryAfterSeconds;
+	private final List<PathPattern> exemptPaths;
+
+	ConcurrencyLimitFilter(final ConcurrencyLimiter limiter, final HandlerAnnotationResolver handlerAnnotationResolver, final JsonMapper jsonMapper,
+		final ConcurrencyLimitProperties properties, final int municipalityIdUriIndex) {
+		this.limiter = limiter;
+		this.handlerAnnotationResolver = handlerAnnotationResolver;
+		// Serialized once, as rejections are frequent exactly when the application is short on resources
+		this.rejectedBody = jsonMapper.writeValueAsBytes(Problem.cached(SERVICE_UNAVAILABLE, REJECTED_DETAIL));
+		this.partitionBy = properties.getPartitionBy();
+		this.municipalityIdUriIndex = municipalityIdUriIndex;
+		this.retryAfterSeconds = String.valueOf(Math.max(1, properties.getRetryAfter().toSeconds()));
+		this.exemptPaths = properties.getExemptPaths().stream()
+			.map(PathPatternParser.defaultInstance::parse)
+			.toList();
+	}
+
+	@Override
+	protected boolean shouldNotFilter(final HttpServletRequest request) {
+		final var path = PathContainer.parsePath(request.getRequestURI().substring(request.getContextPath().length()));
+		return exemptPaths.stream().anyMatch(pattern -> pattern.matches(path));
+	}
+
+	@Override
+	protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response, final FilterChain chain)
+		throws ServletException, IOException {
+
+		final var permit = limiter.tryAcquire(partition(request));
+		if (permit == null) {
+			reject(response);
+			return;
+		}
+
+		var dropped = true;
+		var clientDisconnected = false;
+		try {
+			chain.doFilter(request, response);
+			dropped = response.getStatus() >= HttpServletResponse.SC_INTERNAL_SERVER_ERROR;
+		} catch (final IOException | ServletException | RuntimeException e) {
+			clientDisconnected = DisconnectedClientHelper.isClientDisconnectedException(e);
+			throw e;
+		} finally {
+			if (clientDisconnected) {
+				// The client went away, which says nothing about how the application copes with its load
+				permit.ignore();
+			} else {
+				permit.release(dropped);
+			}
+		}
+	}
+
+	private String partition(final HttpServletRequest request) {
+		return switch (partitionBy) {
+			case NONE -> DEFAULT_PARTITION;
+			case PATH -> handlerAnnotationResolver.findPathPattern(request).orElse(DEFAULT_PARTITION);
+			case MUNICIPALITY -> municipalityId(request);
+		};
+	}
+
+	private String municipalityId(final HttpServletRequest request) {
+		final var pathParams = request.getRequestURI().split("/");
+		if (pathParams.length > municipalityIdUriIndex && MunicipalityUtils.existsById(pathParams[municipalityIdUriIndex])) {
+			return pathParams[municipalityIdUriIndex];
+		}
+		return DEFAULT_PARTITION;
+	}
+
+	private void reject(final HttpServletResponse response) throws IOException {
+		response.setStatus(SERVICE_UNAVAILABLE.value());
+		response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+		response.setContentType(APPLICATION_PROBLEM_JSON_VALUE);
+		response.setContentLength(rejectedBody.length);
+		response.getOutputStream().write(rejectedBody);
+	}
+}
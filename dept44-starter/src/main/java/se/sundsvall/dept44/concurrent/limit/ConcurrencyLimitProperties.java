@@ -0,0 +1,137 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "dept44.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+	/**
+	 * How the limit adapts to latency.
+	 */
+	public enum Algorithm {
+		GRADIENT,
+		AIMD
+	}
+
+	/**
+	 * How requests are partitioned into separately limited groups.
+	 */
+	public enum PartitionBy {
+		/** One limit for all requests */
+		NONE,
+		/** One limit per request mapping pattern, e.g. {@code /{municipalityId}/pets/{id}} */
+		PATH,
+		/** One limit per municipality id */
+		MUNICIPALITY
+	}
+
+	private boolean enabled;
+	private Algorithm algorithm = Algorithm.GRADIENT;
+	private int initialLimit = 20;
+	private int minLimit = 5;
+	private int maxLimit = 200;
+	private double backoffRatio = 0.9;
+	private Duration latencyThreshold = Duration.ofSeconds(5);
+	private PartitionBy partitionBy = PartitionBy.NONE;
+	private int maxPartitions = 100;
+	private Duration retryAfter = Duration.ofSeconds(1);
+	private List<String> exemptPaths = new ArrayList<>(List.of("/actuator/**"));
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	public void setEnabled(final boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public Algorithm getAlgorithm() {
+		return algorithm;
+	}
+
+	public void setAlgorithm(final Algorithm algorithm) {
+		this.algorithm = algorithm;
+	}
+
+	public int getInitialLimit() {
+		return initialLimit;
+	}
+
+	public void setInitialLimit(final int initialLimit) {
+		this.initialLimit = initialLimit;
+	}
+
+	public int getMinLimit() {
+		return minLimit;
+	}
+
+	public void setMinLimit(final int minLimit) {
+		this.minLimit = minLimit;
+	}
+
+	public int getMaxLimit() {
+		return maxLimit;
+	}
+
+	public void setMaxLimit(final int maxLimit) {
+		this.maxLimit = maxLimit;
+	}
+
+	public double getBackoffRatio() {
+		return backoffRatio;
+	}
+
+	public void setBackoffRatio(final double backoffRatio) {
+		this.backoffRatio = backoffRatio;
+	}
+
+	public Duration getLatencyThreshold() {
+		return latencyThreshold;
+	}
+
+	public void setLatencyThreshold(final Duration latencyThreshold) {
+		this.latencyThreshold = latencyThreshold;
+	}
+
+	public PartitionBy getPartitionBy() {
+		return partitionBy;
+	}
+
+	public void setPartitionBy(final PartitionBy partitionBy) {
+		this.partitionBy = partitionBy;
+	}
+
+	public int getMaxPartitions() {
+		return maxPartitions;
+	}
+
+	public void setMaxPartitions(final int maxPartitions) {
+		this.maxPartitions = maxPartitions;
+	}
+
+	public Duration getRetryAfter() {
+		return retryAfter;
+	}
+
+	public void setRetryAfter(final Duration retryAfter) {
+		this.retryAfter = retryAfter;
+	}
+
+	public List<String> getExemptPaths() {
+		return exemptPaths;
+	}
+
+	public void setExemptPaths(final List<String> exemptPaths) {
+		this.exemptPaths = exemptPaths;
+	}
+
+	AdaptiveLimit createLimit() {
+		return switch (algorithm) {
+			case GRADIENT -> new GradientLimit(initialLimit, minLimit, maxLimit);
+			case AIMD -> new AimdLimit(initialLimit, minLimit, maxLimit, backoffRatio, latencyThreshold.toNanos());
+		};
+	}
+}
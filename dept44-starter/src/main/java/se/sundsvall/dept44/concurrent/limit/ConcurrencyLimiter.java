@@ -0,0 +1,131 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Limits the number of requests in flight per partition, with a separate {@link AdaptiveLimit} for each partition.
+ * <p>
+ * The number of partitions is bounded. When the bound is reached, requests for new partitions share the
+ * {@link #DEFAULT_PARTITION}.
+ * <p>
+ * Per partition, the limit and the number of requests in flight are published as the gauges
+ * {@code dept44.concurrency.limit} and {@code dept44.concurrency.inflight}, and rejected requests as
+ * {@code dept44.concurrency.rejected}, all tagged with {@code partition}.
+ */
+public class ConcurrencyLimiter {
+
+	public static final String DEFAULT_PARTITION = "default";
+
+	private final Supplier<AdaptiveLimit> limitFactory;
+	private final MeterRegistry meterRegistry;
+	private final int maxPartitions;
+	private final Map<String, Partition> partitions = new ConcurrentHashMap<>();
+
+	/**
+	 * @param limitFactory  creates the limit of a new partition
+	 * @param meterRegistry the registry to publish metrics to
+	 * @param maxPartitions the maximum number of partitions
+	 */
+	public ConcurrencyLimiter(final Supplier<AdaptiveLimit> limitFactory, final MeterRegistry meterRegistry, final int maxPartitions) {
+		this.limitFactory = limitFactory;
+		this.meterRegistry = meterRegistry;
+		this.maxPartitions = maxPartitions;
+	}
+
+	/**
+	 * Tries to admit a request to the given partition.
+	 *
+	 * @param  partitionName the partition
+	 * @return               a permit to release when the request is done, or {@code null} if the request is rejected
+	 */
+	public Permit tryAcquire(final String partitionName) {
+		final var partition = partition(partitionName);
+		while (true) {
+			final var inFlight = partition.inFlight.get();
+			if (inFlight >= partition.limit.getLimit()) {
+				partition.rejected.increment();
+				return null;
+			}
+			if (partition.inFlight.compareAndSet(inFlight, inFlight + 1)) {
+				return new Permit(partition, inFlight + 1, System.nanoTime());
+			}
+		}
+	}
+
+	/**
+	 * Returns the current limit of the given partition.
+	 *
+	 * @param  partitionName the partition
+	 * @return               the limit
+	 */
+	public int getLimit(final String partitionName) {
+		return partition(partitionName).limit.getLimit();
+	}
+
+	private Partition partition(final String name) {
+		final var partition = partitions.get(name);
+		if (partition != null) {
+			return partition;
+		}
+		final var partitionName = partitions.size() < maxPartitions ? name : DEFAULT_PARTITION;
+		return partitions.computeIfAbsent(partitionName, this::createPartition);
+	}
+
+	private Partition createPartition(final String name) {
+		final var partition = new Partition(limitFactory.get(), new AtomicInteger(), Counter.builder("dept44.concurrency.rejected")
+			.description("Requests rejected by the concurrency limiter")
+			.tag("partition", name)
+			.register(meterRegistry));
+
+		Gauge.builder("dept44.concurrency.limit", partition.limit, AdaptiveLimit::getLimit)
+			.description("Requests allowed in flight")
+			.tag("partition", name)
+			.register(meterRegistry);
+		Gauge.builder("dept44.concurrency.inflight", partition.inFlight, AtomicInteger::get)
+			.description("Requests in flight")
+			.tag("partition", name)
+			.register(meterRegistry);
+		return partition;
+	}
+
+	private record Partition(AdaptiveLimit limit, AtomicInteger inFlight, Counter rejected) {}
+
+	/**
+	 * A permit for one request in flight.
+	 */
+	public static final class Permit {
+
+		private final Partition partition;
+		private final int inFlight;
+		private final long startNanos;
+
+		private Permit(final Partition partition, final int inFlight, final long startNanos) {
+			this.partition = partition;
+			this.inFlight = inFlight;
+			this.startNanos = startNanos;
+		}
+
+		/**
+		 * Releases the permit and updates the limit with the latency of the request.
+		 *
+		 * @param dropped whether the request failed in a way that indicates overload
+		 */
+		public void release(final boolean dropped) {
+			partition.inFlight.decrementAndGet();
+			partition.limit.onSample(System.nanoTime() - startNanos, inFlight, dropped);
+		}
+
+		/**
+		 * Releases the permit without updating the limit, e.g. when the client disconnected before the response was written.
+		 */
+		public void ignore() {
+			partition.inFlight.decrementAndGet();
+		}
+	}
+}
@@ -0,0 +1,70 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+/**
+ * Latency gradient limit, modelled on the {@code Gradient2Limit} of Netflix concurrency-limits.
+ * <p>
+ * Tracks a short-term and a long-term exponentially smoothed latency. While the short-term latency is not higher than
+ * the long-term latency, the limit grows by a queue allowance of {@code sqrt(limit)}. When requests get slower, the
+ * gradient {@code long / short} (between 0.5 and 1) shrinks the limit proportionally. The long-term latency slowly
+ * follows the short-term latency, so that a permanent change in latency becomes the new baseline.
+ */
+public class GradientLimit implements AdaptiveLimit {
+
+	private static final double SHORT_SMOOTHING = 0.5;
+	private static final double LONG_SMOOTHING = 0.01;
+	private static final double LIMIT_SMOOTHING = 0.2;
+	private static final double TOLERANCE = 1.5;
+
+	private final int minLimit;
+	private final int maxLimit;
+
+	private volatile int limit;
+	private double estimatedLimit;
+	private double shortRtt;
+	private double longRtt;
+
+	/**
+	 * @param initialLimit the initial limit
+	 * @param minLimit     the minimum limit
+	 * @param maxLimit     the maximum limit
+	 */
+	public GradientLimit(final int initialLimit, final int minLimit, final int maxLimit) {
+		this.minLimit = minLimit;
+		this.maxLimit = maxLimit;
+		this.limit = initialLimit;
+		this.estimatedLimit = initialLimit;
+	}
+
+	@Override
+	public int getLimit() {
+		return limit;
+	}
+
+	@Override
+	public synchronized void onSample(final long rttNanos, final int inFlight, final boolean dropped) {
+		if (longRtt == 0) {
+			shortRtt = rttNanos;
+			longRtt = rttNanos;
+			return;
+		}
+		shortRtt = shortRtt * (1 - SHORT_SMOOTHING) + rttNanos * SHORT_SMOOTHING;
+		longRtt = longRtt * (1 - LONG_SMOOTHING) + shortRtt * LONG_SMOOTHING;
+
+		// Drift the baseline down quickly when latency recovers
+		if (longRtt / shortRtt > 2) {
+			longRtt *= 0.95;
+		}
+
+		// Don't grow the limit while the application is not using it
+		if (!dropped && inFlight * 2 < estimatedLimit) {
+			return;
+		}
+
+		final var gradient = dropped ? 0.5 : Math.clamp(TOLERANCE * longRtt / shortRtt, 0.5, 1.0);
+		final var queueSize = Math.sqrt(estimatedLimit);
+		final var newLimit = estimatedLimit * gradient + queueSize;
+
+		estimatedLimit = Math.clamp(estimatedLimit * (1 - LIMIT_SMOOTHING) + newLimit * LIMIT_SMOOTHING, minLimit, maxLimit);
+		limit = (int) estimatedLimit;
+	}
+}
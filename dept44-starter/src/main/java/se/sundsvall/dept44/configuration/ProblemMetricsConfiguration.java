@@ -0,0 +1,27 @@
+package se.sundsvall.dept44.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import se.sundsvall.dept44.problem.ProblemMetrics;
+
+/**
+ * Autoconfiguration for {@link ProblemMetrics}. Publishes the problem metrics of the exception handler, the Feign error
+ * decoders, the SOAP fault interceptor and the JWT filter to the application registry.
+ * <p>
+ * Can be disabled with {@code dept44.problem.metrics.enabled=false}.
+ */
+@Configuration
+public class ProblemMetricsConfiguration {
+
+	@Bean
+	ProblemMetrics problemMetrics(@Value("${dept44.problem.metrics.enabled:true}") final boolean enabled, final ObjectProvider<MeterRegistry> meterRegistryProvider) {
+		final var problemMetrics = new ProblemMetrics(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry), enabled);
+		// Feign error decoders and SOAP fault interceptors are created outside the application context
+		ProblemMetrics.setShared(problemMetrics);
+		return problemMetrics;
+	}
+}
@@ -13,6 +13,8 @@ import java.util.List;
 import java.util.Locale;
 import org.slf4j.MDC;
 import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
@@ -31,6 +33,11 @@ import org.springframework.web.servlet.HandlerInterceptor;
 import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import se.sundsvall.dept44.cache.CachePolicyHandler;
+import se.sundsvall.dept44.cache.Dept44CachePolicy;
+import se.sundsvall.dept44.cache.HandlerAnnotationResolver;
+import se.sundsvall.dept44.concurrent.BatchLoader;
 import se.sundsvall.dept44.problem.Problem;
 import se.sundsvall.dept44.requestid.RequestId;
 import se.sundsvall.dept44.support.Identifier;
@@ -80,8 +87,20 @@ public class WebConfiguration implements WebMvcConfigurer {
 	}
 
 	@Bean
-	FilterRegistrationBean<DisableBrowserCacheFilter> disableBrowserCacheFilterRegistration() {
-		final var registration = new FilterRegistrationBean<>(new DisableBrowserCacheFilter());
+	HandlerAnnotationResolver handlerAnnotationResolver(
+		@Qualifier("requestMappingHandlerMapping") final ObjectProvider<RequestMappingHandlerMapping> handlerMappingProvider) {
+		return new HandlerAnnotationResolver(handlerMappingProvider);
+	}
+
+	@Bean
+	CachePolicyHandler cachePolicyHandler(@Value("${dept44.cache-policy.validator-cache-size:1000}") final long validatorCacheSize) {
+		return new CachePolicyHandler(validatorCacheSize);
+	}
+
+	@Bean
+	FilterRegistrationBean<DisableBrowserCacheFilter> disableBrowserCacheFilterRegistration(final HandlerAnnotationResolver handlerAnnotationResolver,
+		final CachePolicyHandler cachePolicyHandler) {
+		final var registration = new FilterRegistrationBean<>(new DisableBrowserCacheFilter(handlerAnnotationResolver, cachePolicyHandler));
 		registration.addUrlPatterns("/*");
 		registration.setOrder(2);
 		return registration;
@@ -152,7 +171,7 @@ public class WebConfiguration implements WebMvcConfigurer {
 				final String[] pathArray = request.getRequestURI().split("/");
 
 				if (!allowedIds.contains(pathArray[municipalityIdUriIndex])) {
-					throw Problem.builder().withStatus(NOT_IMPLEMENTED).withDetail("Not implemented for municipalityId: " + pathArray[municipalityIdUriIndex]).build();
+					throw Problem.builder().withStatus(NOT_IMPLEMENTED).withDetail("Not implemented for municipalityId: " + pathArray[municipalityIdUriIndex]).withoutStackTrace().build();
 				}
 			}
 
@@ -187,6 +206,7 @@ public class WebConfiguration implements WebMvcConfigurer {
 		@Operation(tags = "API",
 			summary = "OpenAPI",
 			responses = @ApiResponse(responseCode = "200", description = "OK", content = @Content(mediaType = APPLICATION_YAML_VALUE, schema = @Schema(type = "string"))))
+		@Dept44CachePolicy
 		@GetMapping(value = "${springdoc.api-docs.path}", produces = APPLICATION_YAML_VALUE)
 		void getApiDocs(final HttpServletRequest request, final HttpServletResponse response) throws IOException {
 			response.setContentType(APPLICATION_YAML_VALUE);
@@ -202,12 +222,15 @@ public class WebConfiguration implements WebMvcConfigurer {
 			final var requestId = request.getHeader(RequestId.HEADER_NAME);
 
 			RequestId.init(requestId);
-			response.setHeader(RequestId.HEADER_NAME, RequestId.get());
+			final var currentRequestId = RequestId.get();
+			response.setHeader(RequestId.HEADER_NAME, currentRequestId);
 
 			try {
 				chain.doFilter(request, response);
 			} finally {
-				RequestId.reset();
+				if (RequestId.reset()) {
+					BatchLoader.endRequest(currentRequestId);
+				}
 			}
 		}
 	}
@@ -227,16 +250,39 @@ public class WebConfiguration implements WebMvcConfigurer {
 		}
 	}
 
+	/**
+	 * Disables browser caching, unless the handler method is annotated with {@link Dept44CachePolicy}.
+	 */
 	static class DisableBrowserCacheFilter extends OncePerRequestFilter {
 
+		private final HandlerAnnotationResolver handlerAnnotationResolver;
+		private final CachePolicyHandler cachePolicyHandler;
+
+		DisableBrowserCacheFilter(final HandlerAnnotationResolver handlerAnnotationResolver, final CachePolicyHandler cachePolicyHandler) {
+			this.handlerAnnotationResolver = handlerAnnotationResolver;
+			this.cachePolicyHandler = cachePolicyHandler;
+		}
+
 		@Override
 		protected void doFilterInternal(final HttpServletRequest request, final HttpServletResponse response,
 			final FilterChain chain) throws ServletException, IOException {
+			final var cachePolicy = CachePolicyHandler.isApplicable(request)
+				? handlerAnnotationResolver.findAnnotation(request, Dept44CachePolicy.class).orElse(null)
+				: null;
+
+			if (cachePolicy != null) {
+				cachePolicyHandler.handle(request, response, chain, cachePolicy, DisableBrowserCacheFilter::addNoStoreHeaders);
+				return;
+			}
+
+			addNoStoreHeaders(response);
+			chain.doFilter(request, response);
+		}
+
+		static void addNoStoreHeaders(final HttpServletResponse response) {
 			response.addHeader(HttpHeaders.CACHE_CONTROL, "no-store");
 			response.addIntHeader(HttpHeaders.EXPIRES, 0);
 			response.addHeader(HttpHeaders.PRAGMA, "no-cache");
-
-			chain.doFilter(request, response);
 		}
 	}
 
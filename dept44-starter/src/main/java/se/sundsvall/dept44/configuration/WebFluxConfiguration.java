@@ -1,5 +1,7 @@
 package se.sundsvall.dept44.configuration;
 
+import java.util.Optional;
+import java.util.UUID;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -9,7 +11,11 @@ import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilter;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import se.sundsvall.dept44.reactive.ReactiveRequestContext;
 import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static java.util.function.Predicate.not;
 
 @Configuration
 @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
@@ -30,19 +36,33 @@ public class WebFluxConfiguration {
 		}
 	}
 
+	/**
+	 * Resolves the request id and identifier of the incoming request and writes them into the Reactor {@code Context}
+	 * of the downstream chain.
+	 * <p>
+	 * Nothing is stored in thread-locals or the MDC here, since the event-loop thread running the filter is shared by
+	 * interleaved requests and the chain may complete on another thread. Downstream code reads the values through
+	 * {@link ReactiveRequestContext}.
+	 */
 	static class RequestIdHandlerFilterFunction implements WebFilter {
 
 		@Override
 		public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
-			var requestId = exchange.getRequest().getHeaders().getFirst(RequestId.HEADER_NAME);
-
-			RequestId.init(requestId);
+			final var headers = exchange.getRequest().getHeaders();
+			final var requestId = resolveRequestId(headers.getFirst(RequestId.HEADER_NAME));
+			final var identifier = Identifier.parse(headers.getFirst(Identifier.HEADER_NAME));
 
-			exchange.getResponse().getHeaders().add(RequestId.HEADER_NAME, RequestId.get());
+			exchange.getResponse().getHeaders().add(RequestId.HEADER_NAME, requestId);
 
 			return chain.filter(exchange)
-				.then()
-				.doFinally(ignoredSignalType -> RequestId.reset());
+				.contextWrite(context -> ReactiveRequestContext.write(context, requestId, identifier));
+		}
+
+		private static String resolveRequestId(final String requestId) {
+			return Optional.ofNullable(requestId)
+				.map(String::trim)
+				.filter(not(String::isEmpty))
+				.orElseGet(() -> UUID.randomUUID().toString());
 		}
 	}
 
@@ -0,0 +1,30 @@
+package se.sundsvall.dept44.management;
+
+import java.time.Duration;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Autoconfiguration of background health snapshots, enabled with {@code dept44.management.health-snapshot.enabled=true}.
+ * <p>
+ * Health indicators are evaluated every {@code dept44.management.health-snapshot.interval} (default 10 seconds), each
+ * within {@code dept44.management.health-snapshot.timeout} (default 5 seconds), and health requests only read the last
+ * result. The liveness and readiness state indicators are excluded by default, so
+ * that availability changes are visible at once. Additional beans can be excluded by name with
+ * {@code dept44.management.health-snapshot.excluded-beans}.
+ */
+@AutoConfiguration
+@ConditionalOnProperty(name = "dept44.management.health-snapshot.enabled", havingValue = "true")
+public class HealthSnapshotConfiguration {
+
+	@Bean
+	static HealthSnapshotPostProcessor healthSnapshotPostProcessor(
+		@Value("${dept44.management.health-snapshot.interval:10s}") final Duration interval,
+		@Value("${dept44.management.health-snapshot.timeout:5s}") final Duration timeout,
+		@Value("${dept44.management.health-snapshot.excluded-beans:livenessStateHealthIndicator,readinessStateHealthIndicator}") final List<String> excludedBeanNames) {
+		return new HealthSnapshotPostProcessor(interval, timeout, excludedBeanNames);
+	}
+}
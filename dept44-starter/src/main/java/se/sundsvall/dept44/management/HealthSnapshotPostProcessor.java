@@ -0,0 +1,91 @@
+package se.sundsvall.dept44.management;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+/**
+ * Replaces every {@link HealthIndicator} bean, except the excluded ones, with a {@link SnapshotHealthIndicator} and
+ * refreshes all snapshots at a fixed interval once the application context has been refreshed.
+ * <p>
+ * Each indicator is evaluated on its own virtual thread with a timeout, so one slow indicator neither delays nor blocks
+ * the others. A snapshot not refreshed for {@value #STALE_INTERVALS} intervals is reported as down.
+ * <p>
+ * The replaced beans are of type {@link SnapshotHealthIndicator}, so a health indicator injected by its concrete type
+ * must be excluded, or be reached through {@link SnapshotHealthIndicator#getDelegate()}.
+ */
+class HealthSnapshotPostProcessor implements BeanPostProcessor, SmartLifecycle {
+
+	static final int STALE_INTERVALS = 3;
+
+	private final List<SnapshotHealthIndicator> indicators = new CopyOnWriteArrayList<>();
+	private final Duration interval;
+	private final Duration timeout;
+	private final List<String> excludedBeanNames;
+
+	private volatile ScheduledExecutorService scheduler;
+	private volatile ExecutorService executor;
+
+	HealthSnapshotPostProcessor(final Duration interval, final Duration timeout, final List<String> excludedBeanNames) {
+		Assert.isTrue(interval != null && interval.isPositive(), "interval must be positive");
+		Assert.isTrue(timeout != null && timeout.isPositive(), "timeout must be positive");
+		this.interval = interval;
+		this.timeout = timeout;
+		this.excludedBeanNames = excludedBeanNames;
+	}
+
+	@Override
+	public Object postProcessAfterInitialization(final Object bean, final String beanName) {
+		if (bean instanceof final HealthIndicator healthIndicator && !(bean instanceof SnapshotHealthIndicator) && !excludedBeanNames.contains(beanName)) {
+			final var snapshotHealthIndicator = new SnapshotHealthIndicator(healthIndicator, interval.multipliedBy(STALE_INTERVALS));
+			indicators.add(snapshotHealthIndicator);
+			return snapshotHealthIndicator;
+		}
+		return bean;
+	}
+
+	@Override
+	public synchronized void start() {
+		if (isRunning()) {
+			return;
+		}
+		executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("dept44-health-snapshot-", 0).factory());
+		scheduler = Executors.newSingleThreadScheduledExecutor(Thread.ofPlatform().name("dept44-health-snapshot").daemon().factory());
+		scheduler.scheduleWithFixedDelay(this::refresh, 0, interval.toNanos(), TimeUnit.NANOSECONDS);
+	}
+
+	@Override
+	public synchronized void stop() {
+		if (!isRunning()) {
+			return;
+		}
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+		scheduler = null;
+		executor = null;
+	}
+
+	@Override
+	public boolean isRunning() {
+		return scheduler != null;
+	}
+
+	List<SnapshotHealthIndicator> getIndicators() {
+		return List.copyOf(indicators);
+	}
+
+	void refresh() {
+		final var currentExecutor = executor;
+		if (currentExecutor != null) {
+			indicators.forEach(indicator -> indicator.refresh(currentExecutor, timeout));
+		}
+	}
+}
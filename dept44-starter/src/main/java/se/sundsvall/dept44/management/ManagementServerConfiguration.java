@@ -0,0 +1,36 @@
+package se.sundsvall.dept44.management;
+
+import org.apache.coyote.AbstractProtocol;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.autoconfigure.web.ManagementContextConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.ManagementContextType;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.tomcat.ConfigurableTomcatWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Sizes the thread pool of the separate management server, which is started when {@code management.server.port}
+ * differs from {@code server.port}. Actuator endpoints, including the Kubernetes probes, are then served by their own
+ * connector and never queue behind business requests.
+ * <p>
+ * The pool is limited by {@code dept44.management.server.max-threads} (default 4) and
+ * {@code dept44.management.server.accept-count} (default 20).
+ */
+@ManagementContextConfiguration(value = ManagementContextType.CHILD, proxyBeanMethods = false)
+@ConditionalOnClass(name = "org.apache.catalina.startup.Tomcat")
+public class ManagementServerConfiguration {
+
+	@Bean
+	WebServerFactoryCustomizer<ConfigurableTomcatWebServerFactory> managementServerThreadPoolCustomizer(
+		@Value("${dept44.management.server.max-threads:4}") final int maxThreads,
+		@Value("${dept44.management.server.accept-count:20}") final int acceptCount) {
+		return factory -> factory.addConnectorCustomizers(connector -> {
+			if (connector.getProtocolHandler() instanceof final AbstractProtocol<?> protocol) {
+				protocol.setMaxThreads(maxThreads);
+				protocol.setMinSpareThreads(Math.min(maxThreads, protocol.getMinSpareThreads()));
+				protocol.setAcceptCount(acceptCount);
+			}
+		});
+	}
+}
@@ -0,0 +1,109 @@
+package se.sundsvall.dept44.management;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+
+/**
+ * Health indicator that serves the last result of a delegate, computed in the background by
+ * {@link HealthSnapshotPostProcessor}. Reading the health never invokes the delegate, so probes stay fast even when a
+ * contributor is slow or the application is saturated.
+ * <p>
+ * A snapshot older than the maximum age is reported as down with its age, as the delegate is then no longer being
+ * evaluated, and a delegate that doesn't answer within the timeout of a refresh is reported as down.
+ */
+public class SnapshotHealthIndicator implements HealthIndicator {
+
+	static final Health PENDING = Health.unknown().withDetail("snapshot", "pending").build();
+
+	private final HealthIndicator delegate;
+	private final Duration maxAge;
+	private final Clock clock;
+	private final AtomicBoolean refreshing = new AtomicBoolean();
+
+	private volatile Snapshot snapshot;
+
+	/**
+	 * @param delegate the health indicator to take snapshots of
+	 * @param maxAge   the age after which a snapshot is reported as down
+	 */
+	public SnapshotHealthIndicator(final HealthIndicator delegate, final Duration maxAge) {
+		this(delegate, maxAge, Clock.systemUTC());
+	}
+
+	SnapshotHealthIndicator(final HealthIndicator delegate, final Duration maxAge, final Clock clock) {
+		this.delegate = delegate;
+		this.maxAge = maxAge;
+		this.clock = clock;
+	}
+
+	@Override
+	public Health health() {
+		final var current = snapshot;
+		if (current == null) {
+			return PENDING;
+		}
+		final var age = Duration.between(current.takenAt(), clock.instant());
+		if (age.compareTo(maxAge) > 0) {
+			return Health.down()
+				.withDetail("snapshot", "stale")
+				.withDetail("age", age.toString())
+				.build();
+		}
+		return current.health();
+	}
+
+	/**
+	 * Returns the health indicator that snapshots are taken of.
+	 *
+	 * @return the delegate
+	 */
+	public HealthIndicator getDelegate() {
+		return delegate;
+	}
+
+	/**
+	 * Evaluates the delegate on the executor, unless an earlier evaluation is still running. The snapshot is updated with
+	 * the result, or with down if the delegate fails or doesn't answer within the timeout. An evaluation that times out is
+	 * left to finish, but its result is not used.
+	 */
+	void refresh(final Executor executor, final Duration timeout) {
+		if (!refreshing.compareAndSet(false, true)) {
+			return;
+		}
+		final CompletableFuture<Health> evaluation;
+		try {
+			evaluation = CompletableFuture.supplyAsync(delegate::health, executor);
+		} catch (final RuntimeException e) {
+			refreshing.set(false);
+			throw e;
+		}
+		evaluation.whenComplete((_, _) -> refreshing.set(false));
+		evaluation.copy()
+			.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS)
+			.whenComplete((health, failure) -> update(health, failure, timeout));
+	}
+
+	private void update(final Health health, final Throwable failure, final Duration timeout) {
+		if (failure == null) {
+			snapshot = new Snapshot(health, clock.instant());
+			return;
+		}
+		final var cause = failure instanceof CompletionException && failure.getCause() != null ? failure.getCause() : failure;
+		if (cause instanceof TimeoutException) {
+			snapshot = new Snapshot(Health.down().withDetail("error", "Timed out after " + timeout).build(), clock.instant());
+		} else {
+			snapshot = new Snapshot(Health.down().withException(cause).build(), clock.instant());
+		}
+	}
+
+	private record Snapshot(Health health, Instant takenAt) {}
+}
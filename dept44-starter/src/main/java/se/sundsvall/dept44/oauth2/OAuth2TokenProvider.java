@@ -0,0 +1,302 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.http.client.ClientHttpRequestFactoryBuilder;
+import org.springframework.boot.http.client.HttpClientSettings;
+import org.springframework.http.converter.FormHttpMessageConverter;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.endpoint.RestClientClientCredentialsTokenResponseClient;
+import org.springframework.security.oauth2.client.http.OAuth2ErrorResponseErrorHandler;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.http.converter.OAuth2AccessTokenResponseHttpMessageConverter;
+import org.springframework.util.Assert;
+import org.springframework.web.client.RestClient;
+
+/**
+ * Caches the client credentials access token of a client registration, without locking on the hot path.
+ * <p>
+ * The current token is read through an atomic reference. When a configurable fraction of its lifetime has passed
+ * (default {@value #DEFAULT_REFRESH_RATIO}), a new token is fetched on a virtual thread while callers keep using the
+ * current one. Only when the token has expired (or no token has been fetched yet) do callers wait for the token
+ * endpoint. Concurrent refreshes are coalesced into a single call to the token endpoint.
+ * <p>
+ * A token is considered expired slightly before its actual expiry, by a tenth of its lifetime but at most 30 seconds,
+ * to allow for clock skew and the time the request spends in flight. A failed background refresh is retried after 5
+ * seconds.
+ * <p>
+ * Token fetches are timed in the {@code dept44.oauth2.token.fetch} metric, tagged with {@code registration} and
+ * {@code outcome} ({@code success} or {@code failure}).
+ */
+public class OAuth2TokenProvider {
+
+	public static final double DEFAULT_REFRESH_RATIO = 0.75;
+
+	static final String METRIC_NAME = "dept44.oauth2.token.fetch";
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(OAuth2TokenProvider.class);
+	private static final Duration MAX_CLOCK_SKEW = Duration.ofSeconds(30);
+	private static final Duration FAILED_REFRESH_RETRY_DELAY = Duration.ofSeconds(5);
+
+	private final ClientRegistration clientRegistration;
+	private final OAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient;
+	private final Clock clock;
+	private volatile Timer successTimer;
+	private volatile Timer failureTimer;
+
+	private final AtomicReference<CachedToken> current = new AtomicReference<>();
+	private final AtomicReference<CompletableFuture<CachedToken>> inFlight = new AtomicReference<>();
+
+	private volatile double refreshRatio;
+
+	/**
+	 * Creates a provider with explicit timeouts for the calls to the token endpoint and the default refresh ratio.
+	 *
+	 * @param clientRegistration the client registration, including the scopes to request
+	 * @param connectTimeout     connect timeout for calls to the token endpoint
+	 * @param readTimeout        read timeout for calls to the token endpoint
+	 */
+	public OAuth2TokenProvider(final ClientRegistration clientRegistration, final Duration connectTimeout, final Duration readTimeout) {
+		this(clientRegistration, connectTimeout, readTimeout, DEFAULT_REFRESH_RATIO);
+	}
+
+	/**
+	 * Creates a provider with explicit timeouts for the calls to the token endpoint.
+	 *
+	 * @param clientRegistration the client registration, including the scopes to request
+	 * @param connectTimeout     connect timeout for calls to the token endpoint
+	 * @param readTimeout        read timeout for calls to the token endpoint
+	 * @param refreshRatio       the fraction of the token lifetime after which it is refreshed in the background
+	 */
+	public OAuth2TokenProvider(final ClientRegistration clientRegistration, final Duration connectTimeout, final Duration readTimeout, final double refreshRatio) {
+		this(clientRegistration, createTokenResponseClient(connectTimeout, readTimeout), refreshRatio, Metrics.globalRegistry, Clock.systemUTC());
+	}
+
+	OAuth2TokenProvider(final ClientRegistration clientRegistration, final OAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient,
+		final double refreshRatio, final MeterRegistry meterRegistry, final Clock clock) {
+
+		Assert.notNull(clientRegistration, "clientRegistration cannot be null");
+
+		this.clientRegistration = clientRegistration;
+		this.tokenResponseClient = tokenResponseClient;
+		this.clock = clock;
+		setRefreshRatio(refreshRatio);
+		setMeterRegistry(meterRegistry);
+	}
+
+	/**
+	 * Creates a token response client with explicit timeouts. Without them, the default request factory has no read
+	 * timeout, and a hung token endpoint would block every caller waiting for a token indefinitely.
+	 * <p>
+	 * The request factory is created with ClientHttpRequestFactoryBuilder.detect() so the same client implementation is
+	 * picked as a default-constructed RestClient would use (e.g. Apache HttpClient when on the classpath, preserving its
+	 * redirect-following behavior), only with timeouts applied.
+	 *
+	 * @param  connectTimeout connect timeout for calls to the token endpoint
+	 * @param  readTimeout    read timeout for calls to the token endpoint
+	 * @return                the token response client
+	 */
+	public static RestClientClientCredentialsTokenResponseClient createTokenResponseClient(final Duration connectTimeout, final Duration readTimeout) {
+		Assert.notNull(connectTimeout, "connectTimeout cannot be null");
+		Assert.notNull(readTimeout, "readTimeout cannot be null");
+
+		final var requestFactory = ClientHttpRequestFactoryBuilder.detect().build(
+			HttpClientSettings.defaults().withTimeouts(connectTimeout, readTimeout));
+
+		// The message converters and status handler mirror the defaults set up in the constructor of
+		// RestClientClientCredentialsTokenResponseClient, which are lost when replacing its RestClient.
+		// Re-check them against that class when upgrading Spring Security.
+		final var restClient = RestClient.builder()
+			.requestFactory(requestFactory)
+			.messageConverters(converters -> {
+				converters.clear();
+				converters.add(new FormHttpMessageConverter());
+				converters.add(new OAuth2AccessTokenResponseHttpMessageConverter());
+			})
+			.defaultStatusHandler(new OAuth2ErrorResponseErrorHandler())
+			.build();
+
+		final var tokenResponseClient = new RestClientClientCredentialsTokenResponseClient();
+		tokenResponseClient.setRestClient(restClient);
+		return tokenResponseClient;
+	}
+
+	/**
+	 * Returns a valid access token, fetching one if needed. If no valid token is cached and the token endpoint fails, the
+	 * exception of the token response client (typically an {@code OAuth2AuthorizationException}) is thrown.
+	 *
+	 * @return the access token
+	 */
+	public OAuth2AccessToken getToken() {
+		final var token = current.get();
+		final var now = clock.instant();
+		if (token != null && now.isBefore(token.expiredAt())) {
+			if (!now.isBefore(token.refreshAt())) {
+				refresh(true);
+			}
+			return token.accessToken();
+		}
+		return join(refresh(false)).accessToken();
+	}
+
+	/**
+	 * Returns a valid access token without blocking the calling thread. A cached token is returned as an already
+	 * completed future; otherwise the token is fetched on a virtual thread.
+	 *
+	 * @return a future completed with the access token, or exceptionally if the token endpoint fails
+	 */
+	public CompletableFuture<OAuth2AccessToken> getTokenAsync() {
+		final var token = current.get();
+		final var now = clock.instant();
+		if (token != null && now.isBefore(token.expiredAt())) {
+			if (!now.isBefore(token.refreshAt())) {
+				refresh(true);
+			}
+			return CompletableFuture.completedFuture(token.accessToken());
+		}
+		return refresh(true).thenApply(CachedToken::accessToken);
+	}
+
+	/**
+	 * Evicts the cached token, but only if it is still the given token. A token that another thread has already refreshed
+	 * is kept.
+	 *
+	 * @param  tokenValue the value of the token that was rejected
+	 * @return            {@code true} if the token was evicted
+	 */
+	public boolean invalidate(final String tokenValue) {
+		final var token = current.get();
+		return token != null && token.accessToken().getTokenValue().equals(tokenValue) && current.compareAndSet(token, null);
+	}
+
+	/**
+	 * Sets the fraction of the token lifetime after which it is refreshed in the background. Applies from the next
+	 * fetched token.
+	 *
+	 * @param refreshRatio the refresh ratio, greater than 0 and at most 1
+	 */
+	void setRefreshRatio(final double refreshRatio) {
+		Assert.isTrue(refreshRatio > 0 && refreshRatio <= 1, "refreshRatio must be greater than 0 and at most 1");
+		this.refreshRatio = refreshRatio;
+	}
+
+	/**
+	 * Sets the registry that token fetches are timed in. Applies from the next fetch.
+	 *
+	 * @param meterRegistry the meter registry
+	 */
+	void setMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry cannot be null");
+		this.successTimer = timer(meterRegistry, clientRegistration.getRegistrationId(), "success");
+		this.failureTimer = timer(meterRegistry, clientRegistration.getRegistrationId(), "failure");
+	}
+
+	/**
+	 * @return the client registration used to fetch tokens
+	 */
+	public ClientRegistration getClientRegistration() {
+		return clientRegistration;
+	}
+
+	private CompletableFuture<CachedToken> refresh(final boolean background) {
+		while (true) {
+			final var existing = inFlight.get();
+			if (existing != null) {
+				return existing;
+			}
+			final var promise = new CompletableFuture<CachedToken>();
+			if (inFlight.compareAndSet(null, promise)) {
+				if (background) {
+					Thread.ofVirtual().name("oauth2-refresh-" + clientRegistration.getRegistrationId()).start(() -> fetch(promise, true));
+				} else {
+					fetch(promise, false);
+				}
+				return promise;
+			}
+		}
+	}
+
+	private void fetch(final CompletableFuture<CachedToken> promise, final boolean background) {
+		final var start = System.nanoTime();
+		CachedToken existing = null;
+		try {
+			// Another caller may have completed a refresh between reading the token and starting this one
+			existing = current.get();
+			if (!background && existing != null && clock.instant().isBefore(existing.refreshAt())) {
+				promise.complete(existing);
+				return;
+			}
+
+			final var response = tokenResponseClient.getTokenResponse(new OAuth2ClientCredentialsGrantRequest(clientRegistration));
+			final var token = cache(response.getAccessToken());
+			successTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			current.set(token);
+			promise.complete(token);
+		} catch (final Throwable e) {
+			failureTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+			if (background && existing != null && clock.instant().isBefore(existing.expiredAt())) {
+				LOGGER.warn("Background refresh of token for '{}' failed, the current token is used until it expires", clientRegistration.getRegistrationId(), e);
+				current.compareAndSet(existing, existing.postpone(clock.instant().plus(FAILED_REFRESH_RETRY_DELAY)));
+			}
+			promise.completeExceptionally(e);
+		} finally {
+			// Whatever happened, the next caller must be able to start a new fetch
+			inFlight.compareAndSet(promise, null);
+		}
+	}
+
+	private CachedToken cache(final OAuth2AccessToken accessToken) {
+		if (accessToken.getIssuedAt() == null || accessToken.getExpiresAt() == null) {
+			return new CachedToken(accessToken, Instant.MAX, Instant.MAX);
+		}
+
+		// The lifetime is measured from when the token was received, by the clock of this provider
+		final var receivedAt = clock.instant();
+		final var lifetime = Duration.between(accessToken.getIssuedAt(), accessToken.getExpiresAt());
+		final var clockSkew = lifetime.dividedBy(10).compareTo(MAX_CLOCK_SKEW) < 0 ? lifetime.dividedBy(10) : MAX_CLOCK_SKEW;
+		final var refreshAt = receivedAt.plusMillis((long) (lifetime.toMillis() * refreshRatio));
+		final var expiredAt = receivedAt.plus(lifetime).minus(clockSkew);
+		return new CachedToken(accessToken, refreshAt.isBefore(expiredAt) ? refreshAt : expiredAt, expiredAt);
+	}
+
+	private static CachedToken join(final CompletableFuture<CachedToken> promise) {
+		try {
+			return promise.join();
+		} catch (final CompletionException e) {
+			if (e.getCause() instanceof final RuntimeException runtimeException) {
+				throw runtimeException;
+			}
+			if (e.getCause() instanceof final Error error) {
+				throw error;
+			}
+			throw e;
+		}
+	}
+
+	private static Timer timer(final MeterRegistry meterRegistry, final String registrationId, final String outcome) {
+		return Timer.builder(METRIC_NAME)
+			.description("Time spent fetching OAuth2 access tokens")
+			.tag("registration", registrationId)
+			.tag("outcome", outcome)
+			.register(meterRegistry);
+	}
+
+	private record CachedToken(OAuth2AccessToken accessToken, Instant refreshAt, Instant expiredAt) {
+
+		CachedToken postpone(final Instant nextRefreshAt) {
+			return new CachedToken(accessToken, nextRefreshAt.isBefore(expiredAt) ? nextRefreshAt : expiredAt, expiredAt);
+		}
+	}
+}
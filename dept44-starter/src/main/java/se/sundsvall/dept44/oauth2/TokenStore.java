@@ -0,0 +1,194 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.util.Assert;
+
+import static java.util.Optional.ofNullable;
+import static se.sundsvall.dept44.configuration.Constants.DEFAULT_TOKEN_CONNECT_TIMEOUT_IN_SECONDS;
+import static se.sundsvall.dept44.configuration.Constants.DEFAULT_TOKEN_READ_TIMEOUT_IN_SECONDS;
+
+/**
+ * Shares client credentials access tokens between all clients of the application.
+ * <p>
+ * Providers are keyed by client registration (registration id, client id, a hash of the client secret and token uri)
+ * and the effective scope set,
+ * so Feign clients, WebClients and WebServiceTemplates that talk to the same API gateway with the same scopes share one
+ * token and one refresh pipeline. The timeouts for the token endpoint are taken from the first client that requests a
+ * given key.
+ * <p>
+ * {@link #DEVICE_SCOPE} is a scope that is unique to this JVM, which keeps instances of the same service from sharing
+ * (and revoking) each other's tokens while letting the clients within an instance share theirs.
+ */
+public class TokenStore {
+
+	public static final String DEVICE_SCOPE = "device_" + UUID.randomUUID();
+
+	private static final Logger LOGGER = LoggerFactory.getLogger(TokenStore.class);
+	private static final TokenStore SHARED = new TokenStore();
+
+	private final ConcurrentMap<Key, OAuth2TokenProvider> providers = new ConcurrentHashMap<>();
+	private final ProviderFactory providerFactory;
+
+	private volatile double refreshRatio = OAuth2TokenProvider.DEFAULT_REFRESH_RATIO;
+	private volatile MeterRegistry meterRegistry = Metrics.globalRegistry;
+
+	TokenStore() {
+		this((clientRegistration, connectTimeout, readTimeout, ratio, registry) -> new OAuth2TokenProvider(clientRegistration,
+			OAuth2TokenProvider.createTokenResponseClient(connectTimeout, readTimeout), ratio, registry, Clock.systemUTC()));
+	}
+
+	TokenStore(final ProviderFactory providerFactory) {
+		this.providerFactory = providerFactory;
+	}
+
+	/**
+	 * @return the token store shared by all clients of the application
+	 */
+	public static TokenStore getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * Returns a copy of the scopes of the client registration with the extra scopes added.
+	 *
+	 * @param  clientRegistration the client registration
+	 * @param  extraScopes        a set of extra scopes (may be null or empty)
+	 * @return                    a client registration with the effective scope set
+	 */
+	public static ClientRegistration withScopes(final ClientRegistration clientRegistration, final Set<String> extraScopes) {
+		Assert.notNull(clientRegistration, "clientRegistration cannot be null");
+
+		// When adding a scope to the clientRegistration it produces an "UnmodifiableSet", work around it.
+		final Set<String> scopes = ofNullable(clientRegistration.getScopes())
+			.map(HashSet::new)
+			.orElseGet(HashSet::new);
+		ofNullable(extraScopes).ifPresent(scopes::addAll);
+		return ClientRegistration.withClientRegistration(clientRegistration).scope(scopes).build();
+	}
+
+	/**
+	 * Returns the token provider for the client registration and its scopes, using the default timeouts for the token
+	 * endpoint.
+	 *
+	 * @param  clientRegistration the client registration, including the scopes to request
+	 * @return                    the shared token provider
+	 */
+	public OAuth2TokenProvider getProvider(final ClientRegistration clientRegistration) {
+		return getProvider(clientRegistration, Duration.ofSeconds(DEFAULT_TOKEN_CONNECT_TIMEOUT_IN_SECONDS), Duration.ofSeconds(DEFAULT_TOKEN_READ_TIMEOUT_IN_SECONDS));
+	}
+
+	/**
+	 * Returns the token provider for the client registration and its scopes, creating it if needed.
+	 *
+	 * @param  clientRegistration the client registration, including the scopes to request
+	 * @param  connectTimeout     connect timeout for calls to the token endpoint, if the provider is created
+	 * @param  readTimeout        read timeout for calls to the token endpoint, if the provider is created
+	 * @return                    the shared token provider
+	 */
+	public OAuth2TokenProvider getProvider(final ClientRegistration clientRegistration, final Duration connectTimeout, final Duration readTimeout) {
+		Assert.notNull(clientRegistration, "clientRegistration cannot be null");
+		Assert.notNull(connectTimeout, "connectTimeout cannot be null");
+		Assert.notNull(readTimeout, "readTimeout cannot be null");
+
+		return providers.computeIfAbsent(Key.of(clientRegistration),
+			_ -> providerFactory.create(clientRegistration, connectTimeout, readTimeout, refreshRatio, meterRegistry));
+	}
+
+	/**
+	 * Fetches a token for every provider in the store on virtual threads, so the first requests after startup don't wait
+	 * for the token endpoint. Failures are logged and otherwise ignored; the token is fetched again on first use.
+	 */
+	public void warmUp() {
+		providers.values().forEach(provider -> Thread.ofVirtual()
+			.name("oauth2-warm-up-" + provider.getClientRegistration().getRegistrationId())
+			.start(() -> warmUp(provider)));
+	}
+
+	private static void warmUp(final OAuth2TokenProvider provider) {
+		try {
+			provider.getToken();
+		} catch (final RuntimeException e) {
+			LOGGER.warn("Unable to fetch token for '{}' at startup", provider.getClientRegistration().getRegistrationId(), e);
+		}
+	}
+
+	/**
+	 * Sets the fraction of the token lifetime after which tokens are refreshed in the background, for existing and new
+	 * providers.
+	 *
+	 * @param refreshRatio the refresh ratio, greater than 0 and at most 1
+	 */
+	public void setRefreshRatio(final double refreshRatio) {
+		Assert.isTrue(refreshRatio > 0 && refreshRatio <= 1, "refreshRatio must be greater than 0 and at most 1");
+		this.refreshRatio = refreshRatio;
+		providers.values().forEach(provider -> provider.setRefreshRatio(refreshRatio));
+	}
+
+	/**
+	 * Sets the registry that token fetches are timed in, for existing and new providers. Clients created before the
+	 * application registry is available thereby publish their metrics to it as well.
+	 *
+	 * @param meterRegistry the meter registry
+	 */
+	public void setMeterRegistry(final MeterRegistry meterRegistry) {
+		Assert.notNull(meterRegistry, "meterRegistry cannot be null");
+		this.meterRegistry = meterRegistry;
+		providers.values().forEach(provider -> provider.setMeterRegistry(meterRegistry));
+	}
+
+	/**
+	 * Removes all providers from the store, e.g. when the application context is closed. Clients already holding a
+	 * provider keep using it, while clients created afterwards get new providers and fetch new tokens.
+	 */
+	public void clear() {
+		providers.clear();
+	}
+
+	Collection<OAuth2TokenProvider> getProviders() {
+		return providers.values();
+	}
+
+	@FunctionalInterface
+	interface ProviderFactory {
+		OAuth2TokenProvider create(ClientRegistration clientRegistration, Duration connectTimeout, Duration readTimeout, double refreshRatio, MeterRegistry meterRegistry);
+	}
+
+	private record Key(String registrationId, String clientId, String clientSecretHash, String tokenUri, Set<String> scopes) {
+
+		static Key of(final ClientRegistration clientRegistration) {
+			return new Key(clientRegistration.getRegistrationId(),
+				clientRegistration.getClientId(),
+				hash(clientRegistration.getClientSecret()),
+				ofNullable(clientRegistration.getProviderDetails()).map(ClientRegistration.ProviderDetails::getTokenUri).orElse(null),
+				ofNullable(clientRegistration.getScopes()).map(Set::copyOf).orElseGet(Set::of));
+		}
+
+		// The secret itself is not kept in the key, which may end up in logs or heap dumps through toString
+		private static String hash(final String clientSecret) {
+			if (clientSecret == null) {
+				return null;
+			}
+			try {
+				return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(clientSecret.getBytes(StandardCharsets.UTF_8)));
+			} catch (final NoSuchAlgorithmException e) {
+				throw new IllegalStateException("SHA-256 is not available", e);
+			}
+		}
+	}
+}
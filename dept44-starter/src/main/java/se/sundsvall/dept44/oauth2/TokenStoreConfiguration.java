@@ -0,0 +1,45 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+
+/**
+ * Autoconfiguration of the {@link TokenStore} shared by the Feign, WebClient and WebServiceTemplate clients.
+ * <p>
+ * Tokens are refreshed in the background after {@code dept44.oauth2.token-store.refresh-ratio} (default 0.75) of their
+ * lifetime. When the application is ready, a token is fetched for every client registration in the store; this can be
+ * disabled with {@code dept44.oauth2.token-store.warm-up.enabled=false}. The store is cleared when the context is closed,
+ * so that a new context does not reuse the providers of the previous one.
+ */
+@Configuration
+public class TokenStoreConfiguration {
+
+	private final boolean warmUpEnabled;
+
+	TokenStoreConfiguration(@Value("${dept44.oauth2.token-store.refresh-ratio:0.75}") final double refreshRatio,
+		@Value("${dept44.oauth2.token-store.warm-up.enabled:true}") final boolean warmUpEnabled,
+		final ObjectProvider<MeterRegistry> meterRegistryProvider) {
+
+		this.warmUpEnabled = warmUpEnabled;
+		TokenStore.getShared().setRefreshRatio(refreshRatio);
+		TokenStore.getShared().setMeterRegistry(meterRegistryProvider.getIfAvailable(() -> Metrics.globalRegistry));
+	}
+
+	@Bean(destroyMethod = "clear")
+	TokenStore tokenStore() {
+		return TokenStore.getShared();
+	}
+
+	@EventListener(ApplicationReadyEvent.class)
+	void warmUp() {
+		if (warmUpEnabled) {
+			TokenStore.getShared().warmUp();
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package se.sundsvall.dept44.problem;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Scheduler;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import org.slf4j.Logger;
+
+/**
+ * Collapses identical log events within a time window.
+ * <p>
+ * Events are identical when they have the same exception type, problem title and integration name. The first event is
+ * always logged. Further events within the window are only counted, and the next logged event carries the number of
+ * events suppressed since the previous one. When an event stops occurring, the count of the last window is logged as a
+ * summary line when its entry expires.
+ * <p>
+ * The number of tracked events is bounded, so a flood of distinct events cannot exhaust the heap. An evicted event is
+ * simply logged again on its next occurrence.
+ */
+final class LogDeduplicator {
+
+	static final long SUPPRESSED = -1;
+
+	private static final int MAX_TRACKED_EVENTS = 1_000;
+
+	private final long windowNanos;
+	private final Ticker ticker;
+	private final Cache<Key, Window> windows;
+
+	/**
+	 * @param window the deduplication window
+	 * @param logger the logger for summary lines of events that stopped occurring
+	 */
+	LogDeduplicator(final Duration window, final Logger logger) {
+		this(window, logger, Ticker.systemTicker(), Scheduler.systemScheduler());
+	}
+
+	LogDeduplicator(final Duration window, final Logger logger, final Ticker ticker, final Scheduler scheduler) {
+		this.windowNanos = window.toNanos();
+		this.ticker = ticker;
+		this.windows = Caffeine.newBuilder()
+			.maximumSize(MAX_TRACKED_EVENTS)
+			.expireAfterAccess(window)
+			.ticker(ticker)
+			.scheduler(scheduler)
+			.executor(Runnable::run)
+			.<Key, Window>removalListener((key, state, cause) -> {
+				if (key != null && state != null && cause == RemovalCause.EXPIRED) {
+					final var suppressed = state.drain();
+					if (suppressed > 0) {
+						logger.warn("{} ({}, integration {}) occurred {} more time(s) in the last {}", key.problemTitle(), key.exceptionType(),
+							key.integrationName(), suppressed, window);
+					}
+				}
+			})
+			.build();
+	}
+
+	/**
+	 * Records an event and decides whether it should be logged.
+	 *
+	 * @param  exceptionType   the type of the exception
+	 * @param  problemTitle    the title of the problem
+	 * @param  integrationName the integration name, or {@code null}
+	 * @return                 {@link #SUPPRESSED} if the event should not be logged, otherwise the number of identical
+	 *                         events suppressed since it was last logged
+	 */
+	long record(final Class<?> exceptionType, final String problemTitle, final String integrationName) {
+		final var now = ticker.read();
+		return windows.get(new Key(exceptionType.getName(), problemTitle, integrationName), _ -> new Window(now - windowNanos))
+			.record(now, windowNanos);
+	}
+
+	/**
+	 * Performs pending expiration, logging summary lines of events that stopped occurring.
+	 */
+	void cleanUp() {
+		windows.cleanUp();
+	}
+
+	private record Key(String exceptionType, String problemTitle, String integrationName) {}
+
+	private static final class Window {
+
+		private long startNanos;
+		private long suppressed;
+
+		private Window(final long startNanos) {
+			this.startNanos = startNanos;
+		}
+
+		private synchronized long record(final long now, final long windowNanos) {
+			if (now - startNanos < windowNanos) {
+				suppressed++;
+				return SUPPRESSED;
+			}
+			startNanos = now;
+			return drain();
+		}
+
+		private synchronized long drain() {
+			final var count = suppressed;
+			suppressed = 0;
+			return count;
+		}
+	}
+}
@@ -30,6 +30,19 @@ public interface Problem {
 		return new ThrowableProblem.Builder();
 	}
 
+	/**
+	 * Returns a shared, immutable ThrowableProblem without a stack trace for the given status and detail, with the reason
+	 * phrase of the status as title. Intended for constant problems on expected error paths, e.g. a {@code 404} for a
+	 * missing entity. The detail must not contain request specific values.
+	 *
+	 * @param  status the HTTP status
+	 * @param  detail the detail message
+	 * @return        a shared ThrowableProblem
+	 */
+	static ThrowableProblem cached(final HttpStatus status, final String detail) {
+		return ThrowableProblem.cached(status, detail);
+	}
+
 	/**
 	 * Create a ThrowableProblem with the given status and detail.
 	 *
@@ -278,6 +291,14 @@ public interface Problem {
 		 */
 		Builder withCause(ThrowableProblem cause);
 
+		/**
+		 * Skip filling in the stack trace of this problem, for problems on expected error paths where the stack trace is
+		 * not needed.
+		 *
+		 * @return this builder
+		 */
+		Builder withoutStackTrace();
+
 		/**
 		 * Build the Problem as a ThrowableProblem.
 		 *
@@ -5,14 +5,21 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Stream;
 import org.jspecify.annotations.NonNull;
 import org.jspecify.annotations.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
@@ -32,6 +39,7 @@ import org.springframework.web.multipart.MultipartException;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 import se.sundsvall.dept44.problem.violations.ConstraintViolationProblem;
 import se.sundsvall.dept44.problem.violations.Violation;
+import tools.jackson.databind.json.JsonMapper;
 
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.FORBIDDEN;
@@ -44,9 +52,16 @@ import static org.springframework.http.MediaType.APPLICATION_PROBLEM_JSON;
 
 /**
  * Global exception handler for validation exceptions. Converts validation exceptions to RFC 9457 Problem responses.
+ * <p>
+ * Identical log events (same exception type, problem title and integration) are deduplicated within a window (default
+ * 60 seconds, see {@code dept44.problem.log-deduplication.window}), so that e.g. an open circuit breaker does not log
+ * one line per rejected request. The first event is always logged in full, and the next logged event carries the number
+ * of suppressed events in the {@code suppressedOccurrences} MDC field.
+ * <p>
+ * Every problem returned is counted in the {@code dept44.problems} metric, see {@link ProblemMetrics}.
  */
 @ControllerAdvice
-public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
+public class ProblemExceptionHandler extends ResponseEntityExceptionHandler implements InitializingBean, DisposableBean {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ProblemExceptionHandler.class);
 
@@ -56,6 +71,73 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	private static final String MDC_HTTP_METHOD = "httpMethod";
 	private static final String MDC_PROBLEM_TITLE = "problemTitle";
 	private static final String MDC_INTEGRATION_NAME = "integrationName";
+	private static final String MDC_SUPPRESSED_OCCURRENCES = "suppressedOccurrences";
+
+	private static final Duration DEFAULT_LOG_DEDUPLICATION_WINDOW = Duration.ofSeconds(60);
+
+	private final Map<ProblemDetail, byte[]> cachedProblemBodies = new ConcurrentHashMap<>();
+
+	private JsonMapper jsonMapper;
+	private LogDeduplicator logDeduplicator = new LogDeduplicator(DEFAULT_LOG_DEDUPLICATION_WINDOW, LOGGER);
+	private boolean stacklessClientErrors;
+	private ProblemMetrics problemMetrics = ProblemMetrics.getShared();
+
+	/**
+	 * Sets the mapper used to pre-serialize the bodies of cached problems (see
+	 * {@link Problem#cached(org.springframework.http.HttpStatus, String)}). Without a mapper, cached problems are
+	 * serialized on every response like other problems.
+	 *
+	 * @param jsonMapper the mapper used for response bodies
+	 */
+	@Autowired(required = false)
+	public void setJsonMapper(final JsonMapper jsonMapper) {
+		this.jsonMapper = jsonMapper;
+	}
+
+	/**
+	 * Sets the metrics every returned problem is counted in.
+	 *
+	 * @param problemMetrics the problem metrics of the application
+	 */
+	@Autowired(required = false)
+	public void setProblemMetrics(final ProblemMetrics problemMetrics) {
+		this.problemMetrics = problemMetrics;
+	}
+
+	/**
+	 * Sets the window within which identical log events are collapsed into one. A zero window disables deduplication.
+	 *
+	 * @param window the deduplication window
+	 */
+	@Value("${dept44.problem.log-deduplication.window:60s}")
+	public void setLogDeduplicationWindow(final Duration window) {
+		this.logDeduplicator = window.isZero() ? null : new LogDeduplicator(window, LOGGER);
+	}
+
+	/**
+	 * Sets whether problems with a {@code 4xx} status are created without a stack trace (default {@code false}). Applies
+	 * to all problems created while this handler is active, from its initialization until it is destroyed.
+	 *
+	 * @param stacklessClientErrors {@code true} to create client error problems without a stack trace
+	 */
+	@Value("${dept44.problem.stackless-client-errors:false}")
+	public void setStacklessClientErrors(final boolean stacklessClientErrors) {
+		this.stacklessClientErrors = stacklessClientErrors;
+	}
+
+	@Override
+	public void afterPropertiesSet() {
+		ThrowableProblem.setStacklessClientErrors(stacklessClientErrors);
+	}
+
+	@Override
+	public void destroy() {
+		ThrowableProblem.setStacklessClientErrors(false);
+	}
+
+	void setLogDeduplicator(final LogDeduplicator logDeduplicator) {
+		this.logDeduplicator = logDeduplicator;
+	}
 
 	/**
 	 * Override the central exception handling method to convert ProblemDetail responses to our ProblemResponse format. This
@@ -68,7 +150,9 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 		var convertedBody = body;
 		var resolvedStatus = statusCode;
 		if (ex instanceof final ThrowableProblem throwableProblem && convertedBody == null) {
-			convertedBody = ProblemResponse.from(throwableProblem);
+			convertedBody = throwableProblem.isCached() && jsonMapper != null
+				? cachedProblemBodies.computeIfAbsent(throwableProblem.getBody(), _ -> jsonMapper.writeValueAsBytes(ProblemResponse.from(throwableProblem)))
+				: ProblemResponse.from(throwableProblem);
 			final var problemStatus = throwableProblem.getStatus();
 			if (problemStatus != null) {
 				resolvedStatus = problemStatus;
@@ -83,6 +167,7 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 			resolvedHeaders = new HttpHeaders(headers);
 			resolvedHeaders.setContentType(APPLICATION_PROBLEM_JSON);
 		}
+		recordProblem(ex, resolvedStatus, titleOf(ex, convertedBody), null);
 		return super.handleExceptionInternal(ex, convertedBody, resolvedHeaders, resolvedStatus, request);
 	}
 
@@ -113,6 +198,7 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 			.withTitle(CONSTRAINT_VIOLATION_TITLE)
 			.withViolations(violations)
 			.build();
+		recordProblem(exception, BAD_REQUEST, CONSTRAINT_VIOLATION_TITLE, null);
 
 		return ResponseEntity
 			.status(BAD_REQUEST)
@@ -133,6 +219,7 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 			.withTitle(CONSTRAINT_VIOLATION_TITLE)
 			.withViolations(allViolations)
 			.build();
+		recordProblem(exception, BAD_REQUEST, CONSTRAINT_VIOLATION_TITLE, null);
 
 		return ResponseEntity
 			.status(BAD_REQUEST)
@@ -163,9 +250,11 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(CallNotPermittedException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleCallNotPermittedException(final CallNotPermittedException exception, final HttpServletRequest request) {
-		logWithContext(request, SERVICE_UNAVAILABLE.getReasonPhrase(), exception.getCausingCircuitBreakerName(),
+		logWithContext(request, exception, SERVICE_UNAVAILABLE.getReasonPhrase(), exception.getCausingCircuitBreakerName(),
 			() -> LOGGER.warn("Circuit breaker '{}' is open, responding with {}", exception.getCausingCircuitBreakerName(), SERVICE_UNAVAILABLE.value()));
 
+		recordProblem(exception, SERVICE_UNAVAILABLE, SERVICE_UNAVAILABLE.getReasonPhrase(), exception.getCausingCircuitBreakerName());
+
 		final var problem = Problem.valueOf(SERVICE_UNAVAILABLE, exception.getMessage());
 
 		return ResponseEntity
@@ -180,9 +269,11 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(AccessDeniedException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleAccessDeniedException(final AccessDeniedException exception, final HttpServletRequest request) {
-		logWithContext(request, FORBIDDEN.getReasonPhrase(), null,
+		logWithContext(request, exception, FORBIDDEN.getReasonPhrase(), null,
 			() -> LOGGER.warn("Access denied ({}), responding with {}", exception.getClass().getSimpleName(), FORBIDDEN.value()));
 
+		recordProblem(exception, FORBIDDEN, FORBIDDEN.getReasonPhrase(), null);
+
 		return createProblem(FORBIDDEN, exception.getMessage());
 	}
 
@@ -192,9 +283,11 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(AuthenticationException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleAuthenticationException(final AuthenticationException exception, final HttpServletRequest request) {
-		logWithContext(request, UNAUTHORIZED.getReasonPhrase(), null,
+		logWithContext(request, exception, UNAUTHORIZED.getReasonPhrase(), null,
 			() -> LOGGER.warn("Authentication failed ({}), responding with {}", exception.getClass().getSimpleName(), UNAUTHORIZED.value()));
 
+		recordProblem(exception, UNAUTHORIZED, UNAUTHORIZED.getReasonPhrase(), null);
+
 		return createProblem(UNAUTHORIZED, exception.getMessage());
 	}
 
@@ -204,6 +297,8 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(UnsupportedOperationException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleUnsupportedOperationException(final UnsupportedOperationException exception) {
+		recordProblem(exception, NOT_IMPLEMENTED, NOT_IMPLEMENTED.getReasonPhrase(), null);
+
 		return createProblem(NOT_IMPLEMENTED, exception.getMessage());
 	}
 
@@ -213,6 +308,8 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(MultipartException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleMultipartException(final MultipartException exception) {
+		recordProblem(exception, BAD_REQUEST, BAD_REQUEST.getReasonPhrase(), null);
+
 		return createProblem(BAD_REQUEST, exception.getMessage());
 	}
 
@@ -222,9 +319,11 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(SocketTimeoutException.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleSocketTimeoutException(final SocketTimeoutException exception, final HttpServletRequest request) {
-		logWithContext(request, GATEWAY_TIMEOUT.getReasonPhrase(), null,
+		logWithContext(request, exception, GATEWAY_TIMEOUT.getReasonPhrase(), null,
 			() -> LOGGER.error("Downstream call timed out, responding with {}: {}", GATEWAY_TIMEOUT.value(), exception.getMessage()));
 
+		recordProblem(exception, GATEWAY_TIMEOUT, GATEWAY_TIMEOUT.getReasonPhrase(), null);
+
 		return createProblem(GATEWAY_TIMEOUT, exception.getMessage());
 	}
 
@@ -235,9 +334,11 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	@ExceptionHandler(Exception.class)
 	@ResponseBody
 	public ResponseEntity<Problem> handleException(final Exception exception, final HttpServletRequest request) {
-		logWithContext(request, INTERNAL_SERVER_ERROR.getReasonPhrase(), null,
+		logWithContext(request, exception, INTERNAL_SERVER_ERROR.getReasonPhrase(), null,
 			() -> LOGGER.error("Unhandled exception caught by global handler, responding with {}", INTERNAL_SERVER_ERROR.value(), exception));
 
+		recordProblem(exception, INTERNAL_SERVER_ERROR, INTERNAL_SERVER_ERROR.getReasonPhrase(), null);
+
 		return createProblem(INTERNAL_SERVER_ERROR, exception.getMessage());
 	}
 
@@ -268,25 +369,54 @@ public class ProblemExceptionHandler extends ResponseEntityExceptionHandler {
 	 * Put the given context on the MDC, run the log statement so the values surface as structured (and OpenSearch
 	 * filterable) fields, then remove the keys again. Cleanup is mandatory since servlet threads are pooled and would
 	 * otherwise leak these fields onto subsequent requests.
+	 * <p>
+	 * Events suppressed by the deduplication window return before touching the MDC.
 	 *
 	 * @param request         the current request, used for path and HTTP method
+	 * @param exception       the handled exception, used for deduplication
 	 * @param problemTitle    the title of the Problem being returned
 	 * @param integrationName the target integration name, or {@code null} when not available
 	 * @param logStatement    the logging call to execute while the context is on the MDC
 	 */
-	private static void logWithContext(final HttpServletRequest request, final String problemTitle, final String integrationName, final Runnable logStatement) {
+	private void logWithContext(final HttpServletRequest request, final Exception exception, final String problemTitle, final String integrationName,
+		final Runnable logStatement) {
+
+		final var deduplicator = logDeduplicator;
+		final var suppressed = deduplicator == null ? 0 : deduplicator.record(exception.getClass(), problemTitle, integrationName);
+		if (suppressed == LogDeduplicator.SUPPRESSED) {
+			return;
+		}
+
 		try {
 			MDC.put(MDC_REQUEST_PATH, request.getRequestURI());
 			MDC.put(MDC_HTTP_METHOD, request.getMethod());
 			MDC.put(MDC_PROBLEM_TITLE, problemTitle);
 			Optional.ofNullable(integrationName).ifPresent(name -> MDC.put(MDC_INTEGRATION_NAME, name));
+			if (suppressed > 0) {
+				MDC.put(MDC_SUPPRESSED_OCCURRENCES, String.valueOf(suppressed));
+			}
 			logStatement.run();
 		} finally {
 			MDC.remove(MDC_REQUEST_PATH);
 			MDC.remove(MDC_HTTP_METHOD);
 			MDC.remove(MDC_PROBLEM_TITLE);
 			MDC.remove(MDC_INTEGRATION_NAME);
+			MDC.remove(MDC_SUPPRESSED_OCCURRENCES);
+		}
+	}
+
+	private void recordProblem(final Exception exception, final HttpStatusCode status, final String title, final String integrationName) {
+		problemMetrics.recordProblem(ProblemMetrics.SOURCE_SERVER, status, title, integrationName, exception.getClass());
+	}
+
+	private static String titleOf(final Exception exception, final Object body) {
+		if (body instanceof final Problem problem) {
+			return problem.getTitle();
+		}
+		if (exception instanceof final ThrowableProblem throwableProblem) {
+			return throwableProblem.getTitle();
 		}
+		return body instanceof final ProblemDetail problemDetail ? problemDetail.getTitle() : null;
 	}
 
 	private ResponseEntity<Problem> createProblem(final HttpStatus httpStatus, final String detail) {
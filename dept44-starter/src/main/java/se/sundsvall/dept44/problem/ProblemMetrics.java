@@ -0,0 +1,166 @@
+package se.sundsvall.dept44.problem;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.util.Assert;
+
+/**
+ * Micrometer metrics for problems and other error paths.
+ * <p>
+ * Every problem produced or received is counted in {@code dept44.problems}, tagged with {@code source} (where the
+ * problem was produced, see the constants of this class), {@code status}, {@code title}, {@code integration} and
+ * {@code exception}. The time spent decoding error responses from integrations is recorded in
+ * {@code dept44.problems.decode}.
+ * <p>
+ * To keep cardinality low, each of the free text tags accepts at most {@value #MAX_TAG_VALUES} distinct values; further
+ * values are reported as {@code other}. Missing values are reported as {@code none}. Meters are cached per tag set, so
+ * recording a problem does not look up the meter in the registry.
+ * <p>
+ * The autoconfiguration registers an instance publishing to the application registry as a bean, which is injected into
+ * the exception handler. Components created outside the application context, such as Feign error decoders, use the
+ * {@link #getShared() shared instance}, which is the bean once the autoconfiguration has run and publishes to the
+ * global registry before that. The metrics can be disabled with {@code dept44.problem.metrics.enabled=false}.
+ */
+public final class ProblemMetrics {
+
+	public static final String PROBLEMS = "dept44.problems";
+	public static final String DECODE = "dept44.problems.decode";
+
+	/** Problems returned by the exception handler of this service */
+	public static final String SOURCE_SERVER = "server";
+	/** Error responses decoded from Feign clients */
+	public static final String SOURCE_FEIGN = "feign";
+	/** SOAP faults received by WebServiceTemplate clients */
+	public static final String SOURCE_SOAP = "soap";
+	/** Requests rejected because of invalid JWT credentials */
+	public static final String SOURCE_JWT = "jwt";
+
+	static final int MAX_TAG_VALUES = 100;
+	static final String NONE = "none";
+	static final String OTHER = "other";
+
+	private static volatile ProblemMetrics shared = new ProblemMetrics(Metrics.globalRegistry, true);
+
+	private final MeterRegistry meterRegistry;
+	private final boolean enabled;
+	private final BoundedTagValues titles = new BoundedTagValues();
+	private final BoundedTagValues integrations = new BoundedTagValues();
+	private final BoundedTagValues exceptions = new BoundedTagValues();
+	private final Map<ProblemTags, Counter> problemCounters = new ConcurrentHashMap<>();
+	private final Map<DecodeTags, Timer> decodeTimers = new ConcurrentHashMap<>();
+
+	/**
+	 * @param meterRegistry the registry to publish metrics to
+	 * @param enabled       whether metrics are recorded
+	 */
+	public ProblemMetrics(final MeterRegistry meterRegistry, final boolean enabled) {
+		Assert.notNull(meterRegistry, "meterRegistry may not be null");
+		this.meterRegistry = meterRegistry;
+		this.enabled = enabled;
+	}
+
+	/**
+	 * @return the instance used by components created outside the application context
+	 */
+	public static ProblemMetrics getShared() {
+		return shared;
+	}
+
+	/**
+	 * Sets the instance used by components created outside the application context.
+	 *
+	 * @param problemMetrics the instance
+	 */
+	public static void setShared(final ProblemMetrics problemMetrics) {
+		Assert.notNull(problemMetrics, "problemMetrics may not be null");
+		shared = problemMetrics;
+	}
+
+	/**
+	 * Counts a problem.
+	 *
+	 * @param source        where the problem was produced
+	 * @param status        the status of the problem, or {@code null}
+	 * @param title         the title of the problem, or {@code null}
+	 * @param integration   the integration or circuit breaker name, or {@code null}
+	 * @param exceptionType the type of the exception causing the problem, or {@code null}
+	 */
+	public void recordProblem(final String source, final HttpStatusCode status, final String title, final String integration, final Class<?> exceptionType) {
+		if (!enabled) {
+			return;
+		}
+		final var tags = new ProblemTags(source, status == null ? NONE : String.valueOf(status.value()), titles.bound(title), integrations.bound(integration),
+			exceptions.bound(exceptionType == null ? null : exceptionType.getSimpleName()));
+		problemCounters.computeIfAbsent(tags, this::problemCounter).increment();
+	}
+
+	/**
+	 * Records the time spent decoding an error response.
+	 *
+	 * @param source      where the response was decoded
+	 * @param integration the integration name, or {@code null}
+	 * @param status      the status of the response
+	 * @param nanos       the time spent, in nanoseconds
+	 */
+	public void recordDecode(final String source, final String integration, final int status, final long nanos) {
+		if (!enabled) {
+			return;
+		}
+		final var tags = new DecodeTags(source, integrations.bound(integration), status);
+		decodeTimers.computeIfAbsent(tags, this::decodeTimer).record(nanos, TimeUnit.NANOSECONDS);
+	}
+
+	private Counter problemCounter(final ProblemTags tags) {
+		return Counter.builder(PROBLEMS)
+			.description("Problems produced or received")
+			.tag("source", tags.source())
+			.tag("status", tags.status())
+			.tag("title", tags.title())
+			.tag("integration", tags.integration())
+			.tag("exception", tags.exception())
+			.register(meterRegistry);
+	}
+
+	private Timer decodeTimer(final DecodeTags tags) {
+		return Timer.builder(DECODE)
+			.description("Time spent decoding error responses")
+			.tag("source", tags.source())
+			.tag("integration", tags.integration())
+			.tag("status", String.valueOf(tags.status()))
+			.register(meterRegistry);
+	}
+
+	private record ProblemTags(String source, String status, String title, String integration, String exception) {}
+
+	private record DecodeTags(String source, String integration, int status) {}
+
+	/**
+	 * Accepts tag values until the bound is reached, after which new values are replaced with {@link #OTHER}.
+	 */
+	static final class BoundedTagValues {
+
+		private final Set<String> values = ConcurrentHashMap.newKeySet();
+
+		String bound(final String value) {
+			if (value == null || value.isBlank()) {
+				return NONE;
+			}
+			if (values.contains(value)) {
+				return value;
+			}
+			// Racing threads may exceed the bound by a few values, which is harmless
+			if (values.size() < MAX_TAG_VALUES) {
+				values.add(value);
+				return value;
+			}
+			return OTHER;
+		}
+	}
+}
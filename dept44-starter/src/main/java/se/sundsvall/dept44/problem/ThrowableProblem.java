@@ -5,6 +5,9 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ProblemDetail;
 import org.springframework.web.ErrorResponseException;
@@ -12,6 +15,11 @@ import org.springframework.web.ErrorResponseException;
 /**
  * An exception that represents an RFC 9457 Problem Details object. Extends Spring's ErrorResponseException to integrate
  * with Spring's native error handling.
+ * <p>
+ * Problems used for expected error paths can skip filling in the stack trace, which dominates the cost of creating
+ * them: per problem with {@link Problem.Builder#withoutStackTrace()}, for all {@code 4xx} problems with
+ * {@link ProblemExceptionHandler#setStacklessClientErrors(boolean)} (property
+ * {@code dept44.problem.stackless-client-errors}), or with {@link Problem#cached(HttpStatus, String)}.
  *
  * @see <a href="https://datatracker.ietf.org/doc/html/rfc9457">RFC 9457</a>
  */
@@ -22,10 +30,18 @@ import org.springframework.web.ErrorResponseException;
 })
 public class ThrowableProblem extends ErrorResponseException implements Problem {
 
+	private static final int MAX_CACHED_PROBLEMS = 1_000;
+	private static final Map<CacheKey, ReadOnlyProblemDetail> CACHED_BODIES = new ConcurrentHashMap<>();
+	private static final HttpHeaders NO_HEADERS = HttpHeaders.readOnlyHttpHeaders(new HttpHeaders());
+
+	private static volatile boolean stacklessClientErrors;
+
 	// ProblemDetail auto-fills title from status and always returns a non-null status,
 	// so we keep these two fields to preserve null semantics of the public API.
 	private final String title;
 	private final HttpStatus status;
+	private final boolean stackless;
+	private final boolean cached;
 
 	/**
 	 * Create a new ThrowableProblem.
@@ -38,11 +54,38 @@ public class ThrowableProblem extends ErrorResponseException implements Problem
 	 * @param cause    the cause of this problem
 	 */
 	public ThrowableProblem(final URI type, final String title, final HttpStatus status, final String detail, final URI instance, final ThrowableProblem cause) {
+		this(type, title, status, detail, instance, cause, false);
+	}
+
+	/**
+	 * Create a new ThrowableProblem, optionally without a stack trace.
+	 *
+	 * @param type              the problem type URI
+	 * @param title             the problem title
+	 * @param status            the HTTP status
+	 * @param detail            the problem detail
+	 * @param instance          the problem instance URI
+	 * @param cause             the cause of this problem
+	 * @param withoutStackTrace {@code true} to skip filling in the stack trace
+	 */
+	public ThrowableProblem(final URI type, final String title, final HttpStatus status, final String detail, final URI instance, final ThrowableProblem cause,
+		final boolean withoutStackTrace) {
+		// Assigned before the super constructor, which fills in the stack trace
+		this.stackless = withoutStackTrace || (stacklessClientErrors && status != null && status.is4xxClientError());
+		this.cached = false;
 		super(status != null ? status : HttpStatus.INTERNAL_SERVER_ERROR, createProblemDetail(type, title, status, detail, instance), cause);
 		this.title = title;
 		this.status = status;
 	}
 
+	private ThrowableProblem(final HttpStatus status, final ReadOnlyProblemDetail body) {
+		this.stackless = true;
+		this.cached = true;
+		super(status, body, null);
+		this.title = body.getTitle();
+		this.status = status;
+	}
+
 	/**
 	 * Create a new ThrowableProblem without a cause.
 	 *
@@ -75,6 +118,38 @@ public class ThrowableProblem extends ErrorResponseException implements Problem
 		this(type, title, status != null ? HttpStatus.valueOf(status) : null, detail, instance, null);
 	}
 
+	/**
+	 * Sets whether problems with a {@code 4xx} status are created without a stack trace. Owned by the
+	 * {@link ProblemExceptionHandler} bean, which applies its configuration on startup and resets it on shutdown.
+	 *
+	 * @param enabled {@code true} to create client error problems without a stack trace
+	 */
+	static void setStacklessClientErrors(final boolean enabled) {
+		stacklessClientErrors = enabled;
+	}
+
+	/**
+	 * Returns a problem without a stack trace for the status and detail, with the reason phrase of the status as title.
+	 * The body of the problem is shared and read-only, so that it can be serialized once. The exception itself is not
+	 * shared, since suppressed exceptions added to a shared instance would leak between requests. At most 1000 distinct
+	 * bodies are shared, beyond that a regular stackless problem is returned.
+	 *
+	 * @param  status the HTTP status
+	 * @param  detail the problem detail
+	 * @return        the problem
+	 */
+	static ThrowableProblem cached(final HttpStatus status, final String detail) {
+		final var key = new CacheKey(status, detail);
+		var body = CACHED_BODIES.get(key);
+		if (body == null) {
+			if (CACHED_BODIES.size() >= MAX_CACHED_PROBLEMS) {
+				return new ThrowableProblem(DEFAULT_TYPE, status.getReasonPhrase(), status, detail, null, null, true);
+			}
+			body = CACHED_BODIES.computeIfAbsent(key, _ -> new ReadOnlyProblemDetail(status, detail));
+		}
+		return new ThrowableProblem(status, body);
+	}
+
 	private static ProblemDetail createProblemDetail(final URI type, final String title, final HttpStatus status, final String detail, final URI instance) {
 		final var problemDetail = ProblemDetail.forStatus(status != null ? status.value() : 500);
 		if (type != null) {
@@ -133,6 +208,57 @@ public class ThrowableProblem extends ErrorResponseException implements Problem
 		return status != null ? status.getReasonPhrase() : "Unknown problem";
 	}
 
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return stackless ? this : super.fillInStackTrace();
+	}
+
+	@Override
+	public HttpHeaders getHeaders() {
+		return cached ? NO_HEADERS : super.getHeaders();
+	}
+
+	@Override
+	public void setType(final URI type) {
+		assertNotCached();
+		super.setType(type);
+	}
+
+	@Override
+	public void setTitle(final String title) {
+		assertNotCached();
+		super.setTitle(title);
+	}
+
+	@Override
+	public void setDetail(final String detail) {
+		assertNotCached();
+		super.setDetail(detail);
+	}
+
+	@Override
+	public void setInstance(final URI instance) {
+		assertNotCached();
+		super.setInstance(instance);
+	}
+
+	/**
+	 * Returns whether this problem is from {@link Problem#cached(HttpStatus, String)}, with a shared body that can not be
+	 * modified.
+	 *
+	 * @return {@code true} if the body of this problem is shared
+	 */
+	@JsonIgnore
+	public boolean isCached() {
+		return cached;
+	}
+
+	private void assertNotCached() {
+		if (cached) {
+			throw new UnsupportedOperationException("A cached problem can not be modified");
+		}
+	}
+
 	/**
 	 * Get the cause as a ThrowableProblem if it is one.
 	 *
@@ -154,6 +280,7 @@ public class ThrowableProblem extends ErrorResponseException implements Problem
 		private String detail;
 		private URI instance;
 		private ThrowableProblem cause;
+		private boolean withoutStackTrace;
 
 		@Override
 		public Problem.Builder withType(final URI type) {
@@ -191,9 +318,89 @@ public class ThrowableProblem extends ErrorResponseException implements Problem
 			return this;
 		}
 
+		@Override
+		public Problem.Builder withoutStackTrace() {
+			this.withoutStackTrace = true;
+			return this;
+		}
+
 		@Override
 		public ThrowableProblem build() {
-			return new ThrowableProblem(type, title, status, detail, instance, cause);
+			return new ThrowableProblem(type, title, status, detail, instance, cause, withoutStackTrace);
+		}
+	}
+
+	private record CacheKey(HttpStatus status, String detail) {}
+
+	/**
+	 * A problem detail that rejects modification once created, shared by the problems from
+	 * {@link Problem#cached(HttpStatus, String)}.
+	 */
+	private static final class ReadOnlyProblemDetail extends ProblemDetail {
+
+		private final boolean readOnly;
+
+		private ReadOnlyProblemDetail(final HttpStatus status, final String detail) {
+			super(status.value());
+			super.setType(DEFAULT_TYPE);
+			super.setTitle(status.getReasonPhrase());
+			super.setDetail(detail);
+			this.readOnly = true;
+		}
+
+		@Override
+		public void setType(final URI type) {
+			assertWritable();
+			super.setType(type);
+		}
+
+		@Override
+		public void setTitle(final String title) {
+			assertWritable();
+			super.setTitle(title);
+		}
+
+		@Override
+		public void setStatus(final HttpStatus httpStatus) {
+			assertWritable();
+			super.setStatus(httpStatus);
+		}
+
+		@Override
+		public void setStatus(final int status) {
+			assertWritable();
+			super.setStatus(status);
+		}
+
+		@Override
+		public void setDetail(final String detail) {
+			assertWritable();
+			super.setDetail(detail);
+		}
+
+		@Override
+		public void setInstance(final URI instance) {
+			assertWritable();
+			super.setInstance(instance);
+		}
+
+		@Override
+		public void setProperty(final String name, final Object value) {
+			assertWritable();
+			super.setProperty(name, value);
+		}
+
+		@Override
+		public void setProperties(final Map<String, Object> properties) {
+			assertWritable();
+			super.setProperties(properties);
+		}
+
+		private void assertWritable() {
+			// The super constructor may call the setters before the flag is assigned
+			if (readOnly) {
+				throw new UnsupportedOperationException("A cached problem can not be modified");
+			}
 		}
 	}
 }
@@ -0,0 +1,36 @@
+package se.sundsvall.dept44.reactive;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import se.sundsvall.dept44.support.Identifier;
+
+/**
+ * {@link ThreadLocalAccessor} that exposes the {@link Identifier} thread-local (and its {@code sent_by}/
+ * {@code sent_by_type} MDC entries) to Micrometer context-propagation.
+ * <p>
+ * Registered through {@code META-INF/services} so that a {@link io.micrometer.context.ContextSnapshot} can move the
+ * identity between a Reactor {@code Context} and the thread that is about to log or make an outbound call.
+ */
+public class IdentifierThreadLocalAccessor implements ThreadLocalAccessor<Identifier> {
+
+	public static final String KEY = Identifier.class.getName();
+
+	@Override
+	public Object key() {
+		return KEY;
+	}
+
+	@Override
+	public Identifier getValue() {
+		return Identifier.get();
+	}
+
+	@Override
+	public void setValue(final Identifier value) {
+		Identifier.set(value);
+	}
+
+	@Override
+	public void setValue() {
+		Identifier.remove();
+	}
+}
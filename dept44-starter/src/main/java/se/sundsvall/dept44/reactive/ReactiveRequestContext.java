@@ -0,0 +1,142 @@
+package se.sundsvall.dept44.reactive;
+
+import io.micrometer.context.ContextRegistry;
+import io.micrometer.context.ContextSnapshot;
+import io.micrometer.context.ContextSnapshotFactory;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import reactor.core.publisher.Signal;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+import se.sundsvall.dept44.support.Identifier;
+
+import static java.util.Objects.nonNull;
+
+/**
+ * Request scoped context (request id and {@link Identifier}) for the reactive stack.
+ * <p>
+ * On Netty event-loop threads a single thread interleaves many requests, so the values cannot live in
+ * {@link ThreadLocal}s or the MDC between operators. Instead they are written once into the Reactor {@link Context} at
+ * the edge (the WebFlux filter) and read from the {@link ContextView} by the operators that need them. Nothing is
+ * copied into the MDC per operator - the MDC is only populated, through Micrometer context-propagation, for the
+ * duration of an actual log statement (see {@link #withMdc(ContextView, Runnable)} and {@link #logOnNext(Consumer)}).
+ * <p>
+ * <strong>Example usage:</strong>
+ *
+ * <pre>{@code
+ * return service.fetch(id)
+ * 	.doOnEach(ReactiveRequestContext.logOnNext(result -> LOG.info("Fetched {}", result.id())));
+ * }</pre>
+ */
+public final class ReactiveRequestContext {
+
+	public static final String REQUEST_ID_KEY = RequestIdThreadLocalAccessor.KEY;
+	public static final String IDENTIFIER_KEY = IdentifierThreadLocalAccessor.KEY;
+
+	private static final ContextSnapshotFactory SNAPSHOT_FACTORY = ContextSnapshotFactory.builder()
+		.contextRegistry(ContextRegistry.getInstance())
+		.clearMissing(true)
+		.build();
+
+	private ReactiveRequestContext() {}
+
+	/**
+	 * Writes the request id and identifier into the given context. {@code null} values are not written.
+	 *
+	 * @param  context    the context to write to
+	 * @param  requestId  the request id
+	 * @param  identifier the identifier
+	 * @return            a new context containing the values
+	 */
+	public static Context write(final Context context, final String requestId, final Identifier identifier) {
+		var result = context;
+		if (nonNull(requestId)) {
+			result = result.put(REQUEST_ID_KEY, requestId);
+		}
+		if (nonNull(identifier)) {
+			result = result.put(IDENTIFIER_KEY, identifier);
+		}
+		return result;
+	}
+
+	/**
+	 * Reads the request id from the context.
+	 *
+	 * @param  contextView the context to read from
+	 * @return             the request id, if present
+	 */
+	public static Optional<String> getRequestId(final ContextView contextView) {
+		return contextView.getOrEmpty(REQUEST_ID_KEY);
+	}
+
+	/**
+	 * Reads the identifier from the context.
+	 *
+	 * @param  contextView the context to read from
+	 * @return             the identifier, if present
+	 */
+	public static Optional<Identifier> getIdentifier(final ContextView contextView) {
+		return contextView.getOrEmpty(IDENTIFIER_KEY);
+	}
+
+	/**
+	 * Runs the given action with the request id and identifier from the context applied to the current thread (MDC and
+	 * {@link Identifier}). The previous values of the thread are restored afterwards.
+	 *
+	 * @param contextView the context to read from
+	 * @param action      the action, typically a log statement
+	 */
+	public static void withMdc(final ContextView contextView, final Runnable action) {
+		try (final ContextSnapshot.Scope _ = SNAPSHOT_FACTORY.setThreadLocalsFrom(contextView, REQUEST_ID_KEY, IDENTIFIER_KEY)) {
+			action.run();
+		}
+	}
+
+	/**
+	 * Same as {@link #withMdc(ContextView, Runnable)} but for actions returning a value.
+	 *
+	 * @param  contextView the context to read from
+	 * @param  supplier    the supplier
+	 * @param  <T>         the type of the value
+	 * @return             the value returned by the supplier
+	 */
+	public static <T> T withMdc(final ContextView contextView, final Supplier<T> supplier) {
+		try (final ContextSnapshot.Scope _ = SNAPSHOT_FACTORY.setThreadLocalsFrom(contextView, REQUEST_ID_KEY, IDENTIFIER_KEY)) {
+			return supplier.get();
+		}
+	}
+
+	/**
+	 * Creates a {@code doOnEach} consumer that invokes the given log statement for each {@code onNext} signal with the
+	 * MDC populated from the signal's context.
+	 *
+	 * @param  logStatement the log statement
+	 * @param  <T>          the element type
+	 * @return              a consumer to pass to {@code doOnEach}
+	 */
+	public static <T> Consumer<Signal<T>> logOnNext(final Consumer<T> logStatement) {
+		return signal -> {
+			if (signal.getType() == SignalType.ON_NEXT) {
+				withMdc(signal.getContextView(), () -> logStatement.accept(signal.get()));
+			}
+		};
+	}
+
+	/**
+	 * Creates a {@code doOnEach} consumer that invokes the given log statement for an {@code onError} signal with the MDC
+	 * populated from the signal's context.
+	 *
+	 * @param  logStatement the log statement
+	 * @param  <T>          the element type
+	 * @return              a consumer to pass to {@code doOnEach}
+	 */
+	public static <T> Consumer<Signal<T>> logOnError(final Consumer<Throwable> logStatement) {
+		return signal -> {
+			if (signal.isOnError()) {
+				withMdc(signal.getContextView(), () -> logStatement.accept(signal.getThrowable()));
+			}
+		};
+	}
+}
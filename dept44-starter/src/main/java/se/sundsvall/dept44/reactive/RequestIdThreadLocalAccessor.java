@@ -0,0 +1,36 @@
+package se.sundsvall.dept44.reactive;
+
+import io.micrometer.context.ThreadLocalAccessor;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.requestid.RequestId;
+
+/**
+ * {@link ThreadLocalAccessor} that exposes the {@code x-request-id} MDC entry to Micrometer context-propagation.
+ * <p>
+ * Registered through {@code META-INF/services} so that a {@link io.micrometer.context.ContextSnapshot} can move the
+ * request id between a Reactor {@code Context} and the MDC of the thread that is about to log.
+ */
+public class RequestIdThreadLocalAccessor implements ThreadLocalAccessor<String> {
+
+	public static final String KEY = RequestId.MDC_REQUEST_ID_KEY;
+
+	@Override
+	public Object key() {
+		return KEY;
+	}
+
+	@Override
+	public String getValue() {
+		return RequestId.get();
+	}
+
+	@Override
+	public void setValue(final String value) {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, value);
+	}
+
+	@Override
+	public void setValue() {
+		MDC.remove(RequestId.MDC_REQUEST_ID_KEY);
+	}
+}
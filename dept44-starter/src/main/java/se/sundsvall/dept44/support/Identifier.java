@@ -138,6 +138,21 @@ public class Identifier {
 		MDC.remove(MDC_SENT_BY_TYPE_KEY);
 	}
 
+	/**
+	 * Restores the given {@link Identifier} instance into the thread-local context without touching the MDC. Intended for
+	 * context propagation, where the MDC (including the {@code sent_by} and {@code sent_by_type} keys) is restored
+	 * separately.
+	 *
+	 * @param identifier the {@link Identifier} instance to restore; if {@code null}, the thread-local value is removed
+	 */
+	public static void restore(Identifier identifier) {
+		if (identifier != null) {
+			THREAD_LOCAL_INSTANCE.set(identifier);
+		} else {
+			THREAD_LOCAL_INSTANCE.remove();
+		}
+	}
+
 	/**
 	 * Parses a {@link String} into an {@link Identifier} object.
 	 * <p>
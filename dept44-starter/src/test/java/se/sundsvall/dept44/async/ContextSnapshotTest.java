@@ -0,0 +1,115 @@
+package se.sundsvall.dept44.async;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ContextSnapshotTest {
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+		Identifier.remove();
+	}
+
+	@Test
+	void unchangedContextSharesSnapshot() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		Identifier.set(Identifier.parse("joe001doe; type=adAccount"));
+
+		final var first = ContextSnapshot.capture();
+		final var second = ContextSnapshot.capture();
+
+		assertThat(second).isSameAs(first);
+		assertThat(first.getMdc()).containsEntry(RequestId.MDC_REQUEST_ID_KEY, "req-1").containsEntry(Identifier.MDC_SENT_BY_KEY, "joe001doe");
+		assertThat(first.getIdentifier().getValue()).isEqualTo("joe001doe");
+	}
+
+	@Test
+	void changedContextCreatesNewSnapshot() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var first = ContextSnapshot.capture();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-2");
+		final var second = ContextSnapshot.capture();
+
+		assertThat(second).isNotSameAs(first);
+		assertThat(first.getMdc()).containsEntry(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		assertThat(second.getMdc()).containsEntry(RequestId.MDC_REQUEST_ID_KEY, "req-2");
+	}
+
+	@Test
+	void snapshotIsImmutable() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var snapshot = ContextSnapshot.capture();
+
+		assertThatThrownBy(() -> snapshot.getMdc().put("key", "value")).isInstanceOf(UnsupportedOperationException.class);
+	}
+
+	@Test
+	void emptyContextSharesEmptySnapshot() {
+		assertThat(ContextSnapshot.capture()).isSameAs(ContextSnapshot.capture());
+		assertThat(ContextSnapshot.capture().getMdc()).isEmpty();
+		assertThat(ContextSnapshot.capture().getIdentifier()).isNull();
+	}
+
+	@Test
+	void applyAndRestore() throws InterruptedException {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "caller");
+		Identifier.set(Identifier.parse("caller; type=adAccount"));
+		final var snapshot = ContextSnapshot.capture();
+
+		final var appliedRequestId = new AtomicReference<String>();
+		final var appliedIdentifier = new AtomicReference<Identifier>();
+		final var restoredRequestId = new AtomicReference<String>();
+		final var restoredIdentifier = new AtomicReference<Identifier>();
+
+		final var thread = new Thread(() -> {
+			MDC.put(RequestId.MDC_REQUEST_ID_KEY, "worker");
+			Identifier.set(Identifier.parse("worker; type=adAccount"));
+
+			try (var _ = snapshot.apply()) {
+				appliedRequestId.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+				appliedIdentifier.set(Identifier.get());
+			}
+
+			restoredRequestId.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+			restoredIdentifier.set(Identifier.get());
+		});
+		thread.start();
+		thread.join();
+
+		assertThat(appliedRequestId).hasValue("caller");
+		assertThat(appliedIdentifier.get().getValue()).isEqualTo("caller");
+		assertThat(restoredRequestId).hasValue("worker");
+		assertThat(restoredIdentifier.get().getValue()).isEqualTo("worker");
+	}
+
+	@Test
+	void applyOnSameContextKeepsMdc() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var snapshot = ContextSnapshot.capture();
+
+		try (var _ = snapshot.apply()) {
+			assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isEqualTo("req-1");
+		}
+
+		assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isEqualTo("req-1");
+	}
+
+	@Test
+	void wrapCallable() throws Exception {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "caller");
+		final var callable = ContextSnapshot.capture().wrap(() -> MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+		MDC.clear();
+
+		assertThat(callable.call()).isEqualTo("caller");
+		assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isNull();
+	}
+}
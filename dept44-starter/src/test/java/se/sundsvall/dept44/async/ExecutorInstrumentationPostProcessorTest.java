@@ -0,0 +1,123 @@
+package se.sundsvall.dept44.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import se.sundsvall.dept44.requestid.RequestId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ExecutorInstrumentationPostProcessorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ExecutorInstrumentationPostProcessor postProcessor = new ExecutorInstrumentationPostProcessor(true);
+
+	private ThreadPoolTaskExecutor threadPoolTaskExecutor;
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+		if (threadPoolTaskExecutor != null) {
+			threadPoolTaskExecutor.shutdown();
+		}
+	}
+
+	@Test
+	void instrumentsServiceDefinedThreadPoolTaskExecutor() throws Exception {
+		postProcessor.bindTo(meterRegistry);
+		threadPoolTaskExecutor = new ThreadPoolTaskExecutor();
+		threadPoolTaskExecutor.setCorePoolSize(1);
+		threadPoolTaskExecutor.setMaxPoolSize(1);
+		threadPoolTaskExecutor.setQueueCapacity(0);
+		initialize(threadPoolTaskExecutor, "reportExecutor");
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var observed = new AtomicReference<String>();
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		threadPoolTaskExecutor.execute(() -> {
+			observed.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+			started.countDown();
+			await(release);
+		});
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+		assertThat(meterRegistry.get("dept44.executor.running").tag("name", "reportExecutor").gauge().value()).isOne();
+		assertThat(meterRegistry.get("dept44.executor.utilization").tag("name", "reportExecutor").gauge().value()).isOne();
+		assertThatThrownBy(() -> threadPoolTaskExecutor.execute(() -> {})).isInstanceOf(TaskRejectedException.class);
+		assertThat(meterRegistry.get("dept44.executor.rejected").tag("name", "reportExecutor").counter().count()).isOne();
+
+		release.countDown();
+		threadPoolTaskExecutor.shutdown();
+		threadPoolTaskExecutor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS);
+
+		assertThat(observed).hasValue("req-1");
+		assertThat(meterRegistry.get("dept44.executor.execution").tag("name", "reportExecutor").timer().count()).isOne();
+		assertThat(meterRegistry.get("dept44.executor.queue.wait").tag("name", "reportExecutor").timer().count()).isOne();
+	}
+
+	@Test
+	void bindsExecutorsCreatedBeforeRegistry() {
+		final var executor = new SimpleAsyncTaskExecutor();
+		postProcessor.postProcessBeforeInitialization(executor, "applicationTaskExecutor");
+
+		postProcessor.bindTo(meterRegistry);
+
+		assertThat(meterRegistry.find("dept44.executor.execution").tag("name", "applicationTaskExecutor").timer()).isNotNull();
+		assertThat(meterRegistry.find("dept44.executor.utilization").tag("name", "applicationTaskExecutor").gauge()).isNull();
+	}
+
+	@Test
+	void replacesMdcTaskDecorator() {
+		final var executor = new SimpleAsyncTaskExecutor();
+		executor.setTaskDecorator(new MdcTaskDecorator());
+
+		postProcessor.postProcessBeforeInitialization(executor, "applicationTaskExecutor");
+		postProcessor.postProcessBeforeInitialization(executor, "applicationTaskExecutor");
+
+		assertThat(postProcessor.getExecutors()).hasSize(1);
+	}
+
+	@Test
+	void instrumentsSchedulers() {
+		final var scheduler = new ThreadPoolTaskScheduler();
+		scheduler.setPoolSize(2);
+
+		postProcessor.postProcessBeforeInitialization(scheduler, "taskScheduler");
+
+		assertThat(postProcessor.getExecutors()).extracting(ExecutorMetrics::getName).containsExactly("taskScheduler");
+		assertThat(postProcessor.getExecutors().getFirst().utilization()).isZero();
+	}
+
+	@Test
+	void ignoresOtherBeans() {
+		final var bean = new Object();
+
+		assertThat(postProcessor.postProcessBeforeInitialization(bean, "bean")).isSameAs(bean);
+		assertThat(postProcessor.postProcessAfterInitialization(bean, "bean")).isSameAs(bean);
+		assertThat(postProcessor.getExecutors()).isEmpty();
+	}
+
+	private void initialize(final ThreadPoolTaskExecutor executor, final String beanName) {
+		postProcessor.postProcessBeforeInitialization(executor, beanName);
+		executor.initialize();
+		postProcessor.postProcessAfterInitialization(executor, beanName);
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await(5, TimeUnit.SECONDS);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
@@ -0,0 +1,127 @@
+package se.sundsvall.dept44.async;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.core.task.TaskDecorator;
+import se.sundsvall.dept44.requestid.RequestId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+class InstrumentedTaskDecoratorTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+	}
+
+	@Test
+	void recordsQueueWaitAndExecution() throws InterruptedException {
+		final var metrics = metrics("pool", false);
+		final var decorated = new InstrumentedTaskDecorator(metrics, null, true).decorate(() -> sleep(20));
+
+		Thread.sleep(20);
+		runOnNewThread(decorated);
+
+		final var queueWait = meterRegistry.get("dept44.executor.queue.wait").tag("name", "pool").timer();
+		final var execution = meterRegistry.get("dept44.executor.execution").tag("name", "pool").timer();
+		assertThat(queueWait.count()).isOne();
+		assertThat(queueWait.totalTime(MILLISECONDS)).isGreaterThanOrEqualTo(20);
+		assertThat(execution.count()).isOne();
+		assertThat(execution.totalTime(MILLISECONDS)).isGreaterThanOrEqualTo(20);
+		assertThat(metrics.getRunning()).isZero();
+	}
+
+	@Test
+	void doesNotRecordQueueWaitForSchedulers() {
+		final var metrics = metrics("scheduler", true);
+
+		new InstrumentedTaskDecorator(metrics, null, true).decorate(() -> {}).run();
+
+		assertThat(meterRegistry.get("dept44.executor.queue.wait").tag("name", "scheduler").timer().count()).isZero();
+		assertThat(meterRegistry.get("dept44.executor.execution").tag("name", "scheduler").timer().count()).isOne();
+	}
+
+	@Test
+	void recordsExecutionOfFailingTask() {
+		final var metrics = metrics("pool", false);
+		final var decorated = new InstrumentedTaskDecorator(metrics, null, true).decorate(() -> {
+			throw new IllegalStateException();
+		});
+
+		assertThatThrownBy(decorated::run).isInstanceOf(IllegalStateException.class);
+
+		assertThat(meterRegistry.get("dept44.executor.execution").tag("name", "pool").timer().count()).isOne();
+		assertThat(metrics.getRunning()).isZero();
+	}
+
+	@Test
+	void propagatesContext() throws InterruptedException {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var observed = new AtomicReference<String>();
+
+		final var decorated = new InstrumentedTaskDecorator(metrics("pool", false), null, true)
+			.decorate(() -> observed.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY)));
+		runOnNewThread(decorated);
+
+		assertThat(observed).hasValue("req-1");
+	}
+
+	@Test
+	void doesNotPropagateContextWhenDisabled() throws InterruptedException {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var observed = new AtomicReference<String>("unset");
+
+		final var decorated = new InstrumentedTaskDecorator(metrics("pool", false), null, false)
+			.decorate(() -> observed.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY)));
+		runOnNewThread(decorated);
+
+		assertThat(observed.get()).isNull();
+	}
+
+	@Test
+	void replacesMdcTaskDecorator() {
+		final var decorator = new InstrumentedTaskDecorator(metrics("pool", false), new MdcTaskDecorator(), false);
+
+		assertThat(decorator.getDelegate()).isNull();
+	}
+
+	@Test
+	void appliesOtherDecoratorInside() {
+		final var wrapped = new AtomicReference<Boolean>(false);
+		final TaskDecorator custom = runnable -> () -> {
+			wrapped.set(true);
+			runnable.run();
+		};
+
+		new InstrumentedTaskDecorator(metrics("pool", false), custom, true).decorate(() -> {}).run();
+
+		assertThat(wrapped).hasValue(true);
+	}
+
+	private ExecutorMetrics metrics(final String name, final boolean scheduler) {
+		final var metrics = new ExecutorMetrics(name, scheduler, () -> 4);
+		metrics.bindTo(meterRegistry);
+		return metrics;
+	}
+
+	private static void runOnNewThread(final Runnable runnable) throws InterruptedException {
+		final var thread = new Thread(runnable);
+		thread.start();
+		thread.join();
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
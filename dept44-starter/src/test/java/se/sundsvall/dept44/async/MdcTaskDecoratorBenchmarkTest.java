@@ -0,0 +1,111 @@
+package se.sundsvall.dept44.async;
+
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+/**
+ * Measures the overhead of decorating and running a task, comparing the copying approach the decorator used to take
+ * with {@link ContextSnapshot}. The numbers are logged rather than asserted, as elapsed time depends on the load of the
+ * machine. The first round is warmup. Run with {@code -Ddept44.benchmark=true}, e.g.
+ * {@code mvn test -Dtest=MdcTaskDecoratorBenchmarkTest -Ddept44.benchmark=true}.
+ */
+@EnabledIfSystemProperty(named = "dept44.benchmark", matches = "true")
+class MdcTaskDecoratorBenchmarkTest {
+
+	private static final Logger LOG = LoggerFactory.getLogger(MdcTaskDecoratorBenchmarkTest.class);
+
+	private static final int ITERATIONS = 5_000_000;
+	private static final int BATCH_SIZE = 10_000;
+
+	private final MdcTaskDecorator decorator = new MdcTaskDecorator();
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+		Identifier.remove();
+	}
+
+	@Test
+	void decoratedTaskOverhead() throws Exception {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "5f2ae6b1-6f0b-4bd4-a2c0-2d4b1a2f9c11");
+		MDC.put("municipalityId", "2281");
+		Identifier.set(Identifier.parse("joe001doe; type=adAccount"));
+
+		try (final var worker = Executors.newSingleThreadExecutor()) {
+			measure("plain", UnaryOperator.identity(), worker);
+			measure("copying decorator", MdcTaskDecoratorBenchmarkTest::copyingDecorate, worker);
+			measure("snapshot decorator", decorator::decorate, worker);
+		}
+	}
+
+	/**
+	 * Decorates tasks in batches on the calling thread and runs each batch on the worker thread, like a request thread
+	 * submitting {@code @Async} calls to a pooled executor.
+	 */
+	private static void measure(final String name, final UnaryOperator<Runnable> decorate, final ExecutorService worker) throws Exception {
+		final Runnable task = () -> {};
+		final var batch = new Runnable[BATCH_SIZE];
+
+		var elapsed = 0L;
+		for (var round = 0; round < 2; round++) {
+			final var start = System.nanoTime();
+			for (var i = 0; i < ITERATIONS; i += BATCH_SIZE) {
+				for (var j = 0; j < BATCH_SIZE; j++) {
+					batch[j] = decorate.apply(task);
+				}
+				worker.submit(() -> {
+					for (final var decorated : batch) {
+						decorated.run();
+					}
+				}).get();
+			}
+			elapsed = System.nanoTime() - start;
+		}
+		LOG.info("{}: {} ns/task ({} ms total)", name, String.format("%.1f", (double) elapsed / ITERATIONS), TimeUnit.NANOSECONDS.toMillis(elapsed));
+	}
+
+	/**
+	 * The decorator as it was before {@link ContextSnapshot}: copies the MDC on submit, copies the worker MDC before
+	 * running and writes the identifier and MDC twice.
+	 */
+	private static Runnable copyingDecorate(final Runnable runnable) {
+		final Map<String, String> callerContextMap = MDC.getCopyOfContextMap();
+		final Identifier callerIdentifier = Identifier.get();
+
+		return () -> {
+			final Map<String, String> previousContextMap = MDC.getCopyOfContextMap();
+			final Identifier previousIdentifier = Identifier.get();
+
+			applyContext(callerContextMap, callerIdentifier);
+			try {
+				runnable.run();
+			} finally {
+				applyContext(previousContextMap, previousIdentifier);
+			}
+		};
+	}
+
+	private static void applyContext(final Map<String, String> contextMap, final Identifier identifier) {
+		if (identifier != null) {
+			Identifier.set(identifier);
+		} else {
+			Identifier.remove();
+		}
+		if (contextMap != null) {
+			MDC.setContextMap(contextMap);
+		} else {
+			MDC.clear();
+		}
+	}
+}
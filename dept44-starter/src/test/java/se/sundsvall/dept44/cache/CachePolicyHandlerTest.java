@@ -0,0 +1,190 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CachePolicyHandlerTest {
+
+	private static final String BODY = "{\"value\":\"cached\"}";
+
+	private final CachePolicyHandler handler = new CachePolicyHandler(100);
+
+	@Test
+	void successfulResponseGetsPolicyHeadersAndEtag() throws Exception {
+		final var response = new MockHttpServletResponse();
+
+		handler.handle(get(), response, writing(BODY, new AtomicInteger()), Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=60, public");
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(CachePolicyHandler.generateEtag(stream(BODY), false));
+		assertThat(response.getContentAsString()).isEqualTo(BODY);
+	}
+
+	@Test
+	void conditionalRequestIsAnsweredWithNotModified() throws Exception {
+		final var invocations = new AtomicInteger();
+		final var etag = CachePolicyHandler.generateEtag(stream(BODY), false);
+		final var request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+		final var response = new MockHttpServletResponse();
+
+		handler.handle(request, response, writing(BODY, invocations), Policies.revalidate(), CachePolicyHandlerTest::noStore);
+
+		assertThat(invocations).hasValue(1);
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-cache, public");
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(etag);
+		assertThat(response.getContentAsByteArray()).isEmpty();
+	}
+
+	@Test
+	void freshValidatorIsAnsweredWithoutInvokingHandler() throws Exception {
+		final var invocations = new AtomicInteger();
+		final var firstResponse = new MockHttpServletResponse();
+		handler.handle(get(), firstResponse, writing(BODY, invocations), Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		final var request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, firstResponse.getHeader(HttpHeaders.ETAG));
+		final var response = new MockHttpServletResponse();
+		handler.handle(request, response, writing(BODY, invocations), Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		assertThat(invocations).hasValue(1);
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isEqualTo(firstResponse.getHeader(HttpHeaders.ETAG));
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=60, public");
+	}
+
+	@Test
+	void validatorsAreNotSharedForPrivateResponses() throws Exception {
+		final var invocations = new AtomicInteger();
+		final var firstResponse = new MockHttpServletResponse();
+		handler.handle(get(), firstResponse, writing(BODY, invocations), Policies.privateMaxAge(), CachePolicyHandlerTest::noStore);
+
+		final var request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, firstResponse.getHeader(HttpHeaders.ETAG));
+		final var response = new MockHttpServletResponse();
+		handler.handle(request, response, writing(BODY, invocations), Policies.privateMaxAge(), CachePolicyHandlerTest::noStore);
+
+		assertThat(invocations).hasValue(2);
+		assertThat(response.getStatus()).isEqualTo(304);
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("max-age=60, private");
+	}
+
+	@Test
+	void invalidateAll() throws Exception {
+		final var invocations = new AtomicInteger();
+		final var firstResponse = new MockHttpServletResponse();
+		handler.handle(get(), firstResponse, writing(BODY, invocations), Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		handler.invalidateAll();
+
+		final var request = get();
+		request.addHeader(HttpHeaders.IF_NONE_MATCH, firstResponse.getHeader(HttpHeaders.ETAG));
+		handler.handle(request, new MockHttpServletResponse(), writing(BODY, invocations), Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		assertThat(invocations).hasValue(2);
+	}
+
+	@Test
+	void errorResponseGetsNoStoreHeaders() throws Exception {
+		final var response = new MockHttpServletResponse();
+		final FilterChain chain = (_, servletResponse) -> {
+			((HttpServletResponse) servletResponse).setStatus(404);
+			servletResponse.getOutputStream().write("not found".getBytes(StandardCharsets.UTF_8));
+		};
+
+		handler.handle(get(), response, chain, Policies.maxAge(), CachePolicyHandlerTest::noStore);
+
+		assertThat(response.getStatus()).isEqualTo(404);
+		assertThat(response.getHeader(HttpHeaders.CACHE_CONTROL)).isEqualTo("no-store");
+		assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+		assertThat(response.getContentAsString()).isEqualTo("not found");
+	}
+
+	@Test
+	void weakEtag() throws IOException {
+		final var etag = CachePolicyHandler.generateEtag(stream(BODY), true);
+
+		assertThat(etag).startsWith("W/\"").endsWith("\"").hasSize(36);
+		assertThat(CachePolicyHandler.matches(etag.substring(2), etag)).isTrue();
+	}
+
+	@Test
+	void matches() {
+		assertThat(CachePolicyHandler.matches("\"a\", \"b\"", "\"b\"")).isTrue();
+		assertThat(CachePolicyHandler.matches("W/\"b\"", "\"b\"")).isTrue();
+		assertThat(CachePolicyHandler.matches("*", "\"b\"")).isTrue();
+		assertThat(CachePolicyHandler.matches("\"a\"", "\"b\"")).isFalse();
+	}
+
+	@Test
+	void isApplicable() {
+		assertThat(CachePolicyHandler.isApplicable(new MockHttpServletRequest("GET", "/"))).isTrue();
+		assertThat(CachePolicyHandler.isApplicable(new MockHttpServletRequest("HEAD", "/"))).isTrue();
+		assertThat(CachePolicyHandler.isApplicable(new MockHttpServletRequest("POST", "/"))).isFalse();
+	}
+
+	private static MockHttpServletRequest get() {
+		final var request = new MockHttpServletRequest("GET", "/2281/codes");
+		request.addHeader(HttpHeaders.ACCEPT, "application/json");
+		return request;
+	}
+
+	private static FilterChain writing(final String body, final AtomicInteger invocations) {
+		return (_, response) -> {
+			invocations.incrementAndGet();
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private static ByteArrayInputStream stream(final String body) {
+		return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void noStore(final HttpServletResponse response) {
+		response.addHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+	}
+
+	static class Policies {
+
+		@Dept44CachePolicy(maxAge = 60)
+		void maxAgeMethod() {}
+
+		@Dept44CachePolicy
+		void revalidateMethod() {}
+
+		@Dept44CachePolicy(maxAge = 60, privateCache = true)
+		void privateMaxAgeMethod() {}
+
+		static Dept44CachePolicy maxAge() {
+			return policy("maxAgeMethod");
+		}
+
+		static Dept44CachePolicy revalidate() {
+			return policy("revalidateMethod");
+		}
+
+		static Dept44CachePolicy privateMaxAge() {
+			return policy("privateMaxAgeMethod");
+		}
+
+		private static Dept44CachePolicy policy(final String methodName) {
+			try {
+				return Policies.class.getDeclaredMethod(methodName).getAnnotation(Dept44CachePolicy.class);
+			} catch (final NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
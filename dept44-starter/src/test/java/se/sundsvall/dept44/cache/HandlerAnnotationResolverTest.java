@@ -0,0 +1,109 @@
+package se.sundsvall.dept44.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class HandlerAnnotationResolverTest {
+
+	@Mock
+	private ObjectProvider<RequestMappingHandlerMapping> handlerMappingProviderMock;
+
+	@Mock
+	private RequestMappingHandlerMapping handlerMappingMock;
+
+	@Test
+	void findAnnotationOnMethod() throws Exception {
+		final var resolver = resolverFor(new HandlerMethod(new PlainController(), "cached"));
+		final var request = new MockHttpServletRequest("GET", "/cached");
+
+		final var policy = resolver.findAnnotation(request, Dept44CachePolicy.class);
+
+		assertThat(policy).hasValueSatisfying(value -> assertThat(value.maxAge()).isEqualTo(30));
+		assertThat(ServletRequestPathUtils.hasParsedRequestPath(request)).isFalse();
+	}
+
+	@Test
+	void findAnnotationOnClass() throws Exception {
+		final var resolver = resolverFor(new HandlerMethod(new AnnotatedController(), "inherited"));
+
+		final var policy = resolver.findAnnotation(new MockHttpServletRequest("GET", "/inherited"), Dept44CachePolicy.class);
+
+		assertThat(policy).hasValueSatisfying(value -> assertThat(value.maxAge()).isEqualTo(10));
+	}
+
+	@Test
+	void findAnnotationWhenNotAnnotated() throws Exception {
+		final var resolver = resolverFor(new HandlerMethod(new PlainController(), "uncached"));
+
+		assertThat(resolver.findAnnotation(new MockHttpServletRequest("GET", "/uncached"), Dept44CachePolicy.class)).isEmpty();
+	}
+
+	@Test
+	void handlerIsResolvedOncePerRequest() throws Exception {
+		final var resolver = resolverFor(new HandlerMethod(new PlainController(), "cached"));
+		final var request = new MockHttpServletRequest("GET", "/cached");
+
+		resolver.findAnnotation(request, Dept44CachePolicy.class);
+		resolver.findAnnotation(request, Deprecated.class);
+
+		verify(handlerMappingMock).getHandler(any());
+	}
+
+	@Test
+	void findAnnotationWhenHandlerLookupFails() throws Exception {
+		when(handlerMappingProviderMock.getIfAvailable()).thenReturn(handlerMappingMock);
+		when(handlerMappingMock.getHandler(any())).thenThrow(new IllegalStateException("No handler"));
+		final var resolver = new HandlerAnnotationResolver(handlerMappingProviderMock);
+
+		assertThat(resolver.findAnnotation(new MockHttpServletRequest("GET", "/missing"), Dept44CachePolicy.class)).isEmpty();
+	}
+
+	@Test
+	void findAnnotationWithoutHandlerMapping() {
+		final var resolver = new HandlerAnnotationResolver(handlerMappingProviderMock);
+
+		assertThat(resolver.findAnnotation(new MockHttpServletRequest("GET", "/cached"), Dept44CachePolicy.class)).isEmpty();
+		verifyNoInteractions(handlerMappingMock);
+	}
+
+	private HandlerAnnotationResolver resolverFor(final HandlerMethod handlerMethod) throws Exception {
+		when(handlerMappingProviderMock.getIfAvailable()).thenReturn(handlerMappingMock);
+		when(handlerMappingMock.getHandler(any())).thenReturn(new HandlerExecutionChain(handlerMethod));
+		return new HandlerAnnotationResolver(handlerMappingProviderMock);
+	}
+
+	static class PlainController {
+
+		@Dept44CachePolicy(maxAge = 30)
+		public String cached() {
+			return "cached";
+		}
+
+		public String uncached() {
+			return "uncached";
+		}
+	}
+
+	@Dept44CachePolicy(maxAge = 10)
+	static class AnnotatedController {
+
+		public String inherited() {
+			return "inherited";
+		}
+	}
+}
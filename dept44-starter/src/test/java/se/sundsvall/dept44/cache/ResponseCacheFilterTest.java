@@ -0,0 +1,330 @@
+package se.sundsvall.dept44.cache;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.Servlet;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.ServletResponseWrapper;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.slf4j.MDC;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class ResponseCacheFilterTest {
+
+	private static final String PATH = "/2281/pets";
+
+	@Mock
+	private HandlerAnnotationResolver handlerAnnotationResolverMock;
+
+	private final AtomicLong time = new AtomicLong();
+	private final AtomicInteger invocations = new AtomicInteger();
+
+	private ResponseCache responseCache;
+	private ResponseCacheFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		responseCache = new ResponseCache(DataSize.ofMegabytes(1), time::get);
+		filter = new ResponseCacheFilter(handlerAnnotationResolverMock, responseCache);
+		lenient().when(handlerAnnotationResolverMock.findAnnotation(any(), eq(Dept44ResponseCache.class))).thenReturn(Optional.of(Endpoints.cached()));
+	}
+
+	@AfterEach
+	void tearDown() {
+		MDC.clear();
+	}
+
+	@Test
+	void missIsStoredAndHitIsReplayed() throws Exception {
+		final var first = execute(request(), handler("body-1", 200));
+		final var second = execute(request(), handler("body-2", 200));
+
+		assertThat(invocations).hasValue(1);
+		assertThat(first.getContentAsString()).isEqualTo("body-1");
+		assertThat(second.getContentAsString()).isEqualTo("body-1");
+		assertThat(second.getContentType()).isEqualTo("application/json");
+		assertThat(second.getHeader("x-custom")).isEqualTo("value");
+		assertThat(second.getContentLength()).isEqualTo(6);
+	}
+
+	@Test
+	void errorResponseIsNotStored() throws Exception {
+		execute(request(), handler("error", 500));
+		final var second = execute(request(), handler("body", 200));
+
+		assertThat(invocations).hasValue(2);
+		assertThat(second.getContentAsString()).isEqualTo("body");
+	}
+
+	@Test
+	void keyVariesOnAcceptAndQuery() throws Exception {
+		execute(request(), handler("json", 200));
+
+		final var xmlRequest = request();
+		xmlRequest.removeHeader(HttpHeaders.ACCEPT);
+		xmlRequest.addHeader(HttpHeaders.ACCEPT, "application/xml");
+		final var queryRequest = request();
+		queryRequest.setQueryString("page=2");
+
+		assertThat(execute(xmlRequest, handler("xml", 200)).getContentAsString()).isEqualTo("xml");
+		assertThat(execute(queryRequest, handler("page2", 200)).getContentAsString()).isEqualTo("page2");
+		assertThat(invocations).hasValue(3);
+	}
+
+	@Test
+	void staleEntryIsServedAndRefreshed() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		final var stale = execute(request(), handler("new", 200));
+		final var refreshed = execute(request(), handler("newer", 200));
+
+		assertThat(stale.getContentAsString()).isEqualTo("old");
+		assertThat(refreshed.getContentAsString()).isEqualTo("new");
+		assertThat(invocations).hasValue(2);
+	}
+
+	@Test
+	void staleEntryIsRefreshedByAsyncDispatchWithContextOfRequest() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(61));
+		final var refreshDispatcherType = new AtomicReference<DispatcherType>();
+		final var refreshRequestId = new AtomicReference<String>();
+		final var refreshAsyncSupported = new AtomicBoolean(true);
+		final var clientResponseCommitted = new AtomicBoolean();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		final var request = request();
+		final var stale = execute(request, (servletRequest, servletResponse) -> {
+			refreshDispatcherType.set(servletRequest.getDispatcherType());
+			refreshRequestId.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+			refreshAsyncSupported.set(servletRequest.isAsyncSupported());
+			clientResponseCommitted.set(((ServletResponseWrapper) servletResponse).getResponse().isCommitted());
+			handler("new", 200).doFilter(servletRequest, servletResponse);
+		});
+
+		assertThat(stale.getContentAsString()).isEqualTo("old");
+		assertThat(refreshDispatcherType).hasValue(DispatcherType.ASYNC);
+		assertThat(refreshRequestId).hasValue("req-1");
+		assertThat(refreshAsyncSupported).isFalse();
+		assertThat(clientResponseCommitted).isTrue();
+		assertThat(request.getAsyncContext().getTimeout()).isEqualTo(30_000);
+		assertThat(execute(request(), handler("newer", 200)).getContentAsString()).isEqualTo("new");
+	}
+
+	@Test
+	void refreshTimingOutBeforeDispatchReleasesEntry() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		final var request = request();
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain(servlet(handler("new", 200))));
+		final var asyncContext = (MockAsyncContext) request.getAsyncContext();
+		for (final var listener : asyncContext.getListeners()) {
+			listener.onTimeout(new AsyncEvent(asyncContext));
+		}
+
+		assertThat(request.isAsyncStarted()).isFalse();
+		assertThat(execute(request(), handler("newer", 200)).getContentAsString()).isEqualTo("old");
+		assertThat(execute(request(), handler("newest", 200)).getContentAsString()).isEqualTo("newer");
+	}
+
+	@Test
+	void staleEntryIsNotRefreshedWithoutAsyncSupport() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		final var request = request();
+		request.setAsyncSupported(false);
+		final var stale = execute(request, handler("new", 200));
+
+		assertThat(stale.getContentAsString()).isEqualTo("old");
+		assertThat(invocations).hasValue(1);
+	}
+
+	@Test
+	void responsesAreNotSharedBetweenIdentities() throws Exception {
+		final var joe = request();
+		joe.addHeader(Identifier.HEADER_NAME, "joe; type=adAccount");
+		final var ann = request();
+		ann.addHeader(Identifier.HEADER_NAME, "ann; type=adAccount");
+		final var bearer = request();
+		bearer.addHeader(HttpHeaders.AUTHORIZATION, "Bearer token");
+
+		assertThat(execute(joe, handler("joe", 200)).getContentAsString()).isEqualTo("joe");
+		assertThat(execute(ann, handler("ann", 200)).getContentAsString()).isEqualTo("ann");
+		assertThat(execute(bearer, handler("bearer", 200)).getContentAsString()).isEqualTo("bearer");
+		assertThat(execute(request(), handler("anonymous", 200)).getContentAsString()).isEqualTo("anonymous");
+
+		final var joeAgain = request();
+		joeAgain.addHeader(Identifier.HEADER_NAME, "joe; type=adAccount");
+		assertThat(execute(joeAgain, handler("other", 200)).getContentAsString()).isEqualTo("joe");
+		assertThat(invocations).hasValue(4);
+	}
+
+	@Test
+	void failedRefreshKeepsStaleEntry() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(61));
+
+		execute(request(), handler("failure", 503));
+		final var stale = execute(request(), handler("new", 200));
+		final var refreshed = execute(request(), handler("newer", 200));
+
+		assertThat(stale.getContentAsString()).isEqualTo("old");
+		assertThat(refreshed.getContentAsString()).isEqualTo("new");
+		assertThat(invocations).hasValue(3);
+	}
+
+	@Test
+	void expiredEntryIsLoadedAgain() throws Exception {
+		execute(request(), handler("old", 200));
+		time.addAndGet(TimeUnit.SECONDS.toNanos(91));
+
+		final var response = execute(request(), handler("new", 200));
+
+		assertThat(response.getContentAsString()).isEqualTo("new");
+		assertThat(invocations).hasValue(2);
+	}
+
+	@Test
+	void invalidateCache() throws Exception {
+		execute(request(), handler("old", 200));
+
+		responseCache.invalidateCache("pets");
+
+		assertThat(execute(request(), handler("new", 200)).getContentAsString()).isEqualTo("new");
+	}
+
+	@Test
+	void nonGetRequestIsNotCached() throws Exception {
+		final var request = new MockHttpServletRequest("POST", PATH);
+
+		execute(request, handler("created", 200));
+		execute(request, handler("created", 200));
+
+		assertThat(invocations).hasValue(2);
+		verifyNoInteractions(handlerAnnotationResolverMock);
+	}
+
+	/**
+	 * Passes the request through the filter to a servlet invoking the handler, like the container would, including the
+	 * asynchronous dispatch that refreshes a stale entry.
+	 */
+	private MockHttpServletResponse execute(final MockHttpServletRequest request, final FilterChain handler) throws Exception {
+		final var response = new MockHttpServletResponse();
+		final var chain = new ReleasableFilterChain(servlet(handler));
+		filter.doFilter(request, response, chain);
+		chain.release();
+
+		if (request.getAsyncContext() instanceof final MockAsyncContext asyncContext && asyncContext.getDispatchedPath() != null) {
+			// Dispatched by the container once the filter has returned, on another thread with a chain of its own
+			MDC.clear();
+			request.setAsyncStarted(false);
+			request.setDispatcherType(DispatcherType.ASYNC);
+			filter.doFilter(request, response, new MockFilterChain(servlet(handler)));
+			asyncContext.complete();
+		}
+		assertThat(request.isAsyncStarted()).isFalse();
+		return response;
+	}
+
+	private static Servlet servlet(final FilterChain handler) {
+		return new HttpServlet() {
+
+			@Override
+			protected void service(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+				handler.doFilter(request, response);
+			}
+		};
+	}
+
+	private FilterChain handler(final String body, final int status) {
+		return (_, servletResponse) -> {
+			invocations.incrementAndGet();
+			final var response = (HttpServletResponse) servletResponse;
+			response.setStatus(status);
+			response.setContentType("application/json");
+			response.setHeader("x-custom", "value");
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private static MockHttpServletRequest request() {
+		final var request = new MockHttpServletRequest("GET", PATH);
+		request.addHeader(HttpHeaders.ACCEPT, "application/json");
+		request.setAsyncSupported(true);
+		return request;
+	}
+
+	/**
+	 * A chain that can't be used once the request has passed the filter, as the container releases its chains.
+	 */
+	private static final class ReleasableFilterChain extends MockFilterChain {
+
+		private boolean released;
+
+		ReleasableFilterChain(final Servlet servlet) {
+			super(servlet);
+		}
+
+		void release() {
+			released = true;
+		}
+
+		@Override
+		public void doFilter(final ServletRequest request, final ServletResponse response) throws IOException, ServletException {
+			if (released) {
+				throw new IllegalStateException("The filter chain has been released");
+			}
+			super.doFilter(request, response);
+		}
+	}
+
+	static class Endpoints {
+
+		@Dept44ResponseCache(name = "pets", ttl = 60, staleWhileRevalidate = 30)
+		void cachedMethod() {}
+
+		static Dept44ResponseCache cached() {
+			try {
+				return Endpoints.class.getDeclaredMethod("cachedMethod").getAnnotation(Dept44ResponseCache.class);
+			} catch (final NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
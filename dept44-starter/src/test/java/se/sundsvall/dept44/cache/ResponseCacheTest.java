@@ -0,0 +1,84 @@
+package se.sundsvall.dept44.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCacheTest {
+
+	private final ResponseCache responseCache = new ResponseCache(DataSize.ofMegabytes(1), () -> 0L);
+
+	@Test
+	void invalidateMunicipality() {
+		responseCache.put(key("codes", "2281"), response(10));
+		responseCache.put(key("codes", "2260"), response(10));
+
+		responseCache.invalidateMunicipality("2281");
+
+		assertThat(responseCache.get(key("codes", "2281"))).isNull();
+		assertThat(responseCache.get(key("codes", "2260"))).isNotNull();
+	}
+
+	@Test
+	void invalidateCache() {
+		responseCache.put(key("codes", "2281"), response(10));
+		responseCache.put(key("pets", "2281"), response(10));
+
+		responseCache.invalidateCache("codes");
+
+		assertThat(responseCache.get(key("codes", "2281"))).isNull();
+		assertThat(responseCache.get(key("pets", "2281"))).isNotNull();
+	}
+
+	@Test
+	void invalidateAll() {
+		responseCache.put(key("codes", "2281"), response(10));
+
+		responseCache.invalidateAll();
+
+		assertThat(responseCache.get(key("codes", "2281"))).isNull();
+	}
+
+	@Test
+	void isFresh() {
+		final var response = response(10);
+
+		assertThat(response.isFresh(999)).isTrue();
+		assertThat(response.isFresh(1_000)).isFalse();
+	}
+
+	@Test
+	void weight() {
+		final var response = new ResponseCache.CachedResponse(new BufferedResponse(200, "application/json", Map.of("x-custom", List.of("value")), new byte[100]), 0, 1_000, 0);
+
+		assertThat(response.weight()).isEqualTo(100 + "x-custom".length() + "value".length());
+	}
+
+	@Test
+	void bindTo() {
+		final var registry = new SimpleMeterRegistry();
+		responseCache.bindTo(registry);
+
+		responseCache.get(key("codes", "2281"));
+		responseCache.recordStale();
+		responseCache.recordRefresh(true);
+		responseCache.recordRefresh(false);
+
+		assertThat(registry.get("cache.gets").tag("cache", ResponseCache.CACHE_NAME).tag("result", "miss").functionCounter().count()).isEqualTo(1);
+		assertThat(registry.get("dept44.response.cache.stale").counter().count()).isEqualTo(1);
+		assertThat(registry.get("dept44.response.cache.refresh").tag("outcome", "success").counter().count()).isEqualTo(1);
+		assertThat(registry.get("dept44.response.cache.refresh").tag("outcome", "failure").counter().count()).isEqualTo(1);
+	}
+
+	private static ResponseCacheKey key(final String cacheName, final String municipalityId) {
+		return new ResponseCacheKey(cacheName, municipalityId, "/" + municipalityId + "/" + cacheName, null, "application/json", List.of(), null);
+	}
+
+	private static ResponseCache.CachedResponse response(final int size) {
+		return new ResponseCache.CachedResponse(new BufferedResponse(200, "application/json", Map.of(), new byte[size]), 0, 1_000, 0);
+	}
+}
@@ -0,0 +1,170 @@
+package se.sundsvall.dept44.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class SingleFlightFilterTest {
+
+	@Mock
+	private HandlerAnnotationResolver handlerAnnotationResolverMock;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final AtomicInteger invocations = new AtomicInteger();
+
+	private SingleFlightFilter filter;
+
+	@BeforeEach
+	void setUp() {
+		filter = new SingleFlightFilter(handlerAnnotationResolverMock, JsonMapper.builder().build(), meterRegistry, 100);
+		lenient().when(handlerAnnotationResolverMock.findAnnotation(any(), eq(Dept44SingleFlight.class))).thenReturn(Optional.of(Endpoints.coalesced()));
+		lenient().when(handlerAnnotationResolverMock.findHandlerMethod(any())).thenReturn(Optional.empty());
+	}
+
+	@Test
+	void concurrentRequestsShareResponse() throws Exception {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var leader = executor.submit(() -> execute(chain(200, "leader", started, release)));
+			started.await();
+			final var follower = executor.submit(() -> execute(chain(200, "follower", null, null)));
+			awaitCoalesced();
+			release.countDown();
+
+			assertThat(leader.get().getContentAsString()).isEqualTo("leader");
+			assertThat(follower.get().getContentAsString()).isEqualTo("leader");
+			assertThat(follower.get().getContentType()).isEqualTo("application/json");
+			assertThat(follower.get().getHeader("x-custom")).isEqualTo("value");
+		}
+
+		assertThat(invocations).hasValue(1);
+	}
+
+	@Test
+	void concurrentRequestsShareErrorResponse() throws Exception {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executor.submit(() -> execute(chain(502, "upstream failed", started, release)));
+			started.await();
+			final var follower = executor.submit(() -> execute(chain(200, "follower", null, null)));
+			awaitCoalesced();
+			release.countDown();
+
+			assertThat(follower.get().getStatus()).isEqualTo(502);
+			assertThat(follower.get().getContentAsString()).isEqualTo("upstream failed");
+		}
+	}
+
+	@Test
+	void followersShareFailureOfLeader() throws Exception {
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final FilterChain failingChain = (_, _) -> {
+			invocations.incrementAndGet();
+			started.countDown();
+			try {
+				release.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+			throw new IOException("Broken pipe");
+		};
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var leader = executor.submit(() -> execute(failingChain));
+			started.await();
+			final var follower = executor.submit(() -> execute(chain(200, "follower", null, null)));
+			awaitCoalesced();
+			release.countDown();
+
+			assertThatThrownBy(leader::get).hasCauseInstanceOf(IOException.class);
+			assertThatThrownBy(follower::get).hasCauseInstanceOf(IOException.class);
+		}
+
+		assertThat(invocations).hasValue(1);
+	}
+
+	@Test
+	void nonGetRequestIsNotCoalesced() throws Exception {
+		final var request = new MockHttpServletRequest("POST", "/2281/pets");
+
+		filter.doFilterInternal(request, new MockHttpServletResponse(), chain(200, "created", null, null));
+
+		assertThat(invocations).hasValue(1);
+		verifyNoInteractions(handlerAnnotationResolverMock);
+	}
+
+	private MockHttpServletResponse execute(final FilterChain chain) throws Exception {
+		final var response = new MockHttpServletResponse();
+		filter.doFilterInternal(new MockHttpServletRequest("GET", "/2281/pets"), response, chain);
+		return response;
+	}
+
+	private FilterChain chain(final int status, final String body, final CountDownLatch started, final CountDownLatch release) {
+		return (_, servletResponse) -> {
+			invocations.incrementAndGet();
+			if (started != null) {
+				started.countDown();
+				try {
+					release.await();
+				} catch (final InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			final var response = (HttpServletResponse) servletResponse;
+			response.setStatus(status);
+			response.setContentType("application/json");
+			response.setHeader("x-custom", "value");
+			response.getOutputStream().write(body.getBytes(StandardCharsets.UTF_8));
+		};
+	}
+
+	private void awaitCoalesced() throws InterruptedException {
+		final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (meterRegistry.find("dept44.single.flight.coalesced").counters().stream().mapToDouble(counter -> counter.count()).sum() < 1
+			&& System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+	}
+
+	static class Endpoints {
+
+		@Dept44SingleFlight(timeout = "PT5S")
+		void coalescedMethod() {}
+
+		static Dept44SingleFlight coalesced() {
+			try {
+				return Endpoints.class.getDeclaredMethod("coalescedMethod").getAnnotation(Dept44SingleFlight.class);
+			} catch (final NoSuchMethodException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package se.sundsvall.dept44.compression;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.List;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class CompressionSettingsTest {
+
+	private static final ContentCoding DEFLATE = ContentCoding.of("deflate", DeflaterOutputStream::new, InflaterInputStream::new);
+
+	@Test
+	void defaults() {
+		final var settings = CompressionSettings.create();
+
+		assertThat(settings.getCodings()).containsExactly(ContentCoding.GZIP);
+		assertThat(settings.getAcceptEncoding()).isEqualTo("gzip");
+		assertThat(settings.getRequestCompressionThreshold()).isNull();
+		assertThat(settings.isCompressed(Long.MAX_VALUE)).isFalse();
+		assertThat(settings.getMeterRegistry()).isNull();
+	}
+
+	@Test
+	void withValues() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		final var settings = CompressionSettings.create()
+			.withCodings(List.of(DEFLATE, ContentCoding.GZIP))
+			.withRequestCompression(DataSize.ofKilobytes(1))
+			.withMeterRegistry(meterRegistry);
+
+		assertThat(settings.getCodings()).containsExactly(DEFLATE, ContentCoding.GZIP);
+		assertThat(settings.getAcceptEncoding()).isEqualTo("deflate, gzip");
+		assertThat(settings.getRequestCompressionThreshold()).isEqualTo(DataSize.ofKilobytes(1));
+		assertThat(settings.isCompressed(1023)).isFalse();
+		assertThat(settings.isCompressed(1024)).isTrue();
+		assertThat(settings.getMeterRegistry()).isSameAs(meterRegistry);
+	}
+
+	@Test
+	void getCoding() {
+		final var settings = CompressionSettings.create();
+
+		assertThat(settings.getCoding("GZIP ")).contains(ContentCoding.GZIP);
+		assertThat(settings.getCoding("br")).isEmpty();
+		assertThat(settings.getCoding(null)).isEmpty();
+	}
+
+	@Test
+	void invalidValues() {
+		final var settings = CompressionSettings.create();
+
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withCodings(List.of())).withMessage("codings may not be empty");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withRequestCompression(null)).withMessage("threshold may not be null");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withRequestCompression(DataSize.ofBytes(-1))).withMessage("threshold must not be negative");
+		assertThatIllegalArgumentException().isThrownBy(() -> settings.withMeterRegistry(null)).withMessage("meterRegistry may not be null");
+	}
+}
@@ -0,0 +1,40 @@
+package se.sundsvall.dept44.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+import org.junit.jupiter.api.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNullPointerException;
+
+class ContentCodingTest {
+
+	private static final byte[] BYTES = "some bytes to compress, ".repeat(10).getBytes(UTF_8);
+
+	@Test
+	void gzipRoundTrip() throws IOException {
+		final var compressed = ContentCoding.GZIP.compress(BYTES);
+
+		assertThat(ContentCoding.GZIP.name()).isEqualTo("gzip");
+		assertThat(compressed).hasSizeLessThan(BYTES.length);
+		assertThat(ContentCoding.GZIP.decompress(new ByteArrayInputStream(compressed)).readAllBytes()).isEqualTo(BYTES);
+	}
+
+	@Test
+	void customCoding() throws IOException {
+		final var deflate = ContentCoding.of("deflate", DeflaterOutputStream::new, InflaterInputStream::new);
+
+		assertThat(deflate.name()).isEqualTo("deflate");
+		assertThat(deflate.decompress(new ByteArrayInputStream(deflate.compress(BYTES))).readAllBytes()).isEqualTo(BYTES);
+	}
+
+	@Test
+	void customCodingRequiresAllParts() {
+		assertThatNullPointerException().isThrownBy(() -> ContentCoding.of(null, DeflaterOutputStream::new, InflaterInputStream::new));
+		assertThatNullPointerException().isThrownBy(() -> ContentCoding.of("deflate", null, InflaterInputStream::new));
+		assertThatNullPointerException().isThrownBy(() -> ContentCoding.of("deflate", DeflaterOutputStream::new, null));
+	}
+}
@@ -0,0 +1,242 @@
+package se.sundsvall.dept44.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+class BatchLoaderTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final List<Set<Integer>> batches = new CopyOnWriteArrayList<>();
+	private final List<String> batchRequestIds = new CopyOnWriteArrayList<>();
+
+	@AfterEach
+	void tearDown() {
+		Identifier.remove();
+		MDC.clear();
+	}
+
+	@Test
+	void concurrentLoadsAreBatched() throws Exception {
+		final var loader = loader().withWindow(Duration.ofMillis(200));
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var futures = IntStream.range(0, 10)
+				.mapToObj(i -> executor.submit(() -> loader.load(i)))
+				.toList();
+
+			for (var i = 0; i < futures.size(); i++) {
+				assertThat(futures.get(i).get()).isEqualTo("value-" + i);
+			}
+		}
+
+		assertThat(batches).hasSize(1);
+		assertThat(batches.getFirst()).hasSize(10);
+		assertThat(meterRegistry.get("dept44.batch.loader.batch.size").tag("name", "test").summary().totalAmount()).isEqualTo(10);
+	}
+
+	@Test
+	void fullBatchIsDispatchedWithoutWaitingForWindow() throws Exception {
+		final var loader = loader()
+			.withWindow(Duration.ofMinutes(1))
+			.withMaxBatchSize(5);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var futures = IntStream.range(0, 5)
+				.mapToObj(i -> executor.submit(() -> loader.load(i)))
+				.toList();
+
+			for (final var future : futures) {
+				assertThat(future.get()).startsWith("value-");
+			}
+		}
+
+		assertThat(batches).hasSize(1);
+	}
+
+	@Test
+	void loadAllSplitsIntoBatches() {
+		final var loader = loader().withMaxBatchSize(4);
+
+		final var values = loader.loadAll(List.of(1, 2, 3, 4, 5, 6, 2, 42));
+
+		assertThat(values).containsExactly(
+			entry(1, "value-1"), entry(2, "value-2"), entry(3, "value-3"), entry(4, "value-4"),
+			entry(5, "value-5"), entry(6, "value-6"), entry(42, null));
+		assertThat(batches).containsExactly(Set.of(1, 2, 3, 4), Set.of(5, 6, 42));
+	}
+
+	@Test
+	void valuesAreMemoizedPerRequest() {
+		final var loader = loader();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		loader.loadAll(List.of(1, 2));
+		assertThat(loader.load(1)).isEqualTo("value-1");
+		assertThat(loader.loadAll(List.of(2, 3))).containsExactly(entry(2, "value-2"), entry(3, "value-3"));
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-2");
+		loader.load(1);
+
+		assertThat(batches).containsExactly(Set.of(1, 2), Set.of(3), Set.of(1));
+		assertThat(meterRegistry.get("dept44.batch.loader.memoized").tag("name", "test").counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void memoizedValuesAreDroppedWhenRequestEnds() {
+		final var loader = loader();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		loader.load(1);
+		BatchLoader.endRequest("req-1");
+		loader.load(1);
+
+		assertThat(batches).hasSize(2);
+	}
+
+	@Test
+	void valuesAreNotMemoizedAcrossIdentifiers() {
+		final var loader = loader();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		Identifier.set(Identifier.parse("joe01doe; type=adAccount"));
+		loader.load(1);
+		Identifier.set(Identifier.parse("ann01doe; type=adAccount"));
+		loader.load(1);
+
+		assertThat(batches).hasSize(2);
+	}
+
+	@Test
+	void callersWithDifferentIdentifiersAreNotBatchedTogether() throws Exception {
+		final List<String> batchIdentifiers = new CopyOnWriteArrayList<>();
+		final var loader = BatchLoader.<Integer, String>create("test", meterRegistry, keys -> {
+			final var identifier = Identifier.get().getValue();
+			batchIdentifiers.add(identifier);
+			if ("ann01doe".equals(identifier)) {
+				throw new IllegalStateException("Forbidden");
+			}
+			return keys.stream().collect(Collectors.toMap(Function.identity(), key -> identifier + "-" + key));
+		}).withWindow(Duration.ofMillis(200));
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var joe = executor.submit(() -> loadAs("joe01doe", loader, 1));
+			final var ann = executor.submit(() -> loadAs("ann01doe", loader, 2));
+
+			assertThat(joe.get()).isEqualTo("joe01doe-1");
+			assertThatThrownBy(ann::get).hasRootCauseMessage("Forbidden");
+		}
+
+		assertThat(batchIdentifiers).containsExactlyInAnyOrder("joe01doe", "ann01doe");
+	}
+
+	@Test
+	void nothingIsMemoizedWithoutRequestId() {
+		final var loader = loader();
+
+		loader.load(1);
+		loader.load(1);
+
+		assertThat(batches).hasSize(2);
+	}
+
+	@Test
+	void memoizationCanBeDisabled() {
+		final var loader = loader().withMemoization(Duration.ZERO);
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		loader.load(1);
+		loader.load(1);
+
+		assertThat(batches).hasSize(2);
+	}
+
+	@Test
+	void batchFunctionRunsWithContextOfCaller() {
+		final var loader = loader();
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		loader.load(1);
+
+		assertThat(batchRequestIds).containsExactly("req-1");
+	}
+
+	@Test
+	void failureIsRethrownToAllCallersAndNotMemoized() throws Exception {
+		final var failure = new IllegalStateException("Upstream failed");
+		final var loader = BatchLoader.<Integer, String>create("test", meterRegistry, keys -> {
+			batches.add(keys);
+			throw failure;
+		}).withWindow(Duration.ofMillis(200));
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var first = executor.submit(() -> loader.load(1));
+			final var second = executor.submit(() -> loader.load(2));
+
+			assertThatThrownBy(first::get).hasCause(failure);
+			assertThatThrownBy(second::get).hasCause(failure);
+		}
+
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		assertThatThrownBy(() -> loader.load(1)).isSameAs(failure);
+		assertThatThrownBy(() -> loader.load(1)).isSameAs(failure);
+		assertThat(batches).hasSize(3);
+	}
+
+	@Test
+	void callerGivesUpAfterTimeout() {
+		final var loader = BatchLoader.<Integer, String>create("test", meterRegistry, _ -> {
+			sleep(Duration.ofSeconds(1));
+			return Map.of();
+		}).withTimeout(Duration.ofMillis(50));
+
+		assertThatThrownBy(() -> loader.load(1))
+			.isInstanceOfSatisfying(ThrowableProblem.class, problem -> assertThat(problem.getStatus()).isEqualTo(SERVICE_UNAVAILABLE))
+			.hasMessageContaining("Timed out waiting for batch of 'test'");
+	}
+
+	private BatchLoader<Integer, String> loader() {
+		return BatchLoader.<Integer, String>create("test", meterRegistry, keys -> {
+			batches.add(keys.stream().collect(Collectors.toUnmodifiableSet()));
+			batchRequestIds.add(String.valueOf(RequestId.get()));
+			return keys.stream()
+				.filter(key -> key < 10)
+				.collect(Collectors.toMap(Function.identity(), key -> "value-" + key));
+		});
+	}
+
+	private static String loadAs(final String user, final BatchLoader<Integer, String> loader, final int key) {
+		Identifier.set(Identifier.parse(user + "; type=adAccount"));
+		try {
+			return loader.load(key);
+		} finally {
+			Identifier.remove();
+		}
+	}
+
+	private static void sleep(final Duration duration) {
+		try {
+			Thread.sleep(duration);
+		} catch (final InterruptedException _) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
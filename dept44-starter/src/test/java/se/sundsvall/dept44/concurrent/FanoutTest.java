@@ -0,0 +1,157 @@
+package se.sundsvall.dept44.concurrent;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import se.sundsvall.dept44.problem.Problem;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
+
+class FanoutTest {
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+		Identifier.remove();
+	}
+
+	@Test
+	void mapRunsInParallelAndKeepsOrder() {
+		final var started = new CountDownLatch(3);
+
+		final var result = Fanout.create("test").map(List.of(1, 2, 3), i -> {
+			started.countDown();
+			await(started);
+			return i * 10;
+		});
+
+		assertThat(result).containsExactly(10, 20, 30);
+	}
+
+	@Test
+	void mapEmptyCollection() {
+		assertThat(Fanout.create("test").map(List.<Integer>of(), i -> i)).isEmpty();
+	}
+
+	@Test
+	void mapAllowsNullResults() {
+		assertThat(Fanout.create("test").map(List.of(1, 2), i -> i == 1 ? null : i)).containsExactly(null, 2);
+	}
+
+	@Test
+	void propagatesContext() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "req-1");
+		Identifier.set(Identifier.parse("joe001doe; type=adAccount"));
+
+		final var result = Fanout.create("test").map(List.of(1, 2), _ -> MDC.get(RequestId.MDC_REQUEST_ID_KEY) + ":" + Identifier.get().getValue());
+
+		assertThat(result).containsOnly("req-1:joe001doe");
+	}
+
+	@Test
+	void limitsConcurrency() {
+		final var running = new AtomicInteger();
+		final var maxRunning = new AtomicInteger();
+
+		Fanout.create("test").withMaxConcurrency(3).map(IntStream.range(0, 50).boxed().toList(), _ -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			sleep(5);
+			running.decrementAndGet();
+			return null;
+		});
+
+		assertThat(maxRunning.get()).isBetween(1, 3);
+	}
+
+	@Test
+	void deadlineCancelsRemainingSubtasks() {
+		final var interrupted = new AtomicBoolean();
+		final var fanout = Fanout.create("slow").withDeadline(Duration.ofMillis(100));
+
+		assertThatThrownBy(() -> fanout.run(() -> {
+			try {
+				Thread.sleep(Duration.ofSeconds(30));
+			} catch (final InterruptedException _) {
+				interrupted.set(true);
+			}
+		}))
+			.isInstanceOfSatisfying(ThrowableProblem.class, problem -> {
+				assertThat(problem.getStatus()).isEqualTo(GATEWAY_TIMEOUT);
+				assertThat(problem.getDetail()).isEqualTo("Fanout 'slow' did not complete within PT0.1S");
+			});
+
+		assertThat(interrupted).isTrue();
+	}
+
+	@Test
+	void failureCancelsRemainingSubtasksAndIsRethrown() {
+		final var interrupted = new AtomicBoolean();
+		final var problem = Problem.valueOf(NOT_FOUND, "No pet found");
+
+		assertThatThrownBy(() -> Fanout.create("test").run(
+			() -> {
+				throw problem;
+			},
+			() -> {
+				try {
+					Thread.sleep(Duration.ofSeconds(30));
+				} catch (final InterruptedException _) {
+					interrupted.set(true);
+				}
+			}))
+			.isSameAs(problem);
+
+		assertThat(interrupted).isTrue();
+	}
+
+	@Test
+	void checkedExceptionIsMappedToProblem() {
+		final var fanout = Fanout.create("test");
+
+		assertThatThrownBy(() -> fanout.join(() -> "a", () -> {
+			throw new IOException("broken");
+		}, (a, b) -> a + b))
+			.isInstanceOfSatisfying(ThrowableProblem.class, problem -> {
+				assertThat(problem.getStatus()).isEqualTo(INTERNAL_SERVER_ERROR);
+				assertThat(problem.getDetail()).isEqualTo("Fanout 'test' failed: broken");
+			});
+	}
+
+	@Test
+	void joinCombinesResults() {
+		assertThat(Fanout.create("test").join(() -> "pet", () -> 2, (name, count) -> name + count)).isEqualTo("pet2");
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void sleep(final long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
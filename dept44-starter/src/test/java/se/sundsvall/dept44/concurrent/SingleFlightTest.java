@@ -0,0 +1,155 @@
+package se.sundsvall.dept44.concurrent;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import se.sundsvall.dept44.problem.ThrowableProblem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.http.HttpStatus.SERVICE_UNAVAILABLE;
+
+class SingleFlightTest {
+
+	private static final int CALLERS = 8;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void concurrentCallersShareResult() throws Exception {
+		final var singleFlight = SingleFlight.<String, String>create("test", meterRegistry);
+		final var computations = new AtomicInteger();
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var leader = executor.submit(() -> singleFlight.execute("key", () -> {
+				computations.incrementAndGet();
+				started.countDown();
+				await(release);
+				return "value";
+			}));
+			started.await();
+
+			final var followers = new Future<?>[CALLERS];
+			for (var i = 0; i < CALLERS; i++) {
+				followers[i] = executor.submit(() -> singleFlight.execute("key", () -> {
+					computations.incrementAndGet();
+					return "other";
+				}));
+			}
+			awaitCoalesced(CALLERS);
+			release.countDown();
+
+			assertThat(leader.get()).isEqualTo("value");
+			for (final var follower : followers) {
+				assertThat(follower.get()).isEqualTo("value");
+			}
+		}
+
+		assertThat(computations).hasValue(1);
+		assertThat(singleFlight.inFlight()).isZero();
+	}
+
+	@Test
+	void concurrentCallersShareFailure() throws Exception {
+		final var singleFlight = SingleFlight.<String, String>create("test", meterRegistry);
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+		final var failure = new IllegalStateException("Upstream failed");
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executor.submit(() -> singleFlight.execute("key", () -> {
+				started.countDown();
+				await(release);
+				throw failure;
+			}));
+			started.await();
+
+			final var follower = executor.submit(() -> singleFlight.execute("key", () -> "other"));
+			awaitCoalesced(1);
+			release.countDown();
+
+			assertThatThrownBy(follower::get).hasCause(failure);
+		}
+	}
+
+	@Test
+	void waitTimesOut() throws Exception {
+		final var singleFlight = SingleFlight.<String, String>create("test", meterRegistry)
+			.withTimeout(Duration.ofMillis(50));
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executor.submit(() -> singleFlight.execute("key", () -> {
+				started.countDown();
+				await(release);
+				return "value";
+			}));
+			started.await();
+
+			assertThatThrownBy(() -> singleFlight.execute("key", () -> "other"))
+				.isInstanceOf(ThrowableProblem.class)
+				.satisfies(e -> assertThat(((ThrowableProblem) e).getStatus()).isEqualTo(SERVICE_UNAVAILABLE));
+			release.countDown();
+		}
+
+		assertThat(meterRegistry.get("dept44.single.flight.timeouts").tag("name", "test").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void callersBypassCoalescingWhenMaxKeysIsReached() throws Exception {
+		final var singleFlight = SingleFlight.<String, String>create("test", meterRegistry)
+			.withMaxKeys(1);
+		final var started = new CountDownLatch(1);
+		final var release = new CountDownLatch(1);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			executor.submit(() -> singleFlight.execute("first", () -> {
+				started.countDown();
+				await(release);
+				return "value";
+			}));
+			started.await();
+
+			assertThat(singleFlight.execute("second", () -> "direct")).isEqualTo("direct");
+			release.countDown();
+		}
+	}
+
+	@Test
+	void sequentialCallsAreNotCached() {
+		final var singleFlight = SingleFlight.<String, Integer>create("test", meterRegistry);
+		final var computations = new AtomicInteger();
+
+		singleFlight.execute("key", computations::incrementAndGet);
+		singleFlight.execute("key", computations::incrementAndGet);
+
+		assertThat(computations).hasValue(2);
+		assertThat(meterRegistry.get("dept44.single.flight.coalesced").tag("name", "test").counter().count()).isZero();
+	}
+
+	private void awaitCoalesced(final int expected) throws InterruptedException {
+		final var counter = meterRegistry.get("dept44.single.flight.coalesced").tag("name", "test").counter();
+		final var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (counter.count() < expected && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+		}
+		assertThat(counter.count()).isEqualTo(expected);
+	}
+
+	private static void await(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (final InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		}
+	}
+}
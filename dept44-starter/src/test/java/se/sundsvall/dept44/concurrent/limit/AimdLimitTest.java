@@ -0,0 +1,63 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AimdLimitTest {
+
+	private static final long THRESHOLD = Duration.ofSeconds(1).toNanos();
+	private static final long FAST = Duration.ofMillis(10).toNanos();
+
+	@Test
+	void increasesWhenLimitIsUsed() {
+		final var limit = new AimdLimit(10, 5, 20, 0.9, THRESHOLD);
+
+		limit.onSample(FAST, 5, false);
+
+		assertThat(limit.getLimit()).isEqualTo(11);
+	}
+
+	@Test
+	void doesNotIncreaseWhenLimitIsNotUsed() {
+		final var limit = new AimdLimit(10, 5, 20, 0.9, THRESHOLD);
+
+		limit.onSample(FAST, 1, false);
+
+		assertThat(limit.getLimit()).isEqualTo(10);
+	}
+
+	@Test
+	void decreasesWhenDropped() {
+		final var limit = new AimdLimit(10, 5, 20, 0.5, THRESHOLD);
+
+		limit.onSample(FAST, 10, true);
+
+		assertThat(limit.getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void decreasesWhenSlow() {
+		final var limit = new AimdLimit(10, 5, 20, 0.8, THRESHOLD);
+
+		limit.onSample(THRESHOLD + 1, 10, false);
+
+		assertThat(limit.getLimit()).isEqualTo(8);
+	}
+
+	@Test
+	void staysWithinBounds() {
+		final var limit = new AimdLimit(10, 5, 12, 0.5, THRESHOLD);
+
+		for (var i = 0; i < 10; i++) {
+			limit.onSample(FAST, 20, false);
+		}
+		assertThat(limit.getLimit()).isEqualTo(12);
+
+		for (var i = 0; i < 10; i++) {
+			limit.onSample(FAST, 20, true);
+		}
+		assertThat(limit.getLimit()).isEqualTo(5);
+	}
+}
@@ -0,0 +1,158 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import se.sundsvall.dept44.cache.HandlerAnnotationResolver;
+import tools.jackson.databind.json.JsonMapper;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ConcurrencyLimitFilterTest {
+
+	@Mock
+	private HandlerAnnotationResolver handlerAnnotationResolverMock;
+
+	@Mock
+	private FilterChain chainMock;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void rejectsWithProblemWhenLimitIsReached() throws Exception {
+		final var limiter = limiter(0);
+		final var response = new MockHttpServletResponse();
+
+		filter(limiter, properties()).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), response, chainMock);
+
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(response.getHeader("Retry-After")).isEqualTo("2");
+		assertThat(response.getContentType()).isEqualTo("application/problem+json");
+		assertThat(response.getContentAsString()).contains("\"status\":503", "\"detail\":\"The service is overloaded, please retry later\"");
+		assertThat(response.getContentLength()).isEqualTo(response.getContentAsByteArray().length);
+		verifyNoInteractions(chainMock);
+	}
+
+	@Test
+	void admitsAndReleases() throws Exception {
+		final var limiter = limiter(1);
+		final var request = new MockHttpServletRequest("GET", "/2281/pets");
+
+		filter(limiter, properties()).doFilter(request, new MockHttpServletResponse(), chainMock);
+
+		verify(chainMock).doFilter(any(), any());
+		assertThat(limiter.tryAcquire(ConcurrencyLimiter.DEFAULT_PARTITION)).isNotNull();
+	}
+
+	@Test
+	void releasesWhenChainThrows() throws Exception {
+		final var limiter = limiter(1);
+		final var chain = mock(FilterChain.class);
+		doThrow(new IllegalStateException()).when(chain).doFilter(any(), any());
+
+		assertThatThrownBy(() -> filter(limiter, properties()).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), new MockHttpServletResponse(), chain))
+			.isInstanceOf(IllegalStateException.class);
+
+		assertThat(limiter.tryAcquire(ConcurrencyLimiter.DEFAULT_PARTITION)).isNotNull();
+	}
+
+	@Test
+	void exemptPathsAreNotLimited() throws Exception {
+		final var limiter = limiter(0);
+		final var response = new MockHttpServletResponse();
+
+		filter(limiter, properties()).doFilter(new MockHttpServletRequest("GET", "/actuator/health/liveness"), response, chainMock);
+
+		assertThat(response.getStatus()).isEqualTo(200);
+		verify(chainMock).doFilter(any(), any());
+	}
+
+	@Test
+	void partitionsByPath() throws Exception {
+		final var limiter = limiter(1);
+		final var properties = properties();
+		properties.setPartitionBy(ConcurrencyLimitProperties.PartitionBy.PATH);
+		when(handlerAnnotationResolverMock.findPathPattern(any())).thenReturn(Optional.of("/{municipalityId}/pets"));
+		final var held = limiter.tryAcquire("/{municipalityId}/pets");
+		final var response = new MockHttpServletResponse();
+
+		filter(limiter, properties).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), response, chainMock);
+
+		assertThat(held).isNotNull();
+		assertThat(response.getStatus()).isEqualTo(503);
+		assertThat(limiter.tryAcquire(ConcurrencyLimiter.DEFAULT_PARTITION)).isNotNull();
+	}
+
+	@Test
+	void partitionsByMunicipality() throws Exception {
+		final var limiter = limiter(1);
+		final var properties = properties();
+		properties.setPartitionBy(ConcurrencyLimitProperties.PartitionBy.MUNICIPALITY);
+		final var held = limiter.tryAcquire("2281");
+
+		final var sundsvall = new MockHttpServletResponse();
+		filter(limiter, properties).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), sundsvall, chainMock);
+		final var other = new MockHttpServletResponse();
+		filter(limiter, properties).doFilter(new MockHttpServletRequest("GET", "/2262/pets"), other, chainMock);
+
+		assertThat(held).isNotNull();
+		assertThat(sundsvall.getStatus()).isEqualTo(503);
+		assertThat(other.getStatus()).isEqualTo(200);
+	}
+
+	@Test
+	void serverErrorsAreReportedAsDropped() throws Exception {
+		final var limit = new AimdLimit(10, 1, 10, 0.5, Duration.ofMinutes(1).toNanos());
+		final var limiter = new ConcurrencyLimiter(() -> limit, meterRegistry, 10);
+		final FilterChain chain = (_, response) -> ((HttpServletResponse) response).setStatus(500);
+
+		filter(limiter, properties()).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), new MockHttpServletResponse(), chain);
+
+		assertThat(limit.getLimit()).isEqualTo(5);
+	}
+
+	@Test
+	void clientDisconnectsAreNotReportedAsDropped() throws Exception {
+		final var limit = new AimdLimit(10, 1, 10, 0.5, Duration.ofMinutes(1).toNanos());
+		final var limiter = new ConcurrencyLimiter(() -> limit, meterRegistry, 10);
+		final var chain = mock(FilterChain.class);
+		doThrow(new IOException("Broken pipe")).when(chain).doFilter(any(), any());
+
+		assertThatThrownBy(() -> filter(limiter, properties()).doFilter(new MockHttpServletRequest("GET", "/2281/pets"), new MockHttpServletResponse(), chain))
+			.isInstanceOf(IOException.class);
+
+		assertThat(limit.getLimit()).isEqualTo(10);
+		assertThat(limiter.tryAcquire(ConcurrencyLimiter.DEFAULT_PARTITION)).isNotNull();
+	}
+
+	private ConcurrencyLimiter limiter(final int limit) {
+		return new ConcurrencyLimiter(() -> new AimdLimit(limit, 0, Math.max(limit, 1), 1.0, Long.MAX_VALUE), meterRegistry, 10);
+	}
+
+	private ConcurrencyLimitFilter filter(final ConcurrencyLimiter limiter, final ConcurrencyLimitProperties properties) {
+		return new ConcurrencyLimitFilter(limiter, handlerAnnotationResolverMock, JsonMapper.builder().build(), properties, 1);
+	}
+
+	private static ConcurrencyLimitProperties properties() {
+		final var properties = new ConcurrencyLimitProperties();
+		properties.setRetryAfter(Duration.ofSeconds(2));
+		return properties;
+	}
+}
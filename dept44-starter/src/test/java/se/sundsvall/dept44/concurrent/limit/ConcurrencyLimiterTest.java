@@ -0,0 +1,88 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static se.sundsvall.dept44.concurrent.limit.ConcurrencyLimiter.DEFAULT_PARTITION;
+
+class ConcurrencyLimiterTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void rejectsAboveLimit() {
+		final var limiter = new ConcurrencyLimiter(() -> new FixedLimit(2), meterRegistry, 10);
+
+		final var first = limiter.tryAcquire("a");
+		final var second = limiter.tryAcquire("a");
+
+		assertThat(first).isNotNull();
+		assertThat(second).isNotNull();
+		assertThat(limiter.tryAcquire("a")).isNull();
+		assertThat(meterRegistry.get("dept44.concurrency.rejected").tag("partition", "a").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("dept44.concurrency.inflight").tag("partition", "a").gauge().value()).isEqualTo(2);
+
+		first.release(false);
+
+		assertThat(limiter.tryAcquire("a")).isNotNull();
+	}
+
+	@Test
+	void partitionsAreLimitedSeparately() {
+		final var limiter = new ConcurrencyLimiter(() -> new FixedLimit(1), meterRegistry, 10);
+
+		assertThat(limiter.tryAcquire("a")).isNotNull();
+		assertThat(limiter.tryAcquire("b")).isNotNull();
+		assertThat(limiter.tryAcquire("a")).isNull();
+	}
+
+	@Test
+	void partitionsBeyondMaximumShareDefault() {
+		final var limiter = new ConcurrencyLimiter(() -> new FixedLimit(1), meterRegistry, 1);
+
+		assertThat(limiter.tryAcquire("a")).isNotNull();
+		assertThat(limiter.tryAcquire("b")).isNotNull();
+		assertThat(limiter.tryAcquire("c")).isNull();
+		assertThat(meterRegistry.get("dept44.concurrency.rejected").tag("partition", DEFAULT_PARTITION).counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void releaseSamplesLimit() {
+		final var limit = new FixedLimit(5);
+		final var limiter = new ConcurrencyLimiter(() -> limit, meterRegistry, 10);
+
+		limiter.tryAcquire("a").release(true);
+		limiter.tryAcquire("a").ignore();
+
+		assertThat(limit.samples).hasValue(1);
+		assertThat(limit.dropped).hasValue(1);
+		assertThat(meterRegistry.get("dept44.concurrency.inflight").tag("partition", "a").gauge().value()).isZero();
+		assertThat(meterRegistry.get("dept44.concurrency.limit").tag("partition", "a").gauge().value()).isEqualTo(5);
+	}
+
+	private static final class FixedLimit implements AdaptiveLimit {
+
+		private final int limit;
+		private final AtomicInteger samples = new AtomicInteger();
+		private final AtomicInteger dropped = new AtomicInteger();
+
+		private FixedLimit(final int limit) {
+			this.limit = limit;
+		}
+
+		@Override
+		public int getLimit() {
+			return limit;
+		}
+
+		@Override
+		public void onSample(final long rttNanos, final int inFlight, final boolean wasDropped) {
+			samples.incrementAndGet();
+			if (wasDropped) {
+				dropped.incrementAndGet();
+			}
+		}
+	}
+}
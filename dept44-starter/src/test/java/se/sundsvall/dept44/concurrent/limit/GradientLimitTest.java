@@ -0,0 +1,72 @@
+package se.sundsvall.dept44.concurrent.limit;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+
+	private static final long FAST = Duration.ofMillis(10).toNanos();
+	private static final long SLOW = Duration.ofMillis(100).toNanos();
+
+	@Test
+	void growsWhileLatencyIsStable() {
+		final var limit = new GradientLimit(20, 5, 200);
+
+		for (var i = 0; i < 50; i++) {
+			limit.onSample(FAST, limit.getLimit(), false);
+		}
+
+		assertThat(limit.getLimit()).isGreaterThan(20);
+	}
+
+	@Test
+	void doesNotGrowWhenLimitIsNotUsed() {
+		final var limit = new GradientLimit(20, 5, 200);
+
+		for (var i = 0; i < 50; i++) {
+			limit.onSample(FAST, 1, false);
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(20);
+	}
+
+	@Test
+	void shrinksWhenLatencyIncreases() {
+		final var limit = new GradientLimit(100, 5, 200);
+		for (var i = 0; i < 20; i++) {
+			limit.onSample(FAST, 100, false);
+		}
+		final var before = limit.getLimit();
+
+		for (var i = 0; i < 20; i++) {
+			limit.onSample(SLOW, 100, false);
+		}
+
+		assertThat(limit.getLimit()).isLessThan(before);
+	}
+
+	@Test
+	void shrinksWhenDropped() {
+		final var limit = new GradientLimit(100, 5, 200);
+		limit.onSample(FAST, 100, false);
+
+		for (var i = 0; i < 50; i++) {
+			limit.onSample(FAST, 100, true);
+		}
+
+		assertThat(limit.getLimit()).isLessThan(100).isGreaterThanOrEqualTo(5);
+	}
+
+	@Test
+	void staysWithinMaxLimit() {
+		final var limit = new GradientLimit(20, 5, 30);
+
+		for (var i = 0; i < 200; i++) {
+			limit.onSample(FAST, 30, false);
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(30);
+	}
+}
@@ -0,0 +1,52 @@
+package se.sundsvall.dept44.configuration;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import se.sundsvall.dept44.problem.ProblemMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+
+class ProblemMetricsConfigurationTest {
+
+	@AfterEach
+	void tearDown() {
+		ProblemMetrics.setShared(new ProblemMetrics(Metrics.globalRegistry, true));
+	}
+
+	@Test
+	void publishesToApplicationRegistry() {
+		final var meterRegistry = new SimpleMeterRegistry();
+
+		final var problemMetrics = new ProblemMetricsConfiguration().problemMetrics(true, providerOf(meterRegistry));
+		problemMetrics.recordProblem(ProblemMetrics.SOURCE_SERVER, BAD_GATEWAY, "Bad Gateway", "petstore", RuntimeException.class);
+		ProblemMetrics.getShared().recordProblem(ProblemMetrics.SOURCE_FEIGN, BAD_GATEWAY, "Bad Gateway", "petstore", RuntimeException.class);
+
+		assertThat(ProblemMetrics.getShared()).isSameAs(problemMetrics);
+		assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS).counters()).hasSize(2);
+	}
+
+	@Test
+	void disablesMetrics() {
+		final var meterRegistry = new SimpleMeterRegistry();
+
+		new ProblemMetricsConfiguration().problemMetrics(false, providerOf(meterRegistry))
+			.recordProblem(ProblemMetrics.SOURCE_FEIGN, BAD_GATEWAY, "Bad Gateway", "petstore", RuntimeException.class);
+
+		assertThat(meterRegistry.getMeters()).isEmpty();
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ObjectProvider<MeterRegistry> providerOf(final MeterRegistry meterRegistry) {
+		final ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+		when(provider.getIfAvailable(any())).thenReturn(meterRegistry);
+		return provider;
+	}
+}
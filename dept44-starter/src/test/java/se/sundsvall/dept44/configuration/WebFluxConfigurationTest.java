@@ -1,5 +1,6 @@
 package se.sundsvall.dept44.configuration;
 
+import java.util.concurrent.atomic.AtomicReference;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -8,16 +9,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.HttpHeaders;
-import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebFilterChain;
 import reactor.core.publisher.Mono;
+import reactor.util.context.ContextView;
+import se.sundsvall.dept44.reactive.ReactiveRequestContext;
 import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -72,49 +75,48 @@ class WebFluxConfigurationTest {
 	@SpringBootTest(classes = WebFluxConfiguration.class, properties = "spring.main.web-application-type=reactive")
 	class RequestIdHandlerFilterFunctionTest {
 
-		@Mock
-		private ServerWebExchange serverWebExchangeMock;
-
-		@Mock
-		private ServerHttpRequest serverHttpRequestMock;
-
-		@Mock
-		private ServerHttpResponse serverHttpResponseMock;
-
-		@Mock
-		private HttpHeaders httpHeadersMock;
-
-		@Mock
-		private WebFilterChain webFilterChainMock;
-
-		@Mock
-		private Mono<Void> monoMock;
-
 		@Autowired
 		private WebFluxConfiguration.RequestIdHandlerFilterFunction requestIdHandlerFilterFunction;
 
 		@Test
 		void requestIdHandlerFilterFunctionFilter() {
-			final var requestId = "requestId";
-
-			when(serverWebExchangeMock.getRequest()).thenReturn(serverHttpRequestMock);
-			when(serverWebExchangeMock.getResponse()).thenReturn(serverHttpResponseMock);
-			when(serverHttpRequestMock.getHeaders()).thenReturn(httpHeadersMock);
-			when(serverHttpResponseMock.getHeaders()).thenReturn(httpHeadersMock);
-			when(httpHeadersMock.getFirst(anyString())).thenReturn(requestId);
-			when(webFilterChainMock.filter(serverWebExchangeMock)).thenReturn(monoMock);
-			when(monoMock.then()).thenReturn(monoMock);
-			when(monoMock.doFinally(any())).thenReturn(monoMock);
-
-			requestIdHandlerFilterFunction.filter(serverWebExchangeMock, webFilterChainMock);
-
-			// Because call to doFinally is mocked RequestId must be resettled for not disturbing other tests
-			RequestId.reset();
+			final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/")
+				.header(RequestId.HEADER_NAME, "requestId")
+				.header(Identifier.HEADER_NAME, "joe01doe; type=adAccount"));
+			final var observedContext = new AtomicReference<ContextView>();
+			final WebFilterChain chain = _ -> Mono.deferContextual(context -> {
+				observedContext.set(context);
+				return Mono.empty();
+			});
+
+			requestIdHandlerFilterFunction.filter(exchange, chain).block();
+
+			assertThat(exchange.getResponse().getHeaders().getFirst(RequestId.HEADER_NAME)).isEqualTo("requestId");
+			assertThat(ReactiveRequestContext.getRequestId(observedContext.get())).hasValue("requestId");
+			assertThat(ReactiveRequestContext.getIdentifier(observedContext.get())).hasValueSatisfying(identifier -> {
+				assertThat(identifier.getValue()).isEqualTo("joe01doe");
+				assertThat(identifier.getTypeString()).isEqualTo("adAccount");
+			});
+			// Nothing may be left on the thread that ran the filter
+			assertThat(RequestId.get()).isNull();
+			assertThat(Identifier.get()).isNull();
+		}
 
-			verify(httpHeadersMock).add(RequestId.HEADER_NAME, requestId);
-			verify(webFilterChainMock).filter(serverWebExchangeMock);
-			verify(monoMock).then();
-			verify(monoMock).doFinally(any());
+		@Test
+		void requestIdHandlerFilterFunctionFilterGeneratesRequestId() {
+			final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/").header(RequestId.HEADER_NAME, " "));
+			final var observedContext = new AtomicReference<ContextView>();
+			final WebFilterChain chain = _ -> Mono.deferContextual(context -> {
+				observedContext.set(context);
+				return Mono.empty();
+			});
+
+			requestIdHandlerFilterFunction.filter(exchange, chain).block();
+
+			final var generatedRequestId = exchange.getResponse().getHeaders().getFirst(RequestId.HEADER_NAME);
+			assertThat(generatedRequestId).isNotBlank();
+			assertThat(ReactiveRequestContext.getRequestId(observedContext.get())).hasValue(generatedRequestId);
+			assertThat(ReactiveRequestContext.getIdentifier(observedContext.get())).isEmpty();
 		}
 	}
 
@@ -0,0 +1,93 @@
+package se.sundsvall.dept44.configuration;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import se.sundsvall.dept44.reactive.ReactiveRequestContext;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Interleaves thousands of requests on a two-thread "event loop" and verifies that every operator observes the request
+ * id and identity of its own request, and that nothing leaks into the thread-locals of the shared threads.
+ */
+class WebFluxRequestContextStressTest {
+
+	private static final int REQUESTS = 5_000;
+	private static final int CONCURRENCY = 512;
+
+	private final WebFluxConfiguration.RequestIdHandlerFilterFunction filter = new WebFluxConfiguration.RequestIdHandlerFilterFunction();
+
+	private Scheduler eventLoop;
+
+	@BeforeEach
+	void setUp() {
+		eventLoop = Schedulers.newParallel("stress-event-loop", 2);
+	}
+
+	@AfterEach
+	void tearDown() {
+		eventLoop.dispose();
+	}
+
+	@Test
+	void interleavedRequestsKeepTheirOwnContext() {
+		final Queue<String> failures = new ConcurrentLinkedQueue<>();
+		final Map<String, String> loggedRequestIds = new ConcurrentHashMap<>();
+
+		Flux.range(0, REQUESTS)
+			.flatMap(i -> {
+				final var requestId = "req-" + i;
+				final var exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/stress/" + i)
+					.header(RequestId.HEADER_NAME, requestId)
+					.header(Identifier.HEADER_NAME, "user" + i + "; type=adAccount"));
+
+				return filter.filter(exchange, chain(requestId, i, failures, loggedRequestIds))
+					.subscribeOn(eventLoop);
+			}, CONCURRENCY)
+			.blockLast(Duration.ofMinutes(1));
+
+		assertThat(failures).isEmpty();
+		assertThat(loggedRequestIds).hasSize(REQUESTS);
+		loggedRequestIds.forEach((expected, logged) -> assertThat(logged).isEqualTo(expected));
+	}
+
+	private WebFilterChain chain(final String requestId, final int index, final Queue<String> failures, final Map<String, String> loggedRequestIds) {
+		return _ -> Mono.delay(Duration.ofNanos(ThreadLocalRandom.current().nextLong(50_000)), eventLoop)
+			.then(Mono.deferContextual(context -> {
+				// Outside a log scope the shared thread must not carry any request's context
+				if (MDC.get(RequestId.MDC_REQUEST_ID_KEY) != null || Identifier.get() != null) {
+					failures.add("Leaked context on thread " + Thread.currentThread().getName());
+				}
+				if (!ReactiveRequestContext.getRequestId(context).orElse("").equals(requestId)) {
+					failures.add("Wrong request id in context for " + requestId);
+				}
+				return Mono.just(index);
+			}))
+			.publishOn(eventLoop)
+			.doOnEach(ReactiveRequestContext.logOnNext(_ -> {
+				loggedRequestIds.put(requestId, MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+				final var identifier = Identifier.get();
+				if (identifier == null || !("user" + index).equals(identifier.getValue())) {
+					failures.add("Wrong identifier at log time for " + requestId);
+				}
+			}))
+			.then();
+	}
+}
@@ -0,0 +1,101 @@
+package se.sundsvall.dept44.management;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.HealthIndicator;
+import org.springframework.boot.health.contributor.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class HealthSnapshotPostProcessorTest {
+
+	private final HealthSnapshotPostProcessor postProcessor = new HealthSnapshotPostProcessor(Duration.ofHours(1), Duration.ofSeconds(5), List.of("readinessStateHealthIndicator"));
+
+	@AfterEach
+	void tearDown() {
+		postProcessor.stop();
+	}
+
+	@Test
+	void wrapsHealthIndicators() {
+		final HealthIndicator indicator = () -> Health.up().build();
+
+		final var result = postProcessor.postProcessAfterInitialization(indicator, "dbHealthIndicator");
+
+		assertThat(result).isInstanceOf(SnapshotHealthIndicator.class);
+		assertThat(((SnapshotHealthIndicator) result).getDelegate()).isSameAs(indicator);
+		assertThat(postProcessor.getIndicators()).containsExactly((SnapshotHealthIndicator) result);
+	}
+
+	@Test
+	void skipsExcludedBeansAndOtherBeans() {
+		final HealthIndicator indicator = () -> Health.up().build();
+		final var other = new Object();
+
+		assertThat(postProcessor.postProcessAfterInitialization(indicator, "readinessStateHealthIndicator")).isSameAs(indicator);
+		assertThat(postProcessor.postProcessAfterInitialization(other, "other")).isSameAs(other);
+		assertThat(postProcessor.getIndicators()).isEmpty();
+	}
+
+	@Test
+	void doesNotWrapSnapshotsTwice() {
+		final var snapshot = new SnapshotHealthIndicator(() -> Health.up().build(), Duration.ofSeconds(30));
+
+		assertThat(postProcessor.postProcessAfterInitialization(snapshot, "snapshot")).isSameAs(snapshot);
+	}
+
+	@Test
+	void doesNotRefreshUntilStarted() {
+		final var invocations = new AtomicInteger();
+		final var indicator = (HealthIndicator) postProcessor.postProcessAfterInitialization((HealthIndicator) () -> {
+			invocations.incrementAndGet();
+			return Health.up().build();
+		}, "indicator");
+
+		postProcessor.refresh();
+
+		assertThat(postProcessor.isRunning()).isFalse();
+		assertThat(invocations).hasValue(0);
+		assertThat(indicator.health()).isSameAs(SnapshotHealthIndicator.PENDING);
+	}
+
+	@Test
+	void startRefreshesAllSnapshotsOnce() throws InterruptedException {
+		final var invocations = new AtomicInteger();
+		final var first = (HealthIndicator) postProcessor.postProcessAfterInitialization((HealthIndicator) () -> {
+			invocations.incrementAndGet();
+			return Health.up().build();
+		}, "first");
+		final var second = (HealthIndicator) postProcessor.postProcessAfterInitialization((HealthIndicator) () -> Health.outOfService().build(), "second");
+
+		postProcessor.start();
+
+		awaitStatus(first, Status.UP);
+		awaitStatus(second, Status.OUT_OF_SERVICE);
+		assertThat(postProcessor.isRunning()).isTrue();
+		assertThat(invocations).hasValue(1);
+	}
+
+	@Test
+	void intervalAndTimeoutMustBePositive() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new HealthSnapshotPostProcessor(Duration.ZERO, Duration.ofSeconds(5), List.of()))
+			.withMessage("interval must be positive");
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new HealthSnapshotPostProcessor(Duration.ofSeconds(10), Duration.ofSeconds(-1), List.of()))
+			.withMessage("timeout must be positive");
+	}
+
+	private static void awaitStatus(final HealthIndicator indicator, final Status status) throws InterruptedException {
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!status.equals(indicator.health().getStatus()) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(indicator.health().getStatus()).isEqualTo(status);
+	}
+}
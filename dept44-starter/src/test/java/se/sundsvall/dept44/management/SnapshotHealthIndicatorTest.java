@@ -0,0 +1,109 @@
+package se.sundsvall.dept44.management;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.health.contributor.Health;
+import org.springframework.boot.health.contributor.Status;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SnapshotHealthIndicatorTest {
+
+	private static final Duration MAX_AGE = Duration.ofSeconds(30);
+	private static final Duration TIMEOUT = Duration.ofSeconds(5);
+	private static final Executor DIRECT = Runnable::run;
+
+	@Test
+	void pendingUntilRefreshed() {
+		final var indicator = new SnapshotHealthIndicator(() -> Health.up().build(), MAX_AGE);
+
+		assertThat(indicator.health()).isSameAs(SnapshotHealthIndicator.PENDING);
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UNKNOWN);
+	}
+
+	@Test
+	void servesSnapshotWithoutInvokingDelegate() {
+		final var invocations = new AtomicInteger();
+		final var indicator = new SnapshotHealthIndicator(() -> Health.up().withDetail("invocation", invocations.incrementAndGet()).build(), MAX_AGE);
+
+		indicator.refresh(DIRECT, TIMEOUT);
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+		assertThat(indicator.health().getDetails()).containsEntry("invocation", 1);
+		assertThat(invocations).hasValue(1);
+
+		indicator.refresh(DIRECT, TIMEOUT);
+
+		assertThat(indicator.health().getDetails()).containsEntry("invocation", 2);
+	}
+
+	@Test
+	void failingDelegateIsReportedAsDown() {
+		final var indicator = new SnapshotHealthIndicator(() -> {
+			throw new IllegalStateException("broken");
+		}, MAX_AGE);
+
+		indicator.refresh(DIRECT, TIMEOUT);
+
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat(indicator.health().getDetails()).containsEntry("error", "java.lang.IllegalStateException: broken");
+	}
+
+	@Test
+	void staleSnapshotIsReportedAsDownWithAge() {
+		final var clock = mock(Clock.class);
+		when(clock.instant()).thenReturn(Instant.EPOCH);
+		final var indicator = new SnapshotHealthIndicator(() -> Health.up().build(), MAX_AGE, clock);
+
+		indicator.refresh(DIRECT, TIMEOUT);
+		when(clock.instant()).thenReturn(Instant.EPOCH.plusSeconds(30));
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.UP);
+
+		when(clock.instant()).thenReturn(Instant.EPOCH.plusSeconds(31));
+		assertThat(indicator.health().getStatus()).isEqualTo(Status.DOWN);
+		assertThat(indicator.health().getDetails()).containsEntry("snapshot", "stale").containsEntry("age", "PT31S");
+	}
+
+	@Test
+	void slowDelegateIsReportedAsDownAndNotEvaluatedTwice() throws Exception {
+		final var release = new CountDownLatch(1);
+		final var invocations = new AtomicInteger();
+		final var indicator = new SnapshotHealthIndicator(() -> {
+			invocations.incrementAndGet();
+			try {
+				release.await();
+			} catch (final InterruptedException _) {
+				Thread.currentThread().interrupt();
+			}
+			return Health.up().build();
+		}, MAX_AGE);
+
+		try (final var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			indicator.refresh(executor, Duration.ofMillis(50));
+			awaitStatus(indicator, Status.DOWN);
+			assertThat(indicator.health().getDetails()).containsEntry("error", "Timed out after PT0.05S");
+
+			// The first evaluation is still running
+			indicator.refresh(executor, Duration.ofMillis(50));
+			assertThat(invocations).hasValue(1);
+
+			release.countDown();
+		}
+	}
+
+	private static void awaitStatus(final SnapshotHealthIndicator indicator, final Status status) throws InterruptedException {
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!status.equals(indicator.health().getStatus()) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertThat(indicator.health().getStatus()).isEqualTo(status);
+	}
+}
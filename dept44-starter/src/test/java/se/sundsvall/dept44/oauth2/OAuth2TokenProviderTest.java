@@ -0,0 +1,231 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.endpoint.OAuth2AccessTokenResponseClient;
+import org.springframework.security.oauth2.client.endpoint.OAuth2ClientCredentialsGrantRequest;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AccessToken;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AccessTokenResponse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OAuth2TokenProviderTest {
+
+	private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+	private static final Duration LIFETIME = Duration.ofSeconds(100);
+
+	private final AtomicReference<Instant> now = new AtomicReference<>(START);
+	private final AtomicInteger fetches = new AtomicInteger();
+	private final Clock clock = mock(Clock.class);
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@SuppressWarnings("unchecked")
+	private final OAuth2AccessTokenResponseClient<OAuth2ClientCredentialsGrantRequest> tokenResponseClient = mock(OAuth2AccessTokenResponseClient.class);
+
+	private OAuth2TokenProvider provider;
+
+	@BeforeEach
+	void setUp() {
+		when(clock.instant()).thenAnswer(_ -> now.get());
+		when(tokenResponseClient.getTokenResponse(any())).thenAnswer(_ -> tokenResponse("token-" + fetches.incrementAndGet()));
+		provider = new OAuth2TokenProvider(clientRegistration(), tokenResponseClient, 0.75, meterRegistry, clock);
+	}
+
+	@Test
+	void fetchesTokenOnceAndCachesIt() {
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+
+		verify(tokenResponseClient).getTokenResponse(any());
+		assertThat(meterRegistry.get(OAuth2TokenProvider.METRIC_NAME).tag("registration", "test").tag("outcome", "success").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void refreshesInBackgroundAfterRefreshRatio() {
+		provider.getToken();
+		now.set(START.plus(LIFETIME.multipliedBy(8).dividedBy(10)));
+
+		// The current token is returned while the new one is fetched
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+
+		verify(tokenResponseClient, timeout(5000).times(2)).getTokenResponse(any());
+		waitForToken("token-2");
+	}
+
+	@Test
+	void fetchesNewTokenWhenExpired() {
+		provider.getToken();
+		now.set(START.plus(LIFETIME));
+
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-2");
+	}
+
+	@Test
+	void treatsTokenAsExpiredBeforeItsExpiry() {
+		provider.getToken();
+		// A tenth of the lifetime is allowed for clock skew
+		now.set(START.plus(LIFETIME.multipliedBy(95).dividedBy(100)));
+
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-2");
+	}
+
+	@Test
+	void coalescesConcurrentFetches() throws Exception {
+		final var release = new CountDownLatch(1);
+		doAnswer(_ -> {
+			release.await();
+			return tokenResponse("token-" + fetches.incrementAndGet());
+		}).when(tokenResponseClient).getTokenResponse(any());
+
+		try (var executor = Executors.newVirtualThreadPerTaskExecutor()) {
+			final var futures = IntStream.range(0, 10)
+				.mapToObj(_ -> executor.submit(() -> provider.getToken().getTokenValue()))
+				.toList();
+			Thread.sleep(100);
+			release.countDown();
+
+			for (final var future : futures) {
+				assertThat(future.get()).isEqualTo("token-1");
+			}
+		}
+
+		verify(tokenResponseClient).getTokenResponse(any());
+	}
+
+	@Test
+	void getTokenAsyncReturnsCachedTokenWithoutFetching() {
+		provider.getToken();
+
+		assertThat(provider.getTokenAsync()).isCompletedWithValueMatching(token -> "token-1".equals(token.getTokenValue()));
+		verify(tokenResponseClient).getTokenResponse(any());
+	}
+
+	@Test
+	void getTokenAsyncFetchesTokenWhenNoneIsCached() {
+		assertThat(provider.getTokenAsync().join().getTokenValue()).isEqualTo("token-1");
+
+		doThrow(new OAuth2AuthorizationException(new OAuth2Error("invalid_client"))).when(tokenResponseClient).getTokenResponse(any());
+		now.set(START.plus(LIFETIME));
+
+		assertThat(provider.getTokenAsync()).failsWithin(Duration.ofSeconds(5))
+			.withThrowableThat().havingCause().isInstanceOf(OAuth2AuthorizationException.class);
+	}
+
+	@Test
+	void refreshRatioCanBeChanged() {
+		provider.setRefreshRatio(0.5);
+		provider.getToken();
+		now.set(START.plus(LIFETIME.multipliedBy(6).dividedBy(10)));
+
+		provider.getToken();
+
+		verify(tokenResponseClient, timeout(5000).times(2)).getTokenResponse(any());
+	}
+
+	@Test
+	void invalidatesOnlyTheGivenToken() {
+		provider.getToken();
+
+		assertThat(provider.invalidate("stale-token")).isFalse();
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+
+		assertThat(provider.invalidate("token-1")).isTrue();
+		assertThat(provider.invalidate("token-1")).isFalse();
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-2");
+	}
+
+	@Test
+	void failedFetchIsPropagatedWhenNoTokenIsCached() {
+		doThrow(new OAuth2AuthorizationException(new OAuth2Error("invalid_client"))).when(tokenResponseClient).getTokenResponse(any());
+
+		assertThatExceptionOfType(OAuth2AuthorizationException.class).isThrownBy(provider::getToken);
+
+		assertThat(meterRegistry.get(OAuth2TokenProvider.METRIC_NAME).tag("outcome", "failure").timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	void errorDuringFetchDoesNotBlockLaterFetches() {
+		doThrow(new NoClassDefFoundError("test")).doAnswer(_ -> tokenResponse("token-1")).when(tokenResponseClient).getTokenResponse(any());
+
+		assertThat(provider.getTokenAsync()).failsWithin(Duration.ofSeconds(5)).withThrowableThat().havingCause().isInstanceOf(NoClassDefFoundError.class);
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+	}
+
+	@Test
+	void failedBackgroundRefreshKeepsCurrentToken() {
+		provider.getToken();
+		doThrow(new OAuth2AuthorizationException(new OAuth2Error("server_error"))).when(tokenResponseClient).getTokenResponse(any());
+		now.set(START.plus(LIFETIME.multipliedBy(8).dividedBy(10)));
+
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+		verify(tokenResponseClient, timeout(5000).times(2)).getTokenResponse(any());
+
+		// The next refresh attempt is postponed, so the token endpoint is not called on every request
+		waitForFailures(1);
+		assertThat(provider.getToken().getTokenValue()).isEqualTo("token-1");
+		verify(tokenResponseClient, times(2)).getTokenResponse(any());
+	}
+
+	@Test
+	void rejectsInvalidRefreshRatio() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> new OAuth2TokenProvider(clientRegistration(), tokenResponseClient, 0, meterRegistry, clock))
+			.withMessage("refreshRatio must be greater than 0 and at most 1");
+	}
+
+	private void waitForToken(final String expected) {
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		while (!expected.equals(provider.getToken().getTokenValue()) && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertThat(provider.getToken().getTokenValue()).isEqualTo(expected);
+	}
+
+	private void waitForFailures(final long expected) {
+		final var deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+		final var timer = meterRegistry.get(OAuth2TokenProvider.METRIC_NAME).tag("outcome", "failure").timer();
+		while (timer.count() < expected && System.nanoTime() < deadline) {
+			Thread.onSpinWait();
+		}
+		assertThat(timer.count()).isEqualTo(expected);
+	}
+
+	private static OAuth2AccessTokenResponse tokenResponse(final String tokenValue) {
+		return OAuth2AccessTokenResponse.withToken(tokenValue)
+			.tokenType(OAuth2AccessToken.TokenType.BEARER)
+			.expiresIn(LIFETIME.toSeconds())
+			.build();
+	}
+
+	private static ClientRegistration clientRegistration() {
+		return ClientRegistration.withRegistrationId("test")
+			.tokenUri("http://localhost/token")
+			.clientId("clientId")
+			.clientSecret("secret")
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.build();
+	}
+}
@@ -0,0 +1,50 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TokenStoreConfigurationTest {
+
+	@AfterEach
+	void tearDown() {
+		TokenStore.getShared().setRefreshRatio(OAuth2TokenProvider.DEFAULT_REFRESH_RATIO);
+		TokenStore.getShared().setMeterRegistry(Metrics.globalRegistry);
+		TokenStore.getShared().clear();
+	}
+
+	@Test
+	void configuresSharedTokenStore() {
+		final var meterRegistry = new SimpleMeterRegistry();
+
+		final var configuration = new TokenStoreConfiguration(0.5, true, providerOf(meterRegistry));
+
+		assertThat(configuration.tokenStore()).isSameAs(TokenStore.getShared());
+		assertThat(TokenStore.getShared())
+			.hasFieldOrPropertyWithValue("refreshRatio", 0.5)
+			.hasFieldOrPropertyWithValue("meterRegistry", meterRegistry);
+	}
+
+	@Test
+	void tokenStoreIsClearedOnShutdown() throws Exception {
+		final var destroyMethod = TokenStoreConfiguration.class.getDeclaredMethod("tokenStore").getAnnotation(Bean.class).destroyMethod();
+
+		assertThat(destroyMethod).isEqualTo("clear");
+	}
+
+	@SuppressWarnings("unchecked")
+	private static ObjectProvider<MeterRegistry> providerOf(final MeterRegistry meterRegistry) {
+		final ObjectProvider<MeterRegistry> provider = mock(ObjectProvider.class);
+		when(provider.getIfAvailable(any())).thenReturn(meterRegistry);
+		return provider;
+	}
+}
@@ -0,0 +1,149 @@
+package se.sundsvall.dept44.oauth2;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.client.registration.ClientRegistration;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.OAuth2AuthorizationException;
+import org.springframework.security.oauth2.core.OAuth2Error;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenStoreTest {
+
+	private final List<ClientRegistration> created = new ArrayList<>();
+
+	private TokenStore tokenStore;
+
+	@BeforeEach
+	void setUp() {
+		tokenStore = new TokenStore((clientRegistration, _, _, _, _) -> {
+			created.add(clientRegistration);
+			final var provider = mock(OAuth2TokenProvider.class);
+			when(provider.getClientRegistration()).thenReturn(clientRegistration);
+			return provider;
+		});
+	}
+
+	@Test
+	void sharesProviderForSameRegistrationAndScopes() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1", "scope2")));
+
+		assertThat(tokenStore.getProvider(clientRegistration("test", Set.of("scope2", "scope1")))).isSameAs(provider);
+		assertThat(tokenStore.getProvider(clientRegistration("test", Set.of("scope1", "scope2")), Duration.ofSeconds(1), Duration.ofSeconds(1))).isSameAs(provider);
+		assertThat(created).hasSize(1);
+	}
+
+	@Test
+	void separatesProvidersByRegistrationAndScopes() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+
+		assertThat(tokenStore.getProvider(clientRegistration("test", Set.of("scope2")))).isNotSameAs(provider);
+		assertThat(tokenStore.getProvider(clientRegistration("other", Set.of("scope1")))).isNotSameAs(provider);
+		assertThat(created).hasSize(3);
+	}
+
+	@Test
+	void withScopesMergesExtraScopes() {
+		final var clientRegistration = clientRegistration("test", Set.of("scope1"));
+
+		assertThat(TokenStore.withScopes(clientRegistration, Set.of(TokenStore.DEVICE_SCOPE)).getScopes()).containsExactlyInAnyOrder("scope1", TokenStore.DEVICE_SCOPE);
+		assertThat(TokenStore.withScopes(clientRegistration, null).getScopes()).containsExactly("scope1");
+	}
+
+	@Test
+	void deviceScope() {
+		assertThat(TokenStore.DEVICE_SCOPE).matches("device_([0-9a-f]{8}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{4}-[0-9a-f]{12})$");
+	}
+
+	@Test
+	void warmUpFetchesTokenForEveryProvider() {
+		final var provider1 = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+		final var provider2 = tokenStore.getProvider(clientRegistration("other", Set.of("scope1")));
+		when(provider2.getToken()).thenThrow(new OAuth2AuthorizationException(new OAuth2Error("server_error")));
+
+		tokenStore.warmUp();
+
+		verify(provider1, timeout(5000)).getToken();
+		verify(provider2, timeout(5000)).getToken();
+	}
+
+	@Test
+	void refreshRatioAppliesToExistingProviders() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+
+		tokenStore.setRefreshRatio(0.5);
+
+		verify(provider).setRefreshRatio(0.5);
+	}
+
+	@Test
+	void meterRegistryAppliesToExistingProviders() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+		final var meterRegistry = new SimpleMeterRegistry();
+
+		tokenStore.setMeterRegistry(meterRegistry);
+
+		verify(provider).setMeterRegistry(meterRegistry);
+	}
+
+	@Test
+	void separatesProvidersByClientSecret() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+		final var rotated = ClientRegistration.withClientRegistration(clientRegistration("test", Set.of("scope1"))).clientSecret("rotated").build();
+
+		assertThat(tokenStore.getProvider(rotated)).isNotSameAs(provider);
+		assertThat(created).hasSize(2);
+	}
+
+	@Test
+	void clearRemovesProviders() {
+		final var provider = tokenStore.getProvider(clientRegistration("test", Set.of("scope1")));
+
+		tokenStore.clear();
+
+		assertThat(tokenStore.getProviders()).isEmpty();
+		assertThat(tokenStore.getProvider(clientRegistration("test", Set.of("scope1")))).isNotSameAs(provider);
+	}
+
+	@Test
+	void rejectsInvalidRefreshRatio() {
+		assertThatIllegalArgumentException()
+			.isThrownBy(() -> tokenStore.setRefreshRatio(1.5))
+			.withMessage("refreshRatio must be greater than 0 and at most 1");
+	}
+
+	@Test
+	void sharedStoreCreatesProviders() {
+		final var clientRegistration = clientRegistration("shared", Set.of("scope1"));
+
+		try {
+			final var provider = TokenStore.getShared().getProvider(clientRegistration);
+
+			assertThat(provider.getClientRegistration()).isSameAs(clientRegistration);
+			assertThat(TokenStore.getShared().getProviders()).containsExactly(provider);
+		} finally {
+			TokenStore.getShared().clear();
+		}
+	}
+
+	private static ClientRegistration clientRegistration(final String registrationId, final Set<String> scopes) {
+		return ClientRegistration.withRegistrationId(registrationId)
+			.tokenUri("http://localhost/token")
+			.clientId("clientId")
+			.clientSecret("secret")
+			.scope(scopes)
+			.authorizationGrantType(AuthorizationGrantType.CLIENT_CREDENTIALS)
+			.build();
+	}
+}
@@ -0,0 +1,83 @@
+package se.sundsvall.dept44.problem;
+
+import com.github.benmanes.caffeine.cache.Scheduler;
+import java.net.SocketTimeoutException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static se.sundsvall.dept44.problem.LogDeduplicator.SUPPRESSED;
+
+class LogDeduplicatorTest {
+
+	private static final Duration WINDOW = Duration.ofSeconds(60);
+
+	private final AtomicLong nanos = new AtomicLong(1_000_000_000L);
+	private final Logger logger = mock(Logger.class);
+	private final LogDeduplicator deduplicator = new LogDeduplicator(WINDOW, logger, nanos::get, Scheduler.disabledScheduler());
+
+	@Test
+	void firstOccurrenceIsLogged() {
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isZero();
+	}
+
+	@Test
+	void identicalOccurrencesWithinWindowAreSuppressed() {
+		deduplicator.record(RuntimeException.class, "Internal Server Error", null);
+
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isEqualTo(SUPPRESSED);
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isEqualTo(SUPPRESSED);
+	}
+
+	@Test
+	void nextWindowCarriesSuppressedCount() {
+		deduplicator.record(RuntimeException.class, "Internal Server Error", null);
+		nanos.addAndGet(WINDOW.toNanos() / 2);
+		deduplicator.record(RuntimeException.class, "Internal Server Error", null);
+		deduplicator.record(RuntimeException.class, "Internal Server Error", null);
+
+		nanos.addAndGet(WINDOW.toNanos() / 2);
+
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isEqualTo(2);
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isEqualTo(SUPPRESSED);
+	}
+
+	@Test
+	void differentEventsAreTrackedSeparately() {
+		assertThat(deduplicator.record(RuntimeException.class, "Internal Server Error", null)).isZero();
+		assertThat(deduplicator.record(SocketTimeoutException.class, "Internal Server Error", null)).isZero();
+		assertThat(deduplicator.record(RuntimeException.class, "Service Unavailable", null)).isZero();
+		assertThat(deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore")).isZero();
+		assertThat(deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore")).isEqualTo(SUPPRESSED);
+	}
+
+	@Test
+	void expiredEventLogsSummaryOfSuppressedOccurrences() {
+		deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore");
+		deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore");
+		deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore");
+
+		nanos.addAndGet(WINDOW.toNanos() + 1);
+		deduplicator.cleanUp();
+
+		verify(logger).warn(anyString(), eq("Service Unavailable"), eq(RuntimeException.class.getName()), eq("petstore"), eq(2L), eq(WINDOW));
+		assertThat(deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore")).isZero();
+	}
+
+	@Test
+	void expiredEventWithoutSuppressedOccurrencesLogsNothing() {
+		deduplicator.record(RuntimeException.class, "Service Unavailable", "petstore");
+
+		nanos.addAndGet(WINDOW.toNanos() + 1);
+		deduplicator.cleanUp();
+
+		verifyNoInteractions(logger);
+	}
+}
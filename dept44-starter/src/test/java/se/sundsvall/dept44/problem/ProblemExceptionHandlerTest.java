@@ -4,14 +4,18 @@ import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.spi.ILoggingEvent;
 import ch.qos.logback.core.read.ListAppender;
+import com.github.benmanes.caffeine.cache.Scheduler;
 import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.ConstraintViolation;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Path;
 import java.net.SocketTimeoutException;
+import java.time.Duration;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -52,7 +56,9 @@ import org.springframework.web.servlet.resource.NoResourceFoundException;
 import se.sundsvall.dept44.problem.violations.ConstraintViolationProblem;
 import se.sundsvall.dept44.problem.violations.ConstraintViolationProblemResponse;
 import se.sundsvall.dept44.problem.violations.Violation;
+import tools.jackson.databind.json.JsonMapper;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.groups.Tuple.tuple;
 import static org.mockito.Mockito.mock;
@@ -256,6 +262,48 @@ class ProblemExceptionHandlerTest {
 		assertThat(body.getDetail()).isEqualTo("Resource not found");
 	}
 
+	@Test
+	void handleCachedProblemWithPrecomputedBody() {
+		final var problem = Problem.cached(NOT_FOUND, "Resource not found");
+		final var cachingHandler = new ProblemExceptionHandler();
+		cachingHandler.setJsonMapper(JsonMapper.builder().build());
+
+		final var response = cachingHandler.handleExceptionInternal(problem, null, new HttpHeaders(), HttpStatusCode.valueOf(404), webRequest);
+		final var secondResponse = cachingHandler.handleExceptionInternal(Problem.cached(NOT_FOUND, "Resource not found"), null, new HttpHeaders(), HttpStatusCode.valueOf(404), webRequest);
+
+		assertThat(response.getStatusCode()).isEqualTo(NOT_FOUND);
+		assertThat(response.getHeaders().getContentType()).isEqualTo(APPLICATION_PROBLEM_JSON);
+		assertThat(response.getBody()).isInstanceOf(byte[].class);
+		assertThat(new String((byte[]) response.getBody(), UTF_8))
+			.contains("\"title\":\"Not Found\"", "\"status\":404", "\"detail\":\"Resource not found\"");
+		assertThat(secondResponse.getBody()).isSameAs(response.getBody());
+	}
+
+	@Test
+	void stacklessClientErrorsApplyWhileHandlerIsActive() {
+		final var stacklessHandler = new ProblemExceptionHandler();
+		stacklessHandler.setStacklessClientErrors(true);
+		try {
+			stacklessHandler.afterPropertiesSet();
+
+			assertThat(Problem.valueOf(NOT_FOUND).getStackTrace()).isEmpty();
+			assertThat(Problem.valueOf(INTERNAL_SERVER_ERROR).getStackTrace()).isNotEmpty();
+		} finally {
+			stacklessHandler.destroy();
+		}
+
+		assertThat(Problem.valueOf(NOT_FOUND).getStackTrace()).isNotEmpty();
+	}
+
+	@Test
+	void handleCachedProblemWithoutJsonMapper() {
+		final var problem = Problem.cached(NOT_FOUND, "Resource not found");
+
+		final var response = handler.handleExceptionInternal(problem, null, new HttpHeaders(), HttpStatusCode.valueOf(404), webRequest);
+
+		assertThat(response.getBody()).isInstanceOf(ProblemResponse.class);
+	}
+
 	@Test
 	void handleThrowableProblemWithNullStatus() {
 		final var problem = new ThrowableProblem(null, "Error", (HttpStatus) null, "Something went wrong", null);
@@ -840,6 +888,82 @@ class ProblemExceptionHandlerTest {
 		assertMdcCleared();
 	}
 
+	@Test
+	void repeatedCallNotPermittedExceptionsAreLoggedOnce() {
+		final var exception = mock(CallNotPermittedException.class);
+		when(exception.getCausingCircuitBreakerName()).thenReturn("petstore");
+
+		for (var i = 0; i < 100; i++) {
+			handler.handleCallNotPermittedException(exception, httpServletRequest);
+		}
+
+		assertThat(appender.list).hasSize(1);
+		assertThat(appender.list.getFirst().getMDCPropertyMap()).doesNotContainKey("suppressedOccurrences");
+	}
+
+	@Test
+	void repeatedExceptionsAreLoggedWithSuppressedOccurrencesInNextWindow() {
+		final var nanos = new AtomicLong();
+		final var window = Duration.ofSeconds(60);
+		handler.setLogDeduplicator(new LogDeduplicator(window, LoggerFactory.getLogger(ProblemExceptionHandler.class), nanos::get, Scheduler.disabledScheduler()));
+
+		handler.handleException(new RuntimeException("boom"), httpServletRequest);
+		nanos.addAndGet(window.toNanos() / 2);
+		handler.handleException(new RuntimeException("boom"), httpServletRequest);
+		handler.handleException(new RuntimeException("boom"), httpServletRequest);
+		nanos.addAndGet(window.toNanos() / 2);
+		handler.handleException(new RuntimeException("boom"), httpServletRequest);
+
+		assertThat(appender.list).hasSize(2).allSatisfy(event -> assertThat(event.getThrowableProxy()).isNotNull());
+		assertThat(appender.list.getFirst().getMDCPropertyMap()).doesNotContainKey("suppressedOccurrences");
+		assertThat(appender.list.getLast().getMDCPropertyMap()).containsEntry("suppressedOccurrences", "2");
+		assertThat(MDC.get("suppressedOccurrences")).isNull();
+	}
+
+	@Test
+	void handleCallNotPermittedExceptionRecordsProblemMetric() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		handler.setProblemMetrics(new ProblemMetrics(meterRegistry, true));
+		final var exception = mock(CallNotPermittedException.class);
+		when(exception.getCausingCircuitBreakerName()).thenReturn("petstore");
+
+		handler.handleCallNotPermittedException(exception, httpServletRequest);
+
+		assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS)
+			.tag("source", ProblemMetrics.SOURCE_SERVER)
+			.tag("status", "503")
+			.tag("title", "Service Unavailable")
+			.tag("integration", "petstore")
+			.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void handleExceptionInternalRecordsProblemMetric() {
+		final var meterRegistry = new SimpleMeterRegistry();
+		handler.setProblemMetrics(new ProblemMetrics(meterRegistry, true));
+
+		handler.handleExceptionInternal(Problem.valueOf(NOT_FOUND, "Not here"), null, new HttpHeaders(), HttpStatusCode.valueOf(500), webRequest);
+
+		assertThat(meterRegistry.get(ProblemMetrics.PROBLEMS)
+			.tag("source", ProblemMetrics.SOURCE_SERVER)
+			.tag("status", "404")
+			.tag("title", "Not Found")
+			.tag("integration", "none")
+			.tag("exception", "ThrowableProblem")
+			.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void zeroDeduplicationWindowLogsEveryException() {
+		handler.setLogDeduplicationWindow(Duration.ZERO);
+
+		for (var i = 0; i < 3; i++) {
+			handler.handleException(new RuntimeException("boom"), httpServletRequest);
+		}
+
+		assertThat(appender.list).hasSize(3);
+	}
+
 	private ILoggingEvent eventOf(final String messageFragment) {
 		return appender.list.stream()
 			.filter(event -> event.getFormattedMessage().contains(messageFragment))
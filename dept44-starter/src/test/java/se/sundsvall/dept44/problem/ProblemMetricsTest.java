@@ -0,0 +1,95 @@
+package se.sundsvall.dept44.problem;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.net.SocketTimeoutException;
+import java.util.stream.IntStream;
+import org.junit.jupiter.api.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.http.HttpStatus.BAD_GATEWAY;
+import static org.springframework.http.HttpStatus.GATEWAY_TIMEOUT;
+import static se.sundsvall.dept44.problem.ProblemMetrics.DECODE;
+import static se.sundsvall.dept44.problem.ProblemMetrics.MAX_TAG_VALUES;
+import static se.sundsvall.dept44.problem.ProblemMetrics.PROBLEMS;
+import static se.sundsvall.dept44.problem.ProblemMetrics.SOURCE_FEIGN;
+import static se.sundsvall.dept44.problem.ProblemMetrics.SOURCE_SERVER;
+
+class ProblemMetricsTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final ProblemMetrics problemMetrics = new ProblemMetrics(meterRegistry, true);
+
+	@Test
+	void recordProblem() {
+		problemMetrics.recordProblem(SOURCE_SERVER, GATEWAY_TIMEOUT, "Gateway Timeout", "petstore", SocketTimeoutException.class);
+		problemMetrics.recordProblem(SOURCE_SERVER, GATEWAY_TIMEOUT, "Gateway Timeout", "petstore", SocketTimeoutException.class);
+
+		assertThat(meterRegistry.get(PROBLEMS)
+			.tag("source", SOURCE_SERVER)
+			.tag("status", "504")
+			.tag("title", "Gateway Timeout")
+			.tag("integration", "petstore")
+			.tag("exception", "SocketTimeoutException")
+			.counter().count()).isEqualTo(2);
+	}
+
+	@Test
+	void recordProblemWithMissingValues() {
+		problemMetrics.recordProblem(SOURCE_SERVER, null, null, " ", null);
+
+		assertThat(meterRegistry.get(PROBLEMS)
+			.tag("status", "none")
+			.tag("title", "none")
+			.tag("integration", "none")
+			.tag("exception", "none")
+			.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void recordDecode() {
+		problemMetrics.recordDecode(SOURCE_FEIGN, "petstore", 500, MILLISECONDS.toNanos(5));
+
+		final var timer = meterRegistry.get(DECODE)
+			.tag("source", SOURCE_FEIGN)
+			.tag("integration", "petstore")
+			.tag("status", "500")
+			.timer();
+		assertThat(timer.count()).isEqualTo(1);
+		assertThat(timer.totalTime(MILLISECONDS)).isEqualTo(5);
+	}
+
+	@Test
+	void disabled() {
+		final var disabled = new ProblemMetrics(meterRegistry, false);
+
+		disabled.recordProblem(SOURCE_FEIGN, BAD_GATEWAY, "Bad Gateway", "petstore", ThrowableProblem.class);
+		disabled.recordDecode(SOURCE_FEIGN, "petstore", 500, 1);
+
+		assertThat(meterRegistry.getMeters()).isEmpty();
+	}
+
+	@Test
+	void reusesMeterPerTagSet() {
+		problemMetrics.recordProblem(SOURCE_SERVER, GATEWAY_TIMEOUT, "Gateway Timeout", "petstore", SocketTimeoutException.class);
+		final var counter = meterRegistry.get(PROBLEMS).counter();
+		meterRegistry.clear();
+
+		problemMetrics.recordProblem(SOURCE_SERVER, GATEWAY_TIMEOUT, "Gateway Timeout", "petstore", SocketTimeoutException.class);
+
+		// The cached counter is used without registering it again
+		assertThat(meterRegistry.getMeters()).isEmpty();
+		assertThat(counter.count()).isEqualTo(2);
+	}
+
+	@Test
+	void boundedTagValues() {
+		final var tagValues = new ProblemMetrics.BoundedTagValues();
+
+		IntStream.range(0, MAX_TAG_VALUES).forEach(i -> assertThat(tagValues.bound("title-" + i)).isEqualTo("title-" + i));
+
+		assertThat(tagValues.bound("title-0")).isEqualTo("title-0");
+		assertThat(tagValues.bound("one too many")).isEqualTo("other");
+		assertThat(tagValues.bound(null)).isEqualTo("none");
+	}
+}
@@ -5,9 +5,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.http.HttpStatus;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.springframework.http.HttpStatus.BAD_GATEWAY;
 import static org.springframework.http.HttpStatus.BAD_REQUEST;
 import static org.springframework.http.HttpStatus.INTERNAL_SERVER_ERROR;
+import static org.springframework.http.HttpStatus.NOT_FOUND;
 
 class ThrowableProblemTest {
 
@@ -96,4 +98,73 @@ class ThrowableProblemTest {
 
 		assertThat(problem.getCauseAsProblem()).isNull();
 	}
+
+	@Test
+	void hasStackTraceByDefault() {
+		assertThat(Problem.valueOf(NOT_FOUND, "Test").getStackTrace()).isNotEmpty();
+	}
+
+	@Test
+	void withoutStackTrace() {
+		final var problem = Problem.builder().withStatus(NOT_FOUND).withDetail("Test").withoutStackTrace().build();
+
+		assertThat(problem.getStackTrace()).isEmpty();
+		assertThat(problem.getMessage()).isEqualTo("Test");
+	}
+
+	@Test
+	void stacklessClientErrors() {
+		try {
+			ThrowableProblem.setStacklessClientErrors(true);
+
+			assertThat(Problem.valueOf(NOT_FOUND, "Test").getStackTrace()).isEmpty();
+			assertThat(Problem.valueOf(BAD_GATEWAY, "Test").getStackTrace()).isNotEmpty();
+			assertThat(new ThrowableProblem(null, "Title", (HttpStatus) null, "Detail", null).getStackTrace()).isNotEmpty();
+		} finally {
+			ThrowableProblem.setStacklessClientErrors(false);
+		}
+	}
+
+	@Test
+	void cachedProblemSharesBodyAndIsStackless() {
+		final var problem = Problem.cached(NOT_FOUND, "No pet found");
+		final var other = Problem.cached(NOT_FOUND, "No pet found");
+
+		assertThat(other).isNotSameAs(problem);
+		assertThat(other.getBody()).isSameAs(problem.getBody());
+		assertThat(Problem.cached(NOT_FOUND, "No cat found").getBody()).isNotSameAs(problem.getBody());
+		assertThat(problem.isCached()).isTrue();
+		assertThat(problem.getStackTrace()).isEmpty();
+		assertThat(problem.getStatus()).isEqualTo(NOT_FOUND);
+		assertThat(problem.getTitle()).isEqualTo("Not Found");
+		assertThat(problem.getDetail()).isEqualTo("No pet found");
+	}
+
+	@Test
+	void cachedProblemsDoNotShareSuppressedExceptions() {
+		final var problem = Problem.cached(NOT_FOUND, "No pet found");
+		problem.addSuppressed(new IllegalStateException());
+
+		assertThat(Problem.cached(NOT_FOUND, "No pet found").getSuppressed()).isEmpty();
+	}
+
+	@Test
+	void cachedProblemCanNotBeModified() {
+		final var problem = Problem.cached(NOT_FOUND, "No pet found");
+
+		assertThatThrownBy(() -> problem.setDetail("Other")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.setTitle("Other")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.setType(URI.create("https://example.com"))).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.setInstance(URI.create("https://example.com"))).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.getBody().setDetail("Other")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.getBody().setProperty("key", "value")).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> problem.getHeaders().add("X-Custom", "value")).isInstanceOf(UnsupportedOperationException.class);
+		assertThat(problem.getDetail()).isEqualTo("No pet found");
+		assertThat(problem.getHeaders().isEmpty()).isTrue();
+	}
+
+	@Test
+	void builtProblemIsNotCached() {
+		assertThat(Problem.valueOf(NOT_FOUND, "No pet found").isCached()).isFalse();
+	}
 }
@@ -0,0 +1,92 @@
+package se.sundsvall.dept44.reactive;
+
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import se.sundsvall.dept44.requestid.RequestId;
+import se.sundsvall.dept44.support.Identifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveRequestContextTest {
+
+	private static final Identifier IDENTIFIER = Identifier.parse("joe01doe; type=adAccount");
+
+	@AfterEach
+	void cleanUp() {
+		MDC.clear();
+		Identifier.remove();
+	}
+
+	@Test
+	void writeAndRead() {
+		final var context = ReactiveRequestContext.write(Context.empty(), "req-1", IDENTIFIER);
+
+		assertThat(ReactiveRequestContext.getRequestId(context)).hasValue("req-1");
+		assertThat(ReactiveRequestContext.getIdentifier(context)).hasValue(IDENTIFIER);
+	}
+
+	@Test
+	void writeSkipsNullValues() {
+		final var context = ReactiveRequestContext.write(Context.empty(), null, null);
+
+		assertThat(context.isEmpty()).isTrue();
+	}
+
+	@Test
+	void withMdcAppliesAndRestoresThreadLocals() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "previous");
+		final var observedRequestId = new AtomicReference<String>();
+		final var observedIdentifier = new AtomicReference<Identifier>();
+
+		ReactiveRequestContext.withMdc(ReactiveRequestContext.write(Context.empty(), "req-1", IDENTIFIER), () -> {
+			observedRequestId.set(MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+			observedIdentifier.set(Identifier.get());
+		});
+
+		assertThat(observedRequestId).hasValue("req-1");
+		assertThat(observedIdentifier).hasValue(IDENTIFIER);
+		assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isEqualTo("previous");
+		assertThat(Identifier.get()).isNull();
+		assertThat(MDC.get(Identifier.MDC_SENT_BY_KEY)).isNull();
+	}
+
+	@Test
+	void withMdcClearsValuesMissingInContext() {
+		MDC.put(RequestId.MDC_REQUEST_ID_KEY, "previous");
+
+		final var observed = ReactiveRequestContext.withMdc(Context.empty(), () -> MDC.get(RequestId.MDC_REQUEST_ID_KEY));
+
+		assertThat(observed).isNull();
+		assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isEqualTo("previous");
+	}
+
+	@Test
+	void logOnNext() {
+		final var observed = new AtomicReference<String>();
+
+		Mono.just("value")
+			.doOnEach(ReactiveRequestContext.<String>logOnNext(value -> observed.set(value + ":" + MDC.get(RequestId.MDC_REQUEST_ID_KEY))))
+			.contextWrite(context -> ReactiveRequestContext.write(context, "req-1", null))
+			.block();
+
+		assertThat(observed).hasValue("value:req-1");
+		assertThat(MDC.get(RequestId.MDC_REQUEST_ID_KEY)).isNull();
+	}
+
+	@Test
+	void logOnError() {
+		final var observed = new AtomicReference<String>();
+
+		Mono.error(new IllegalStateException("boom"))
+			.doOnEach(ReactiveRequestContext.logOnError(throwable -> observed.set(throwable.getMessage() + ":" + MDC.get(RequestId.MDC_REQUEST_ID_KEY))))
+			.contextWrite(context -> ReactiveRequestContext.write(context, "req-1", null))
+			.onErrorResume(_ -> Mono.empty())
+			.block();
+
+		assertThat(observed).hasValue("boom:req-1");
+	}
+}
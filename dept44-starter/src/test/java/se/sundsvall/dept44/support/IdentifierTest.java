@@ -72,6 +72,22 @@ class IdentifierTest {
 		assertThat(MDC.get(Identifier.MDC_SENT_BY_TYPE_KEY)).isNull();
 	}
 
+	@Test
+	void restoreDoesNotTouchMdc() {
+		final var identifier = Identifier.create().withType(AD_ACCOUNT).withValue("joe01doe");
+
+		Identifier.restore(identifier);
+
+		assertThat(Identifier.get()).isEqualTo(identifier);
+		assertThat(MDC.get(Identifier.MDC_SENT_BY_KEY)).isNull();
+
+		MDC.put(Identifier.MDC_SENT_BY_KEY, "joe01doe");
+		Identifier.restore(null);
+
+		assertThat(Identifier.get()).isNull();
+		assertThat(MDC.get(Identifier.MDC_SENT_BY_KEY)).isEqualTo("joe01doe");
+	}
+
 	@Test
 	void mdcValuesAreIncludedInLogEvents() {
 		final var logger = (Logger) LoggerFactory.getLogger(IdentifierTest.class);